@@ -26,7 +26,7 @@ public class ImportBIMDataAction extends JosmAction {
     @Override
     public void actionPerformed(ActionEvent arg0) {
         JFileChooser fc = new JFileChooser();
-        FileNameExtensionFilter filter = new FileNameExtensionFilter("IFC", "ifc");
+        FileNameExtensionFilter filter = new FileNameExtensionFilter("IFC (*.ifc, *.ifczip, *.ifc.gz)", "ifc", "ifczip", "gz");
         fc.setFileFilter(filter);
         int returnVal = fc.showOpenDialog(MainApplication.getMainFrame());
         if (returnVal == JFileChooser.APPROVE_OPTION) {
@@ -11,6 +11,8 @@ import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MainMenu;
 import org.openstreetmap.josm.gui.MapFrame;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.gui.widgets.JMultilineLabel;
 import org.openstreetmap.josm.gui.widgets.UrlLabel;
 import org.openstreetmap.josm.spi.preferences.Config;
@@ -43,6 +45,7 @@ public class ImportDataController implements ImportEventListener {
 
     private final ImportDataModel model;
     private String importedFilepath;
+    private OsmDataLayer importLayer;
     private final String pluginDir = Preferences.main().getPluginsDirectory().toString();
 
     private JFrame progressFrame;
@@ -86,28 +89,62 @@ public class ImportDataController implements ImportEventListener {
     private void importBIMData(String filepath) {
         addInfoLabel();
         importedFilepath = filepath;
+        importLayer = null;
         initProgressProcess();
-        progressFrame.setVisible(true);
+        JFrame frame = progressFrame;
+        frame.setVisible(true);
         new Thread(() -> {
-            new BIMtoOSMParser(this, pluginDir + "/indoorhelper/").parse(importedFilepath);
-            progressFrame.setVisible(false);
+            try {
+                new BIMtoOSMParser(this, pluginDir + "/indoorhelper/").parse(importedFilepath);
+            } finally {
+                GuiHelper.runInEDT(() -> frame.setVisible(false));
+            }
         }).start();
     }
 
     @Override
-    public void onDataParsed(DataSet ds) {
-        model.setImportData(ds);
+    public void onDataChunk(int level, DataSet ds) {
+        // called by parser thread, layers are only created and modified on EDT
+        GuiHelper.runInEDTAndWait(() -> {
+            // first chunk creates import layer, following chunks are merged into it
+            if (importLayer == null) {
+                importLayer = ImportDataRenderer.renderDataOnNewLayer(ds, getLayerName());
+                model.setImportData(ds);
+            } else {
+                ImportDataRenderer.renderDataOnLayer(ds, importLayer);
+            }
+        });
+    }
+
+    @Override
+    public void onDataParsed() {
+        GuiHelper.runInEDTAndWait(() -> {
+            if (importLayer == null) {
+                // nothing parsed, show empty layer anyway
+                DataSet ds = new DataSet();
+                model.setImportData(ds);
+                ImportDataRenderer.renderDataOnNewLayer(ds, getLayerName());
+            }
+            importLayer = null;
+        });
+    }
+
+    /**
+     * @return name of layer showing data of imported file
+     */
+    private String getLayerName() {
         String layerName = String.format("BIMObject%2d", MainApplication.getLayerManager().getLayers().size());
         if (importedFilepath != null) {
             String[] parts = importedFilepath.split(File.separator.equals("\\") ? "\\\\" : "/");
             layerName = parts[parts.length - 1];
         }
-        ImportDataRenderer.renderDataOnNewLayer(ds, layerName);
+        return layerName;
     }
 
     @Override
     public void onProcessStatusChanged(String statusMsg) {
-        progressBar.setString(statusMsg);
+        JProgressBar bar = progressBar;
+        GuiHelper.runInEDT(() -> bar.setString(statusMsg));
     }
 
     /**
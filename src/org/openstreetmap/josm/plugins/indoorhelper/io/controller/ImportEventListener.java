@@ -16,11 +16,18 @@ public interface ImportEventListener {
     void onBIMImport(String filepath);
 
     /**
-     * Will be called after parsing finished
+     * Will be called when the data of a level is parsed. Levels are delivered in ascending order,
+     * the chunks of all levels make up the parsed data.
      *
-     * @param ds Parsed data kept in DataSet
+     * @param level of parsed data
+     * @param ds    Parsed data of level kept in DataSet
      */
-    void onDataParsed(DataSet ds);
+    void onDataChunk(int level, DataSet ds);
+
+    /**
+     * Will be called after parsing finished and the last chunk was delivered
+     */
+    void onDataParsed();
 
     /**
      * Will be called on parsing status changed to update
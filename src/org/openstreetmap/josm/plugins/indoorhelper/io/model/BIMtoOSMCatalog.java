@@ -101,6 +101,64 @@ public class BIMtoOSMCatalog {
         return ifcSiteTags;
     }
 
+    /**
+     * Returns entity types the importer reads directly from a model. All types needed to import a file are reachable
+     * from these types.
+     *
+     * @return List of entity type names
+     */
+    public static List<String> getImportRootTags() {
+        ArrayList<String> rootTags = new ArrayList<>();
+        for (BIMObject object : BIMObject.values()) {
+            rootTags.add(object.toString());
+        }
+        rootTags.add("IfcProject");
+        rootTags.add("IfcUnitAssignment");
+        rootTags.add("IfcRelContainedInSpatialStructure");
+        rootTags.add("IfcRelAggregates");
+        rootTags.add("IfcRelFillsElement");
+        rootTags.add("IfcSpatialStructureElement");
+        rootTags.add("IfcOpeningElement");
+        return rootTags;
+    }
+
+    /**
+     * Returns entity types which are imported, but whose references are not needed. Relationships reference
+     * elements of all kinds, the importer only follows them to elements it reads anyway.
+     *
+     * @return List of entity type names
+     */
+    public static List<String> getImportTerminalTags() {
+        ArrayList<String> terminalTags = new ArrayList<>();
+        terminalTags.add("IfcRelationship");
+        return terminalTags;
+    }
+
+    /**
+     * Returns entity types holding metadata which is never imported
+     *
+     * @return List of entity type names
+     */
+    public static List<String> getImportExcludedTags() {
+        ArrayList<String> excludedTags = new ArrayList<>();
+        excludedTags.add("IfcOwnerHistory");
+        excludedTags.add("IfcPropertyDefinition");
+        excludedTags.add("IfcStyledItem");
+        excludedTags.add("IfcPresentationLayerAssignment");
+        return excludedTags;
+    }
+
+    /**
+     * Returns attributes which are never followed during import
+     *
+     * @return List of attribute names
+     */
+    public static List<String> getImportIgnoredAttributes() {
+        ArrayList<String> ignoredAttributes = new ArrayList<>();
+        ignoredAttributes.add("OwnerHistory");
+        return ignoredAttributes;
+    }
+
     /**
      * Relevant BIM objects
      *
@@ -0,0 +1,158 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.optimizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Input stream removing STEP block comments while reading the underlying channel.
+ * Comments may span several lines. Comment markers inside quoted STEP strings are kept.
+ */
+public class CommentStrippingInputStream extends InputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * States of the comment stripping state machine
+     */
+    private enum State {
+        DEFAULT,
+        SLASH,          // read '/', might be start of a comment
+        COMMENT,
+        COMMENT_STAR,   // read '*' inside comment, might be end of comment
+        STRING
+    }
+
+    private final ReadableByteChannel channel;
+    private final byte[] data;
+    private final ByteBuffer buffer;
+    // target of single byte reads
+    private final byte[] single = new byte[1];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private State state = State.DEFAULT;
+
+    /**
+     * Constructor
+     *
+     * @param channel to read from
+     */
+    public CommentStrippingInputStream(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param channel    to read from
+     * @param bufferSize size of read buffer in bytes
+     */
+    public CommentStrippingInputStream(ReadableByteChannel channel, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("invalid argument value of bufferSize: " + bufferSize);
+        }
+        this.channel = channel;
+        data = new byte[bufferSize];
+        buffer = ByteBuffer.wrap(data);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+
+        int count = 0;
+        while (count < len) {
+            if (position == limit && !fill()) {
+                // a single slash at the end of input is no comment
+                if (state == State.SLASH) {
+                    b[off + count++] = '/';
+                    state = State.DEFAULT;
+                }
+                break;
+            }
+            byte c = data[position];
+            switch (state) {
+                case DEFAULT:
+                    position++;
+                    if (c == '/') {
+                        state = State.SLASH;
+                    } else {
+                        if (c == '\'') state = State.STRING;
+                        b[off + count++] = c;
+                    }
+                    break;
+                case SLASH:
+                    if (c == '*') {
+                        position++;
+                        state = State.COMMENT;
+                    } else {
+                        // emit held slash, current byte is processed again in default state
+                        b[off + count++] = '/';
+                        state = State.DEFAULT;
+                    }
+                    break;
+                case COMMENT:
+                    position++;
+                    if (c == '*') state = State.COMMENT_STAR;
+                    break;
+                case COMMENT_STAR:
+                    position++;
+                    if (c == '/') state = State.DEFAULT;
+                    else if (c != '*') state = State.COMMENT;
+                    break;
+                case STRING:
+                    position++;
+                    // escaped apostrophes ('') close and reopen the string
+                    if (c == '\'') state = State.DEFAULT;
+                    b[off + count++] = c;
+                    break;
+                default:
+                    throw new IllegalStateException(state.name());
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Refills the read buffer from channel
+     *
+     * @return true if new data available, false on end of input
+     * @throws IOException if reading channel fails
+     */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            position = limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
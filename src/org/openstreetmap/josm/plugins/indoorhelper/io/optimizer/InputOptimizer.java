@@ -1,11 +1,14 @@
 // License: AGPL. For details, see LICENSE file.
 package org.openstreetmap.josm.plugins.indoorhelper.io.optimizer;
 
-import org.openstreetmap.josm.tools.Logging;
-
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Class providing methods to optimize IFC files before loading them
@@ -13,50 +16,31 @@ import java.util.Scanner;
 public class InputOptimizer {
 
     /**
-     * Optimizes an ifc file following the given config parameters
+     * Opens an ifc file as stream which is optimized on the fly following the given config parameters.
+     * The file is not copied, optimizations are applied while reading the stream.
      *
+     * @param config      describes the optimization
      * @param ifcFilepath to file to optimize
-     * @return optimized file as {@link File}
-     * @throws IOException
+     * @return optimized file content as {@link InputStream}
+     * @throws IOException if file can not be opened
      */
-    public static File optimizeIfcFile(Configuration config, String ifcFilepath) throws IOException {
-        // TODO Maybe find a better way than creating a temporary file...
-        File tempFile = File.createTempFile(getFileName(ifcFilepath) + "_optimized", ".ifc");
-        tempFile.deleteOnExit();
-
-        if (config.REMOVE_BLOCK_COMMENTS) {
-            StringBuilder optimizedInput = new StringBuilder("");
-            try {
-                File file = new File(ifcFilepath);
-                Scanner reader = new Scanner(file, StandardCharsets.UTF_8.name());
-                while (reader.hasNextLine()) {
-                    optimizedInput.append(reader.nextLine().replaceAll("/\\*.*?\\*/", "")).append("\n");
-                }
-                reader.close();
-            } catch (FileNotFoundException e) {
-                Logging.error(e.getMessage());
-            }
-
-            try (FileWriter writer = new FileWriter(tempFile)) {
-                writer.write(String.valueOf(optimizedInput));
-            }
-        }
-        return tempFile;
+    public static InputStream openOptimizedStream(Configuration config, String ifcFilepath) throws IOException {
+        return openOptimizedStream(config, FileChannel.open(Paths.get(ifcFilepath), StandardOpenOption.READ));
     }
 
     /**
-     * Extracts the filename of path
+     * Wraps IFC content of a channel, e.g. of a decompressing stream, into a stream which is optimized on the fly
+     * following the given config parameters.
      *
-     * @param filepath to get name for
-     * @return file name without suffix or default string if no valid file name
+     * @param config  describes the optimization
+     * @param channel providing IFC file content, closed when returned stream is closed
+     * @return optimized content as {@link InputStream}
      */
-    private static String getFileName(String filepath) {
-        try {
-            String[] parts = filepath.split(File.separator.equals("\\") ? "\\\\" : "/");
-            return parts[parts.length - 1].split("\\.")[0];
-        } catch (NullPointerException e) {
-            return "indoorhelper_ifc_optimized";
+    public static InputStream openOptimizedStream(Configuration config, ReadableByteChannel channel) {
+        if (config.REMOVE_BLOCK_COMMENTS) {
+            return new CommentStrippingInputStream(channel);
         }
+        return new BufferedInputStream(Channels.newInputStream(channel));
     }
 
     /**
@@ -9,13 +9,17 @@ import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.InputOptimizer;
 import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.OutputOptimizer;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMDataCollection;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.cache.ImportCache;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.*;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BIMtoOSMUtility;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BrepFootprint;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.GeometryCache;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.IfcGeometryExtractor;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.IfcObjectIdentifier;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.PlacementCache;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.StoreyLevelResolver;
 import org.openstreetmap.josm.plugins.indoorhelper.model.TagCatalog;
-import nl.tue.buildingsmart.express.population.EntityInstance;
-import nl.tue.buildingsmart.express.population.ModelPopulation;
 import org.openstreetmap.josm.data.Preferences;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
@@ -24,23 +28,23 @@ import org.openstreetmap.josm.data.osm.Tag;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.tools.Logging;
-import org.openstreetmap.josm.tools.Pair;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.prepareDoubleString;
-import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.stringVectorToVector3D;
+import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.toVector3D;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 /**
@@ -48,26 +52,28 @@ import static org.openstreetmap.josm.tools.I18n.tr;
  */
 public class BIMtoOSMParser {
 
-    private static final String FLAG_IFC2X3_TC1 = "FILE_SCHEMA(('IFC2X3_TC1'))";
-    private static final String FLAG_IFC2X3 = "FILE_SCHEMA(('IFC2X3'))";
-    private static final String FLAG_IFC4 = "FILE_SCHEMA(('IFC4'))";
-    private static final String IFC2X3_TC1_SCHEMA = "IFC2X3_TC1.exp";
-    private static final String IFC4_SCHEMA = "IFC4.exp";
     private final String resourcePathDir;
     private String ifcSchemaFilePath;
+    private final ImportCache importCache;
 
     private final ImportEventListener importListener;
-    private FileInputStream inputFs = null;
 
-    private ModelPopulation ifcModel;
+    private IfcModel ifcModel;
     private final TagCatalog tagCatalog;
     private IfcUnitCatalog.LengthUnit lengthUnit;
 
     private static final int DEFAULT_LEVEL = 999;
+    /** storeys with elevations differing less than this value in m are put on the same level */
+    private static final double LEVEL_ELEVATION_TOLERANCE = 0.1;
+    /** maximum number of objects waiting between two import stages */
+    private static final int PIPELINE_QUEUE_CAPACITY = 256;
+    /** number of products transformed before their objects are passed on */
+    private static final int EXTRACTION_BATCH_SIZE = 512;
 
     // configuration parameters
     private BIMtoOSMUtility.GeometrySolution solutionType;
-    private boolean optimizeInputFile;
+    private BrepFootprint.Configuration footprintConfig;
+    private IfcModelLoader.Configuration loaderConfig;
     private InputOptimizer.Configuration optimizeInputConfig;
     private boolean optimizeOutput;
     private OutputOptimizer.Configuration optimizeOutputConfig;
@@ -84,13 +90,18 @@ public class BIMtoOSMParser {
         }
         importListener = listener;
 
+        Path cacheDir;
         if (pluginDirectory == null) {
             resourcePathDir = Preferences.main().getPluginsDirectory().toString() + "/indoorhelper/resources";
+            cacheDir = Paths.get(Preferences.main().getPluginsDirectory().toString(), "indoorhelper", "cache");
         } else {
             resourcePathDir = pluginDirectory + "/resources/";
+            cacheDir = Paths.get(pluginDirectory, "cache");
         }
+        importCache = new ImportCache(cacheDir);
+        SchemaRegistry.setCacheDirectory(cacheDir.resolve("schema"));
 
-        ifcSchemaFilePath = resourcePathDir + IFC2X3_TC1_SCHEMA;
+        ifcSchemaFilePath = resourcePathDir + IfcSchema.IFC2X3.getSchemaFile();
         tagCatalog = new TagCatalog();
         lengthUnit = IfcUnitCatalog.LengthUnit.M;
         applyDefaultConfiguration();
@@ -101,6 +112,9 @@ public class BIMtoOSMParser {
      */
     private void applyDefaultConfiguration() {
         configure(BIMtoOSMUtility.GeometrySolution.BOUNDING_BOX,
+                // default: cut breps 1 m above storey elevation
+                new BrepFootprint.Configuration(BrepFootprint.Mode.CUT_PLANE, 1.0),
+                new IfcModelLoader.Configuration(IfcModelLoader.Backend.STEP, Runtime.getRuntime().availableProcessors(), true),
                 new InputOptimizer.Configuration(true),
                 // default: merge overlapping nodes only (distance < 0.01)
                 new OutputOptimizer.Configuration(true, 0.01));
@@ -111,11 +125,15 @@ public class BIMtoOSMParser {
      *
      * @param solution             type of parsed data. {@link BIMtoOSMUtility.GeometrySolution} represents
      *                             precision of parsed data
+     * @param footprintConfig      describes geometry extracted from boundary representations of body
+     * @param loaderConfig         describes how IFC file is loaded
      * @param optimizeInputConfig  not null if IFC file should be pre-optimized, else null
      * @param optimizeOutputConfig not null if OSM output should be optimized, else null
      * @return true if config set successfully, else false
      */
     public boolean configure(BIMtoOSMUtility.GeometrySolution solution,
+                             BrepFootprint.Configuration footprintConfig,
+                             IfcModelLoader.Configuration loaderConfig,
                              InputOptimizer.Configuration optimizeInputConfig,
                              OutputOptimizer.Configuration optimizeOutputConfig) {
         if (solution == null) {
@@ -123,6 +141,16 @@ public class BIMtoOSMParser {
                     + ": Failed to set parser configuration. Solution equals null!");
             return false;
         }
+        if (footprintConfig == null || footprintConfig.MODE == null) {
+            Logging.info(BIMtoOSMParser.class.getName()
+                    + ": Failed to set parser configuration. footprintConfig equals null!");
+            return false;
+        }
+        if (loaderConfig == null) {
+            Logging.info(BIMtoOSMParser.class.getName()
+                    + ": Failed to set parser configuration. loaderConfig equals null!");
+            return false;
+        }
         if (optimizeInputConfig == null) {
             Logging.info(BIMtoOSMParser.class.getName()
                     + ": Failed to set parser configuration. optimizeInputConfig equals null!");
@@ -138,7 +166,14 @@ public class BIMtoOSMParser {
         Logging.info(String.format("%s-ConfigurationReport: solution set to %s",
                 BIMtoOSMParser.class.getName(), solutionType.name()));
 
-        optimizeInputFile = optimizeInputConfig.REMOVE_BLOCK_COMMENTS;
+        this.footprintConfig = footprintConfig;
+        Logging.info(String.format("%s-ConfigurationReport: brep footprint set to %s; CutHeight set to %.2f m",
+                BIMtoOSMParser.class.getName(), footprintConfig.MODE.name(), footprintConfig.CUT_HEIGHT));
+
+        this.loaderConfig = loaderConfig;
+        Logging.info(String.format("%s-ConfigurationReport: loader backend set to %s using %d thread(s)",
+                BIMtoOSMParser.class.getName(), loaderConfig.BACKEND.name(), loaderConfig.PARALLELISM));
+
         this.optimizeInputConfig = optimizeInputConfig;
         Logging.info(String.format("%s-ConfigurationReport: optimizeInputFile %s; RemoveBlockCommands %s",
                 BIMtoOSMParser.class.getName(),
@@ -158,12 +193,96 @@ public class BIMtoOSMParser {
     }
 
     /**
-     * Method parses data from ifc file into OSM data
+     * Method parses data from ifc file into OSM data. Extraction, geodetic transformation and packing run as
+     * stages of an {@link ImportPipeline}, so objects are passed on one at a time instead of in bulk. Objects are
+     * extracted in ascending order of levels, the data of each level is passed to
+     * {@link ImportEventListener#onDataChunk} as soon as it is complete.
      *
      * @param filepath of ifc file
      */
     public boolean parse(String filepath) {
-        if (!loadFile(filepath)) return false;
+        // reuse data of previous import of unchanged file
+        ImportCache.Key cacheKey = getCacheKey(filepath);
+        ImportCache.Reader cachedData = cacheKey != null ? importCache.read(cacheKey) : null;
+        if (cachedData != null) {
+            Logging.info(this.getClass().getName() + ": " + filepath + " restored from import cache");
+            LevelChunkPacker packer = new LevelChunkPacker(this::packIntoOSMData, this::deliverChunk);
+            try {
+                importObjects(filepath, cachedData, cachedData.getBuildingOrigin(), cachedData.getExtractedObjectCount(),
+                        null, packer);
+                return true;
+            } catch (UncheckedIOException e) {
+                // cache entry is discarded by reader, extract data from file unless data has been passed on already
+                if (packer.getDeliveredChunkCount() > 0) throw e;
+                Logging.warn(this.getClass().getName() + ": " + filepath + " could not be restored from import cache: "
+                        + e.getMessage());
+            } finally {
+                cachedData.close();
+            }
+        }
+
+        BIMDataCollection rawFilteredData = loadImportData(filepath);
+        if (rawFilteredData == null) return false;
+        LatLon buildingOrigin = getLatLonBuildingOrigin(rawFilteredData.getIfcSite());
+        int extractedObjectCount = rawFilteredData.getSize();
+        ImportCache.Writer cacheWriter = cacheKey != null ? importCache.open(cacheKey, extractedObjectCount, buildingOrigin) : null;
+        try {
+            importObjects(filepath, output -> transformToBIMData(rawFilteredData, output), buildingOrigin,
+                    extractedObjectCount, cacheWriter, new LevelChunkPacker(this::packIntoOSMData, this::deliverChunk));
+        } finally {
+            if (cacheWriter != null) cacheWriter.close();
+        }
+        return true;
+    }
+
+    /**
+     * Transforms BIM objects to geodetic coordinates and packs them into OSM data level by level
+     *
+     * @param filepath             of ifc file
+     * @param source               producing BIM objects in cartesian coordinates ordered by level
+     * @param buildingOrigin       geodetic building origin
+     * @param extractedObjectCount number of BIM objects extracted from file, including not transformable ones
+     * @param cacheWriter          to store BIM objects in import cache or null if objects are not cached
+     * @param packer               packing and delivering OSM data
+     */
+    private void importObjects(String filepath, ImportPipeline.Source<BIMObject3D> source, LatLon buildingOrigin,
+                               int extractedObjectCount, ImportCache.Writer cacheWriter, LevelChunkPacker packer) {
+        ImportPipeline<BIMObject3D> pipeline = new ImportPipeline<>(PIPELINE_QUEUE_CAPACITY);
+        if (cacheWriter != null) {
+            pipeline.addStage("cache", object -> {
+                cacheWriter.add(object);
+                return object;
+            });
+        }
+        // transform building coordinates to WCS
+        pipeline.addStage("geodetic", object -> {
+            transformToGeodetic(buildingOrigin, object);
+            return object;
+        });
+
+        // pack parsed data into osm format, deliver it level by level
+        pipeline.run(source, packer);
+        packer.finish();
+        if (cacheWriter != null) cacheWriter.commit();
+
+        if (packer.getPackedObjectCount() != extractedObjectCount) {
+            showParsingErrorView(filepath, "Caution!\nImported data might include errors!", false);
+        }
+
+        // all chunks rendered
+        importListener.onDataParsed();
+
+        Logging.info(this.getClass().getName() + ": " + filepath + " parsed successfully");
+    }
+
+    /**
+     * Loads IFC file and collects the BIM objects to import
+     *
+     * @param filepath of ifc file
+     * @return BIM objects to import or null if file could not be loaded or lacks IfcSite
+     */
+    private BIMDataCollection loadImportData(String filepath) {
+        if (!loadFile(filepath)) return null;
 
         // get osm relevant data
         BIMDataCollection rawFilteredData = BIMtoOSMUtility.extractMajorBIMData(ifcModel);
@@ -171,33 +290,29 @@ public class BIMtoOSMParser {
         if (!checkForIFCSITE(rawFilteredData)) {
             showParsingErrorView(filepath, "Could not import IFC file.\nIFC " +
                     "file does not contain IFCSITE element.", true);
-            return false;
+            return null;
         }
 
-        // transform osm relevant data into BIMObject3D
-        ArrayList<BIMObject3D> preparedData = (ArrayList<BIMObject3D>) transformToBIMData(rawFilteredData);
-
-        // transform building coordinates to WCS
         setUnits();
-        LatLon llBuildingOrigin = getLatLonBuildingOrigin(rawFilteredData.getIfcSite());
-        transformToGeodetic(llBuildingOrigin, preparedData);
-
-        // pack parsed data into osm format
-        DataSet packedOSMData = packIntoOSMData(preparedData);
-        if (optimizeOutput) {
-            importListener.onProcessStatusChanged("optimizing data");
-            OutputOptimizer.optimize(optimizeOutputConfig, packedOSMData);
-        }
+        return rawFilteredData;
+    }
 
-        if (preparedData.size() != rawFilteredData.getSize()) {
-            showParsingErrorView(filepath, "Caution!\nImported data might include errors!", false);
+    /**
+     * Creates import cache key of file and current configuration
+     *
+     * @param filepath of ifc file
+     * @return cache key or null if file can not be read
+     */
+    private ImportCache.Key getCacheKey(String filepath) {
+        String configuration = solutionType.name() + "|" + footprintConfig.MODE.name() + "|" + footprintConfig.CUT_HEIGHT
+                + "|" + loaderConfig.BACKEND.name() + "|" + loaderConfig.FILTER_TYPES + "|"
+                + (optimizeInputConfig != null && optimizeInputConfig.REMOVE_BLOCK_COMMENTS);
+        try {
+            return ImportCache.Key.of(Paths.get(filepath), configuration);
+        } catch (IOException e) {
+            Logging.warn(this.getClass().getName() + ": could not create import cache key: " + e.getMessage());
+            return null;
         }
-
-        // trigger rendering
-        importListener.onDataParsed(packedOSMData);
-
-        Logging.info(this.getClass().getName() + ": " + filepath + " parsed successfully");
-        return true;
     }
 
     /**
@@ -208,87 +323,28 @@ public class BIMtoOSMParser {
      */
     private boolean loadFile(String filepath) {
         try {
-            // pre-optimize and load IFC file
-            File file;
-            if (optimizeInputFile) {
-                file = InputOptimizer.optimizeIfcFile(optimizeInputConfig, filepath);
-            } else {
-                file = new File(filepath);
-            }
-
-            inputFs = new FileInputStream(file);
-
             // find used IFC schema
-            String usedIfcSchema = chooseSchemaFile(file);
-            if (usedIfcSchema.isEmpty()) {
+            IfcSchema usedIfcSchema = IfcFileInput.readHeader(filepath).getSchema();
+            if (usedIfcSchema == null || !usedIfcSchema.isSupported()) {
                 showLoadingErrorView(filepath, "Could not load IFC file.\nIFC schema is not supported.");
                 return false;
             }
-            if (usedIfcSchema.equals(FLAG_IFC4)) {
-                ifcSchemaFilePath = resourcePathDir + IFC4_SCHEMA;
-            }
+            ifcSchemaFilePath = resourcePathDir + usedIfcSchema.getSchemaFile();
 
             // load IFC file data into model
-            ifcModel = new ModelPopulation(inputFs);
-            ifcModel.setSchemaFile(Paths.get(ifcSchemaFilePath));
-            ifcModel.load();
-
-            // if loading throws ParseException check if ifcModel is empty to recognize something went wrong
-            if (ifcModel.getInstances() == null) {
+            ifcModel = IfcModelLoader.load(loaderConfig, filepath, ifcSchemaFilePath, optimizeInputConfig);
+            if (ifcModel == null) {
                 showLoadingErrorView(filepath, "Could not load IFC file.");
                 return false;
             }
         } catch (IOException e) {
             Logging.error(e.getMessage());
             return false;
-        } finally {
-            if (inputFs != null) {
-                try {
-                    inputFs.close();
-                } catch (IOException ignored) {
-                    // do nothing
-                }
-            }
         }
         Logging.info(this.getClass().getName() + ": " + filepath + " loaded successfully");
         return true;
     }
 
-    /**
-     * Read the FILE_SCHEMA flag from ifc file and return used schema
-     *
-     * @param ifcFile (if necessary) optimized IFC file
-     * @return Used ifc file schema as string
-     */
-    private String chooseSchemaFile(File ifcFile) {
-        String schema = "";
-        try {
-            Scanner reader = new Scanner(ifcFile, StandardCharsets.UTF_8.name());
-            while (reader.hasNextLine()) {
-                String data = reader.nextLine();
-                data = data.replaceAll("\\s+", "");
-
-                // schema must be defined before this flag
-                if (data.contains("DATA;")) break;
-                // check if IFC2X3
-                if (data.contains(FLAG_IFC2X3_TC1) || data.contains(FLAG_IFC2X3)) {
-                    schema = FLAG_IFC2X3_TC1;
-                    break;
-                }
-                // check if IFC4
-                else if (data.contains(FLAG_IFC4)) {
-                    schema = FLAG_IFC4;
-                    break;
-                }
-            }
-            reader.close();
-        } catch (FileNotFoundException e) {
-            Logging.error(e.getMessage());
-        }
-
-        return schema;
-    }
-
     /**
      * Checks if IfcSite element exists in data
      *
@@ -305,181 +361,219 @@ public class BIMtoOSMParser {
     }
 
     /**
-     * Extracts the BIM object geometry and transform data to {@link BIMObject3D}
+     * Extracts the BIM object geometry and transform data to {@link BIMObject3D}. Products are grouped by level and
+     * transformed in batches starting with the lowest level, objects of a batch are passed on before the next batch
+     * is transformed.
      *
      * @param rawBIMData to transform
-     * @return transformed data for rendering
+     * @param output     receiving transformed data for rendering, ordered by level
      */
-    private List<BIMObject3D> transformToBIMData(BIMDataCollection rawBIMData) {
-        List<BIMObject3D> transformedData = new ArrayList<>();
-        List<BIMObject3D> slabs = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcSlab, rawBIMData.getAreaObjects());
-        List<BIMObject3D> walls = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcWall, rawBIMData.getWallObjects());
-        List<BIMObject3D> columns = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcColumn, rawBIMData.getColumnObjects());
-//        List<BIMObject3D> doors = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcDoor, rawBIMData.getDoorObjects());
-//        List<BIMObject3D> windows = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcWindow, rawBIMData.getWindowObjects());
-        List<BIMObject3D> stairs = BIMtoOSMUtility.transformBIMObjects(ifcModel, solutionType, BIMtoOSMCatalog.BIMObject.IfcStair, rawBIMData.getStairObjects());
-        transformedData.addAll(slabs);
-        transformedData.addAll(walls);
-        transformedData.addAll(columns);
-//        transformedData.addAll(doors);
-//        transformedData.addAll(windows);
-        transformedData.addAll(stairs);
-        return transformedData;
+    private void transformToBIMData(BIMDataCollection rawBIMData, Consumer<BIMObject3D> output) {
+        PlacementCache placements = new PlacementCache(getWorldTransform());
+        GeometryCache geometries = new GeometryCache();
+        StoreyLevelResolver levelResolver = new StoreyLevelResolver(ifcModel, getLevelElevationTolerance());
+
+        // group products by level, keeping order of object types within a level
+        TreeMap<Integer, Map<BIMtoOSMCatalog.BIMObject, List<IfcEntity>>> levels = new TreeMap<>();
+        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcSlab, rawBIMData.getAreaObjects());
+        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcWall, rawBIMData.getWallObjects());
+        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcColumn, rawBIMData.getColumnObjects());
+//        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcDoor, rawBIMData.getDoorObjects());
+//        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcWindow, rawBIMData.getWindowObjects());
+        groupByLevel(levels, levelResolver, BIMtoOSMCatalog.BIMObject.IfcStair, rawBIMData.getStairObjects());
+
+        // products are independent, transform them in parallel if model supports concurrent reads
+        ForkJoinPool pool = loaderConfig.PARALLELISM > 1 && ifcModel.isThreadSafe() ? new ForkJoinPool(loaderConfig.PARALLELISM) : null;
+        try {
+            levels.forEach((level, levelObjects) -> levelObjects.forEach((objectType, bimObjects) ->
+                    transformToBIMData(placements, geometries, pool, level, objectType, bimObjects, output)));
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        Logging.info(String.format("%s: geometry cache %d hit(s), %d miss(es)",
+                BIMtoOSMParser.class.getName(), geometries.getHits(), geometries.getMisses()));
+    }
+
+    /**
+     * Adds BIM objects of one type to the objects of their level
+     *
+     * @param levels        BIM objects by level and type
+     * @param levelResolver with identified levels
+     * @param objectType    relating BIMtoOSMCatalog.BIMObject
+     * @param bimObjects    all BIM objects of objectType
+     */
+    private void groupByLevel(Map<Integer, Map<BIMtoOSMCatalog.BIMObject, List<IfcEntity>>> levels,
+                              StoreyLevelResolver levelResolver, BIMtoOSMCatalog.BIMObject objectType, List<IfcEntity> bimObjects) {
+        for (IfcEntity bimObject : bimObjects) {
+            levels.computeIfAbsent(getLevelTag(bimObject, levelResolver), level -> new EnumMap<>(BIMtoOSMCatalog.BIMObject.class))
+                    .computeIfAbsent(objectType, type -> new ArrayList<>())
+                    .add(bimObject);
+        }
     }
 
     /**
-     * Method packs prepared BIM data into OSM ways and nodes
+     * Transforms BIM objects of one type and level in batches of {@link #EXTRACTION_BATCH_SIZE} products
      *
-     * @param preparedBIMData to transform to OSM data
-     * @return packed data as {@link DataSet}
+     * @param placements resolved placements of ifcModel
+     * @param geometries geometry extracted during import
+     * @param pool       to transform products on, null to transform on the calling thread
+     * @param level      of BIM objects
+     * @param objectType relating BIMtoOSMCatalog.BIMObject
+     * @param bimObjects BIM objects of objectType on level
+     * @param output     receiving transformed data
      */
-    private DataSet packIntoOSMData(ArrayList<BIMObject3D> preparedBIMData) {
-        ArrayList<Way> ways = new ArrayList<>();
-        ArrayList<Node> nodes = new ArrayList<>();
-        ArrayList<Pair<Double, Integer>> levelIdentifier = extractAndIdentifyLevels();
-
-        for (BIMObject3D object : preparedBIMData) {
-            int level = getLevelTag(object, levelIdentifier);
-
-            ArrayList<Node> tmpNodes = new ArrayList<>();
-            for (LatLon point : object.getGeodeticGeometryCoordinates()) {
-                Node n = new Node(point);
-                tmpNodes.add(n);
+    private void transformToBIMData(PlacementCache placements, GeometryCache geometries, ForkJoinPool pool, int level,
+                                    BIMtoOSMCatalog.BIMObject objectType, List<IfcEntity> bimObjects, Consumer<BIMObject3D> output) {
+        for (int i = 0; i < bimObjects.size(); i += EXTRACTION_BATCH_SIZE) {
+            List<IfcEntity> batch = bimObjects.subList(i, Math.min(bimObjects.size(), i + EXTRACTION_BATCH_SIZE));
+            for (BIMObject3D object : BIMtoOSMUtility.transformBIMObjects(ifcModel, placements, geometries, solutionType,
+                    footprintConfig, objectType, batch, pool)) {
+                object.setLevel(level);
+                output.accept(object);
             }
+        }
+    }
 
-            if (tmpNodes.size() < 2) continue;
+    /**
+     * Optimizes data set of completed level and passes it to {@link ImportEventListener#onDataChunk}
+     *
+     * @param level of data
+     * @param chunk with data of level
+     */
+    private void deliverChunk(int level, DataSet chunk) {
+        if (optimizeOutput) {
+            importListener.onProcessStatusChanged(level != DEFAULT_LEVEL ? "optimizing level " + level : "optimizing data");
+            OutputOptimizer.optimize(optimizeOutputConfig, chunk);
+        }
+        importListener.onDataChunk(level, chunk);
+    }
 
-            if (tmpNodes.get(0).lat() == tmpNodes.get(tmpNodes.size() - 1).lat() && tmpNodes.get(0).lon() == tmpNodes.get(tmpNodes.size() - 1).lon()) {
-                tmpNodes.remove(tmpNodes.size() - 1);
-                nodes.addAll(tmpNodes);
-                tmpNodes.add(tmpNodes.get(0));
-            } else {
-                nodes.addAll(tmpNodes);
-            }
-            Way w = new Way();
-            w.setNodes(tmpNodes);
-            getObjectTags(object).forEach(w::put);
-            if (level != DEFAULT_LEVEL) w.put(new Tag("level", Integer.toString(level)));
-            ways.add(w);
+    /**
+     * Method packs prepared BIM object into OSM ways and nodes, one way for each part of its geometry
+     *
+     * @param object to transform to OSM data
+     * @param ds     to add ways and nodes to
+     */
+    private void packIntoOSMData(BIMObject3D object, DataSet ds) {
+        PolygonGeometry geometry = object.getCartesianGeometry();
+        LatLonBuffer geodeticCoordinates = object.getGeodeticGeometryCoordinates();
+        if (geodeticCoordinates.size() != geometry.getPointCount()) return;
+
+        for (int part = 0; part < geometry.getPartCount(); part++) {
+            packIntoOSMData(object, geodeticCoordinates, geometry.getPartStart(part), geometry.getPartEnd(part),
+                    geometry.isRing(part), ds);
         }
+    }
 
-        DataSet ds = new DataSet();
-        nodes.forEach(ds::addPrimitive);
-        ways.forEach(ds::addPrimitive);
-        return ds;
+    /**
+     * Method packs part of prepared BIM object into OSM way and nodes
+     *
+     * @param object to transform to OSM data
+     * @param points geodetic coordinates of object
+     * @param start  index of first point of part
+     * @param end    index behind last point of part
+     * @param ring   true if way is closed
+     * @param ds     to add way and nodes to
+     */
+    private void packIntoOSMData(BIMObject3D object, LatLonBuffer points, int start, int end, boolean ring, DataSet ds) {
+        int level = object.getLevel();
+
+        // closing point of ring is replaced by first node
+        if (ring && end - start > 1 && points.getLat(start) == points.getLat(end - 1)
+                && points.getLon(start) == points.getLon(end - 1)) end--;
+        if (end - start < 2) return;
+
+        ArrayList<Node> tmpNodes = new ArrayList<>(end - start + 1);
+        for (int i = start; i < end; i++) {
+            Node n = new Node(new LatLon(points.getLat(i), points.getLon(i)));
+            ds.addPrimitive(n);
+            tmpNodes.add(n);
+        }
+        if (ring) tmpNodes.add(tmpNodes.get(0));
+
+        Way w = new Way();
+        w.setNodes(tmpNodes);
+        getObjectTags(object).forEach(w::put);
+        if (level != DEFAULT_LEVEL) w.put(new Tag("level", Integer.toString(level)));
+        ds.addPrimitive(w);
     }
 
     /**
-     * Method gets level tag of PreparedBIMObject3D
+     * Method gets level tag of BIM object
      *
-     * @param object              to get level tag for
-     * @param levelIdentifierList with identified levels
+     * @param element       BIM object to get level tag for
+     * @param levelResolver with identified levels
      * @return level
      */
-    private int getLevelTag(BIMObject3D object, ArrayList<Pair<Double, Integer>> levelIdentifierList) {
-        int level = DEFAULT_LEVEL;
-
-        // get all IfcRelContainedInSpatialStructure elements
-        List<EntityInstance> relContainedInSpatialStructureElements = ifcModel.getInstancesOfType("IfcRelContainedInSpatialStructure");
-
-        for (EntityInstance entity : relContainedInSpatialStructureElements) {
-            // for each element get contained entities
-            ArrayList<EntityInstance> containedElements = entity.getAttributeValueBNasEntityInstanceList("RelatedElements");
-
-            // check if object is part of contained entities
-            for (EntityInstance element : containedElements) {
-
-                if (element.getId() == object.getId()) {
-                    // if part of contained elements get Elevation entity from object
-                    EntityInstance relatingStructure = entity.getAttributeValueBNasEntityInstance("RelatingStructure");
-
-                    String relatingStructureType = IfcObjectIdentifier.getSpatialStructureElementType(ifcModel, relatingStructure);
-                    // get type of relatingStructure
-                    if (!relatingStructureType.equals(IfcSpatialStructureElementTypes.IfcBuildingStorey.name()))
-                        return 0;
-                    // if of type IfcBuildingStorey
-                    double storeyElevation = prepareDoubleString((String) relatingStructure.getAttributeValueBN("Elevation"));
-
-                    // get assigned level tag to Elevation entity
-                    for (Pair<Double, Integer> identifier : levelIdentifierList) {
-                        if (identifier.a == storeyElevation) {
-                            level = identifier.b;
-                            break;
-                        }
-                    }
-                }
+    private int getLevelTag(IfcEntity element, StoreyLevelResolver levelResolver) {
+        // get spatial structure containing the object
+        IfcEntity relatingStructure = ifcModel.getRelationshipIndex().getContainingStructure(element);
+        if (relatingStructure == null) return DEFAULT_LEVEL;
+
+        String relatingStructureType = IfcObjectIdentifier.getSpatialStructureElementType(ifcModel, relatingStructure);
+        // get type of relatingStructure
+        if (!IfcSpatialStructureElementTypes.IfcBuildingStorey.name().equals(relatingStructureType)) return 0;
+
+        // if of type IfcBuildingStorey get assigned level
+        Integer level = levelResolver.getLevel(relatingStructure);
+        return level != null ? level : DEFAULT_LEVEL;
+    }
 
-            }
+    /**
+     * @return maximum elevation difference of storeys on the same level in length unit of file
+     */
+    private double getLevelElevationTolerance() {
+        switch (lengthUnit) {
+            case CM:
+                return LEVEL_ELEVATION_TOLERANCE * 100.0;
+            case MM:
+                return LEVEL_ELEVATION_TOLERANCE * 1000.0;
+            default:
+                return LEVEL_ELEVATION_TOLERANCE;
         }
-        return level;
     }
 
     /**
-     * Method extracts and identifies level tags from IfcRelContainedInSpatialStructure elements
+     * Gets transformation from coordinates of root placement to world coordinates in m, oriented to true north
      *
-     * @return List with pairs of level Elevation entity (Double) and assigned level tag (Integer)
+     * @return transformation applied on top of object placements
      */
-    private ArrayList<Pair<Double, Integer>> extractAndIdentifyLevels() {
-        // get all IfcRelContainedInSpatialStructure elements
-        List<EntityInstance> relContainedInSpatialStructureElements = ifcModel.getInstancesOfType("IfcRelContainedInSpatialStructure");
-
-        ArrayList<Pair<Double, Integer>> levelIdentifier = new ArrayList<>();
-        ArrayList<Double> levelList = new ArrayList<>();
-
-        // run thru IfcRelContainedInSpatialStructure and get the buildingStorey elements. Those elements include an Elevation entity
-        for (EntityInstance entity : relContainedInSpatialStructureElements) {
-            EntityInstance buildingStorey = entity.getAttributeValueBNasEntityInstance("RelatingStructure");
-            double storeyElevation = prepareDoubleString((String) buildingStorey.getAttributeValueBN("Elevation"));
-            levelList.add(storeyElevation);
-        }
-
-        // Sort the Elevation entity ascending
-        Collections.sort(levelList);
-
-        int level0Index = -1;
-        double level0 = 999.0;
-        for (Double level : levelList) {
-            double d = Math.abs(0.0 - level);
-            if (d < level0) {
-                level0Index = levelList.indexOf(level);
-                level0 = d;
-            }
+    private Transform3D getWorldTransform() {
+        Transform3D transform = Transform3D.scale(getLengthUnitFactor());
+        Vector3D trueNorth = getTrueNorth();
+        if (trueNorth != null) {
+            double rotationAngle = new Vector3D(0, 1, 0).angleBetween(trueNorth);
+            transform.compose(new Transform3D(ParserMath.getRotationMatrixZ(rotationAngle), new Vector3D()));
         }
+        return transform;
+    }
 
-        for (Double level : levelList) {
-            int index = levelList.indexOf(level) - level0Index;
-            levelIdentifier.add(new Pair<>(level, index));
+    /**
+     * @return length of length unit of file in m
+     */
+    private double getLengthUnitFactor() {
+        switch (lengthUnit) {
+            case CM:
+                return 0.01;
+            case MM:
+                return 0.001;
+            default:
+                return 1.0;
         }
-
-        return levelIdentifier;
     }
 
     /**
      * Method sets geodetic shape coordinates of PreparedBIMObject3D
      *
      * @param llBuildingOrigin building origin latlon
-     * @param preparedBIMData  data to set the geodetic shapes
+     * @param object           in m oriented to true north to set the geodetic shape
      */
-    private void transformToGeodetic(LatLon llBuildingOrigin, ArrayList<BIMObject3D> preparedBIMData) {
+    private void transformToGeodetic(LatLon llBuildingOrigin, BIMObject3D object) {
         if (llBuildingOrigin != null) {
-            // get building rotation matrix
-            Vector3D trueNorth = getTrueNorth();
-            Matrix3D rotationMatrix = null;
-            if (trueNorth != null) {
-                double rotationAngle = new Vector3D(0,1,0).angleBetween(trueNorth);
-                rotationMatrix = ParserMath.getRotationMatrixZ(rotationAngle);
-            }
-            for (BIMObject3D object : preparedBIMData) {
-                ArrayList<LatLon> transformedCoordinates = new ArrayList<>();
-                for (Vector3D point : object.getCartesianGeometryCoordinates()) {
-                    // rotate point
-                    if(rotationMatrix != null) rotationMatrix.transform(point);
-                    // transform point
-                    LatLon llPoint = ParserGeoMath.cartesianToGeodetic(point, new Vector3D(0.0, 0.0, 0.0), llBuildingOrigin, lengthUnit);
-                    transformedCoordinates.add(llPoint);
-                }
-                object.setGeodeticGeometryCoordinates(transformedCoordinates);
-            }
+            CoordinateBuffer points = object.getCartesianGeometry().getPoints();
+            LatLonBuffer transformedCoordinates = new LatLonBuffer(points.size());
+            ParserGeoMath.cartesianToGeodetic(points, llBuildingOrigin, transformedCoordinates);
+            object.setGeodeticGeometryCoordinates(transformedCoordinates);
         }
     }
 
@@ -490,7 +584,7 @@ public class BIMtoOSMParser {
      * @return latlon coordinates of building corner
      */
     @SuppressWarnings("unchecked")
-    private LatLon getLatLonBuildingOrigin(EntityInstance ifcSite) {
+    private LatLon getLatLonBuildingOrigin(IfcEntity ifcSite) {
         // get RefLatitude and RefLongitude of IfcSite
         List<String> refLat;
         List<String> refLon;
@@ -527,19 +621,18 @@ public class BIMtoOSMParser {
      *
      * @return project north as {@link Vector3D}
      */
-    @SuppressWarnings("unchecked")
     private Vector3D getProjectNorth() {
-        List<String> projectNorthDirectionRatios;
+        double[] projectNorthDirectionRatios;
         try {
-            EntityInstance ifcProject = ifcModel.getInstancesOfType("IfcProject").get(0);
-            EntityInstance geometricContext = ifcProject.getAttributeValueBNasEntityInstanceList("RepresentationContexts").get(0);
-            EntityInstance worldCoordinates = geometricContext.getAttributeValueBNasEntityInstance("WorldCoordinateSystem");
-            EntityInstance projectNorth = worldCoordinates.getAttributeValueBNasEntityInstance("RefDirection");
-            projectNorthDirectionRatios = (List<String>) projectNorth.getAttributeValueBN("DirectionRatios");
+            IfcEntity ifcProject = ifcModel.getInstancesOfType("IfcProject").get(0);
+            IfcEntity geometricContext = ifcProject.getAttributeValueBNasEntityInstanceList("RepresentationContexts").get(0);
+            IfcEntity worldCoordinates = geometricContext.getAttributeValueBNasEntityInstance("WorldCoordinateSystem");
+            IfcEntity projectNorth = worldCoordinates.getAttributeValueBNasEntityInstance("RefDirection");
+            projectNorthDirectionRatios = projectNorth.getAttributeValueBNasDoubleArray("DirectionRatios");
         } catch (NullPointerException e) {
             return null;
         }
-        return stringVectorToVector3D(projectNorthDirectionRatios);
+        return toVector3D(projectNorthDirectionRatios);
     }
 
     /**
@@ -547,27 +640,27 @@ public class BIMtoOSMParser {
      *
      * @return true north as {@link Vector3D}
      */
-    @SuppressWarnings("unchecked")
     private Vector3D getTrueNorth() {
-        List<String> trueNorthDirectionRatios;
+        double[] trueNorthDirectionRatios;
         try {
-            EntityInstance ifcProject = ifcModel.getInstancesOfType("IfcProject").get(0);
-            EntityInstance geometricContext = ifcProject.getAttributeValueBNasEntityInstanceList("RepresentationContexts").get(0);
-            EntityInstance trueNorth = geometricContext.getAttributeValueBNasEntityInstance("TrueNorth");
-            trueNorthDirectionRatios = (List<String>) trueNorth.getAttributeValueBN("DirectionRatios");
+            IfcEntity ifcProject = ifcModel.getInstancesOfType("IfcProject").get(0);
+            IfcEntity geometricContext = ifcProject.getAttributeValueBNasEntityInstanceList("RepresentationContexts").get(0);
+            IfcEntity trueNorth = geometricContext.getAttributeValueBNasEntityInstance("TrueNorth");
+            trueNorthDirectionRatios = trueNorth.getAttributeValueBNasDoubleArray("DirectionRatios");
         } catch (NullPointerException e) {
             return null;
         }
-        return stringVectorToVector3D(trueNorthDirectionRatios);
+        return toVector3D(trueNorthDirectionRatios);
     }
 
     /**
      * Method sets length unit of file
      */
     private void setUnits() {
-        ArrayList<EntityInstance> units =
+        lengthUnit = IfcUnitCatalog.LengthUnit.M;
+        List<IfcEntity> units =
                 ifcModel.getInstancesOfType("IfcUnitAssignment").get(0).getAttributeValueBNasEntityInstanceList("Units");
-        for (EntityInstance unit : units) {
+        for (IfcEntity unit : units) {
             try {
                 String unitType = (String) unit.getAttributeValueBN("UnitType");
                 String unitLabel = (String) unit.getAttributeValueBN("Name");
@@ -658,5 +751,4 @@ public class BIMtoOSMParser {
                     JOptionPane.ERROR_MESSAGE));
         }
     }
-
 }
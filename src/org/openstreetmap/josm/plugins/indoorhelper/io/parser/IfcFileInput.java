@@ -0,0 +1,210 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepHeader;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepHeaderReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Class providing access to the content of plain and compressed IFC files. Compressed files are decompressed
+ * while reading, no intermediate files are written.
+ */
+public class IfcFileInput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** initial size of content buffer if size of decompressed content is unknown */
+    private static final int MAX_INITIAL_CAPACITY = 64 * 1024 * 1024;
+    /** maximum ratio of decompressed to compressed size of deflate streams, larger sizes of headers are ignored */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    private static final int MAX_CONTENT_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Compression formats of IFC files
+     */
+    public enum Compression {
+        /** plain STEP file, *.ifc */
+        NONE,
+        /** gzip compressed STEP file, *.ifc.gz */
+        GZIP,
+        /** zip archive holding a STEP file, *.ifczip */
+        ZIP;
+
+        /**
+         * Detects compression of file by file extension
+         *
+         * @param filepath of IFC file
+         * @return compression of file
+         */
+        public static Compression of(String filepath) {
+            String name = filepath.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".ifczip") || name.endsWith(".zip")) return ZIP;
+            if (name.endsWith(".gz")) return GZIP;
+            return NONE;
+        }
+    }
+
+    /**
+     * Opens IFC file content as stream, compressed files are decompressed on the fly
+     *
+     * @param filepath of IFC file
+     * @return stream of STEP content
+     * @throws IOException if file can not be opened or zip archive holds no IFC file
+     */
+    public static InputStream open(String filepath) throws IOException {
+        InputStream in = Files.newInputStream(Paths.get(filepath));
+        try {
+            switch (Compression.of(filepath)) {
+                case GZIP:
+                    return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+                case ZIP:
+                    ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+                    positionAtIfcEntry(zip, filepath);
+                    return zip;
+                default:
+                    return new BufferedInputStream(in, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads complete content of a compressed IFC file into memory. The buffer is sized by the decompressed size
+     * stored in the zip entry or gzip trailer if known and grows while reading otherwise.
+     *
+     * @param filepath of compressed IFC file
+     * @return buffer holding decompressed STEP content
+     * @throws IOException if file can not be read or decompressed content exceeds maximum buffer size
+     */
+    public static ByteBuffer readFully(String filepath) throws IOException {
+        Path path = Paths.get(filepath);
+        long compressedSize = Files.size(path);
+        switch (Compression.of(filepath)) {
+            case ZIP:
+                try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+                    ZipEntry entry = positionAtIfcEntry(zip, filepath);
+                    return readFully(zip, filepath, getInitialCapacity(compressedSize, entry.getSize()));
+                }
+            case GZIP:
+                long contentSize = readGzipContentSize(path);
+                try (InputStream in = open(filepath)) {
+                    return readFully(in, filepath, getInitialCapacity(compressedSize, contentSize));
+                }
+            default:
+                try (InputStream in = open(filepath)) {
+                    return readFully(in, filepath, getInitialCapacity(compressedSize, compressedSize));
+                }
+        }
+    }
+
+    /**
+     * Reads stream until its end. The buffer doubles when full and is trimmed if much larger than the content.
+     *
+     * @param in       stream to read
+     * @param filepath of file, used for error message
+     * @param capacity initial size of buffer
+     * @return buffer holding content of stream
+     * @throws IOException if stream can not be read or content exceeds maximum buffer size
+     */
+    private static ByteBuffer readFully(InputStream in, String filepath, int capacity) throws IOException {
+        byte[] data = new byte[capacity];
+        int length = 0;
+        while (true) {
+            if (length == data.length) {
+                // check for end of stream before growing buffer, size of content might be exact
+                int next = in.read();
+                if (next < 0) break;
+                if (length == MAX_CONTENT_SIZE) {
+                    throw new IOException(filepath + " exceeds maximum size of decompressed IFC content");
+                }
+                data = Arrays.copyOf(data, (int) Math.min(Math.max((long) length * 2, BUFFER_SIZE), MAX_CONTENT_SIZE));
+                data[length++] = (byte) next;
+            }
+            int read = in.read(data, length, data.length - length);
+            if (read < 0) break;
+            length += read;
+        }
+        // buffer is kept by the model, do not keep more than an eighth unused
+        if (data.length - length > length / 8) data = Arrays.copyOf(data, length);
+        return ByteBuffer.wrap(data, 0, length);
+    }
+
+    /**
+     * Gets initial size of content buffer
+     *
+     * @param compressedSize size of file
+     * @param contentSize    size of decompressed content as stored in file, negative if unknown
+     * @return content size if plausible, else a modest size growing with file size
+     */
+    private static int getInitialCapacity(long compressedSize, long contentSize) {
+        if (contentSize >= 0 && contentSize <= compressedSize * MAX_DEFLATE_RATIO) {
+            return (int) Math.min(contentSize, MAX_CONTENT_SIZE);
+        }
+        return (int) Math.min(Math.max(compressedSize, BUFFER_SIZE), MAX_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Reads ISIZE trailer of gzip file, the size of decompressed content modulo 2^32. The value only refers
+     * to the whole content if the file holds a single gzip member.
+     *
+     * @param path of gzip file
+     * @return size of decompressed content or -1 if file is too short
+     * @throws IOException if file can not be read
+     */
+    private static long readGzipContentSize(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 4) return -1;
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, channel.size() - trailer.remaining()) < 0) return -1;
+            }
+            return trailer.getInt(0) & 0xffffffffL;
+        }
+    }
+
+    /**
+     * Reads header of IFC file
+     *
+     * @param filepath of IFC file
+     * @return header descriptor
+     * @throws IOException if file can not be read
+     */
+    public static StepHeader readHeader(String filepath) throws IOException {
+        if (Compression.of(filepath) == Compression.NONE) return StepHeaderReader.read(Paths.get(filepath));
+        try (InputStream in = open(filepath)) {
+            return StepHeaderReader.read(in);
+        }
+    }
+
+    /**
+     * Moves zip stream to first IFC file of archive
+     *
+     * @param zip      stream of zip archive
+     * @param filepath of archive, used for error message
+     * @return entry of IFC file, its size is -1 if not stored in local header
+     * @throws IOException if archive holds no IFC file
+     */
+    private static ZipEntry positionAtIfcEntry(ZipInputStream zip, String filepath) throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".ifc")) return entry;
+        }
+        throw new IOException(filepath + " does not contain an IFC file");
+    }
+}
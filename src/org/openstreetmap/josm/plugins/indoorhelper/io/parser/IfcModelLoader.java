@@ -0,0 +1,117 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
+import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.InputOptimizer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.ModelPopulationAdapter;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.EntityTypeFilter;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import nl.tue.buildingsmart.express.population.ModelPopulation;
+import nl.tue.buildingsmart.schema.SchemaDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Class providing methods to load IFC files into an {@link IfcModel}
+ */
+public class IfcModelLoader {
+
+    /**
+     * Implementations available to load IFC files
+     */
+    public enum Backend {
+        /** BuildingSMARTLibrary {@link ModelPopulation}, builds the complete object graph of the file */
+        BUILDINGSMART_LIBRARY,
+        /** {@link StepModel}, indexes records of the memory-mapped file and decodes instances on first access */
+        STEP
+    }
+
+    /**
+     * Loads IFC file
+     *
+     * @param config         describes how to load the file
+     * @param ifcFilepath    path of IFC file, may be compressed as described by {@link IfcFileInput.Compression}
+     * @param schemaFilePath path of EXPRESS schema file used by IFC file
+     * @param inputConfig    optimizations applied to file content, used by {@link Backend#BUILDINGSMART_LIBRARY}
+     * @return loaded model or null if file content could not be loaded
+     * @throws IOException if files can not be read
+     */
+    public static IfcModel load(Configuration config, String ifcFilepath, String schemaFilePath,
+                                InputOptimizer.Configuration inputConfig) throws IOException {
+        if (config.BACKEND == Backend.STEP) {
+            // block comments are skipped by STEP lexer, no input optimization necessary
+            ExpressSchema schema = SchemaRegistry.getExpressSchema(Paths.get(schemaFilePath));
+            EntityTypeFilter filter = config.FILTER_TYPES ? getImportTypeFilter(schema) : null;
+            if (IfcFileInput.Compression.of(ifcFilepath) == IfcFileInput.Compression.NONE) {
+                return StepModel.load(Paths.get(ifcFilepath), schema, config.PARALLELISM, filter);
+            }
+            return StepModel.load(IfcFileInput.readFully(ifcFilepath), schema, config.PARALLELISM, filter);
+        }
+        return loadModelPopulation(ifcFilepath, Paths.get(schemaFilePath), inputConfig);
+    }
+
+    /**
+     * Computes entity types needed to import BIM objects listed in {@link BIMtoOSMCatalog}
+     *
+     * @param schema of IFC file
+     * @return filter accepting the closure of types reachable from catalog types
+     */
+    public static EntityTypeFilter getImportTypeFilter(ExpressSchema schema) {
+        return EntityTypeFilter.reachableFrom(schema, BIMtoOSMCatalog.getImportRootTags(),
+                BIMtoOSMCatalog.getImportTerminalTags(), BIMtoOSMCatalog.getImportExcludedTags(),
+                BIMtoOSMCatalog.getImportIgnoredAttributes());
+    }
+
+    /**
+     * Loads IFC file using BuildingSMARTLibrary
+     *
+     * @param ifcFilepath path of IFC file
+     * @param schemaFile  path of EXPRESS schema file used by IFC file
+     * @param inputConfig optimizations applied to file content
+     * @return loaded model or null if file content could not be loaded
+     * @throws IOException if file can not be read
+     */
+    private static IfcModel loadModelPopulation(String ifcFilepath, Path schemaFile,
+                                                InputOptimizer.Configuration inputConfig) throws IOException {
+        // decompress and pre-optimize IFC file while streaming it into model
+        InputStream content = IfcFileInput.open(ifcFilepath);
+        try (InputStream inputFs = inputConfig.REMOVE_BLOCK_COMMENTS
+                ? InputOptimizer.openOptimizedStream(inputConfig, Channels.newChannel(content))
+                : content) {
+            ModelPopulation population = new ModelPopulation(inputFs);
+            population.setSchemaFile(schemaFile);
+            // reuse schema parsed by previous imports
+            SchemaDefinition schema = SchemaRegistry.getSchemaDefinition(schemaFile);
+            if (schema != null) population.setSchema(schema);
+            population.load();
+            SchemaRegistry.putSchemaDefinition(schemaFile, population.getSchema());
+
+            // if loading throws ParseException check if model is empty to recognize something went wrong
+            if (population.getInstances() == null) return null;
+            return new ModelPopulationAdapter(population, SchemaRegistry.getExpressSchema(schemaFile));
+        }
+    }
+
+    /**
+     * Configuration class for model loading
+     */
+    public static class Configuration {
+        public final Backend BACKEND;
+        /** number of threads used to parse the file and to transform its products, only supported by {@link Backend#STEP} */
+        public final int PARALLELISM;
+        /** true to skip records of types not needed by the importer, only supported by {@link Backend#STEP} */
+        public final boolean FILTER_TYPES;
+
+        public Configuration(Backend backend, int parallelism, boolean filterTypes) {
+            BACKEND = backend;
+            PARALLELISM = Math.max(1, parallelism);
+            FILTER_TYPES = filterTypes;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Pipeline of import stages connected by bounded queues. Items flow from the source through the stages into the
+ * sink one at a time, each stage running on its own thread. The number of items in flight is bounded by the
+ * queue capacity, so no stage needs to hold the intermediate results of all items.
+ *
+ * @param <T> type of items passed between stages
+ */
+public class ImportPipeline<T> {
+
+    /** marks the end of items in a queue */
+    private static final Object END = new Object();
+
+    private final int queueCapacity;
+    private final List<String> stageNames = new ArrayList<>();
+    private final List<UnaryOperator<T>> stages = new ArrayList<>();
+
+    /**
+     * Producer of pipeline items
+     *
+     * @param <T> type of items
+     */
+    @FunctionalInterface
+    public interface Source<T> {
+        /**
+         * Produces all items
+         *
+         * @param output to pass items to, blocks while the first stage is busy
+         */
+        void produce(Consumer<T> output);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param queueCapacity maximum number of items waiting between two stages
+     */
+    public ImportPipeline(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("invalid argument value of queueCapacity: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Appends stage to pipeline
+     *
+     * @param name  of stage, used to name its thread
+     * @param stage processing an item, returns the item passed to the next stage or null to drop it
+     * @return this pipeline
+     */
+    public ImportPipeline<T> addStage(String name, UnaryOperator<T> stage) {
+        stageNames.add(name);
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Runs the pipeline. Source and stages run on their own threads, sink runs on the calling thread.
+     * If a stage fails, remaining items are discarded and the first failure is rethrown after all stages ended.
+     *
+     * @param source producing the items
+     * @param sink   consuming the items leaving the last stage
+     */
+    public void run(Source<T> source, Consumer<T> sink) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+
+        BlockingQueue<Object> sourceOutput = new ArrayBlockingQueue<>(queueCapacity);
+        workers.add(newWorker("source", () -> {
+            try {
+                source.produce(item -> {
+                    // stop producing as soon as a stage failed
+                    if (failure.get() != null) throw new CancellationException();
+                    put(sourceOutput, item);
+                });
+            } catch (CancellationException e) {
+                // failure of a later stage or interrupted, already recorded
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                putEnd(sourceOutput);
+            }
+        }));
+
+        BlockingQueue<Object> input = sourceOutput;
+        for (int i = 0; i < stages.size(); i++) {
+            UnaryOperator<T> stage = stages.get(i);
+            BlockingQueue<Object> stageInput = input;
+            BlockingQueue<Object> stageOutput = new ArrayBlockingQueue<>(queueCapacity);
+            workers.add(newWorker(stageNames.get(i), () -> {
+                try {
+                    drain(stageInput, failure, (T item) -> {
+                        T result = stage.apply(item);
+                        if (result != null) put(stageOutput, result);
+                    });
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    putEnd(stageOutput);
+                }
+            }));
+            input = stageOutput;
+        }
+
+        workers.forEach(Thread::start);
+        try {
+            drain(input, failure, sink);
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        if (cause != null) throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Passes items of queue to consumer until end of items. Failures of consumer are recorded, following items are
+     * discarded but still taken from queue to unblock previous stages.
+     *
+     * @param queue    to take items from
+     * @param failure  first failure of pipeline
+     * @param consumer of items
+     * @throws InterruptedException if interrupted while waiting for items
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void drain(BlockingQueue<Object> queue, AtomicReference<Throwable> failure, Consumer<T> consumer)
+            throws InterruptedException {
+        for (Object item = queue.take(); item != END; item = queue.take()) {
+            if (failure.get() != null) continue;
+            try {
+                consumer.accept((T) item);
+            } catch (CancellationException e) {
+                // interrupted while passing item on
+                failure.compareAndSet(null, new InterruptedException());
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private static void putEnd(BlockingQueue<Object> queue) {
+        // interrupted workers are abandoned by the consuming thread, no need to end their queue
+        if (Thread.currentThread().isInterrupted()) return;
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread newWorker(String name, Runnable task) {
+        Thread worker = new Thread(task, "indoorhelper-import-" + name);
+        worker.setDaemon(true);
+        return worker;
+    }
+}
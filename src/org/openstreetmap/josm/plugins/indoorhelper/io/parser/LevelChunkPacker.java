@@ -0,0 +1,73 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Packs BIM objects ordered by level into one {@link DataSet} per level. The data set of a level is passed on
+ * as soon as an object of another level arrives.
+ */
+public class LevelChunkPacker implements Consumer<BIMObject3D> {
+
+    private final BiConsumer<BIMObject3D, DataSet> packer;
+    private final BiConsumer<Integer, DataSet> output;
+
+    private int level;
+    private DataSet chunk;
+    private int packedObjectCount;
+    private int deliveredChunkCount;
+
+    /**
+     * Constructor
+     *
+     * @param packer adding OSM data of an object to the data set of its level
+     * @param output receiving level and data set of each completed level
+     */
+    public LevelChunkPacker(BiConsumer<BIMObject3D, DataSet> packer, BiConsumer<Integer, DataSet> output) {
+        this.packer = packer;
+        this.output = output;
+    }
+
+    @Override
+    public void accept(BIMObject3D object) {
+        if (chunk != null && object.getLevel() != level) deliverChunk();
+        if (chunk == null) {
+            chunk = new DataSet();
+            level = object.getLevel();
+        }
+        packer.accept(object, chunk);
+        packedObjectCount++;
+    }
+
+    /**
+     * Delivers data set of last level
+     */
+    public void finish() {
+        if (chunk != null) deliverChunk();
+    }
+
+    /**
+     * @return number of objects packed so far
+     */
+    public int getPackedObjectCount() {
+        return packedObjectCount;
+    }
+
+    /**
+     * @return number of data sets passed on so far
+     */
+    public int getDeliveredChunkCount() {
+        return deliveredChunkCount;
+    }
+
+    private void deliverChunk() {
+        DataSet completed = chunk;
+        chunk = null;
+        deliveredChunkCount++;
+        output.accept(level, completed);
+    }
+}
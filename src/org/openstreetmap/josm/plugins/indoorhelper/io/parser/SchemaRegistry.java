@@ -0,0 +1,144 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.tools.Logging;
+import nl.tue.buildingsmart.schema.SchemaDefinition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of parsed EXPRESS schemas. Each schema file is parsed once per JVM, the immutable result
+ * is shared by all imports. If a cache directory is set, parsed {@link ExpressSchema}s are also stored there in
+ * their compact form, so schemas are not parsed again after restart.
+ */
+public class SchemaRegistry {
+
+    private static final String FILE_SUFFIX = ".schema";
+
+    private static final Map<Path, ExpressSchema> expressSchemas = new ConcurrentHashMap<>();
+    private static final Map<Path, SchemaDefinition> schemaDefinitions = new ConcurrentHashMap<>();
+    private static volatile Path cacheDirectory;
+
+    /**
+     * Sets directory holding compact forms of parsed schemas
+     *
+     * @param directory of schema cache files or null to disable disk cache
+     */
+    public static void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * Gets parsed schema of EXPRESS file
+     *
+     * @param schemaFile path of EXPRESS file
+     * @return parsed schema
+     * @throws IOException if file can not be read
+     */
+    public static ExpressSchema getExpressSchema(Path schemaFile) throws IOException {
+        try {
+            return expressSchemas.computeIfAbsent(schemaFile.toAbsolutePath().normalize(), file -> {
+                try {
+                    return loadExpressSchema(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gets BuildingSMARTLibrary schema of EXPRESS file, if it has been registered before
+     *
+     * @param schemaFile path of EXPRESS file
+     * @return schema or null if schema of file is not registered
+     */
+    public static SchemaDefinition getSchemaDefinition(Path schemaFile) {
+        return schemaDefinitions.get(schemaFile.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Registers BuildingSMARTLibrary schema of EXPRESS file
+     *
+     * @param schemaFile path of EXPRESS file
+     * @param schema     parsed schema, ignored if null
+     */
+    public static void putSchemaDefinition(Path schemaFile, SchemaDefinition schema) {
+        if (schema != null) schemaDefinitions.putIfAbsent(schemaFile.toAbsolutePath().normalize(), schema);
+    }
+
+    /**
+     * Removes all registered schemas from memory, cache files are kept
+     */
+    public static void clear() {
+        expressSchemas.clear();
+        schemaDefinitions.clear();
+    }
+
+    /**
+     * Loads schema from compact form in cache directory. If cache file is missing or outdated, the EXPRESS file
+     * is parsed and the cache file is rewritten.
+     *
+     * @param schemaFile normalized path of EXPRESS file
+     * @return parsed schema
+     * @throws IOException if EXPRESS file can not be read
+     */
+    private static ExpressSchema loadExpressSchema(Path schemaFile) throws IOException {
+        Path directory = cacheDirectory;
+        if (directory == null) return ExpressSchema.parse(schemaFile);
+
+        Path cacheFile = directory.resolve(schemaFile.getFileName() + FILE_SUFFIX);
+        String version = Files.size(schemaFile) + "|" + Files.getLastModifiedTime(schemaFile).toMillis();
+        if (Files.isRegularFile(cacheFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                if (version.equals(in.readUTF())) return ExpressSchema.read(in);
+            } catch (IOException e) {
+                Logging.warn(SchemaRegistry.class.getName() + ": discarding invalid schema cache file " + cacheFile
+                        + ": " + e.getMessage());
+            }
+        }
+
+        ExpressSchema schema = ExpressSchema.parse(schemaFile);
+        writeCacheFile(cacheFile, version, schema);
+        return schema;
+    }
+
+    private static void writeCacheFile(Path cacheFile, String version, ExpressSchema schema) {
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            tmpFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                out.writeUTF(version);
+                schema.write(out);
+            }
+            try {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Logging.warn(SchemaRegistry.class.getName() + ": could not write schema cache file " + cacheFile
+                    + ": " + e.getMessage());
+            try {
+                if (tmpFile != null) Files.deleteIfExists(tmpFile);
+            } catch (IOException ex) {
+                Logging.debug(ex);
+            }
+        }
+    }
+}
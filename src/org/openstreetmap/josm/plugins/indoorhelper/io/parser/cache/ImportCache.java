@@ -0,0 +1,451 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.cache;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.ImportPipeline;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.CoordinateBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.tools.Logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistent cache of extracted BIM data. An entry holds the {@link BIMObject3D}s of an IFC file in cartesian
+ * coordinates together with the geodetic building origin needed for their geodetic transformation, so a
+ * repeated import of an unchanged file does not need to load the IFC model.
+ */
+public class ImportCache {
+
+    private static final int MAGIC = 0x49484943; // "IHIC"
+    private static final int VERSION = 7;
+    /** magic number, version, content length and content checksum */
+    private static final int HEADER_SIZE = 24;
+    private static final String FILE_SUFFIX = ".bin";
+    private static final int MAX_ENTRIES = 16;
+    private static final int HASH_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+
+    /**
+     * Constructor
+     *
+     * @param directory of cache files, created on first write
+     */
+    public ImportCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens cache entry. Length and checksum of the file are validated before the entry is opened, invalid files
+     * are deleted. Header values are read at once, objects are read while the returned reader produces them.
+     *
+     * @param key of entry
+     * @return reader of entry or null if cache holds no valid entry for key
+     */
+    public Reader read(Key key) {
+        Path file = directory.resolve(key.hex + FILE_SUFFIX);
+        if (!Files.isRegularFile(file)) return null;
+        DataInputStream in = null;
+        try {
+            validate(file);
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            in.readFully(new byte[HEADER_SIZE]);
+            if (!key.hex.equals(in.readUTF())) throw new IOException("entry of other key");
+            LatLon buildingOrigin = in.readBoolean() ? new LatLon(in.readDouble(), in.readDouble()) : null;
+            int extractedObjectCount = in.readInt();
+            return new Reader(file, in, extractedObjectCount, buildingOrigin);
+        } catch (IOException | IllegalArgumentException e) {
+            closeQuietly(in);
+            Logging.warn(ImportCache.class.getName() + ": discarding invalid cache file " + file + ": " + e.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * Opens writer streaming objects of a cache entry into a temporary file. The entry replaces the existing entry
+     * of key on {@link Writer#commit()}, so objects do not need to be held in memory until all are extracted.
+     *
+     * @param key                  of entry
+     * @param extractedObjectCount number of BIM objects extracted from file, including not transformable ones
+     * @param buildingOrigin       geodetic building origin or null if file holds none
+     * @return writer of entry, discarding written objects if closed without commit
+     */
+    public Writer open(Key key, int extractedObjectCount, LatLon buildingOrigin) {
+        return new Writer(key, extractedObjectCount, buildingOrigin);
+    }
+
+    /**
+     * Checks file header against file content
+     *
+     * @param file to check
+     * @throws IOException if file can not be read or is not a complete cache file of current version
+     */
+    private static void validate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header, header.position());
+            }
+            if (header.hasRemaining()) throw new IOException("incomplete header");
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("no cache file");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported version " + version);
+            long length = header.getLong();
+            if (length != channel.size() - HEADER_SIZE) {
+                throw new IOException("content length " + (channel.size() - HEADER_SIZE) + " instead of " + length);
+            }
+            if (header.getLong() != checksum(channel, HEADER_SIZE, length)) throw new IOException("checksum mismatch");
+        }
+    }
+
+    /**
+     * Computes CRC32 checksum of a file region. The region is memory-mapped in chunks.
+     *
+     * @param channel  of file
+     * @param position of region
+     * @param length   of region
+     * @return checksum of region
+     * @throws IOException if file can not be read
+     */
+    private static long checksum(FileChannel channel, long position, long length) throws IOException {
+        CRC32 checksum = new CRC32();
+        for (long offset = 0; offset < length; offset += HASH_CHUNK_SIZE) {
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(HASH_CHUNK_SIZE, length - offset)));
+        }
+        return checksum.getValue();
+    }
+
+    private static BIMObject3D readObject(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        BIMtoOSMCatalog.BIMObject type = BIMtoOSMCatalog.BIMObject.valueOf(in.readUTF());
+        int level = in.readInt();
+        BIMObject3D object = new BIMObject3D(id, type, new Transform3D(), readGeometry(in));
+        object.setLevel(level);
+        return object;
+    }
+
+    private static void writeHeader(DataOutputStream out, int extractedObjectCount, LatLon buildingOrigin) throws IOException {
+        out.writeBoolean(buildingOrigin != null);
+        if (buildingOrigin != null) {
+            out.writeDouble(buildingOrigin.lat());
+            out.writeDouble(buildingOrigin.lon());
+        }
+        out.writeInt(extractedObjectCount);
+    }
+
+    private static void writeObject(DataOutputStream out, BIMObject3D object) throws IOException {
+        out.writeBoolean(true);
+        out.writeInt(object.getId());
+        out.writeUTF(object.getType().name());
+        out.writeInt(object.getLevel());
+        writeGeometry(out, object.getCartesianGeometry());
+    }
+
+    private static PolygonGeometry readGeometry(DataInputStream in) throws IOException {
+        int partCount = in.readInt();
+        PolygonGeometry geometry = new PolygonGeometry(16, partCount);
+        for (int i = 0; i < partCount; i++) {
+            int type = in.readByte();
+            if (type < 0 || type >= PolygonGeometry.PartType.values().length) throw new IOException("invalid part type " + type);
+            int pointCount = in.readInt();
+            if (pointCount < 0) throw new IOException("invalid point count " + pointCount);
+            CoordinateBuffer points = new CoordinateBuffer(pointCount);
+            for (int j = 0; j < pointCount; j++) {
+                points.add(in.readDouble(), in.readDouble(), in.readDouble());
+            }
+            geometry.addPart(PolygonGeometry.PartType.values()[type], points);
+        }
+        return geometry;
+    }
+
+    private static void writeGeometry(DataOutputStream out, PolygonGeometry geometry) throws IOException {
+        out.writeInt(geometry.getPartCount());
+        CoordinateBuffer points = geometry.getPoints();
+        for (int i = 0; i < geometry.getPartCount(); i++) {
+            out.writeByte(geometry.getPartType(i).ordinal());
+            out.writeInt(geometry.getPartEnd(i) - geometry.getPartStart(i));
+            for (int j = geometry.getPartStart(i); j < geometry.getPartEnd(i); j++) {
+                out.writeDouble(points.getX(j));
+                out.writeDouble(points.getY(j));
+                out.writeDouble(points.getZ(j));
+            }
+        }
+    }
+
+    /**
+     * Removes oldest cache files exceeding maximum number of entries
+     */
+    private void evictEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        if (files.size() <= MAX_ENTRIES) return;
+        files.sort(Comparator.comparingLong(ImportCache::lastModified));
+        files.subList(0, files.size() - MAX_ENTRIES).forEach(ImportCache::deleteQuietly);
+    }
+
+    private static long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+
+    private static void closeQuietly(DataInputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException e) {
+            // nothing left to read
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            Logging.warn(ImportCache.class.getName() + ": could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reader of a cache entry. Objects are read from the cache file while they are produced, so only objects
+     * passed on and not yet consumed are held in memory. The file is closed after the last object or on close.
+     */
+    public static final class Reader implements ImportPipeline.Source<BIMObject3D>, AutoCloseable {
+
+        private final Path file;
+        private final int extractedObjectCount;
+        private final LatLon buildingOrigin;
+        private DataInputStream in;
+
+        private Reader(Path file, DataInputStream in, int extractedObjectCount, LatLon buildingOrigin) {
+            this.file = file;
+            this.in = in;
+            this.extractedObjectCount = extractedObjectCount;
+            this.buildingOrigin = buildingOrigin;
+        }
+
+        /**
+         * @return number of BIM objects extracted from file, including not transformable ones
+         */
+        public int getExtractedObjectCount() {
+            return extractedObjectCount;
+        }
+
+        /**
+         * @return geodetic building origin or null if file holds none
+         */
+        public LatLon getBuildingOrigin() {
+            return buildingOrigin;
+        }
+
+        /**
+         * Reads objects of entry and passes them on. Objects are transformed BIM objects in cartesian coordinates
+         * in m, oriented to true north, level assigned. Can be called once.
+         *
+         * @param output to pass objects to
+         * @throws UncheckedIOException if cache file can not be read, the file is deleted
+         */
+        @Override
+        public void produce(Consumer<BIMObject3D> output) {
+            if (in == null) throw new IllegalStateException("objects of " + file + " already read");
+            try {
+                // each object is preceded by a marker, the last one followed by end marker
+                while (in.readBoolean()) {
+                    output.accept(readObject(in));
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                close();
+                Logging.warn(ImportCache.class.getName() + ": discarding invalid cache file " + file + ": " + e.getMessage());
+                deleteQuietly(file);
+                throw new UncheckedIOException(e instanceof IOException ? (IOException) e : new IOException(e));
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(in);
+            in = null;
+        }
+    }
+
+    /**
+     * Writer of a cache entry. Failures to write are logged and discard the entry, they are not passed to the
+     * caller as the import does not depend on the cache. The file header is completed on commit, so files of
+     * entries not committed are never valid.
+     */
+    public final class Writer implements AutoCloseable {
+
+        private final Path file;
+        private final CRC32 checksum = new CRC32();
+        private Path tmpFile;
+        private DataOutputStream out;
+
+        private Writer(Key key, int extractedObjectCount, LatLon buildingOrigin) {
+            file = directory.resolve(key.hex + FILE_SUFFIX);
+            try {
+                Files.createDirectories(directory);
+                tmpFile = Files.createTempFile(directory, key.hex, ".tmp");
+                OutputStream stream = Files.newOutputStream(tmpFile);
+                stream.write(new byte[HEADER_SIZE]);
+                out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(stream, checksum)));
+                out.writeUTF(key.hex);
+                writeHeader(out, extractedObjectCount, buildingOrigin);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Appends object to entry
+         *
+         * @param object transformed BIM object in cartesian coordinates in m, oriented to true north, level assigned
+         */
+        public void add(BIMObject3D object) {
+            if (out == null) return;
+            try {
+                writeObject(out, object);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Completes entry and replaces existing entry of key. Least recently written entries are removed if the
+         * cache exceeds its maximum number of entries.
+         */
+        public void commit() {
+            if (out == null) return;
+            try {
+                out.writeBoolean(false);
+                out.close();
+                out = null;
+                writeFileHeader();
+                try {
+                    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                tmpFile = null;
+                evictEntries();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Discards entry if not committed
+         */
+        @Override
+        public void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // discarded anyway
+                }
+                out = null;
+            }
+            if (tmpFile != null) {
+                deleteQuietly(tmpFile);
+                tmpFile = null;
+            }
+        }
+
+        private void writeFileHeader() throws IOException {
+            try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(channel.size() - HEADER_SIZE).putLong(checksum.getValue());
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+            }
+        }
+
+        private void fail(IOException e) {
+            Logging.warn(ImportCache.class.getName() + ": could not write cache file " + file + ": " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Key of cache entries. Derived from file content, file modification time and the parser configuration
+     * the cached data depends on.
+     */
+    public static final class Key {
+
+        private final String hex;
+
+        private Key(String hex) {
+            this.hex = hex;
+        }
+
+        /**
+         * Creates key of IFC file. The file content is hashed with CRC32 over the memory-mapped file.
+         *
+         * @param file          IFC file
+         * @param configuration description of parser configuration affecting extracted data
+         * @return key of file
+         * @throws IOException if file can not be read
+         */
+        public static Key of(Path file, String configuration) throws IOException {
+            long size;
+            long contentHash;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                size = channel.size();
+                contentHash = checksum(channel, 0, size);
+            }
+            String description = VERSION + "|" + size + "|" + Files.getLastModifiedTime(file).toMillis() + "|"
+                    + contentHash + "|" + configuration;
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(description.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (byte b : Arrays.copyOf(digest, 16)) {
+                    hex.append(String.format("%02x", b));
+                }
+                return new Key(hex.toString());
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 is required to be supported by every Java platform
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return hex;
+        }
+    }
+}
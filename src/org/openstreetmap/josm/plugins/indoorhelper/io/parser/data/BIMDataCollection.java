@@ -1,7 +1,8 @@
 // License: AGPL. For details, see LICENSE file.
 package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data;
 
-import nl.tue.buildingsmart.express.population.EntityInstance;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+
 
 import java.util.List;
 
@@ -9,76 +10,76 @@ import java.util.List;
  * Data structure holding specific BIM data elements.
  */
 public class BIMDataCollection {
-    private EntityInstance ifcSite;    // root of data set
-    private List<EntityInstance> areaObjects;
-    private List<EntityInstance> wallObjects;
-    private List<EntityInstance> columnObjects;
-    private List<EntityInstance> doorObjects;
-    private List<EntityInstance> stairObjects;
-    private List<EntityInstance> windowObjects;
-    private List<EntityInstance> relVoidsElements;    // IfcRelVoidsElement
-
-    public EntityInstance getIfcSite() {
+    private IfcEntity ifcSite;    // root of data set
+    private List<IfcEntity> areaObjects;
+    private List<IfcEntity> wallObjects;
+    private List<IfcEntity> columnObjects;
+    private List<IfcEntity> doorObjects;
+    private List<IfcEntity> stairObjects;
+    private List<IfcEntity> windowObjects;
+    private List<IfcEntity> relVoidsElements;    // IfcRelVoidsElement
+
+    public IfcEntity getIfcSite() {
         return ifcSite;
     }
 
-    public void setIfcSite(EntityInstance ifcSite) {
+    public void setIfcSite(IfcEntity ifcSite) {
         this.ifcSite = ifcSite;
     }
 
-    public List<EntityInstance> getAreaObjects() {
+    public List<IfcEntity> getAreaObjects() {
         return areaObjects;
     }
 
-    public void setAreaObjects(List<EntityInstance> areaObjects) {
+    public void setAreaObjects(List<IfcEntity> areaObjects) {
         this.areaObjects = areaObjects;
     }
 
-    public List<EntityInstance> getWallObjects() {
+    public List<IfcEntity> getWallObjects() {
         return wallObjects;
     }
 
-    public void setWallObjects(List<EntityInstance> wallObjects) {
+    public void setWallObjects(List<IfcEntity> wallObjects) {
         this.wallObjects = wallObjects;
     }
 
-    public List<EntityInstance> getColumnObjects() {
+    public List<IfcEntity> getColumnObjects() {
         return columnObjects;
     }
 
-    public void setColumnObjects(List<EntityInstance> columnObjects) {
+    public void setColumnObjects(List<IfcEntity> columnObjects) {
         this.columnObjects = columnObjects;
     }
 
-    public List<EntityInstance> getDoorObjects() {
+    public List<IfcEntity> getDoorObjects() {
         return doorObjects;
     }
 
-    public void setDoorObjects(List<EntityInstance> doorObjects) {
+    public void setDoorObjects(List<IfcEntity> doorObjects) {
         this.doorObjects = doorObjects;
     }
 
-    public List<EntityInstance> getStairObjects() {
+    public List<IfcEntity> getStairObjects() {
         return stairObjects;
     }
 
-    public void setStairObjects(List<EntityInstance> stairObjects) {
+    public void setStairObjects(List<IfcEntity> stairObjects) {
         this.stairObjects = stairObjects;
     }
 
-    public List<EntityInstance> getWindowObjects() {
+    public List<IfcEntity> getWindowObjects() {
         return windowObjects;
     }
 
-    public void setWindowObjects(List<EntityInstance> windowObjects) {
+    public void setWindowObjects(List<IfcEntity> windowObjects) {
         this.windowObjects = windowObjects;
     }
 
-    public List<EntityInstance> getRelVoidsElements() {
+    public List<IfcEntity> getRelVoidsElements() {
         return relVoidsElements;
     }
 
-    public void setRelVoidsElements(List<EntityInstance> relVoidsElements) {
+    public void setRelVoidsElements(List<IfcEntity> relVoidsElements) {
         this.relVoidsElements = relVoidsElements;
     }
 
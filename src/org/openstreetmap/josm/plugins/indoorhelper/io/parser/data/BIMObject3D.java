@@ -2,14 +2,12 @@
 package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data;
 
 import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
-import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Matrix3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.LatLonBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
-import nl.tue.buildingsmart.express.population.EntityInstance;
 import org.openstreetmap.josm.data.coor.LatLon;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Class holding OSM relevant data of 3D BIM object
  */
@@ -18,39 +16,36 @@ public class BIMObject3D {
     // object identity
     private int id;
     private BIMtoOSMCatalog.BIMObject type;
-    private EntityInstance rootEntity;
-    private EntityInstance placementEntity;
-    private EntityInstance representationEntity;
+    private int level;
+    private IfcEntity rootEntity;
+    private IfcEntity placementEntity;
+    private IfcEntity representationEntity;
 
     // object representation data
-    private List<Vector3D> cartesianGeometryCoordinates;
-    private List<LatLon> geodeticGeometryCoordinates;
+    private PolygonGeometry cartesianGeometry;
+    // geodetic coordinates of the points of cartesianGeometry, in the same order
+    private LatLonBuffer geodeticGeometryCoordinates;
 
-    // transformation matrices
-    private Vector3D translation;
-    private Matrix3D rotation;
+    // transformation from object coordinates to world coordinates
+    private Transform3D transform;
 
     public BIMObject3D(int id) {
         this.id = id;
-        cartesianGeometryCoordinates = new ArrayList<>();
-        geodeticGeometryCoordinates = new ArrayList<>();
-        translation = new Vector3D();
-        rotation = new Matrix3D();
-        rotation.setIdentity();
+        cartesianGeometry = new PolygonGeometry();
+        geodeticGeometryCoordinates = new LatLonBuffer(1);
+        transform = new Transform3D();
     }
 
     public BIMObject3D(
             int id,
             BIMtoOSMCatalog.BIMObject type,
-            Vector3D cartesianOrigin,
-            List<Vector3D> shapeCoordinates) {
+            Transform3D transform,
+            PolygonGeometry shape) {
         this.id = id;
         this.type = type;
-        cartesianGeometryCoordinates = shapeCoordinates;
-        geodeticGeometryCoordinates = new ArrayList<>();
-        translation = cartesianOrigin;
-        rotation = new Matrix3D();
-        rotation.setIdentity();
+        cartesianGeometry = shape;
+        geodeticGeometryCoordinates = new LatLonBuffer(1);
+        this.transform = transform;
     }
 
     public int getId() {
@@ -69,27 +64,35 @@ public class BIMObject3D {
         this.type = type;
     }
 
-    public EntityInstance getRootEntity() {
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public IfcEntity getRootEntity() {
         return rootEntity;
     }
 
-    public void setRootEntity(EntityInstance rootEntity) {
+    public void setRootEntity(IfcEntity rootEntity) {
         this.rootEntity = rootEntity;
     }
 
-    public EntityInstance getPlacementEntity() {
+    public IfcEntity getPlacementEntity() {
         return placementEntity;
     }
 
-    public void setPlacementEntity(EntityInstance placementEntity) {
+    public void setPlacementEntity(IfcEntity placementEntity) {
         this.placementEntity = placementEntity;
     }
 
-    public EntityInstance getRepresentationEntity() {
+    public IfcEntity getRepresentationEntity() {
         return representationEntity;
     }
 
-    public void setRepresentationEntity(EntityInstance representationEntity) {
+    public void setRepresentationEntity(IfcEntity representationEntity) {
         this.representationEntity = representationEntity;
     }
 
@@ -98,12 +101,12 @@ public class BIMObject3D {
         throw new UnsupportedOperationException();
     }
 
-    public List<Vector3D> getCartesianGeometryCoordinates() {
-        return cartesianGeometryCoordinates;
+    public PolygonGeometry getCartesianGeometry() {
+        return cartesianGeometry;
     }
 
-    public void setCartesianGeometryCoordinates(List<Vector3D> cartesianGeometryCoordinates) {
-        this.cartesianGeometryCoordinates = cartesianGeometryCoordinates;
+    public void setCartesianGeometry(PolygonGeometry cartesianGeometry) {
+        this.cartesianGeometry = cartesianGeometry;
     }
 
     public LatLon getGeodeticPlacement() {
@@ -111,27 +114,19 @@ public class BIMObject3D {
         throw new UnsupportedOperationException();
     }
 
-    public List<LatLon> getGeodeticGeometryCoordinates() {
+    public LatLonBuffer getGeodeticGeometryCoordinates() {
         return geodeticGeometryCoordinates;
     }
 
-    public void setGeodeticGeometryCoordinates(List<LatLon> geodeticGeometryCoordinates) {
+    public void setGeodeticGeometryCoordinates(LatLonBuffer geodeticGeometryCoordinates) {
         this.geodeticGeometryCoordinates = geodeticGeometryCoordinates;
     }
 
-    public Vector3D getTranslation() {
-        return translation;
-    }
-
-    public void setTranslation(Vector3D translation) {
-        this.translation = translation;
-    }
-
-    public Matrix3D getRotation() {
-        return rotation;
+    public Transform3D getTransform() {
+        return transform;
     }
 
-    public void setRotation(Matrix3D rotation) {
-        this.rotation = rotation;
+    public void setTransform(Transform3D transform) {
+        this.transform = transform;
     }
 }
@@ -0,0 +1,237 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.CoordinateBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shape of a BIM object made of outer rings, inner rings and open polylines. Points of all parts are kept in one
+ * {@link CoordinateBuffer}, each part is described by its start offset and type, so parts are accessed without
+ * scanning points. Rings may or may not repeat their first point at the end.
+ */
+public class PolygonGeometry {
+
+    /**
+     * Types of parts
+     */
+    public enum PartType {
+        /** counterclockwise ring bounding an area */
+        OUTER_RING,
+        /** clockwise ring bounding a hole */
+        INNER_RING,
+        /** open chain of points */
+        POLYLINE
+    }
+
+    private static final PartType[] PART_TYPES = PartType.values();
+
+    private final CoordinateBuffer points;
+    // start offset of each part in points, part ends at start of next part
+    private int[] partStarts;
+    private byte[] partTypes;
+    private int partCount;
+
+    public PolygonGeometry() {
+        this(16, 1);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pointCapacity initial number of points
+     * @param partCapacity  initial number of parts
+     */
+    public PolygonGeometry(int pointCapacity, int partCapacity) {
+        points = new CoordinateBuffer(pointCapacity);
+        partStarts = new int[Math.max(1, partCapacity)];
+        partTypes = new byte[partStarts.length];
+    }
+
+    /**
+     * Creates geometry of rings resulting from {@link org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.PolygonClipper}.
+     * Counterclockwise rings are outer rings, clockwise rings are inner rings.
+     *
+     * @param rings to add
+     * @return geometry or null if rings are null
+     */
+    public static PolygonGeometry ofRings(List<List<Vector3D>> rings) {
+        if (rings == null) return null;
+        int pointCount = 0;
+        for (List<Vector3D> ring : rings) {
+            pointCount += ring.size();
+        }
+        PolygonGeometry geometry = new PolygonGeometry(pointCount, rings.size());
+        for (List<Vector3D> ring : rings) {
+            geometry.addPart(getSignedArea(ring) >= 0.0 ? PartType.OUTER_RING : PartType.INNER_RING, ring);
+        }
+        return geometry;
+    }
+
+    /**
+     * Appends part, empty parts are skipped
+     *
+     * @param type   of part
+     * @param points of part
+     */
+    public void addPart(PartType type, List<Vector3D> points) {
+        if (!startPart(type, points.size())) return;
+        for (Vector3D point : points) {
+            this.points.add(point);
+        }
+    }
+
+    /**
+     * Appends part, empty parts are skipped
+     *
+     * @param type   of part
+     * @param points of part
+     * @param from   index of first point of part in points
+     * @param to     index behind last point of part in points
+     */
+    public void addPart(PartType type, CoordinateBuffer points, int from, int to) {
+        if (!startPart(type, to - from)) return;
+        this.points.addAll(points, from, to);
+    }
+
+    public void addPart(PartType type, CoordinateBuffer points) {
+        addPart(type, points, 0, points.size());
+    }
+
+    /**
+     * Appends part made of indexed points, empty parts are skipped
+     *
+     * @param type    of part
+     * @param points  referenced by indices
+     * @param indices of points of part in points
+     */
+    public void addPart(PartType type, CoordinateBuffer points, int[] indices) {
+        if (!startPart(type, indices.length)) return;
+        for (int index : indices) {
+            this.points.add(points.getX(index), points.getY(index), points.getZ(index));
+        }
+    }
+
+    /**
+     * Appends all parts of other geometry
+     *
+     * @param other geometry to add
+     */
+    public void addAll(PolygonGeometry other) {
+        for (int i = 0; i < other.partCount; i++) {
+            addPart(other.getPartType(i), other.points, other.getPartStart(i), other.getPartEnd(i));
+        }
+    }
+
+    private boolean startPart(PartType type, int pointCount) {
+        if (type == null) throw new IllegalArgumentException("invalid argument value of type: null");
+        if (pointCount <= 0) return false;
+        if (partCount == partStarts.length) {
+            partStarts = Arrays.copyOf(partStarts, partCount * 2);
+            partTypes = Arrays.copyOf(partTypes, partCount * 2);
+        }
+        partStarts[partCount] = points.size();
+        partTypes[partCount] = (byte) type.ordinal();
+        partCount++;
+        return true;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public PartType getPartType(int part) {
+        return PART_TYPES[partTypes[checkPart(part)]];
+    }
+
+    /**
+     * @param part index of part
+     * @return true if part is an outer or inner ring
+     */
+    public boolean isRing(int part) {
+        return getPartType(part) != PartType.POLYLINE;
+    }
+
+    /**
+     * @param part index of part
+     * @return index of first point of part in {@link #getPoints()}
+     */
+    public int getPartStart(int part) {
+        return partStarts[checkPart(part)];
+    }
+
+    /**
+     * @param part index of part
+     * @return index behind last point of part in {@link #getPoints()}
+     */
+    public int getPartEnd(int part) {
+        return checkPart(part) + 1 < partCount ? partStarts[part + 1] : points.size();
+    }
+
+    /**
+     * @param part index of part
+     * @return new vectors holding points of part
+     */
+    public List<Vector3D> getPart(int part) {
+        return points.toList(getPartStart(part), getPartEnd(part));
+    }
+
+    /**
+     * @return new vectors holding points of all outer and inner rings
+     */
+    public List<List<Vector3D>> getRings() {
+        List<List<Vector3D>> rings = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            if (isRing(i)) rings.add(getPart(i));
+        }
+        return rings;
+    }
+
+    /**
+     * @return points of all parts in order of parts
+     */
+    public CoordinateBuffer getPoints() {
+        return points;
+    }
+
+    public int getPointCount() {
+        return points.size();
+    }
+
+    public boolean isEmpty() {
+        return partCount == 0;
+    }
+
+    /**
+     * @return geometry with same parts and copied points
+     */
+    public PolygonGeometry copy() {
+        PolygonGeometry copy = new PolygonGeometry(points.size(), partCount);
+        copy.points.addAll(points);
+        System.arraycopy(partStarts, 0, copy.partStarts, 0, partCount);
+        System.arraycopy(partTypes, 0, copy.partTypes, 0, partCount);
+        copy.partCount = partCount;
+        return copy;
+    }
+
+    private int checkPart(int part) {
+        if (part < 0 || part >= partCount) {
+            throw new IndexOutOfBoundsException("part " + part + " of " + partCount + " parts");
+        }
+        return part;
+    }
+
+    private static double getSignedArea(List<Vector3D> ring) {
+        double area = 0.0;
+        int n = ring.size();
+        for (int i = 0; i < n; i++) {
+            Vector3D a = ring.get(i);
+            Vector3D b = ring.get((i + 1) % n);
+            area += a.getX() * b.getY() - b.getX() * a.getY();
+        }
+        return area / 2.0;
+    }
+}
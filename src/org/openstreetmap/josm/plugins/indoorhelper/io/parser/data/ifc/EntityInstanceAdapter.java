@@ -0,0 +1,155 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility;
+import nl.tue.buildingsmart.express.population.EntityInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link IfcEntity} backed by a BuildingSMARTLibrary {@link EntityInstance}
+ */
+class EntityInstanceAdapter implements IfcEntity {
+
+    private final ModelPopulationAdapter model;
+    private final EntityInstance instance;
+
+    EntityInstanceAdapter(ModelPopulationAdapter model, EntityInstance instance) {
+        this.model = model;
+        this.instance = instance;
+    }
+
+    @Override
+    public int getId() {
+        return instance.getId();
+    }
+
+    @Override
+    public String getTypeName() {
+        return instance.getEntityDefinition().getName();
+    }
+
+    @Override
+    public Object getAttributeValueBN(String name) {
+        return adaptValue(instance.getAttributeValueBN(name));
+    }
+
+    @Override
+    public IfcEntity getAttributeValueBNasEntityInstance(String name) {
+        return model.adapt(instance.getAttributeValueBNasEntityInstance(name));
+    }
+
+    @Override
+    public List<IfcEntity> getAttributeValueBNasEntityInstanceList(String name) {
+        List<EntityInstance> instances = instance.getAttributeValueBNasEntityInstanceList(name);
+        if (instances == null) return Collections.emptyList();
+        List<IfcEntity> entities = new ArrayList<>(instances.size());
+        instances.forEach(i -> entities.add(model.adapt(i)));
+        return entities;
+    }
+
+    @Override
+    public double getAttributeValueBNasDouble(String name) {
+        return toDouble(instance.getAttributeValueBN(name));
+    }
+
+    @Override
+    public double[] getAttributeValueBNasDoubleArray(String name) {
+        Object value = instance.getAttributeValueBN(name);
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toDouble(values.get(i));
+        }
+        return array;
+    }
+
+    @Override
+    public List<double[]> getAttributeValueBNasDoubleArrayList(String name) {
+        Object value = instance.getAttributeValueBN(name);
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        List<double[]> arrays = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (!(v instanceof List)) return null;
+            List<?> inner = (List<?>) v;
+            double[] array = new double[inner.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = toDouble(inner.get(i));
+            }
+            arrays.add(array);
+        }
+        return arrays;
+    }
+
+    @Override
+    public int[] getAttributeValueBNasIntArray(String name) {
+        return toIntArray(instance.getAttributeValueBN(name));
+    }
+
+    @Override
+    public List<int[]> getAttributeValueBNasIntArrayList(String name) {
+        Object value = instance.getAttributeValueBN(name);
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        List<int[]> arrays = new ArrayList<>(values.size());
+        for (Object v : values) {
+            int[] array = toIntArray(v);
+            if (array == null) return null;
+            arrays.add(array);
+        }
+        return arrays;
+    }
+
+    private static int[] toIntArray(Object value) {
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            Object v = values.get(i);
+            if (v instanceof Integer) {
+                array[i] = (Integer) v;
+            } else if (v instanceof String) {
+                try {
+                    array[i] = Integer.parseInt((String) v);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return array;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof String) return ParserUtility.prepareDoubleString((String) value);
+        return Double.NaN;
+    }
+
+    /**
+     * Replaces entity instances in attribute value by their adapters
+     *
+     * @param value attribute value
+     * @return adapted value
+     */
+    private Object adaptValue(Object value) {
+        if (value instanceof EntityInstance) return model.adapt((EntityInstance) value);
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<Object> adapted = new ArrayList<>(values.size());
+            values.forEach(v -> adapted.add(adaptValue(v)));
+            return adapted;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + getId() + "=" + getTypeName();
+    }
+}
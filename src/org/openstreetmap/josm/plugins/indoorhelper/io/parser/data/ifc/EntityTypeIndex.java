@@ -0,0 +1,128 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema.ExpressEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index of the concrete entity type of every instance of an {@link IfcModel}. Type checks are answered by
+ * array lookups instead of scanning the instance lists of a type. Each type knows its supertype closure
+ * derived from the EXPRESS schema, so subtype checks are constant time as well.
+ */
+public class EntityTypeIndex {
+
+    private static final int SPARSE_THRESHOLD = 1 << 16;
+    private static final short NO_TYPE = -1;
+
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final String[] typeNames;
+    /** supertype closure per type id, including the type itself */
+    private final BitSet[] supertypes;
+
+    private final short[] dense;
+    private final Map<Integer, Short> sparse = new HashMap<>();
+
+    /**
+     * Builds index of model instances
+     *
+     * @param schema    EXPRESS schema of model
+     * @param instances all instances of model
+     */
+    public EntityTypeIndex(ExpressSchema schema, Collection<? extends IfcEntity> instances) {
+        List<ExpressEntity> entities = new ArrayList<>(schema.getEntities());
+        if (entities.size() > Short.MAX_VALUE) throw new IllegalArgumentException("Too many entity types in schema");
+        typeNames = new String[entities.size()];
+        Map<ExpressEntity, Integer> entityIds = new HashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            ExpressEntity entity = entities.get(i);
+            typeNames[i] = entity.getName();
+            entityIds.put(entity, i);
+            typeIds.put(entity.getName(), i);
+            typeIds.put(entity.getName().toUpperCase(Locale.ROOT), i);
+        }
+        supertypes = new BitSet[entities.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            BitSet closure = new BitSet(entities.size());
+            for (ExpressEntity e = entities.get(i); e != null; e = e.getSupertype()) {
+                closure.set(entityIds.get(e));
+            }
+            supertypes[i] = closure;
+        }
+
+        int maxId = 0;
+        for (IfcEntity instance : instances) {
+            if (instance.getId() < 2 * instances.size() + SPARSE_THRESHOLD) maxId = Math.max(maxId, instance.getId());
+        }
+        dense = new short[maxId + 1];
+        Arrays.fill(dense, NO_TYPE);
+        for (IfcEntity instance : instances) {
+            short typeId = (short) getTypeId(instance.getTypeName());
+            if (typeId == NO_TYPE) continue;
+            int id = instance.getId();
+            if (id >= 0 && id < dense.length) {
+                dense[id] = typeId;
+            } else {
+                sparse.put(id, typeId);
+            }
+        }
+    }
+
+    /**
+     * Gets name of the concrete type of an instance
+     *
+     * @param entity instance of model
+     * @return type name as declared in schema or null if entity is not part of index
+     */
+    public String getTypeName(IfcEntity entity) {
+        int typeId = typeOf(entity);
+        return typeId != NO_TYPE ? typeNames[typeId] : null;
+    }
+
+    /**
+     * Checks if concrete type of instance is the given type. Instances of subtypes do not match.
+     *
+     * @param entity   instance of model
+     * @param typeName name of entity type, case insensitive
+     * @return true if instance is of type, else false
+     */
+    public boolean isType(IfcEntity entity, String typeName) {
+        int typeId = typeOf(entity);
+        return typeId != NO_TYPE && typeId == getTypeId(typeName);
+    }
+
+    /**
+     * Checks if instance is of the given type or one of its subtypes
+     *
+     * @param entity   instance of model
+     * @param typeName name of entity type, case insensitive
+     * @return true if instance is of type or a subtype, else false
+     */
+    public boolean isInstanceOf(IfcEntity entity, String typeName) {
+        int typeId = typeOf(entity);
+        int supertypeId = getTypeId(typeName);
+        return typeId != NO_TYPE && supertypeId != NO_TYPE && supertypes[typeId].get(supertypeId);
+    }
+
+    private int typeOf(IfcEntity entity) {
+        if (entity == null) return NO_TYPE;
+        int id = entity.getId();
+        if (id >= 0 && id < dense.length) return dense[id];
+        Short typeId = sparse.get(id);
+        return typeId != null ? typeId : NO_TYPE;
+    }
+
+    private int getTypeId(String typeName) {
+        Integer typeId = typeIds.get(typeName);
+        if (typeId == null) typeId = typeIds.get(typeName.toUpperCase(Locale.ROOT));
+        return typeId != null ? typeId : NO_TYPE;
+    }
+}
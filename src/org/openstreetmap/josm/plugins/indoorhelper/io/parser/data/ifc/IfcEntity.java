@@ -0,0 +1,91 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import java.util.List;
+
+/**
+ * Entity instance of a loaded IFC model. Attribute values follow the conventions of BuildingSMARTLibrary:
+ * simple values are returned as STEP encoded strings (e.g. "'Body'", ".ROOF.", "0."), aggregates as lists
+ * and references as {@link IfcEntity}. Numeric attributes should be read with the typed accessors, which
+ * avoid the string conversion.
+ */
+public interface IfcEntity {
+
+    /**
+     * @return STEP instance id of entity
+     */
+    int getId();
+
+    /**
+     * @return name of entity type as declared in schema, e.g. IfcWall
+     */
+    String getTypeName();
+
+    /**
+     * Gets value of attribute
+     *
+     * @param name of attribute
+     * @return attribute value or null if attribute is not set or not part of entity
+     */
+    Object getAttributeValueBN(String name);
+
+    /**
+     * Gets value of attribute referencing another entity
+     *
+     * @param name of attribute
+     * @return referenced entity or null if attribute is not set or not a reference
+     */
+    IfcEntity getAttributeValueBNasEntityInstance(String name);
+
+    /**
+     * Gets value of attribute referencing a list of entities
+     *
+     * @param name of attribute
+     * @return referenced entities, empty if attribute is not set
+     */
+    List<IfcEntity> getAttributeValueBNasEntityInstanceList(String name);
+
+    /**
+     * Gets value of numeric attribute
+     *
+     * @param name of attribute
+     * @return attribute value or NaN if attribute is not set or not numeric
+     */
+    double getAttributeValueBNasDouble(String name);
+
+    /**
+     * Gets value of attribute holding a list of numbers, e.g. coordinates or direction ratios.
+     * The returned array must not be modified.
+     *
+     * @param name of attribute
+     * @return attribute values or null if attribute is not set or not a list, non-numeric values are NaN
+     */
+    double[] getAttributeValueBNasDoubleArray(String name);
+
+    /**
+     * Gets value of attribute holding a list of lists of numbers, e.g. coordinates of IfcCartesianPointList3D.
+     * The returned arrays must not be modified.
+     *
+     * @param name of attribute
+     * @return attribute values or null if attribute is not set or not a list of lists, non-numeric values are NaN
+     */
+    List<double[]> getAttributeValueBNasDoubleArrayList(String name);
+
+    /**
+     * Gets value of attribute holding a list of integers, e.g. indices into a point list.
+     * The returned array must not be modified.
+     *
+     * @param name of attribute
+     * @return attribute values or null if attribute is not set or not a list of integers
+     */
+    int[] getAttributeValueBNasIntArray(String name);
+
+    /**
+     * Gets value of attribute holding a list of lists of integers, e.g. CoordIndex of IfcTriangulatedFaceSet.
+     * The returned arrays must not be modified.
+     *
+     * @param name of attribute
+     * @return attribute values or null if attribute is not set or not a list of lists of integers
+     */
+    List<int[]> getAttributeValueBNasIntArrayList(String name);
+}
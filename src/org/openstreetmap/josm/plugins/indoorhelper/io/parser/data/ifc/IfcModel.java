@@ -0,0 +1,88 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loaded IFC model providing access to its entity instances
+ */
+public abstract class IfcModel {
+
+    private volatile EntityTypeIndex typeIndex;
+    private volatile RelationshipIndex relationshipIndex;
+
+    /**
+     * Gets all instances of entity type. Instances of subtypes are not included.
+     *
+     * @param typeName name of entity type, e.g. IfcWall
+     * @return instances of type, empty if no instance exists
+     */
+    public abstract List<IfcEntity> getInstancesOfType(String typeName);
+
+    /**
+     * Gets instance by STEP instance id
+     *
+     * @param id of instance
+     * @return instance or null if no instance with id exists
+     */
+    public abstract IfcEntity getInstance(int id);
+
+    /**
+     * @return number of instances in model
+     */
+    public abstract int size();
+
+    /**
+     * @return all instances of model
+     */
+    public abstract Collection<? extends IfcEntity> getInstances();
+
+    /**
+     * @return EXPRESS schema of model
+     */
+    public abstract ExpressSchema getSchema();
+
+    /**
+     * Tells whether instances of model may be read by several threads at once. Models are never modified
+     * after loading, but backends may decode lazily without synchronization.
+     *
+     * @return true if model supports concurrent reads, else false
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Builds type and relationship index of model. Implementations call this once at the end of loading, the
+     * indexes are read without locking afterwards.
+     */
+    protected final void buildIndexes() {
+        typeIndex = new EntityTypeIndex(getSchema(), getInstances());
+        relationshipIndex = new RelationshipIndex(this);
+    }
+
+    /**
+     * Gets type index of model
+     *
+     * @return type index of all instances
+     */
+    public EntityTypeIndex getTypeIndex() {
+        EntityTypeIndex index = typeIndex;
+        if (index == null) throw new IllegalStateException("model is not completely loaded");
+        return index;
+    }
+
+    /**
+     * Gets relationship index of model
+     *
+     * @return inverse index of relationships
+     */
+    public RelationshipIndex getRelationshipIndex() {
+        RelationshipIndex index = relationshipIndex;
+        if (index == null) throw new IllegalStateException("model is not completely loaded");
+        return index;
+    }
+}
@@ -2,7 +2,6 @@
 package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
 
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentationCatalog.*;
-import nl.tue.buildingsmart.express.population.EntityInstance;
 
 /**
  * Class holding identifier and types of IfcRepresentation
@@ -13,14 +12,14 @@ public class IfcRepresentation {
     private RepresentationType type;
 
     // local attributes
-    private EntityInstance entity;
-    private EntityInstance rootEntity;
+    private IfcEntity entity;
+    private IfcEntity rootEntity;
 
     public IfcRepresentation() {
         // default
     }
 
-    public IfcRepresentation(RepresentationIdentifier identifier, RepresentationType type, EntityInstance representationObject, EntityInstance rootEntity) {
+    public IfcRepresentation(RepresentationIdentifier identifier, RepresentationType type, IfcEntity representationObject, IfcEntity rootEntity) {
         this.identifier = identifier;
         this.type = type;
         this.entity = representationObject;
@@ -55,19 +54,19 @@ public class IfcRepresentation {
         return this.identifier != null && this.type != null;
     }
 
-    public EntityInstance getEntity() {
+    public IfcEntity getEntity() {
         return entity;
     }
 
-    public void setEntity(EntityInstance entity) {
+    public void setEntity(IfcEntity entity) {
         this.entity = entity;
     }
 
-    public EntityInstance getRootEntity() {
+    public IfcEntity getRootEntity() {
         return rootEntity;
     }
 
-    public void setRootEntity(EntityInstance rootEntity) {
+    public void setRootEntity(IfcEntity rootEntity) {
         this.rootEntity = rootEntity;
     }
 
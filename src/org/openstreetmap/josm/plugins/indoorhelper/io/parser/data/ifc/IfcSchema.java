@@ -0,0 +1,60 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import java.util.Locale;
+
+/**
+ * IFC schema versions which might be declared in FILE_SCHEMA header entry of IFC files
+ */
+public enum IfcSchema {
+
+    IFC2X3("IFC2X3_TC1.exp"),
+    IFC4("IFC4.exp"),
+    IFC4X1(null),
+    IFC4X2(null),
+    IFC4X3(null);
+
+    private final String schemaFile;
+
+    IfcSchema(String schemaFile) {
+        this.schemaFile = schemaFile;
+    }
+
+    /**
+     * @return name of EXPRESS schema file in plugin resources, null if schema is not supported
+     */
+    public String getSchemaFile() {
+        return schemaFile;
+    }
+
+    /**
+     * @return true if schema can be loaded by parser, else false
+     */
+    public boolean isSupported() {
+        return schemaFile != null;
+    }
+
+    /**
+     * Resolves schema from FILE_SCHEMA identifier. Identifiers are compared case insensitive,
+     * trailing addenda like "_TC1", "_ADD2" or ISO object identifiers ("IFC4 {1 0 10303 ...}") are ignored.
+     *
+     * @param identifier schema identifier as declared in file header
+     * @return matching schema or null if unknown
+     */
+    public static IfcSchema fromIdentifier(String identifier) {
+        if (identifier == null) return null;
+        String name = identifier.trim().toUpperCase(Locale.ROOT);
+        int objectIdStart = name.indexOf('{');
+        if (objectIdStart >= 0) name = name.substring(0, objectIdStart).trim();
+
+        for (IfcSchema schema : values()) {
+            String schemaName = schema.name();
+            // IFC4 is prefix of IFC4X*, so name has to end or continue with an addendum after schema name
+            if (name.startsWith(schemaName)
+                    && (name.length() == schemaName.length() || name.charAt(schemaName.length()) == '_')) {
+                return schema;
+            }
+        }
+        return null;
+    }
+}
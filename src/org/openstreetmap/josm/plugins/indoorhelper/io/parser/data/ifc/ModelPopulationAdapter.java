@@ -0,0 +1,78 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import nl.tue.buildingsmart.express.population.EntityInstance;
+import nl.tue.buildingsmart.express.population.ModelPopulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link IfcModel} backed by a BuildingSMARTLibrary {@link ModelPopulation}
+ */
+public class ModelPopulationAdapter extends IfcModel {
+
+    private final ModelPopulation population;
+    private final ExpressSchema schema;
+    private final Map<Integer, EntityInstanceAdapter> adapters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param population loaded model population
+     * @param schema     EXPRESS schema of population
+     */
+    public ModelPopulationAdapter(ModelPopulation population, ExpressSchema schema) {
+        this.population = population;
+        this.schema = schema;
+        buildIndexes();
+    }
+
+    @Override
+    public List<IfcEntity> getInstancesOfType(String typeName) {
+        List<EntityInstance> instances = population.getInstancesOfType(typeName);
+        if (instances == null || instances.isEmpty()) return Collections.emptyList();
+        List<IfcEntity> entities = new ArrayList<>(instances.size());
+        instances.forEach(instance -> entities.add(adapt(instance)));
+        return entities;
+    }
+
+    @Override
+    public IfcEntity getInstance(int id) {
+        EntityInstance instance = population.getInstances().get(id);
+        return instance != null ? adapt(instance) : null;
+    }
+
+    @Override
+    public int size() {
+        return population.getInstances().size();
+    }
+
+    @Override
+    public Collection<IfcEntity> getInstances() {
+        List<IfcEntity> entities = new ArrayList<>(population.getInstances().size());
+        population.getInstances().values().forEach(instance -> entities.add(adapt(instance)));
+        return entities;
+    }
+
+    @Override
+    public ExpressSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Wraps entity instance of population. Wrappers are cached so each instance is represented by one object.
+     *
+     * @param instance to wrap
+     * @return wrapped instance or null if instance is null
+     */
+    IfcEntity adapt(EntityInstance instance) {
+        if (instance == null) return null;
+        return adapters.computeIfAbsent(instance.getId(), id -> new EntityInstanceAdapter(this, instance));
+    }
+}
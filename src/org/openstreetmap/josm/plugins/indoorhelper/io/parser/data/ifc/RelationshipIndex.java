@@ -0,0 +1,130 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverse index of the objectified relationships of an {@link IfcModel}. Relationships only reference their
+ * related objects, the index answers the reverse questions (which storey contains an element, which openings
+ * void it, ...) by map lookups instead of scanning all relationships for every element.
+ */
+public class RelationshipIndex {
+
+    private final Map<Integer, IfcEntity> containingStructures = new HashMap<>();
+    private final Map<Integer, List<IfcEntity>> voidingRelations = new HashMap<>();
+    private final Map<Integer, IfcEntity> aggregatingParents = new HashMap<>();
+    private final Map<Integer, List<IfcEntity>> aggregatedObjects = new HashMap<>();
+    private final Map<Integer, List<IfcEntity>> fillingElements = new HashMap<>();
+
+    /**
+     * Builds index visiting each relationship of model once
+     *
+     * @param model loaded IFC model
+     */
+    public RelationshipIndex(IfcModel model) {
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelContainedInSpatialStructure")) {
+            IfcEntity structure = relation.getAttributeValueBNasEntityInstance("RelatingStructure");
+            if (structure == null) continue;
+            for (IfcEntity element : relation.getAttributeValueBNasEntityInstanceList("RelatedElements")) {
+                // elements are contained in one structure only, keep first one for invalid files
+                containingStructures.putIfAbsent(element.getId(), structure);
+            }
+        }
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelVoidsElement")) {
+            IfcEntity element = relation.getAttributeValueBNasEntityInstance("RelatingBuildingElement");
+            if (element != null) add(voidingRelations, element, relation);
+        }
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelAggregates")) {
+            IfcEntity parent = relation.getAttributeValueBNasEntityInstance("RelatingObject");
+            if (parent == null) continue;
+            for (IfcEntity object : relation.getAttributeValueBNasEntityInstanceList("RelatedObjects")) {
+                aggregatingParents.putIfAbsent(object.getId(), parent);
+                add(aggregatedObjects, parent, object);
+            }
+        }
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelFillsElement")) {
+            IfcEntity opening = relation.getAttributeValueBNasEntityInstance("RelatingOpeningElement");
+            IfcEntity element = relation.getAttributeValueBNasEntityInstance("RelatedBuildingElement");
+            if (opening != null && element != null) add(fillingElements, opening, element);
+        }
+    }
+
+    private static void add(Map<Integer, List<IfcEntity>> map, IfcEntity key, IfcEntity value) {
+        map.computeIfAbsent(key.getId(), id -> new ArrayList<>(1)).add(value);
+    }
+
+    private static List<IfcEntity> get(Map<Integer, List<IfcEntity>> map, IfcEntity key) {
+        List<IfcEntity> values = key != null ? map.get(key.getId()) : null;
+        return values != null ? Collections.unmodifiableList(values) : Collections.emptyList();
+    }
+
+    /**
+     * Gets spatial structure element containing an element (IfcRelContainedInSpatialStructure)
+     *
+     * @param element building element
+     * @return relating structure, e.g. IfcBuildingStorey, or null if element is not contained in a structure
+     */
+    public IfcEntity getContainingStructure(IfcEntity element) {
+        return element != null ? containingStructures.get(element.getId()) : null;
+    }
+
+    /**
+     * Gets relationships voiding an element (IfcRelVoidsElement)
+     *
+     * @param element building element
+     * @return IfcRelVoidsElement instances with element as RelatingBuildingElement, empty if element has no openings
+     */
+    public List<IfcEntity> getVoidingRelations(IfcEntity element) {
+        return get(voidingRelations, element);
+    }
+
+    /**
+     * Gets openings of an element (RelatedOpeningElement of IfcRelVoidsElement)
+     *
+     * @param element building element
+     * @return opening elements, empty if element has no openings
+     */
+    public List<IfcEntity> getOpenings(IfcEntity element) {
+        List<IfcEntity> relations = getVoidingRelations(element);
+        List<IfcEntity> openings = new ArrayList<>(relations.size());
+        for (IfcEntity relation : relations) {
+            IfcEntity opening = relation.getAttributeValueBNasEntityInstance("RelatedOpeningElement");
+            if (opening != null) openings.add(opening);
+        }
+        return openings;
+    }
+
+    /**
+     * Gets object an object is part of (IfcRelAggregates)
+     *
+     * @param object aggregated object, e.g. IfcBuildingStorey
+     * @return relating object, e.g. IfcBuilding, or null if object is not aggregated
+     */
+    public IfcEntity getAggregatingParent(IfcEntity object) {
+        return object != null ? aggregatingParents.get(object.getId()) : null;
+    }
+
+    /**
+     * Gets parts of an object (IfcRelAggregates)
+     *
+     * @param parent relating object, e.g. IfcBuilding
+     * @return related objects, empty if object has no parts
+     */
+    public List<IfcEntity> getAggregatedObjects(IfcEntity parent) {
+        return get(aggregatedObjects, parent);
+    }
+
+    /**
+     * Gets elements filling an opening (IfcRelFillsElement)
+     *
+     * @param opening opening element
+     * @return filling elements like doors and windows, empty if opening is not filled
+     */
+    public List<IfcEntity> getFillingElements(IfcEntity opening) {
+        return get(fillingElements, opening);
+    }
+}
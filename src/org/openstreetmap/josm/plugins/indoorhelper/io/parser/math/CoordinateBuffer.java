@@ -0,0 +1,162 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of points stored as consecutive x, y, z values in one array. Points are not held as objects,
+ * so large geometries need no object per point.
+ */
+public class CoordinateBuffer {
+
+    private double[] coordinates;
+    private int size;
+
+    public CoordinateBuffer() {
+        this(16);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity initial number of points
+     */
+    public CoordinateBuffer(int capacity) {
+        coordinates = new double[3 * Math.max(1, capacity)];
+    }
+
+    /**
+     * Creates buffer holding coordinates of param points
+     *
+     * @param points to copy
+     * @return new buffer
+     */
+    public static CoordinateBuffer of(List<Vector3D> points) {
+        CoordinateBuffer buffer = new CoordinateBuffer(points.size());
+        for (Vector3D point : points) {
+            buffer.add(point);
+        }
+        return buffer;
+    }
+
+    public void add(double x, double y, double z) {
+        ensureCapacity(size + 1);
+        int i = 3 * size;
+        coordinates[i] = x;
+        coordinates[i + 1] = y;
+        coordinates[i + 2] = z;
+        size++;
+    }
+
+    public void add(Vector3D point) {
+        add(point.getX(), point.getY(), point.getZ());
+    }
+
+    /**
+     * Appends points of param buffer
+     *
+     * @param other buffer to copy points from
+     * @param from  index of first point to copy
+     * @param to    index behind last point to copy
+     */
+    public void addAll(CoordinateBuffer other, int from, int to) {
+        if (from < 0 || to > other.size || from > to) {
+            throw new IndexOutOfBoundsException("points " + from + " to " + to + " of " + other.size + " points");
+        }
+        ensureCapacity(size + to - from);
+        System.arraycopy(other.coordinates, 3 * from, coordinates, 3 * size, 3 * (to - from));
+        size += to - from;
+    }
+
+    public void addAll(CoordinateBuffer other) {
+        addAll(other, 0, other.size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getX(int index) {
+        return coordinates[3 * checkIndex(index)];
+    }
+
+    public double getY(int index) {
+        return coordinates[3 * checkIndex(index) + 1];
+    }
+
+    public double getZ(int index) {
+        return coordinates[3 * checkIndex(index) + 2];
+    }
+
+    /**
+     * @param index of point
+     * @return new vector holding coordinates of point
+     */
+    public Vector3D get(int index) {
+        int i = 3 * checkIndex(index);
+        return new Vector3D(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+    }
+
+    public void set(int index, double x, double y, double z) {
+        int i = 3 * checkIndex(index);
+        coordinates[i] = x;
+        coordinates[i + 1] = y;
+        coordinates[i + 2] = z;
+    }
+
+    /**
+     * Transforms all points using param transformation
+     *
+     * @param transform to apply
+     */
+    public void transform(Transform3D transform) {
+        transform.transform(coordinates, 0, size);
+    }
+
+    /**
+     * @param from index of first point
+     * @param to   index behind last point
+     * @return new vectors holding coordinates of points
+     */
+    public List<Vector3D> toList(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("points " + from + " to " + to + " of " + size + " points");
+        }
+        List<Vector3D> points = new ArrayList<>(to - from);
+        for (int i = 3 * from; i < 3 * to; i += 3) {
+            points.add(new Vector3D(coordinates[i], coordinates[i + 1], coordinates[i + 2]));
+        }
+        return points;
+    }
+
+    public List<Vector3D> toList() {
+        return toList(0, size);
+    }
+
+    /**
+     * @return buffer with same points, no spare capacity
+     */
+    public CoordinateBuffer copy() {
+        CoordinateBuffer copy = new CoordinateBuffer(size);
+        System.arraycopy(coordinates, 0, copy.coordinates, 0, 3 * size);
+        copy.size = size;
+        return copy;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (3 * capacity > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, 3 * Math.max(capacity, 2 * coordinates.length / 3));
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("point " + index + " of " + size + " points");
+        return index;
+    }
+}
@@ -0,0 +1,62 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.math;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of geodetic points stored as consecutive latitude and longitude values in one array
+ */
+public class LatLonBuffer {
+
+    private double[] coordinates;
+    private int size;
+
+    public LatLonBuffer() {
+        this(16);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity initial number of points
+     */
+    public LatLonBuffer(int capacity) {
+        coordinates = new double[2 * Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends point
+     *
+     * @param lat latitude in degrees
+     * @param lon longitude in degrees
+     */
+    public void add(double lat, double lon) {
+        if (2 * size + 2 > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, 2 * coordinates.length);
+        }
+        coordinates[2 * size] = lat;
+        coordinates[2 * size + 1] = lon;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getLat(int index) {
+        return coordinates[2 * checkIndex(index)];
+    }
+
+    public double getLon(int index) {
+        return coordinates[2 * checkIndex(index) + 1];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("point " + index + " of " + size + " points");
+        return index;
+    }
+}
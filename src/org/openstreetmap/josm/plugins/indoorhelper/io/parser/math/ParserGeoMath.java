@@ -54,6 +54,38 @@ public class ParserGeoMath {
         return new LatLon(Math.toDegrees(pointLat), Math.toDegrees(pointLon));
     }
 
+    /**
+     * Method transforms cartesian points in m to latlon points with given latlon origin coordinate (latlon for
+     * cartesian 0.0/0.0). Same transformation as {@link #cartesianToGeodetic(Vector3D, Vector3D, LatLon, IfcUnitCatalog.LengthUnit)}
+     * without creating objects per point.
+     *
+     * @param cartesianPoints         to translate to latlon, in m
+     * @param latLonOfCartesianOrigin latlon of cartesian origin (0.0/0.0)
+     * @param geodeticPoints          to append latlon of cartesian points to
+     */
+    public static void cartesianToGeodetic(CoordinateBuffer cartesianPoints, LatLon latLonOfCartesianOrigin, LatLonBuffer geodeticPoints) {
+        double originLat = Math.toRadians(latLonOfCartesianOrigin.lat());
+        double originLon = Math.toRadians(latLonOfCartesianOrigin.lon());
+        double sinOriginLat = Math.sin(originLat);
+        double cosOriginLat = Math.cos(originLat);
+
+        for (int i = 0; i < cartesianPoints.size(); i++) {
+            double pointX = cartesianPoints.getX(i);
+            double pointY = cartesianPoints.getY(i);
+            double bearing = Math.toRadians(90.0) - Math.atan2(pointY, pointX);
+            double angularDistance = Math.sqrt(pointX * pointX + pointY * pointY) / OsmMercator.EARTH_RADIUS;
+
+            double pointLat = Math.asin(
+                    sinOriginLat * Math.cos(angularDistance) +
+                            cosOriginLat * Math.sin(angularDistance) * Math.cos(bearing));
+            double pointLon = originLon +
+                    Math.atan2(
+                            Math.sin(bearing) * Math.sin(angularDistance) * cosOriginLat,
+                            Math.cos(angularDistance) - sinOriginLat * Math.sin(pointLat));
+            geodeticPoints.add(Math.toDegrees(pointLat), Math.toDegrees(pointLon));
+        }
+    }
+
     public static double degreeMinutesSecondsToLatLon(double degrees, double minutes, double seconds, double v) {
         return degrees + (minutes / 60.0) + (seconds / 3600.0) + (Double.isNaN(v) ? 0 : v/3600000000.);
     }
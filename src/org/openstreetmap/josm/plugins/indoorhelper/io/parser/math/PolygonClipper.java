@@ -0,0 +1,489 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.math;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class providing boolean operations on polygons in the xy-plane. A polygon consists of any number of rings,
+ * z-coordinates are carried along but do not affect the operation.
+ * <p>
+ * Edges of both polygons are split at their intersections, found by a sweep line over x. Each split edge is
+ * classified by testing points next to both of its sides against the two polygons, using an index of edges in
+ * horizontal bands. Edges bounding the result are linked into rings. Resulting outer rings are counterclockwise,
+ * holes are clockwise, rings are closed by repeating their first point.
+ */
+public class PolygonClipper {
+
+    /** tolerance relative to size of the input */
+    private static final double RELATIVE_EPSILON = 1e-9;
+    /** offset of side test points from their edge, relative to tolerance */
+    private static final double SIDE_OFFSET_FACTOR = 100.0;
+    /** maximum number of bands of edge index */
+    private static final int MAX_BANDS = 4096;
+
+    /**
+     * Boolean operations
+     */
+    public enum Operation {
+        UNION,
+        INTERSECTION,
+        /** subject without clip */
+        DIFFERENCE
+    }
+
+    /**
+     * Rules deciding whether a point is inside of a polygon made of several rings
+     */
+    public enum FillRule {
+        /** inside if inside of an odd number of rings, inner rings describe holes */
+        EVEN_ODD,
+        /** inside if inside of any ring, used for overlapping rings like projected faces of a shell */
+        ANY_RING,
+        /** inside if winding number is not zero, used for overlapping polygons with holes oriented clockwise */
+        NONZERO
+    }
+
+    /**
+     * Applies operation on polygons described by {@link FillRule#EVEN_ODD}
+     *
+     * @param subject   rings of subject polygon
+     * @param clip      rings of clip polygon
+     * @param operation to apply
+     * @return rings of result polygon
+     */
+    public static List<List<Vector3D>> clip(List<List<Vector3D>> subject, List<List<Vector3D>> clip, Operation operation) {
+        return clip(subject, FillRule.EVEN_ODD, clip, FillRule.EVEN_ODD, operation);
+    }
+
+    /**
+     * Merges overlapping rings into a polygon described by {@link FillRule#EVEN_ODD}
+     *
+     * @param rings to merge
+     * @return rings of polygon covering the area of all rings
+     */
+    public static List<List<Vector3D>> union(List<List<Vector3D>> rings) {
+        return clip(rings, FillRule.ANY_RING, Collections.emptyList(), FillRule.ANY_RING, Operation.UNION);
+    }
+
+    /**
+     * Applies operation on polygons
+     *
+     * @param subject     rings of subject polygon
+     * @param subjectRule fill rule of subject polygon
+     * @param clip        rings of clip polygon
+     * @param clipRule    fill rule of clip polygon
+     * @param operation   to apply
+     * @return rings of result polygon
+     */
+    public static List<List<Vector3D>> clip(List<List<Vector3D>> subject, FillRule subjectRule,
+                                            List<List<Vector3D>> clip, FillRule clipRule, Operation operation) {
+        double epsilon = getEpsilon(subject, clip);
+        List<Segment> subjectSegments = toSegments(subject, epsilon);
+        List<Segment> clipSegments = toSegments(clip, epsilon);
+        EdgeIndex subjectIndex = new EdgeIndex(subjectSegments, subject.size(), subjectRule);
+        EdgeIndex clipIndex = new EdgeIndex(clipSegments, clip.size(), clipRule);
+
+        List<Segment> segments = new ArrayList<>(subjectSegments.size() + clipSegments.size());
+        segments.addAll(subjectSegments);
+        segments.addAll(clipSegments);
+        findIntersections(segments, epsilon);
+
+        // keep split edges having the result on exactly one side, oriented to have the result on their left
+        PointPool points = new PointPool(epsilon);
+        // edges are linked in insertion order to get the same rings for the same input
+        Map<Vector3D, Map<Vector3D, Edge>> edges = new IdentityHashMap<>();
+        List<Edge> edgeOrder = new ArrayList<>();
+        double sideOffset = epsilon * SIDE_OFFSET_FACTOR;
+        for (Segment segment : segments) {
+            List<Vector3D> splitPoints = segment.getSplitPoints();
+            for (int i = 0; i + 1 < splitPoints.size(); i++) {
+                Vector3D from = points.get(splitPoints.get(i));
+                Vector3D to = points.get(splitPoints.get(i + 1));
+                if (from == to) continue;
+
+                double dx = to.getX() - from.getX();
+                double dy = to.getY() - from.getY();
+                double length = Math.sqrt(dx * dx + dy * dy);
+                double mx = (from.getX() + to.getX()) / 2.0;
+                double my = (from.getY() + to.getY()) / 2.0;
+                double nx = -dy / length * sideOffset;
+                double ny = dx / length * sideOffset;
+                boolean left = isInResult(operation, subjectIndex, clipIndex, mx + nx, my + ny);
+                boolean right = isInResult(operation, subjectIndex, clipIndex, mx - nx, my - ny);
+                if (left == right) continue;
+
+                // coincident edges of both polygons are kept once
+                Edge edge = left ? new Edge(from, to) : new Edge(to, from);
+                if (edges.computeIfAbsent(edge.from, p -> new LinkedHashMap<>()).putIfAbsent(edge.to, edge) == null) {
+                    edgeOrder.add(edge);
+                }
+            }
+        }
+        return linkRings(edges, edgeOrder, epsilon);
+    }
+
+    private static boolean isInResult(Operation operation, EdgeIndex subject, EdgeIndex clip, double x, double y) {
+        switch (operation) {
+            case UNION:
+                return subject.contains(x, y) || clip.contains(x, y);
+            case INTERSECTION:
+                return subject.contains(x, y) && clip.contains(x, y);
+            default:
+                return subject.contains(x, y) && !clip.contains(x, y);
+        }
+    }
+
+    /**
+     * @return absolute tolerance derived from extent and position of all points
+     */
+    private static double getEpsilon(List<List<Vector3D>> subject, List<List<Vector3D>> clip) {
+        double max = 1.0;
+        List<List<Vector3D>> rings = new ArrayList<>(subject);
+        rings.addAll(clip);
+        for (List<Vector3D> ring : rings) {
+            for (Vector3D point : ring) {
+                max = Math.max(max, Math.max(Math.abs(point.getX()), Math.abs(point.getY())));
+            }
+        }
+        return max * RELATIVE_EPSILON;
+    }
+
+    /**
+     * Creates segments of rings. Closing points repeating the first point and zero length edges are skipped.
+     */
+    private static List<Segment> toSegments(List<List<Vector3D>> rings, double epsilon) {
+        List<Segment> segments = new ArrayList<>();
+        for (int r = 0; r < rings.size(); r++) {
+            List<Vector3D> ring = rings.get(r);
+            int n = ring.size();
+            while (n > 1 && isClose(ring.get(0), ring.get(n - 1), epsilon)) n--;
+            if (n < 3) continue;
+            Vector3D previous = ring.get(n - 1);
+            for (int i = 0; i < n; i++) {
+                Vector3D point = ring.get(i);
+                if (!isClose(previous, point, epsilon)) {
+                    segments.add(new Segment(previous, point, r));
+                    previous = point;
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isClose(Vector3D a, Vector3D b, double epsilon) {
+        return Math.abs(a.getX() - b.getX()) <= epsilon && Math.abs(a.getY() - b.getY()) <= epsilon;
+    }
+
+    /**
+     * Splits segments at their intersections. Segments are swept in order of their minimum x, only segments
+     * overlapping the sweep position are tested against each other.
+     */
+    private static void findIntersections(List<Segment> segments, double epsilon) {
+        List<Segment> sorted = new ArrayList<>(segments);
+        sorted.sort(Comparator.comparingDouble(s -> s.minX));
+        List<Segment> active = new ArrayList<>();
+        for (Segment segment : sorted) {
+            // remove segments left of sweep position
+            int kept = 0;
+            for (Segment candidate : active) {
+                if (candidate.maxX >= segment.minX - epsilon) active.set(kept++, candidate);
+            }
+            active.subList(kept, active.size()).clear();
+
+            for (Segment candidate : active) {
+                if (candidate.maxY >= segment.minY - epsilon && candidate.minY <= segment.maxY + epsilon) {
+                    intersect(candidate, segment, epsilon);
+                }
+            }
+            active.add(segment);
+        }
+    }
+
+    /**
+     * Adds intersection points of two segments to their split points. Points close to an endpoint are snapped to it.
+     */
+    private static void intersect(Segment a, Segment b, double epsilon) {
+        double rx = b.start.getX() - a.start.getX();
+        double ry = b.start.getY() - a.start.getY();
+        double denominator = a.dx * b.dy - a.dy * b.dx;
+        double tEpsilon = epsilon / a.length;
+        double uEpsilon = epsilon / b.length;
+
+        if (Math.abs(denominator) > epsilon * Math.max(a.length, b.length)) {
+            double t = (rx * b.dy - ry * b.dx) / denominator;
+            double u = (rx * a.dy - ry * a.dx) / denominator;
+            if (t < -tEpsilon || t > 1.0 + tEpsilon || u < -uEpsilon || u > 1.0 + uEpsilon) return;
+
+            Vector3D point;
+            if (t <= tEpsilon) point = a.start;
+            else if (t >= 1.0 - tEpsilon) point = a.end;
+            else if (u <= uEpsilon) point = b.start;
+            else if (u >= 1.0 - uEpsilon) point = b.end;
+            else point = a.pointAt(t);
+            a.split(t, tEpsilon, point);
+            b.split(u, uEpsilon, point);
+            return;
+        }
+
+        // parallel, split collinear overlapping segments at endpoints of the other one
+        if (Math.abs(rx * a.dy - ry * a.dx) / a.length > epsilon) return;
+        a.split(a.project(b.start), tEpsilon, b.start);
+        a.split(a.project(b.end), tEpsilon, b.end);
+        b.split(b.project(a.start), uEpsilon, a.start);
+        b.split(b.project(a.end), uEpsilon, a.end);
+    }
+
+    /**
+     * Links directed edges into closed rings
+     */
+    private static List<List<Vector3D>> linkRings(Map<Vector3D, Map<Vector3D, Edge>> edges, List<Edge> edgeOrder, double epsilon) {
+        List<List<Vector3D>> rings = new ArrayList<>();
+        for (Edge first : edgeOrder) {
+            if (first.used) continue;
+            List<Vector3D> ring = new ArrayList<>();
+            Edge edge = first;
+            while (edge != null) {
+                edge.used = true;
+                ring.add(edge.from);
+                if (edge.to == first.from) break;
+                edge = nextEdge(edges.get(edge.to));
+            }
+            // dead end, only possible for numerically inconsistent input
+            if (edge == null) continue;
+            List<Vector3D> simplified = removeCollinearPoints(ring, epsilon);
+            if (simplified.size() >= 3) {
+                simplified.add(new Vector3D(simplified.get(0)));
+                rings.add(simplified);
+            }
+        }
+        return rings;
+    }
+
+    private static Edge nextEdge(Map<Vector3D, Edge> outgoing) {
+        if (outgoing == null) return null;
+        for (Edge edge : outgoing.values()) {
+            if (!edge.used) return edge;
+        }
+        return null;
+    }
+
+    /**
+     * Copies points of ring skipping points lying on the line between their neighbours
+     */
+    private static List<Vector3D> removeCollinearPoints(List<Vector3D> ring, double epsilon) {
+        List<Vector3D> result = new ArrayList<>(ring.size() + 1);
+        int n = ring.size();
+        for (int i = 0; i < n; i++) {
+            Vector3D previous = ring.get((i + n - 1) % n);
+            Vector3D point = ring.get(i);
+            Vector3D next = ring.get((i + 1) % n);
+            double ax = point.getX() - previous.getX();
+            double ay = point.getY() - previous.getY();
+            double bx = next.getX() - point.getX();
+            double by = next.getY() - point.getY();
+            double lengthA = Math.sqrt(ax * ax + ay * ay);
+            double lengthB = Math.sqrt(bx * bx + by * by);
+            boolean collinear = Math.abs(ax * by - ay * bx) <= epsilon * Math.max(lengthA, lengthB)
+                    && ax * bx + ay * by > 0.0;
+            if (!collinear) result.add(new Vector3D(point));
+        }
+        return result;
+    }
+
+    /**
+     * Edge of polygon ring, collecting points it is split at
+     */
+    private static final class Segment {
+        final Vector3D start;
+        final Vector3D end;
+        final int ring;
+        final double dx;
+        final double dy;
+        final double length;
+        final double minX;
+        final double maxX;
+        final double minY;
+        final double maxY;
+        private List<double[]> splits;
+        private List<Vector3D> splitPoints;
+
+        Segment(Vector3D start, Vector3D end, int ring) {
+            this.start = start;
+            this.end = end;
+            this.ring = ring;
+            dx = end.getX() - start.getX();
+            dy = end.getY() - start.getY();
+            length = Math.sqrt(dx * dx + dy * dy);
+            minX = Math.min(start.getX(), end.getX());
+            maxX = Math.max(start.getX(), end.getX());
+            minY = Math.min(start.getY(), end.getY());
+            maxY = Math.max(start.getY(), end.getY());
+        }
+
+        double project(Vector3D point) {
+            return ((point.getX() - start.getX()) * dx + (point.getY() - start.getY()) * dy) / (length * length);
+        }
+
+        Vector3D pointAt(double t) {
+            return new Vector3D(start.getX() + t * dx, start.getY() + t * dy,
+                    start.getZ() + t * (end.getZ() - start.getZ()));
+        }
+
+        /**
+         * Adds split point at parameter t if t is inside of segment
+         */
+        void split(double t, double tEpsilon, Vector3D point) {
+            if (t <= tEpsilon || t >= 1.0 - tEpsilon) return;
+            if (splits == null) {
+                splits = new ArrayList<>();
+                splitPoints = new ArrayList<>();
+            }
+            splits.add(new double[]{t, splitPoints.size()});
+            // z of split point taken from this segment
+            splitPoints.add(new Vector3D(point.getX(), point.getY(), start.getZ() + t * (end.getZ() - start.getZ())));
+        }
+
+        /**
+         * @return start point, split points ordered along segment and end point
+         */
+        List<Vector3D> getSplitPoints() {
+            List<Vector3D> points = new ArrayList<>();
+            points.add(start);
+            if (splits != null) {
+                splits.sort(Comparator.comparingDouble(split -> split[0]));
+                for (double[] split : splits) points.add(splitPoints.get((int) split[1]));
+            }
+            points.add(end);
+            return points;
+        }
+    }
+
+    /**
+     * Directed edge of result
+     */
+    private static final class Edge {
+        final Vector3D from;
+        final Vector3D to;
+        boolean used;
+
+        Edge(Vector3D from, Vector3D to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Merges points closer than tolerance into one instance. Points are hashed into grid cells of tolerance size,
+     * lookups check the neighbouring cells.
+     */
+    private static final class PointPool {
+        private final double cellSize;
+        private final double epsilon;
+        private final Map<Long, List<Vector3D>> cells = new HashMap<>();
+        private final Map<Vector3D, Vector3D> merged = new IdentityHashMap<>();
+
+        PointPool(double epsilon) {
+            this.epsilon = epsilon;
+            cellSize = epsilon * 2.0;
+        }
+
+        Vector3D get(Vector3D point) {
+            // endpoints are shared by adjacent segments, look them up once
+            return merged.computeIfAbsent(point, this::find);
+        }
+
+        private Vector3D find(Vector3D point) {
+            long cx = (long) Math.floor(point.getX() / cellSize);
+            long cy = (long) Math.floor(point.getY() / cellSize);
+            for (long i = cx - 1; i <= cx + 1; i++) {
+                for (long j = cy - 1; j <= cy + 1; j++) {
+                    List<Vector3D> cell = cells.get(key(i, j));
+                    if (cell == null) continue;
+                    for (Vector3D candidate : cell) {
+                        if (isClose(candidate, point, epsilon)) return candidate;
+                    }
+                }
+            }
+            cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>(1)).add(point);
+            return point;
+        }
+
+        private static Long key(long x, long y) {
+            return x * 0x9E3779B97F4A7C15L + y;
+        }
+    }
+
+    /**
+     * Index of polygon edges in horizontal bands, used to test if points are inside of polygon by casting a ray
+     * in x-direction against the edges of one band only
+     */
+    private static final class EdgeIndex {
+        private final FillRule fillRule;
+        private final double minY;
+        private final double bandHeight;
+        private final List<List<Segment>> bands;
+        private final boolean[] ringParity;
+        private final List<Integer> oddRings = new ArrayList<>();
+
+        EdgeIndex(List<Segment> segments, int ringCount, FillRule fillRule) {
+            this.fillRule = fillRule;
+            ringParity = new boolean[ringCount];
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Segment segment : segments) {
+                min = Math.min(min, segment.minY);
+                max = Math.max(max, segment.maxY);
+            }
+            int bandCount = segments.isEmpty() ? 0 : Math.max(1, Math.min(MAX_BANDS, segments.size()));
+            minY = min;
+            bandHeight = bandCount > 0 && max > min ? (max - min) / bandCount : 1.0;
+            bands = new ArrayList<>(bandCount);
+            for (int i = 0; i < bandCount; i++) bands.add(new ArrayList<>());
+            for (Segment segment : segments) {
+                // horizontal edges never cross a ray in x-direction
+                if (segment.minY == segment.maxY) continue;
+                for (int i = band(segment.minY); i <= band(segment.maxY); i++) bands.get(i).add(segment);
+            }
+        }
+
+        private int band(double y) {
+            return Math.max(0, Math.min(bands.size() - 1, (int) ((y - minY) / bandHeight)));
+        }
+
+        boolean contains(double x, double y) {
+            if (bands.isEmpty() || y < minY || y > minY + bandHeight * bands.size()) return false;
+            boolean parity = false;
+            int winding = 0;
+            for (Segment segment : bands.get(band(y))) {
+                if ((segment.start.getY() <= y) == (segment.end.getY() <= y)) continue;
+                double crossingX = segment.start.getX() + (y - segment.start.getY()) / segment.dy * segment.dx;
+                if (crossingX <= x) continue;
+                if (fillRule == FillRule.EVEN_ODD) {
+                    parity = !parity;
+                } else if (fillRule == FillRule.NONZERO) {
+                    winding += segment.dy > 0 ? 1 : -1;
+                } else {
+                    ringParity[segment.ring] = !ringParity[segment.ring];
+                    oddRings.add(segment.ring);
+                }
+            }
+            if (fillRule == FillRule.EVEN_ODD) return parity;
+            if (fillRule == FillRule.NONZERO) return winding != 0;
+
+            boolean inside = false;
+            for (int ring : oddRings) {
+                inside |= ringParity[ring];
+                ringParity[ring] = false;
+            }
+            oddRings.clear();
+            return inside;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.math;
+
+import java.util.List;
+
+/**
+ * Class provides 3D affine transformation as 3x4 matrix, a linear part followed by a translation.
+ * Rotations, scaling and translations are composed into one transformation applied once per point.
+ */
+public class Transform3D {
+
+    private double m00;
+    private double m01;
+    private double m02;
+    private double m03;
+    private double m10;
+    private double m11;
+    private double m12;
+    private double m13;
+    private double m20;
+    private double m21;
+    private double m22;
+    private double m23;
+
+    /**
+     * Creates identity transformation
+     */
+    public Transform3D() {
+        setIdentity();
+    }
+
+    public Transform3D(double m00, double m01, double m02, double m03,
+                       double m10, double m11, double m12, double m13,
+                       double m20, double m21, double m22, double m23) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m03 = m03;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m13 = m13;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+        this.m23 = m23;
+    }
+
+    /**
+     * Creates transformation applying linear part first, then translation
+     *
+     * @param linear      rotation or scaling matrix
+     * @param translation vector
+     */
+    public Transform3D(Matrix3D linear, Vector3D translation) {
+        this(linear.getM00(), linear.getM01(), linear.getM02(), translation.getX(),
+                linear.getM10(), linear.getM11(), linear.getM12(), translation.getY(),
+                linear.getM20(), linear.getM21(), linear.getM22(), translation.getZ());
+    }
+
+    public Transform3D(Transform3D transform) {
+        set(transform);
+    }
+
+    /**
+     * Creates transformation scaling uniformly
+     *
+     * @param factor scale factor
+     * @return scaling transformation
+     */
+    public static Transform3D scale(double factor) {
+        return new Transform3D(
+                factor, 0.0, 0.0, 0.0,
+                0.0, factor, 0.0, 0.0,
+                0.0, 0.0, factor, 0.0);
+    }
+
+    /**
+     * Sets this transformation to identity
+     */
+    public void setIdentity() {
+        this.m00 = 1.0;
+        this.m01 = 0.0;
+        this.m02 = 0.0;
+        this.m03 = 0.0;
+
+        this.m10 = 0.0;
+        this.m11 = 1.0;
+        this.m12 = 0.0;
+        this.m13 = 0.0;
+
+        this.m20 = 0.0;
+        this.m21 = 0.0;
+        this.m22 = 1.0;
+        this.m23 = 0.0;
+    }
+
+    /**
+     * Sets values of this transformation to values from param transformation
+     *
+     * @param transform to get values from
+     */
+    public void set(Transform3D transform) {
+        this.m00 = transform.m00;
+        this.m01 = transform.m01;
+        this.m02 = transform.m02;
+        this.m03 = transform.m03;
+        this.m10 = transform.m10;
+        this.m11 = transform.m11;
+        this.m12 = transform.m12;
+        this.m13 = transform.m13;
+        this.m20 = transform.m20;
+        this.m21 = transform.m21;
+        this.m22 = transform.m22;
+        this.m23 = transform.m23;
+    }
+
+    /**
+     * @return linear part of this transformation
+     */
+    public Matrix3D getLinear() {
+        return new Matrix3D(
+                m00, m01, m02,
+                m10, m11, m12,
+                m20, m21, m22);
+    }
+
+    /**
+     * @return translation part of this transformation
+     */
+    public Vector3D getTranslation() {
+        return new Vector3D(m03, m13, m23);
+    }
+
+    /**
+     * Sets this transformation to the composition of this transformation with param transformation.
+     * Param transformation is applied first, e.g. parent.compose(local) maps local coordinates to parent's parent.
+     *
+     * @param transform to apply before this transformation
+     */
+    public void compose(Transform3D transform) {
+        double n00 = this.m00 * transform.m00 + this.m01 * transform.m10 + this.m02 * transform.m20;
+        double n01 = this.m00 * transform.m01 + this.m01 * transform.m11 + this.m02 * transform.m21;
+        double n02 = this.m00 * transform.m02 + this.m01 * transform.m12 + this.m02 * transform.m22;
+        double n03 = this.m00 * transform.m03 + this.m01 * transform.m13 + this.m02 * transform.m23 + this.m03;
+
+        double n10 = this.m10 * transform.m00 + this.m11 * transform.m10 + this.m12 * transform.m20;
+        double n11 = this.m10 * transform.m01 + this.m11 * transform.m11 + this.m12 * transform.m21;
+        double n12 = this.m10 * transform.m02 + this.m11 * transform.m12 + this.m12 * transform.m22;
+        double n13 = this.m10 * transform.m03 + this.m11 * transform.m13 + this.m12 * transform.m23 + this.m13;
+
+        double n20 = this.m20 * transform.m00 + this.m21 * transform.m10 + this.m22 * transform.m20;
+        double n21 = this.m20 * transform.m01 + this.m21 * transform.m11 + this.m22 * transform.m21;
+        double n22 = this.m20 * transform.m02 + this.m21 * transform.m12 + this.m22 * transform.m22;
+        double n23 = this.m20 * transform.m03 + this.m21 * transform.m13 + this.m22 * transform.m23 + this.m23;
+
+        this.m00 = n00;
+        this.m01 = n01;
+        this.m02 = n02;
+        this.m03 = n03;
+        this.m10 = n10;
+        this.m11 = n11;
+        this.m12 = n12;
+        this.m13 = n13;
+        this.m20 = n20;
+        this.m21 = n21;
+        this.m22 = n22;
+        this.m23 = n23;
+    }
+
+    /**
+     * Inverts and sets this transformation. Transformation stays unchanged if linear part is singular.
+     */
+    public void invert() {
+        double det = det();
+        if (det == 0) return;
+        double factor = 1.0 / det;
+
+        double i00 = (this.m11 * this.m22 - this.m12 * this.m21) * factor;
+        double i01 = (this.m02 * this.m21 - this.m01 * this.m22) * factor;
+        double i02 = (this.m01 * this.m12 - this.m02 * this.m11) * factor;
+
+        double i10 = (this.m12 * this.m20 - this.m10 * this.m22) * factor;
+        double i11 = (this.m00 * this.m22 - this.m02 * this.m20) * factor;
+        double i12 = (this.m02 * this.m10 - this.m00 * this.m12) * factor;
+
+        double i20 = (this.m10 * this.m21 - this.m11 * this.m20) * factor;
+        double i21 = (this.m01 * this.m20 - this.m00 * this.m21) * factor;
+        double i22 = (this.m00 * this.m11 - this.m01 * this.m10) * factor;
+
+        // inverse translation is -inverse(linear) * translation
+        double i03 = -(i00 * this.m03 + i01 * this.m13 + i02 * this.m23);
+        double i13 = -(i10 * this.m03 + i11 * this.m13 + i12 * this.m23);
+        double i23 = -(i20 * this.m03 + i21 * this.m13 + i22 * this.m23);
+
+        this.m00 = i00;
+        this.m01 = i01;
+        this.m02 = i02;
+        this.m03 = i03;
+        this.m10 = i10;
+        this.m11 = i11;
+        this.m12 = i12;
+        this.m13 = i13;
+        this.m20 = i20;
+        this.m21 = i21;
+        this.m22 = i22;
+        this.m23 = i23;
+    }
+
+    /**
+     * Calculates the determinant of the linear part of this transformation
+     *
+     * @return determinant of linear part
+     */
+    public double det() {
+        return (this.m00 * this.m11 * this.m22 +
+                this.m01 * this.m12 * this.m20 +
+                this.m02 * this.m10 * this.m21 -
+                this.m02 * this.m11 * this.m20 -
+                this.m01 * this.m10 * this.m22 -
+                this.m00 * this.m12 * this.m21);
+    }
+
+    /**
+     * Transforms param point using this transformation
+     *
+     * @param point to transform
+     */
+    public void transform(Vector3D point) {
+        double x = point.getX();
+        double y = point.getY();
+        double z = point.getZ();
+        point.setX(this.m00 * x + this.m01 * y + this.m02 * z + this.m03);
+        point.setY(this.m10 * x + this.m11 * y + this.m12 * z + this.m13);
+        point.setZ(this.m20 * x + this.m21 * y + this.m22 * z + this.m23);
+    }
+
+    /**
+     * Transforms all param points using this transformation
+     *
+     * @param points to transform
+     */
+    public void transform(List<Vector3D> points) {
+        for (Vector3D point : points) {
+            transform(point);
+        }
+    }
+
+    /**
+     * Transforms points stored as consecutive x, y, z values using this transformation
+     *
+     * @param coordinates interleaved point coordinates
+     * @param offset      index of x value of first point
+     * @param count       number of points to transform
+     */
+    public void transform(double[] coordinates, int offset, int count) {
+        int end = offset + 3 * count;
+        for (int i = offset; i < end; i += 3) {
+            double x = coordinates[i];
+            double y = coordinates[i + 1];
+            double z = coordinates[i + 2];
+            coordinates[i] = this.m00 * x + this.m01 * y + this.m02 * z + this.m03;
+            coordinates[i + 1] = this.m10 * x + this.m11 * y + this.m12 * z + this.m13;
+            coordinates[i + 2] = this.m20 * x + this.m21 * y + this.m22 * z + this.m23;
+        }
+    }
+}
@@ -93,9 +93,9 @@ public class Vector3D {
      */
     public void normalize(Vector3D vector) {
         double n = 1.0 / Math.sqrt(Math.pow(vector.x, 2.0) + Math.pow(vector.y, 2.0) + Math.pow(vector.z, 2.0));
-        this.x *= n;
-        this.y *= n;
-        this.z *= n;
+        this.x = vector.x * n;
+        this.y = vector.y * n;
+        this.z = vector.z * n;
     }
 
     /**
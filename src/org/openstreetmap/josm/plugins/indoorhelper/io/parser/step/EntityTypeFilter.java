@@ -0,0 +1,98 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema.ExpressEntity;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set of entity types of a schema which are loaded into a {@link StepModel}. Records of other types are skipped
+ * while indexing, references to them decode as unset values.
+ */
+public class EntityTypeFilter {
+
+    private final Set<ExpressEntity> acceptedTypes;
+
+    private EntityTypeFilter(Set<ExpressEntity> acceptedTypes) {
+        this.acceptedTypes = acceptedTypes;
+    }
+
+    /**
+     * Computes the closure of entity types reachable from root types by following explicit attributes.
+     * A type includes all of its subtypes, attributes referencing a SELECT type reach all types of the selection.
+     *
+     * @param schema            EXPRESS schema
+     * @param rootTypes         names of types to start from
+     * @param terminalTypes     names of types which are accepted, but whose attributes are not followed
+     * @param excludedTypes     names of types which are never accepted
+     * @param ignoredAttributes names of attributes which are not followed
+     * @return filter accepting all reachable types
+     */
+    public static EntityTypeFilter reachableFrom(ExpressSchema schema, Collection<String> rootTypes,
+                                                 Collection<String> terminalTypes, Collection<String> excludedTypes,
+                                                 Collection<String> ignoredAttributes) {
+        Set<ExpressEntity> terminals = resolve(schema, terminalTypes);
+        Set<ExpressEntity> excluded = resolve(schema, excludedTypes);
+        Set<ExpressEntity> accepted = new HashSet<>();
+        Deque<ExpressEntity> pending = new ArrayDeque<>(resolve(schema, rootTypes));
+
+        while (!pending.isEmpty()) {
+            ExpressEntity type = pending.poll();
+            if (isSubtypeOfAny(type, excluded) || !accepted.add(type)) continue;
+
+            // instances of a type may be instances of any of its subtypes
+            for (ExpressEntity entity : schema.getEntities()) {
+                if (entity.getSupertype() == type) pending.add(entity);
+            }
+            if (isSubtypeOfAny(type, terminals)) continue;
+
+            List<String> attributeNames = type.getAttributeNames();
+            List<String> attributeTypes = type.getAttributeTypes();
+            for (int i = 0; i < attributeNames.size(); i++) {
+                if (ignoredAttributes.contains(attributeNames.get(i))) continue;
+                pending.addAll(schema.getReferencedEntities(attributeTypes.get(i)));
+            }
+        }
+        return new EntityTypeFilter(Collections.unmodifiableSet(accepted));
+    }
+
+    /**
+     * Checks if records of a type are loaded
+     *
+     * @param type entity type
+     * @return true if records of type are loaded, else false
+     */
+    public boolean accepts(ExpressEntity type) {
+        return acceptedTypes.contains(type);
+    }
+
+    /**
+     * @return all accepted entity types
+     */
+    public Set<ExpressEntity> getAcceptedTypes() {
+        return acceptedTypes;
+    }
+
+    private static Set<ExpressEntity> resolve(ExpressSchema schema, Collection<String> typeNames) {
+        Set<ExpressEntity> types = new HashSet<>();
+        for (String typeName : typeNames) {
+            ExpressEntity type = schema.getEntity(typeName);
+            // types of other schema versions are ignored
+            if (type != null) types.add(type);
+        }
+        return types;
+    }
+
+    private static boolean isSubtypeOfAny(ExpressEntity type, Set<ExpressEntity> types) {
+        for (ExpressEntity t = type; t != null; t = t.getSupertype()) {
+            if (types.contains(t)) return true;
+        }
+        return false;
+    }
+}
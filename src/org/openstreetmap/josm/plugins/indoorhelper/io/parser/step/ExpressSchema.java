@@ -0,0 +1,380 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entity definitions of an EXPRESS schema (ISO 10303-11). Only the information needed to read STEP files is kept:
+ * entity names, supertypes and the ordered list of explicit attributes. Instances are immutable after parsing.
+ */
+public class ExpressSchema {
+
+    private static final Pattern SCHEMA_PATTERN = Pattern.compile("\\bSCHEMA\\s+(\\w+)\\s*;");
+    private static final Pattern ENTITY_PATTERN = Pattern.compile("\\bENTITY\\s+(\\w+)(.*?)\\bEND_ENTITY\\s*;",
+            Pattern.DOTALL);
+    private static final Pattern SUBTYPE_PATTERN = Pattern.compile("\\bSUBTYPE\\s+OF\\s*\\(\\s*(\\w+)\\s*\\)");
+    private static final Pattern ABSTRACT_PATTERN = Pattern.compile("\\bABSTRACT\\b");
+    private static final Pattern TYPE_PATTERN = Pattern.compile("\\bTYPE\\s+(\\w+)\\s*=([^;]*);");
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("\\b[A-Za-z]\\w*\\b");
+    private static final Pattern SECTION_PATTERN = Pattern.compile("\\b(DERIVE|INVERSE|UNIQUE|WHERE)\\b");
+    private static final int SERIAL_MAGIC = 0x45585053; // "EXPS"
+    private static final int SERIAL_VERSION = 2;
+
+    private static final Pattern COMMENT_PATTERN = Pattern.compile("\\(\\*.*?\\*\\)|--[^\\n]*", Pattern.DOTALL);
+
+    private final String name;
+    private final Map<String, ExpressEntity> entities;
+    /** identifiers used by underlying types of SELECT and defined types, by upper case type name */
+    private final Map<String, List<String>> typeReferences;
+
+    private ExpressSchema(String name, Map<String, ExpressEntity> entities, Map<String, List<String>> typeReferences) {
+        this.name = name;
+        this.entities = entities;
+        this.typeReferences = typeReferences;
+    }
+
+    /**
+     * Parses EXPRESS schema file
+     *
+     * @param schemaFile path of EXPRESS file
+     * @return parsed schema
+     * @throws IOException if file can not be read
+     */
+    public static ExpressSchema parse(Path schemaFile) throws IOException {
+        return parse(new String(Files.readAllBytes(schemaFile), StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Parses EXPRESS schema
+     *
+     * @param content of EXPRESS schema
+     * @return parsed schema
+     */
+    public static ExpressSchema parse(String content) {
+        String schema = COMMENT_PATTERN.matcher(content).replaceAll(" ");
+        Matcher schemaMatcher = SCHEMA_PATTERN.matcher(schema);
+        String schemaName = schemaMatcher.find() ? schemaMatcher.group(1) : null;
+
+        Map<String, ExpressEntity> entities = new LinkedHashMap<>();
+        Map<ExpressEntity, String> supertypeNames = new HashMap<>();
+        Matcher entityMatcher = ENTITY_PATTERN.matcher(schema);
+        while (entityMatcher.find()) {
+            String entityName = entityMatcher.group(1);
+            String body = entityMatcher.group(2);
+
+            // entity header ends with first semicolon, explicit attributes follow until next section keyword
+            int headerEnd = body.indexOf(';');
+            String header = headerEnd >= 0 ? body.substring(0, headerEnd) : body;
+            String attributeSection = headerEnd >= 0 ? body.substring(headerEnd + 1) : "";
+            Matcher sectionMatcher = SECTION_PATTERN.matcher(attributeSection);
+            if (sectionMatcher.find()) attributeSection = attributeSection.substring(0, sectionMatcher.start());
+
+            List<String> attributeNames = new ArrayList<>();
+            List<String> attributeTypes = new ArrayList<>();
+            for (String declaration : attributeSection.split(";")) {
+                int colon = declaration.indexOf(':');
+                if (colon < 0) continue;
+                String names = declaration.substring(0, colon).trim();
+                // redeclared attributes of supertypes do not add attribute values
+                if (names.startsWith("SELF\\")) continue;
+                String type = declaration.substring(colon + 1).trim().replaceAll("\\s+", " ");
+                for (String attributeName : names.split(",")) {
+                    attributeNames.add(attributeName.trim());
+                    attributeTypes.add(type);
+                }
+            }
+
+            ExpressEntity entity = new ExpressEntity(entityName, ABSTRACT_PATTERN.matcher(header).find(),
+                    attributeNames, attributeTypes);
+            entities.put(entityName.toUpperCase(Locale.ROOT), entity);
+            Matcher subtypeMatcher = SUBTYPE_PATTERN.matcher(header);
+            if (subtypeMatcher.find()) supertypeNames.put(entity, subtypeMatcher.group(1));
+        }
+
+        Map<String, List<String>> typeReferences = new HashMap<>();
+        Matcher typeMatcher = TYPE_PATTERN.matcher(schema);
+        while (typeMatcher.find()) {
+            String underlyingType = typeMatcher.group(2);
+            // enumeration items are no type references
+            if (underlyingType.contains("ENUMERATION")) continue;
+            List<String> identifiers = new ArrayList<>();
+            Matcher identifierMatcher = IDENTIFIER_PATTERN.matcher(underlyingType);
+            while (identifierMatcher.find()) identifiers.add(identifierMatcher.group());
+            typeReferences.put(typeMatcher.group(1).toUpperCase(Locale.ROOT), identifiers);
+        }
+        return link(schemaName, entities, supertypeNames, typeReferences);
+    }
+
+    /**
+     * Reads schema in the compact form written by {@link #write}
+     *
+     * @param in to read from
+     * @return read schema
+     * @throws IOException if stream can not be read or holds no schema
+     */
+    public static ExpressSchema read(DataInputStream in) throws IOException {
+        if (in.readInt() != SERIAL_MAGIC || in.readInt() != SERIAL_VERSION) {
+            throw new IOException("unsupported serialized schema format");
+        }
+        String schemaName = in.readBoolean() ? in.readUTF() : null;
+        int entityCount = in.readInt();
+        Map<String, ExpressEntity> entities = new LinkedHashMap<>();
+        Map<ExpressEntity, String> supertypeNames = new HashMap<>();
+        for (int i = 0; i < entityCount; i++) {
+            String entityName = in.readUTF();
+            boolean isAbstract = in.readBoolean();
+            String supertypeName = in.readBoolean() ? in.readUTF() : null;
+            int attributeCount = in.readInt();
+            List<String> attributeNames = new ArrayList<>(attributeCount);
+            List<String> attributeTypes = new ArrayList<>(attributeCount);
+            for (int j = 0; j < attributeCount; j++) {
+                attributeNames.add(in.readUTF());
+                attributeTypes.add(in.readUTF());
+            }
+            ExpressEntity entity = new ExpressEntity(entityName, isAbstract, attributeNames, attributeTypes);
+            entities.put(entityName.toUpperCase(Locale.ROOT), entity);
+            if (supertypeName != null) supertypeNames.put(entity, supertypeName);
+        }
+        int typeCount = in.readInt();
+        Map<String, List<String>> typeReferences = new HashMap<>();
+        for (int i = 0; i < typeCount; i++) {
+            String typeName = in.readUTF();
+            int identifierCount = in.readInt();
+            List<String> identifiers = new ArrayList<>(identifierCount);
+            for (int j = 0; j < identifierCount; j++) {
+                identifiers.add(in.readUTF());
+            }
+            typeReferences.put(typeName, identifiers);
+        }
+        return link(schemaName, entities, supertypeNames, typeReferences);
+    }
+
+    /**
+     * Writes schema in a compact form which is read considerably faster than EXPRESS
+     *
+     * @param out to write to
+     * @throws IOException if stream can not be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(SERIAL_MAGIC);
+        out.writeInt(SERIAL_VERSION);
+        out.writeBoolean(name != null);
+        if (name != null) out.writeUTF(name);
+        out.writeInt(entities.size());
+        for (ExpressEntity entity : entities.values()) {
+            out.writeUTF(entity.name);
+            out.writeBoolean(entity.isAbstract);
+            out.writeBoolean(entity.supertype != null);
+            if (entity.supertype != null) out.writeUTF(entity.supertype.name);
+            out.writeInt(entity.ownAttributeNames.size());
+            for (int i = 0; i < entity.ownAttributeNames.size(); i++) {
+                out.writeUTF(entity.ownAttributeNames.get(i));
+                out.writeUTF(entity.ownAttributeTypes.get(i));
+            }
+        }
+        out.writeInt(typeReferences.size());
+        for (Map.Entry<String, List<String>> type : typeReferences.entrySet()) {
+            out.writeUTF(type.getKey());
+            out.writeInt(type.getValue().size());
+            for (String identifier : type.getValue()) {
+                out.writeUTF(identifier);
+            }
+        }
+    }
+
+    /**
+     * Resolves supertypes and inherited attributes of entities
+     *
+     * @param schemaName     name of schema
+     * @param entities       entity definitions by upper case name
+     * @param supertypeNames names of direct supertypes
+     * @param typeReferences identifiers used by underlying types of SELECT and defined types
+     * @return linked schema
+     */
+    private static ExpressSchema link(String schemaName, Map<String, ExpressEntity> entities,
+                                      Map<ExpressEntity, String> supertypeNames,
+                                      Map<String, List<String>> typeReferences) {
+        supertypeNames.forEach((entity, supertypeName) ->
+                entity.supertype = entities.get(supertypeName.toUpperCase(Locale.ROOT)));
+        entities.values().forEach(ExpressEntity::resolveAttributes);
+        return new ExpressSchema(schemaName, Collections.unmodifiableMap(entities), typeReferences);
+    }
+
+    /**
+     * @return name of schema, e.g. IFC4
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets entity definition by name
+     *
+     * @param entityName name of entity, case insensitive
+     * @return entity definition or null if not part of schema
+     */
+    public ExpressEntity getEntity(String entityName) {
+        return entities.get(entityName.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return all entity definitions of schema
+     */
+    public Collection<ExpressEntity> getEntities() {
+        return entities.values();
+    }
+
+    /**
+     * Resolves entities an attribute of the given type may reference. Aggregates, SELECT types and defined types
+     * are resolved to the entities they contain. Subtypes of the resolved entities are not included.
+     *
+     * @param attributeType declared attribute type, e.g. "OPTIONAL LIST [1:?] OF IfcAxis2Placement"
+     * @return referenced entities, empty if type holds no entity references
+     */
+    public Set<ExpressEntity> getReferencedEntities(String attributeType) {
+        Set<ExpressEntity> referenced = new LinkedHashSet<>();
+        collectReferencedEntities(attributeType, referenced, new HashSet<>());
+        return referenced;
+    }
+
+    private void collectReferencedEntities(String typeExpression, Set<ExpressEntity> referenced, Set<String> visited) {
+        Matcher identifierMatcher = IDENTIFIER_PATTERN.matcher(typeExpression);
+        while (identifierMatcher.find()) {
+            String identifier = identifierMatcher.group().toUpperCase(Locale.ROOT);
+            ExpressEntity entity = entities.get(identifier);
+            if (entity != null) {
+                referenced.add(entity);
+            } else if (typeReferences.containsKey(identifier) && visited.add(identifier)) {
+                collectReferencedEntities(String.join(" ", typeReferences.get(identifier)), referenced, visited);
+            }
+        }
+    }
+
+    /**
+     * Definition of an EXPRESS entity
+     */
+    public static class ExpressEntity {
+
+        private final String name;
+        private final boolean isAbstract;
+        private final List<String> ownAttributeNames;
+        private final List<String> ownAttributeTypes;
+        private ExpressEntity supertype;
+        private List<String> attributeNames;
+        private List<String> attributeTypes;
+        private Map<String, Integer> attributeIndex;
+
+        private ExpressEntity(String name, boolean isAbstract, List<String> attributeNames, List<String> attributeTypes) {
+            this.name = name;
+            this.isAbstract = isAbstract;
+            this.ownAttributeNames = attributeNames;
+            this.ownAttributeTypes = attributeTypes;
+        }
+
+        /**
+         * Collects attributes of supertypes, inherited attributes precede own attributes
+         */
+        private void resolveAttributes() {
+            if (attributeNames != null) return;
+            List<String> names = new ArrayList<>();
+            List<String> types = new ArrayList<>();
+            if (supertype != null) {
+                supertype.resolveAttributes();
+                names.addAll(supertype.attributeNames);
+                types.addAll(supertype.attributeTypes);
+            }
+            names.addAll(ownAttributeNames);
+            types.addAll(ownAttributeTypes);
+
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                index.put(names.get(i), i);
+            }
+            attributeNames = Collections.unmodifiableList(names);
+            attributeTypes = Collections.unmodifiableList(types);
+            attributeIndex = index;
+        }
+
+        /**
+         * @return name of entity as declared in schema, e.g. IfcWall
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return true if entity is declared abstract, else false
+         */
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+
+        /**
+         * @return direct supertype or null if entity has no supertype
+         */
+        public ExpressEntity getSupertype() {
+            return supertype;
+        }
+
+        /**
+         * Checks if entity equals or is a subtype of other entity
+         *
+         * @param other entity definition
+         * @return true if entity is other entity or one of its subtypes, else false
+         */
+        public boolean isSubtypeOf(ExpressEntity other) {
+            for (ExpressEntity e = this; e != null; e = e.supertype) {
+                if (e == other) return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return names of all explicit attributes in STEP order, including inherited attributes
+         */
+        public List<String> getAttributeNames() {
+            return attributeNames;
+        }
+
+        /**
+         * @return declared types of all explicit attributes in STEP order, including inherited attributes
+         */
+        public List<String> getAttributeTypes() {
+            return attributeTypes;
+        }
+
+        /**
+         * Gets position of attribute in STEP record
+         *
+         * @param attributeName name of attribute
+         * @return index of attribute or -1 if entity has no such attribute
+         */
+        public int getAttributeIndex(String attributeName) {
+            Integer index = attributeIndex.get(attributeName);
+            return index == null ? -1 : index;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
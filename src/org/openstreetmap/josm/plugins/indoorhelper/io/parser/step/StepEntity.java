@@ -0,0 +1,231 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema.ExpressEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entity instance of a {@link StepModel}. The entity keeps the byte range of its parameter list in the mapped file.
+ * Parameters are decoded on first attribute access and kept afterwards. REAL and INTEGER aggregates are kept as
+ * primitive arrays and only converted to their string form by {@link #getAttributeValueBN}.
+ */
+public class StepEntity implements IfcEntity {
+
+    private final StepModel model;
+    private final int id;
+    private final ExpressEntity type;
+    private final int parametersStart;
+    private final int parametersEnd;
+    private volatile Object[] values;
+
+    StepEntity(StepModel model, int id, ExpressEntity type, int parametersStart, int parametersEnd) {
+        this.model = model;
+        this.id = id;
+        this.type = type;
+        this.parametersStart = parametersStart;
+        this.parametersEnd = parametersEnd;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getTypeName() {
+        return type.getName();
+    }
+
+    /**
+     * @return buffer offset of parameter list, orders instances by their position in the file
+     */
+    int getParametersStart() {
+        return parametersStart;
+    }
+
+    /**
+     * @return entity definition of instance
+     */
+    public ExpressEntity getType() {
+        return type;
+    }
+
+    @Override
+    public Object getAttributeValueBN(String name) {
+        return toStepEncoding(getValue(name));
+    }
+
+    @Override
+    public double getAttributeValueBNasDouble(String name) {
+        return toDouble(getValue(name));
+    }
+
+    @Override
+    public double[] getAttributeValueBNasDoubleArray(String name) {
+        return toDoubleArray(getValue(name));
+    }
+
+    @Override
+    public List<double[]> getAttributeValueBNasDoubleArrayList(String name) {
+        Object value = getValue(name);
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        List<double[]> arrays = new ArrayList<>(values.size());
+        for (Object v : values) {
+            double[] array = toDoubleArray(v);
+            if (array == null) return null;
+            arrays.add(array);
+        }
+        return arrays;
+    }
+
+    @Override
+    public int[] getAttributeValueBNasIntArray(String name) {
+        Object value = getValue(name);
+        return value instanceof int[] ? (int[]) value : null;
+    }
+
+    @Override
+    public List<int[]> getAttributeValueBNasIntArrayList(String name) {
+        Object value = getValue(name);
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        List<int[]> arrays = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (!(v instanceof int[])) return null;
+            arrays.add((int[]) v);
+        }
+        return arrays;
+    }
+
+    /**
+     * Gets decoded value of attribute
+     *
+     * @param name of attribute
+     * @return decoded value or null if attribute is not set or not part of entity
+     */
+    private Object getValue(String name) {
+        int index = type.getAttributeIndex(name);
+        if (index < 0) return null;
+        Object[] decoded = getValues();
+        return index < decoded.length ? decoded[index] : null;
+    }
+
+    /**
+     * @return true if parameters of instance have been decoded, else false
+     */
+    public boolean isDecoded() {
+        return values != null;
+    }
+
+    /**
+     * Decodes parameters on first call. Concurrent first calls may decode twice, both results are equal.
+     *
+     * @return decoded parameter values
+     */
+    private Object[] getValues() {
+        Object[] decoded = values;
+        if (decoded == null) {
+            decoded = model.decodeParameters(parametersStart, parametersEnd);
+            values = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public IfcEntity getAttributeValueBNasEntityInstance(String name) {
+        Object value = getValue(name);
+        return value instanceof IfcEntity ? (IfcEntity) value : null;
+    }
+
+    @Override
+    public List<IfcEntity> getAttributeValueBNasEntityInstanceList(String name) {
+        Object value = getValue(name);
+        if (!(value instanceof List)) return Collections.emptyList();
+        List<?> values = (List<?>) value;
+        List<IfcEntity> entities = new ArrayList<>(values.size());
+        for (Object v : values) {
+            if (v instanceof IfcEntity) entities.add((IfcEntity) v);
+        }
+        return entities;
+    }
+
+    private static double[] toDoubleArray(Object value) {
+        if (value instanceof double[]) return (double[]) value;
+        if (value instanceof int[]) {
+            int[] integers = (int[]) value;
+            double[] array = new double[integers.length];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = integers[i];
+            }
+            return array;
+        }
+        if (!(value instanceof List)) return null;
+        List<?> values = (List<?>) value;
+        double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toDouble(values.get(i));
+        }
+        return array;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Double) return (Double) value;
+        if (value instanceof String) {
+            // INTEGER values of numeric attributes
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Converts decoded REAL values back to strings, as expected by callers of {@link #getAttributeValueBN}
+     *
+     * @param value decoded value
+     * @return value with strings instead of primitive values
+     */
+    private static Object toStepEncoding(Object value) {
+        if (value instanceof Double) return value.toString();
+        if (value instanceof double[]) {
+            double[] reals = (double[]) value;
+            List<String> values = new ArrayList<>(reals.length);
+            for (double real : reals) {
+                values.add(Double.toString(real));
+            }
+            return Collections.unmodifiableList(values);
+        }
+        if (value instanceof int[]) {
+            int[] integers = (int[]) value;
+            List<String> values = new ArrayList<>(integers.length);
+            for (int integer : integers) {
+                values.add(Integer.toString(integer));
+            }
+            return Collections.unmodifiableList(values);
+        }
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<Object> converted = null;
+            for (int i = 0; i < values.size(); i++) {
+                Object v = values.get(i);
+                Object c = toStepEncoding(v);
+                if (c != v && converted == null) converted = new ArrayList<>(values.subList(0, i));
+                if (converted != null) converted.add(c);
+            }
+            return converted != null ? Collections.unmodifiableList(converted) : value;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + id + "=" + type.getName();
+    }
+}
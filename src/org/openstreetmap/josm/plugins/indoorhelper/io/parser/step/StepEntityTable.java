@@ -0,0 +1,94 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of STEP instances by instance id. STEP files usually number their instances densely, so ids are
+ * used as array index. Ids far outside of the dense range are kept in a map.
+ * Entities may be added by several threads at once. Of entities sharing an id the one found first in the file
+ * is kept, independent of the order of additions.
+ */
+class StepEntityTable {
+
+    private static final int SPARSE_THRESHOLD = 1 << 16;
+
+    private AtomicReferenceArray<StepEntity> dense = new AtomicReferenceArray<>(0);
+    private final Map<Integer, StepEntity> sparse = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Sizes dense range of table. Must be called before entities are added.
+     *
+     * @param maxId       highest id of entities to add
+     * @param entityCount number of entities to add
+     */
+    void reserve(int maxId, int entityCount) {
+        long capacity = Math.min((long) maxId + 1, 2L * entityCount + SPARSE_THRESHOLD);
+        dense = new AtomicReferenceArray<>((int) Math.max(capacity, 0));
+    }
+
+    /**
+     * Gets entity by id
+     *
+     * @param id of entity
+     * @return entity or null if no entity with id exists
+     */
+    StepEntity get(int id) {
+        if (id >= 0 && id < dense.length()) return dense.get(id);
+        return sparse.get(id);
+    }
+
+    /**
+     * Adds entity to table unless table holds an entity with same id found earlier in the file
+     *
+     * @param entity to add
+     */
+    void put(StepEntity entity) {
+        int id = entity.getId();
+        if (id < 0 || id >= dense.length()) {
+            while (true) {
+                StepEntity present = sparse.putIfAbsent(id, entity);
+                if (present == null) {
+                    size.incrementAndGet();
+                    return;
+                }
+                if (present.getParametersStart() < entity.getParametersStart() || sparse.replace(id, present, entity)) return;
+            }
+        }
+        while (true) {
+            StepEntity present = dense.get(id);
+            if (present != null && present.getParametersStart() < entity.getParametersStart()) return;
+            if (dense.compareAndSet(id, present, entity)) {
+                if (present == null) size.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return number of ids in table
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return all entities of table, densely numbered entities in id order
+     */
+    Collection<StepEntity> values() {
+        List<StepEntity> values = new ArrayList<>(size());
+        for (int i = 0; i < dense.length(); i++) {
+            StepEntity entity = dense.get(i);
+            if (entity != null) values.add(entity);
+        }
+        values.addAll(sparse.values());
+        return values;
+    }
+}
@@ -0,0 +1,52 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcSchema;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the header section of a STEP file
+ */
+public class StepHeader {
+
+    private final List<String> schemaIdentifiers;
+    private final long dataOffset;
+
+    /**
+     * Constructor
+     *
+     * @param schemaIdentifiers as declared in FILE_SCHEMA entry
+     * @param dataOffset        byte offset after "DATA;" keyword, -1 if not found
+     */
+    public StepHeader(List<String> schemaIdentifiers, long dataOffset) {
+        this.schemaIdentifiers = Collections.unmodifiableList(schemaIdentifiers);
+        this.dataOffset = dataOffset;
+    }
+
+    /**
+     * @return schema identifiers as declared in FILE_SCHEMA entry
+     */
+    public List<String> getSchemaIdentifiers() {
+        return schemaIdentifiers;
+    }
+
+    /**
+     * @return first known IFC schema of FILE_SCHEMA entry, null if no known schema declared
+     */
+    public IfcSchema getSchema() {
+        for (String identifier : schemaIdentifiers) {
+            IfcSchema schema = IfcSchema.fromIdentifier(identifier);
+            if (schema != null) return schema;
+        }
+        return null;
+    }
+
+    /**
+     * @return byte offset of DATA section content, -1 if file has no DATA section
+     */
+    public long getDataOffset() {
+        return dataOffset;
+    }
+}
@@ -0,0 +1,115 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepLexer.TokenType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the header section of STEP files. Only the beginning of the file is mapped into memory, the mapped window
+ * grows if the header does not fit into it. Reading time therefore depends on header size, not on file size.
+ */
+public class StepHeaderReader {
+
+    private static final int INITIAL_WINDOW_SIZE = 4 * 1024;
+    private static final int MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Reads header of STEP file
+     *
+     * @param file STEP file
+     * @return header descriptor, holding the declarations found before window limit if header is malformed
+     * @throws IOException if file can not be read
+     */
+    public static StepHeader read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int windowSize = (int) Math.min(INITIAL_WINDOW_SIZE, fileSize);
+            while (true) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, windowSize);
+                boolean endOfInput = windowSize == fileSize || windowSize >= MAX_WINDOW_SIZE;
+                StepHeader header = parse(new StepLexer(window, 0, windowSize, endOfInput));
+                if (header != null) return header;
+                windowSize = (int) Math.min(Math.min((long) windowSize * 2, MAX_WINDOW_SIZE), fileSize);
+            }
+        }
+    }
+
+    /**
+     * Reads header of STEP data held by a stream, e.g. of a decompressed file. The stream is read until the
+     * header is complete and is left positioned behind the bytes read.
+     *
+     * @param in stream of STEP data
+     * @return header descriptor, holding the declarations found before window limit if header is malformed
+     * @throws IOException if stream can not be read
+     */
+    public static StepHeader read(InputStream in) throws IOException {
+        byte[] data = new byte[INITIAL_WINDOW_SIZE];
+        int length = 0;
+        while (true) {
+            int read = in.read(data, length, data.length - length);
+            if (read > 0) length += read;
+            boolean endOfInput = read < 0 || length >= MAX_WINDOW_SIZE;
+            if (length == data.length || endOfInput) {
+                StepHeader header = parse(new StepLexer(ByteBuffer.wrap(data), 0, length, endOfInput));
+                if (header != null) return header;
+                data = Arrays.copyOf(data, Math.min(data.length * 2, MAX_WINDOW_SIZE));
+            }
+        }
+    }
+
+    /**
+     * Reads header of STEP data held by a buffer
+     *
+     * @param buffer holding complete STEP data starting at index 0
+     * @return header descriptor
+     */
+    public static StepHeader read(ByteBuffer buffer) {
+        return parse(new StepLexer(buffer, 0, buffer.limit(), true));
+    }
+
+    /**
+     * Parses header tokens until "DATA;" keyword
+     *
+     * @param lexer to read tokens from
+     * @return header descriptor or null if lexer input ends inside of header
+     */
+    private static StepHeader parse(StepLexer lexer) {
+        List<String> schemaIdentifiers = new ArrayList<>();
+        boolean inFileSchema = false;
+        boolean afterDataKeyword = false;
+        while (true) {
+            TokenType token = lexer.next();
+            switch (token) {
+                case INCOMPLETE:
+                    return null;
+                case EOF:
+                    return new StepHeader(schemaIdentifiers, -1);
+                case KEYWORD:
+                    afterDataKeyword = lexer.isKeyword("DATA");
+                    if (lexer.isKeyword("FILE_SCHEMA")) inFileSchema = true;
+                    break;
+                case STRING:
+                    if (inFileSchema) schemaIdentifiers.add(lexer.stringValue());
+                    afterDataKeyword = false;
+                    break;
+                case SEMICOLON:
+                    if (afterDataKeyword) return new StepHeader(schemaIdentifiers, lexer.tokenEnd());
+                    inFileSchema = false;
+                    break;
+                default:
+                    afterDataKeyword = false;
+                    break;
+            }
+        }
+    }
+}
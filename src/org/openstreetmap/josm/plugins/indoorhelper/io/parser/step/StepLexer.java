@@ -0,0 +1,431 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizer for STEP physical files (ISO 10303-21). The lexer works directly on the bytes of a buffer,
+ * token values are only materialized on request.
+ */
+public class StepLexer {
+
+    /**
+     * Types of STEP tokens
+     */
+    public enum TokenType {
+        KEYWORD, ENTITY_NAME, STRING, ENUMERATION, INTEGER, REAL, BINARY,
+        LEFT_PAREN, RIGHT_PAREN, COMMA, SEMICOLON, EQUALS, DOLLAR, ASTERISK,
+        /** end of input reached */
+        EOF,
+        /** end of buffer reached inside of a token, but buffer does not hold the complete input */
+        INCOMPLETE,
+        /** unexpected character */
+        INVALID
+    }
+
+    /** powers of ten exactly representable as double */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private final boolean endOfInput;
+    private int position;
+
+    private TokenType tokenType;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Constructor
+     *
+     * @param buffer     holding STEP data
+     * @param start      index of first byte to tokenize
+     * @param end        index after last byte to tokenize
+     * @param endOfInput true if end index is the end of the STEP data, false if the buffer holds a part only
+     */
+    public StepLexer(ByteBuffer buffer, int start, int end, boolean endOfInput) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+        this.endOfInput = endOfInput;
+    }
+
+    /**
+     * Reads next token
+     *
+     * @return type of token
+     */
+    public TokenType next() {
+        if (!skipWhitespaceAndComments()) {
+            tokenStart = tokenEnd = position;
+            return tokenType = endOfInput ? TokenType.EOF : TokenType.INCOMPLETE;
+        }
+        tokenStart = position;
+        if (position >= end) {
+            tokenEnd = position;
+            return tokenType = TokenType.EOF;
+        }
+
+        byte c = buffer.get(position);
+        switch (c) {
+            case '(':
+                return single(TokenType.LEFT_PAREN);
+            case ')':
+                return single(TokenType.RIGHT_PAREN);
+            case ',':
+                return single(TokenType.COMMA);
+            case ';':
+                return single(TokenType.SEMICOLON);
+            case '=':
+                return single(TokenType.EQUALS);
+            case '$':
+                return single(TokenType.DOLLAR);
+            case '*':
+                return single(TokenType.ASTERISK);
+            case '#':
+                return readEntityName();
+            case '\'':
+                return readString();
+            case '"':
+                return readDelimited('"', TokenType.BINARY);
+            case '.':
+                if (position + 1 < end && isDigit(buffer.get(position + 1))) return readNumber();
+                return readDelimited('.', TokenType.ENUMERATION);
+            default:
+                if (isDigit(c) || c == '+' || c == '-') return readNumber();
+                if (isLetter(c) || c == '_' || c == '!') return readKeyword();
+                return single(TokenType.INVALID);
+        }
+    }
+
+    /**
+     * @return type of current token
+     */
+    public TokenType tokenType() {
+        return tokenType;
+    }
+
+    /**
+     * @return index of first byte of current token
+     */
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * @return index after last byte of current token
+     */
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    /**
+     * @return index of next byte to read
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Sets index of next byte to read
+     *
+     * @param position index of next byte
+     */
+    public void position(int position) {
+        this.position = position;
+    }
+
+    /**
+     * @return raw text of current token
+     */
+    public String tokenText() {
+        return text(tokenStart, tokenEnd);
+    }
+
+    /**
+     * Checks if current token is a keyword with the given name
+     *
+     * @param keyword upper case keyword
+     * @return true if current token equals keyword, else false
+     */
+    public boolean isKeyword(String keyword) {
+        if (tokenType != TokenType.KEYWORD || tokenEnd - tokenStart != keyword.length()) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase((char) buffer.get(tokenStart + i)) != keyword.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return value of current STRING token without quotes, escaped apostrophes resolved
+     */
+    public String stringValue() {
+        StringBuilder value = new StringBuilder(tokenEnd - tokenStart);
+        for (int i = tokenStart + 1; i < tokenEnd - 1; i++) {
+            char c = (char) (buffer.get(i) & 0xff);
+            value.append(c);
+            if (c == '\'') i++;
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return numeric value of current INTEGER or ENTITY_NAME token
+     */
+    public long longValue() {
+        int i = tokenStart;
+        boolean negative = false;
+        byte c = buffer.get(i);
+        if (c == '#' || c == '+') {
+            i++;
+        } else if (c == '-') {
+            negative = true;
+            i++;
+        }
+        long value = 0;
+        for (; i < tokenEnd; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses value of current REAL or INTEGER token without creating a string. Values with up to 15 significant
+     * digits and a small decimal exponent are converted exactly, other values fall back to
+     * {@link Double#parseDouble}.
+     *
+     * @return numeric value of current token
+     */
+    public double doubleValue() {
+        int i = tokenStart;
+        boolean negative = false;
+        byte c = buffer.get(i);
+        if (c == '+') {
+            i++;
+        } else if (c == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        for (; i < tokenEnd; i++) {
+            c = buffer.get(i);
+            if (c == '.') {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (mantissa == 0 && c == '0') {
+                    if (fraction) exponent--;
+                    continue;
+                }
+                if (++digits > 15) return Double.parseDouble(tokenText());
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) exponent--;
+            } else {
+                break;
+            }
+        }
+        if (i < tokenEnd) {
+            // exponent part E[+-]digits
+            i++;
+            boolean negativeExponent = false;
+            c = i < tokenEnd ? buffer.get(i) : 0;
+            if (c == '+' || c == '-') {
+                negativeExponent = c == '-';
+                i++;
+            }
+            int e = 0;
+            for (; i < tokenEnd && e < 1000; i++) {
+                e = e * 10 + (buffer.get(i) - '0');
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        double value = mantissa;
+        if (mantissa != 0) {
+            if (exponent < -POWERS_OF_TEN.length + 1 || exponent > POWERS_OF_TEN.length - 1) {
+                return Double.parseDouble(tokenText());
+            }
+            value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns text of buffer range
+     *
+     * @param from index of first byte
+     * @param to   index after last byte
+     * @return text of range
+     */
+    public String text(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = buffer.get(i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Skips the remaining parameters of a parameter list without creating tokens. The scan only distinguishes
+     * parentheses, strings, binaries and comments, so it is considerably cheaper than reading all tokens.
+     *
+     * @return true if the closing parenthesis of the list was found, false if the list is not terminated
+     * before the next semicolon or end of buffer
+     */
+    public boolean skipParameters() {
+        int depth = 1;
+        int i = position;
+        while (i < end) {
+            byte c = buffer.get(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth == 0) {
+                    position = i + 1;
+                    return true;
+                }
+            } else if (c == ';') {
+                break;
+            } else if (c == '\'' || c == '"') {
+                // escaped apostrophes are read as two adjacent strings
+                i++;
+                while (i < end && buffer.get(i) != c) i++;
+            } else if (c == '/' && i + 1 < end && buffer.get(i + 1) == '*') {
+                i += 2;
+                while (i + 1 < end && !(buffer.get(i) == '*' && buffer.get(i + 1) == '/')) i++;
+                i++;
+            }
+            i++;
+        }
+        position = Math.min(i, end);
+        return false;
+    }
+
+    /**
+     * Skips whitespaces and block comments
+     *
+     * @return false if buffer ends inside of a comment, else true
+     */
+    private boolean skipWhitespaceAndComments() {
+        while (position < end) {
+            byte c = buffer.get(position);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f') {
+                position++;
+            } else if (c == '/' && position + 1 < end && buffer.get(position + 1) == '*') {
+                int i = position + 2;
+                while (i + 1 < end && !(buffer.get(i) == '*' && buffer.get(i + 1) == '/')) i++;
+                if (i + 1 >= end) {
+                    position = end;
+                    return false;
+                }
+                position = i + 2;
+            } else {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private TokenType single(TokenType type) {
+        position++;
+        tokenEnd = position;
+        return tokenType = type;
+    }
+
+    private TokenType readEntityName() {
+        int i = position + 1;
+        while (i < end && isDigit(buffer.get(i))) i++;
+        return finish(i, i > position + 1 ? TokenType.ENTITY_NAME : TokenType.INVALID, true);
+    }
+
+    private TokenType readString() {
+        int i = position + 1;
+        while (i < end) {
+            if (buffer.get(i) == '\'') {
+                // escaped apostrophe
+                if (i + 1 < end && buffer.get(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                // apostrophe at end of buffer might be the first of an escaped pair
+                if (i + 1 >= end && !endOfInput) return incomplete();
+                return finish(i + 1, TokenType.STRING, false);
+            }
+            i++;
+        }
+        return incomplete();
+    }
+
+    private TokenType readDelimited(char delimiter, TokenType type) {
+        int i = position + 1;
+        while (i < end && buffer.get(i) != delimiter) i++;
+        if (i >= end) return incomplete();
+        return finish(i + 1, type, false);
+    }
+
+    private TokenType readNumber() {
+        int i = position;
+        byte c = buffer.get(i);
+        if (c == '+' || c == '-') i++;
+        int digitsStart = i;
+        while (i < end && isDigit(buffer.get(i))) i++;
+        boolean real = false;
+        if (i < end && buffer.get(i) == '.') {
+            real = true;
+            i++;
+            while (i < end && isDigit(buffer.get(i))) i++;
+        }
+        if (i < end && (buffer.get(i) == 'E' || buffer.get(i) == 'e')) {
+            real = true;
+            i++;
+            if (i < end && (buffer.get(i) == '+' || buffer.get(i) == '-')) i++;
+            while (i < end && isDigit(buffer.get(i))) i++;
+        }
+        if (i == digitsStart) return single(TokenType.INVALID);
+        return finish(i, real ? TokenType.REAL : TokenType.INTEGER, true);
+    }
+
+    private TokenType readKeyword() {
+        int i = position + 1;
+        while (i < end) {
+            byte c = buffer.get(i);
+            if (!isLetter(c) && !isDigit(c) && c != '_' && c != '-') break;
+            i++;
+        }
+        return finish(i, TokenType.KEYWORD, true);
+    }
+
+    /**
+     * Finishes current token
+     *
+     * @param tokenEnd    index after last byte of token
+     * @param type        of token
+     * @param openEnded   true if token has no closing delimiter and may continue after end of buffer
+     * @return token type
+     */
+    private TokenType finish(int tokenEnd, TokenType type, boolean openEnded) {
+        if (openEnded && tokenEnd >= end && !endOfInput) return incomplete();
+        this.tokenEnd = tokenEnd;
+        position = tokenEnd;
+        return tokenType = type;
+    }
+
+    private TokenType incomplete() {
+        if (endOfInput) return single(TokenType.INVALID);
+        tokenEnd = end;
+        return tokenType = TokenType.INCOMPLETE;
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(byte c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
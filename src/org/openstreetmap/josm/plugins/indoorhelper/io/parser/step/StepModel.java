@@ -0,0 +1,639 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema.ExpressEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepLexer.TokenType;
+import org.openstreetmap.josm.tools.Logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link IfcModel} reading the DATA section of a memory-mapped STEP file. Loading only indexes id, type and
+ * byte range of each record. Parameters of a record are decoded when an attribute of the instance is first accessed.
+ * An {@link EntityTypeFilter} restricts the model to the records of the types needed by the reader.
+ */
+public class StepModel extends IfcModel {
+
+    /** chunks per thread, more chunks than threads balance differing record densities */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** smaller chunks do not pay off the task overhead */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    /** lines scanned backwards for apostrophes when searching chunk boundaries are cut at this length */
+    private static final int MAX_LINE_LENGTH = 1 << 16;
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final ExpressSchema schema;
+    private final EntityTypeFilter filter;
+    private final StepEntityTable entities = new StepEntityTable();
+    private final Map<ExpressEntity, List<IfcEntity>> instancesByType = new HashMap<>();
+
+    private StepModel(ByteBuffer buffer, ExpressSchema schema, EntityTypeFilter filter) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.schema = schema;
+        this.filter = filter;
+    }
+
+    /**
+     * Loads STEP file on the calling thread
+     *
+     * @param file   STEP file
+     * @param schema EXPRESS schema of file
+     * @return loaded model
+     * @throws IOException if file can not be read or has no DATA section
+     */
+    public static StepModel load(Path file, ExpressSchema schema) throws IOException {
+        return load(file, schema, 1, null);
+    }
+
+    /**
+     * Loads STEP file. The DATA section is split into chunks at record boundaries which are indexed in parallel.
+     *
+     * @param file        STEP file
+     * @param schema      EXPRESS schema of file
+     * @param parallelism number of threads used to index the file, 1 to index on the calling thread
+     * @param filter      types of records to load or null to load all records
+     * @return loaded model
+     * @throws IOException if file can not be read or has no DATA section
+     */
+    public static StepModel load(Path file, ExpressSchema schema, int parallelism, EntityTypeFilter filter)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException(file + " exceeds maximum size of memory-mapped files");
+            }
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize), schema, parallelism, filter);
+        }
+    }
+
+    /**
+     * Loads STEP data held by a buffer, e.g. the content of a decompressed file. The buffer is used by the
+     * model to decode instances, so it must not be modified afterwards.
+     *
+     * @param buffer      holding complete STEP data starting at index 0
+     * @param schema      EXPRESS schema of data
+     * @param parallelism number of threads used to index the data, 1 to index on the calling thread
+     * @param filter      types of records to load or null to load all records
+     * @return loaded model
+     * @throws IOException if data has no DATA section
+     */
+    public static StepModel load(ByteBuffer buffer, ExpressSchema schema, int parallelism, EntityTypeFilter filter)
+            throws IOException {
+        StepHeader header = StepHeaderReader.read(buffer);
+        if (header.getDataOffset() < 0) throw new IOException("STEP data has no DATA section");
+
+        StepModel model = new StepModel(buffer, schema, filter);
+        model.readData((int) header.getDataOffset(), parallelism);
+        model.buildIndexes();
+        return model;
+    }
+
+    @Override
+    public List<IfcEntity> getInstancesOfType(String typeName) {
+        ExpressEntity type = schema.getEntity(typeName);
+        List<IfcEntity> instances = type != null ? instancesByType.get(type) : null;
+        return instances != null ? Collections.unmodifiableList(instances) : Collections.emptyList();
+    }
+
+    @Override
+    public IfcEntity getInstance(int id) {
+        return entities.get(id);
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public Collection<StepEntity> getInstances() {
+        return entities.values();
+    }
+
+    @Override
+    public ExpressSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Instances are immutable after loading, parameters are decoded from the buffer by absolute reads.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Indexes all records of DATA section and links them into the entity table
+     *
+     * @param dataOffset  buffer offset of DATA section content
+     * @param parallelism number of threads used to index the records
+     */
+    private void readData(int dataOffset, int parallelism) {
+        TypeTable typeTable = new TypeTable(schema.getEntities());
+        int chunkCount = Math.min(parallelism * CHUNKS_PER_THREAD, (limit - dataOffset) / MIN_CHUNK_SIZE);
+        ForkJoinPool pool = parallelism > 1 && chunkCount > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            List<Chunk> chunks = pool != null ? splitIntoChunks(dataOffset, (limit - dataOffset) / chunkCount)
+                    : Collections.singletonList(new Chunk(dataOffset, limit));
+            forEach(pool, chunks, chunk -> chunk.index(typeTable));
+            link(pool, joinTruncatedChunks(chunks, typeTable));
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs task for each chunk
+     *
+     * @param pool   to run tasks on, null to run them on the calling thread
+     * @param chunks to run task for
+     * @param task   to run
+     */
+    private static void forEach(ForkJoinPool pool, List<Chunk> chunks, Consumer<Chunk> task) {
+        if (pool == null) {
+            chunks.forEach(task);
+            return;
+        }
+        try {
+            for (Future<Void> result : pool.invokeAll(chunks.stream()
+                    .map(chunk -> (Callable<Void>) () -> {
+                        task.accept(chunk);
+                        return null;
+                    })
+                    .collect(Collectors.toList()))) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Merges indexed records of all chunks into the entity table. Records are added by all chunks in parallel,
+     * instances of each type are copied into place by their chunk, so they keep the file order.
+     * References between instances are stored as ids and resolved against the entity table, so forward references
+     * across chunks need no further work.
+     *
+     * @param pool   to link chunks on, null to link them on the calling thread
+     * @param chunks indexed chunks in file order
+     */
+    private void link(ForkJoinPool pool, List<Chunk> chunks) {
+        int entityCount = 0;
+        int maxId = -1;
+        for (Chunk chunk : chunks) {
+            if (chunk.failure != null) throw chunk.failure;
+            entityCount += chunk.entityCount;
+            maxId = Math.max(maxId, chunk.maxId);
+        }
+        entities.reserve(maxId, entityCount);
+        forEach(pool, chunks, chunk -> chunk.entitiesByType.values().forEach(list -> list.forEach(entities::put)));
+        if (entities.size() < entityCount) forEach(pool, chunks, Chunk::removeDuplicates);
+
+        // offsets of the instances of each chunk in the instance lists of their types
+        int skippedRecords = 0;
+        int filteredRecords = 0;
+        Map<ExpressEntity, Integer> typeCounts = new HashMap<>();
+        for (Chunk chunk : chunks) {
+            skippedRecords += chunk.skippedRecords;
+            filteredRecords += chunk.filteredRecords;
+            for (Map.Entry<ExpressEntity, List<StepEntity>> instances : chunk.entitiesByType.entrySet()) {
+                int count = instances.getValue().size();
+                chunk.typeOffsets.put(instances.getKey(), typeCounts.merge(instances.getKey(), count, Integer::sum) - count);
+            }
+        }
+        Map<ExpressEntity, IfcEntity[]> instancesOfTypes = new HashMap<>();
+        typeCounts.forEach((type, count) -> instancesOfTypes.put(type, new IfcEntity[count]));
+        forEach(pool, chunks, chunk -> chunk.entitiesByType.forEach((type, instances) -> {
+            IfcEntity[] target = instancesOfTypes.get(type);
+            int offset = chunk.typeOffsets.get(type);
+            for (int i = 0; i < instances.size(); i++) {
+                target[offset + i] = instances.get(i);
+            }
+        }));
+        instancesOfTypes.forEach((type, instances) -> instancesByType.put(type, Arrays.asList(instances)));
+
+        if (skippedRecords > 0) {
+            Logging.warn(StepModel.class.getName() + ": " + skippedRecords + " unsupported or malformed records skipped");
+        }
+        if (filteredRecords > 0) {
+            Logging.info(StepModel.class.getName() + ": " + filteredRecords + " records of unused types skipped");
+        }
+    }
+
+    /**
+     * Splits data into chunks at record starts. Boundaries are searched near their target offsets only, so the
+     * data is not scanned sequentially before it is indexed in parallel.
+     *
+     * @param dataOffset buffer offset of DATA section content
+     * @param chunkSize  minimum size of chunks in bytes
+     * @return chunks in file order
+     */
+    private List<Chunk> splitIntoChunks(int dataOffset, int chunkSize) {
+        List<Chunk> chunks = new ArrayList<>();
+        int start = dataOffset;
+        int recordStart;
+        while (start + chunkSize < limit && (recordStart = nextRecordStart(start + chunkSize)) >= 0) {
+            chunks.add(new Chunk(start, recordStart));
+            start = recordStart;
+        }
+        chunks.add(new Chunk(start, limit));
+        return chunks;
+    }
+
+    /**
+     * Finds the first record start behind an offset. Semicolons in strings are ruled out by the apostrophes
+     * preceding them on their line. Strings and comments spanning several lines are not detected, chunks ending
+     * inside of them are joined by {@link #joinTruncatedChunks}.
+     *
+     * @param offset buffer offset to search from
+     * @return buffer offset of instance name of next record or -1 if no record follows
+     */
+    private int nextRecordStart(int offset) {
+        for (int i = offset; i < limit; i++) {
+            if (buffer.get(i) != ';') continue;
+            int recordStart = recordStartAfter(i);
+            if (recordStart >= 0 && !isInStringOfLine(i)) return recordStart;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if an odd number of apostrophes precedes an offset on its line. Escaped apostrophes ('') do not
+     * change the result.
+     *
+     * @param offset buffer offset
+     * @return true if offset is inside of a string opened on its line
+     */
+    private boolean isInStringOfLine(int offset) {
+        boolean inString = false;
+        for (int i = offset - 1; i >= 0 && offset - i <= MAX_LINE_LENGTH; i--) {
+            byte c = buffer.get(i);
+            if (c == '\n' || c == '\r') break;
+            if (c == '\'') inString = !inString;
+        }
+        return inString;
+    }
+
+    /**
+     * Joins chunks whose boundary lies inside of a string or comment spanning several lines. The chunk before such a
+     * boundary ends inside of a token, it is indexed again together with the following chunk.
+     *
+     * @param chunks    indexed chunks in file order
+     * @param typeTable to resolve entity types
+     * @return chunks ending at record boundaries
+     */
+    private List<Chunk> joinTruncatedChunks(List<Chunk> chunks, TypeTable typeTable) {
+        List<Chunk> joined = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            int last = joined.size() - 1;
+            if (last >= 0 && joined.get(last).truncated) {
+                Chunk merged = new Chunk(joined.get(last).start, chunk.end);
+                merged.index(typeTable);
+                joined.set(last, merged);
+            } else {
+                joined.add(chunk);
+            }
+        }
+        return joined;
+    }
+
+    /**
+     * Checks if a record starts after a semicolon. Records are recognized by an instance name
+     * and an equals sign, e.g. ";\n#12=".
+     *
+     * @param semicolon buffer offset of semicolon
+     * @return buffer offset of instance name of next record or -1 if no record follows
+     */
+    private int recordStartAfter(int semicolon) {
+        int j = semicolon + 1;
+        while (j < limit && isWhitespace(buffer.get(j))) j++;
+        if (j >= limit || buffer.get(j) != '#') return -1;
+        int recordStart = j++;
+        int digitsStart = j;
+        while (j < limit && buffer.get(j) >= '0' && buffer.get(j) <= '9') j++;
+        if (j == digitsStart) return -1;
+        while (j < limit && isWhitespace(buffer.get(j))) j++;
+        return j < limit && buffer.get(j) == '=' ? recordStart : -1;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Part of DATA section which is indexed independently of other parts
+     */
+    private final class Chunk {
+
+        private final int start;
+        private final int end;
+        private final Map<ExpressEntity, List<StepEntity>> entitiesByType = new HashMap<>();
+        private final Map<ExpressEntity, Integer> typeOffsets = new HashMap<>();
+        private int entityCount;
+        private int maxId = -1;
+        private int skippedRecords;
+        private int filteredRecords;
+        /** true if chunk does not end at a record boundary */
+        private boolean truncated;
+        private RuntimeException failure;
+
+        Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Indexes records of chunk. Only id, type and byte range of the parameter list are read,
+         * parameters are decoded on first access of an instance attribute.
+         *
+         * @param typeTable to resolve entity types
+         * @return null
+         */
+        Void index(TypeTable typeTable) {
+            try {
+                indexRecords(typeTable);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            return null;
+        }
+
+        private void indexRecords(TypeTable typeTable) {
+            // tokens crossing the end of a chunk are reported as incomplete
+            boolean endOfInput = end == limit;
+            StepLexer lexer = new StepLexer(buffer, start, end, endOfInput);
+            while (true) {
+                TokenType token = lexer.next();
+                if (token == TokenType.INCOMPLETE) {
+                    truncated = true;
+                    break;
+                }
+                if (token == TokenType.EOF || (token == TokenType.KEYWORD && lexer.isKeyword("ENDSEC"))) break;
+
+                // records look like #id=TYPE(attribute,...);
+                if (token != TokenType.ENTITY_NAME) {
+                    skipRecord(lexer);
+                    skippedRecords++;
+                    continue;
+                }
+                int id = (int) lexer.longValue();
+                if (lexer.next() != TokenType.EQUALS || lexer.next() != TokenType.KEYWORD) {
+                    // complex entity instances are not supported
+                    skipRecord(lexer);
+                    skippedRecords++;
+                    continue;
+                }
+                ExpressEntity type = typeTable.get(buffer, lexer.tokenStart(), lexer.tokenEnd());
+                if (lexer.next() != TokenType.LEFT_PAREN) {
+                    skipRecord(lexer);
+                    skippedRecords++;
+                    continue;
+                }
+
+                int parametersStart = lexer.position();
+                boolean terminated = lexer.skipParameters();
+                int parametersEnd = lexer.position();
+                if (!terminated && !endOfInput && parametersEnd >= end) {
+                    truncated = true;
+                    break;
+                }
+                if (!terminated || lexer.next() != TokenType.SEMICOLON) {
+                    skipRecord(lexer);
+                    skippedRecords++;
+                    continue;
+                }
+                if (type == null) {
+                    skippedRecords++;
+                    continue;
+                }
+                if (filter != null && !filter.accepts(type)) {
+                    filteredRecords++;
+                    continue;
+                }
+                entitiesByType.computeIfAbsent(type, t -> new ArrayList<>())
+                        .add(new StepEntity(StepModel.this, id, type, parametersStart, parametersEnd));
+                entityCount++;
+                maxId = Math.max(maxId, id);
+            }
+        }
+
+        /**
+         * Removes instances whose id is used by a record found earlier in the file
+         */
+        void removeDuplicates() {
+            for (List<StepEntity> instances : entitiesByType.values()) {
+                int size = instances.size();
+                instances.removeIf(entity -> entities.get(entity.getId()) != entity);
+                skippedRecords += size - instances.size();
+            }
+        }
+    }
+
+    /**
+     * Skips tokens until end of current record
+     *
+     * @param lexer positioned inside of record
+     */
+    private static void skipRecord(StepLexer lexer) {
+        TokenType token = lexer.tokenType();
+        while (token != TokenType.SEMICOLON && token != TokenType.EOF && token != TokenType.INCOMPLETE) {
+            token = lexer.next();
+        }
+    }
+
+    /**
+     * Decodes all parameters of a record
+     *
+     * @param start index after opening parenthesis of parameter list
+     * @param end   index after closing parenthesis of parameter list
+     * @return decoded parameter values
+     */
+    Object[] decodeParameters(int start, int end) {
+        StepLexer lexer = new StepLexer(buffer, start, end, true);
+        List<Object> values = readList(lexer);
+        return values.toArray();
+    }
+
+    /**
+     * Reads a value. REAL values are decoded to {@link Double}, aggregates of REAL values to double[] and aggregates
+     * of INTEGER values to int[], other simple values are returned as their STEP encoding, aggregates as lists and
+     * references as {@link IfcEntity}.
+     * Typed values like IFCLABEL('a') are unwrapped.
+     *
+     * @param lexer to read from
+     * @param token first token of value
+     * @return value or null if value is unset
+     */
+    private Object readValue(StepLexer lexer, TokenType token) {
+        switch (token) {
+            case ENTITY_NAME:
+                return entities.get((int) lexer.longValue());
+            case REAL:
+                return lexer.doubleValue();
+            case STRING:
+            case ENUMERATION:
+            case INTEGER:
+            case BINARY:
+                return lexer.tokenText();
+            case LEFT_PAREN:
+                return readAggregate(lexer);
+            case KEYWORD:
+                if (lexer.next() != TokenType.LEFT_PAREN) return null;
+                Object value = readValue(lexer, lexer.next());
+                lexer.next(); // closing parenthesis
+                return value;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads values of an aggregate until its closing parenthesis. Aggregates holding REAL values only are
+     * returned as double[] and aggregates holding INTEGER values only as int[] without boxing.
+     *
+     * @param lexer positioned after opening parenthesis
+     * @return double[], int[] or unmodifiable list of values
+     */
+    private Object readAggregate(StepLexer lexer) {
+        double[] reals = new double[4];
+        int realCount = 0;
+        TokenType token = lexer.next();
+        while (token == TokenType.REAL || token == TokenType.COMMA) {
+            if (token == TokenType.REAL) {
+                if (realCount == reals.length) reals = Arrays.copyOf(reals, realCount * 2);
+                reals[realCount++] = lexer.doubleValue();
+            }
+            token = lexer.next();
+        }
+        if (realCount > 0 && token == TokenType.RIGHT_PAREN) return Arrays.copyOf(reals, realCount);
+
+        int[] integers = new int[4];
+        int integerCount = 0;
+        if (realCount == 0) {
+            while (token == TokenType.INTEGER || token == TokenType.COMMA) {
+                if (token == TokenType.INTEGER) {
+                    long value = lexer.longValue();
+                    // values out of int range are kept as strings
+                    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) break;
+                    if (integerCount == integers.length) integers = Arrays.copyOf(integers, integerCount * 2);
+                    integers[integerCount++] = (int) value;
+                }
+                token = lexer.next();
+            }
+            if (integerCount > 0 && token == TokenType.RIGHT_PAREN) return Arrays.copyOf(integers, integerCount);
+        }
+
+        // mixed aggregate, continue with boxed values
+        List<Object> values = new ArrayList<>(realCount + integerCount + 4);
+        for (int i = 0; i < realCount; i++) {
+            values.add(reals[i]);
+        }
+        for (int i = 0; i < integerCount; i++) {
+            values.add(Integer.toString(integers[i]));
+        }
+        while (token != TokenType.RIGHT_PAREN && token != TokenType.EOF) {
+            if (token != TokenType.COMMA) values.add(readValue(lexer, token));
+            token = lexer.next();
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Reads values of an aggregate until its closing parenthesis
+     *
+     * @param lexer positioned after opening parenthesis
+     * @return values of aggregate
+     */
+    private List<Object> readList(StepLexer lexer) {
+        List<Object> values = new ArrayList<>();
+        TokenType token = lexer.next();
+        while (token != TokenType.RIGHT_PAREN && token != TokenType.EOF) {
+            if (token != TokenType.COMMA) values.add(readValue(lexer, token));
+            token = lexer.next();
+        }
+        return values;
+    }
+
+    /**
+     * Hash table resolving upper case type names of STEP records to entity definitions without creating strings
+     */
+    private static final class TypeTable {
+
+        private final byte[][] names;
+        private final ExpressEntity[] types;
+        private final int mask;
+
+        TypeTable(Collection<ExpressEntity> entities) {
+            int capacity = Integer.highestOneBit(Math.max(entities.size(), 1) * 4);
+            names = new byte[capacity][];
+            types = new ExpressEntity[capacity];
+            mask = capacity - 1;
+            for (ExpressEntity entity : entities) {
+                byte[] name = entity.getName().toUpperCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+                int i = hash(ByteBuffer.wrap(name), 0, name.length) & mask;
+                while (names[i] != null) i = (i + 1) & mask;
+                names[i] = name;
+                types[i] = entity;
+            }
+        }
+
+        ExpressEntity get(ByteBuffer buffer, int start, int end) {
+            int i = hash(buffer, start, end) & mask;
+            while (names[i] != null) {
+                if (matches(names[i], buffer, start, end)) return types[i];
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private static boolean matches(byte[] name, ByteBuffer buffer, int start, int end) {
+            if (name.length != end - start) return false;
+            for (int i = 0; i < name.length; i++) {
+                if (name[i] != toUpperCase(buffer.get(start + i))) return false;
+            }
+            return true;
+        }
+
+        private static int hash(ByteBuffer buffer, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + toUpperCase(buffer.get(i));
+            }
+            return h ^ (h >>> 16);
+        }
+
+        private static byte toUpperCase(byte c) {
+            return c >= 'a' && c <= 'z' ? (byte) (c - 32) : c;
+        }
+    }
+}
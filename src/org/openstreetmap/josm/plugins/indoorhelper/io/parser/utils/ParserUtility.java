@@ -17,24 +17,16 @@ import java.util.List;
 public class ParserUtility {
 
     /**
-     * Parses a string vector to {@link Vector3D}
+     * Converts numeric values of a coordinate or direction attribute to {@link Vector3D}
      *
-     * @param vector to parse
-     * @return parsed vector
+     * @param vector values of 2D or 3D vector, missing z value is set to 0
+     * @return vector or null if values are missing or not numeric
      */
-    public static Vector3D stringVectorToVector3D(List<String> vector) {
-        if (vector.isEmpty()) return null;
-        double x = 0.0;
-        double y = 0.0;
-        double z = 0.0;
-        if (vector.size() == 2) {
-            x = prepareDoubleString(vector.get(0));
-            y = prepareDoubleString(vector.get(1));
-        } else if (vector.size() > 2) {
-            x = prepareDoubleString(vector.get(0));
-            y = prepareDoubleString(vector.get(1));
-            z = prepareDoubleString(vector.get(2));
-        }
+    public static Vector3D toVector3D(double[] vector) {
+        if (vector == null || vector.length == 0) return null;
+        double x = vector[0];
+        double y = vector.length > 1 ? vector[1] : 0.0;
+        double z = vector.length > 2 ? vector[2] : 0.0;
         if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z)) {
             return null;
         }
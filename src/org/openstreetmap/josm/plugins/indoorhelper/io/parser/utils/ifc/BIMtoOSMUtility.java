@@ -2,25 +2,38 @@
 package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
 
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentation;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcModel;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentationCatalog.IfcSlabTypeEnum;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentationCatalog.RepresentationIdentifier;
 import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMDataCollection;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.*;
-import nl.tue.buildingsmart.express.population.EntityInstance;
-import nl.tue.buildingsmart.express.population.ModelPopulation;
+
+import org.openstreetmap.josm.tools.Logging;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.stringVectorToVector3D;
+import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.toVector3D;
 
 /**
  * Class providing useful methods to parse BIM data to OSM data
  */
 public class BIMtoOSMUtility {
 
+    /** chunks per thread, more chunks than threads balance differing geometry complexity */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final Vector3D DEFAULT_AXIS = new Vector3D(0.0, 0.0, 1.0);
+    private static final Vector3D DEFAULT_REF_DIRECTION = new Vector3D(1.0, 0.0, 0.0);
+
     /**
      * Types of geometry precision
      */
@@ -35,11 +48,11 @@ public class BIMtoOSMUtility {
      * @param ifcModel ifcModel
      * @return FilteredBIMData including BIM objects of ways, rooms, etc.
      */
-    public static BIMDataCollection extractMajorBIMData(ModelPopulation ifcModel) {
+    public static BIMDataCollection extractMajorBIMData(IfcModel ifcModel) {
         BIMDataCollection bimData = new BIMDataCollection();
 
         // get the root element IfcSite
-        List<EntityInstance> ifcSiteObjects = new ArrayList<>();
+        List<IfcEntity> ifcSiteObjects = new ArrayList<>();
         BIMtoOSMCatalog.getIFCSITETags().forEach(tag -> ifcSiteObjects.addAll(ifcModel.getInstancesOfType(tag)));
 
         if (!ifcSiteObjects.isEmpty()) {
@@ -47,7 +60,7 @@ public class BIMtoOSMUtility {
         }
 
         // get all relevant areas
-        List<EntityInstance> areaObjects = new ArrayList<>();
+        List<IfcEntity> areaObjects = new ArrayList<>();
         BIMtoOSMCatalog.getAreaTags().forEach(tag -> ifcModel.getInstancesOfType(tag).forEach(entity -> {
             String identifier = (String) entity.getAttributeValueBN("PredefinedType");
             if (!identifier.equals("." + IfcSlabTypeEnum.ROOF + ".")) {
@@ -57,27 +70,27 @@ public class BIMtoOSMUtility {
         bimData.setAreaObjects(areaObjects);
 
         // get all walls
-        List<EntityInstance> wallObjects = new ArrayList<>();
+        List<IfcEntity> wallObjects = new ArrayList<>();
         BIMtoOSMCatalog.getWallTags().forEach(tag -> wallObjects.addAll(ifcModel.getInstancesOfType(tag)));
         bimData.setWallObjects(wallObjects);
 
         // get all columns
-        List<EntityInstance> colObjects = new ArrayList<>();
+        List<IfcEntity> colObjects = new ArrayList<>();
         BIMtoOSMCatalog.getColumnTags().forEach(tag -> colObjects.addAll(ifcModel.getInstancesOfType(tag)));
         bimData.setColumnObjects(colObjects);
 
         // get all doors
-        List<EntityInstance> doorObjects = new ArrayList<>();
+        List<IfcEntity> doorObjects = new ArrayList<>();
         BIMtoOSMCatalog.getDoorTags().forEach(tag -> doorObjects.addAll(ifcModel.getInstancesOfType(tag)));
         bimData.setDoorObjects(doorObjects);
 
         // get all doors
-        List<EntityInstance> stairObjects = new ArrayList<>();
+        List<IfcEntity> stairObjects = new ArrayList<>();
         BIMtoOSMCatalog.getStairTags().forEach(tag -> stairObjects.addAll(ifcModel.getInstancesOfType(tag)));
         bimData.setStairObjects(stairObjects);
 
         // get all windows
-        List<EntityInstance> windowObjects = new ArrayList<>();
+        List<IfcEntity> windowObjects = new ArrayList<>();
         BIMtoOSMCatalog.getWindowTags().forEach(tag -> windowObjects.addAll(ifcModel.getInstancesOfType(tag)));
         bimData.setWindowObjects(windowObjects);
 
@@ -88,35 +101,65 @@ public class BIMtoOSMUtility {
      * Transforms BIM objects for further operations. Extracts OSM relevant information and puts it into {@link BIMObject3D}
      *
      * @param ifcModel   ifcModel
+     * @param placements resolved placements of ifcModel, including transformation to world coordinates
+     * @param geometries geometry extracted during import
      * @param solution   geometry solution type
+     * @param footprint  geometry extracted from boundary representations
      * @param objectType relating BIMtoOSMCatalog.BIMObject
      * @param bimObjects All BIM objects of objectType
      * @return Transformed BIM objects
      */
-    public static List<BIMObject3D> transformBIMObjects(ModelPopulation ifcModel, GeometrySolution solution,
-                                                        BIMtoOSMCatalog.BIMObject objectType, List<EntityInstance> bimObjects) {
+    public static List<BIMObject3D> transformBIMObjects(IfcModel ifcModel, PlacementCache placements, GeometryCache geometries, GeometrySolution solution,
+                                                        BrepFootprint.Configuration footprint, BIMtoOSMCatalog.BIMObject objectType,
+                                                        List<IfcEntity> bimObjects) {
         ArrayList<BIMObject3D> transformedObjects = new ArrayList<>();
 
-        for (EntityInstance objectEntity : bimObjects) {
+        for (IfcEntity objectEntity : bimObjects) {
+            BIMObject3D object = transformBIMObject(ifcModel, placements, geometries, solution, footprint, objectType, objectEntity);
+            if (object != null) transformedObjects.add(object);
+        }
 
-            BIMObject3D object = transformBIMObject(ifcModel, solution, objectType, objectEntity);
-            if (object == null) {
-                continue;
-            }
+        return transformedObjects;
+    }
 
-            // check for loops in data set
-            List<Vector3D> objectGeometry = object.getCartesianGeometryCoordinates();
-            if (!objectGeometry.contains(IfcGeometryExtractor.defaultPoint)) {
-                List<List<Vector3D>> loops = splitClosedLoops(objectGeometry);
-                loops.forEach(l -> {
-                    object.setCartesianGeometryCoordinates(l);
-                    transformedObjects.add(object);
-                });
-            } else {
-                transformedObjects.add(object);
-            }
+    /**
+     * Transform BIM objects for further operations on param pool. Objects are split into consecutive chunks
+     * transformed in parallel, results keep the order of bimObjects.
+     *
+     * @param ifcModel   ifcModel, must be thread safe if pool is set
+     * @param placements resolved placements of ifcModel, including transformation to world coordinates
+     * @param geometries geometry extracted during import
+     * @param solution   geometry solution type
+     * @param footprint  geometry extracted from boundary representations
+     * @param objectType relating BIMtoOSMCatalog.BIMObject
+     * @param bimObjects All BIM objects of objectType
+     * @param pool       to run transformation on, null to transform on the calling thread
+     * @return Transformed BIM objects
+     */
+    public static List<BIMObject3D> transformBIMObjects(IfcModel ifcModel, PlacementCache placements, GeometryCache geometries, GeometrySolution solution,
+                                                        BrepFootprint.Configuration footprint, BIMtoOSMCatalog.BIMObject objectType,
+                                                        List<IfcEntity> bimObjects, ForkJoinPool pool) {
+        int chunkCount = pool != null ? Math.min(bimObjects.size(), pool.getParallelism() * CHUNKS_PER_THREAD) : 1;
+        if (chunkCount <= 1) return transformBIMObjects(ifcModel, placements, geometries, solution, footprint, objectType, bimObjects);
+
+        List<Callable<List<BIMObject3D>>> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            List<IfcEntity> chunk = bimObjects.subList(i * bimObjects.size() / chunkCount, (i + 1) * bimObjects.size() / chunkCount);
+            chunks.add(() -> transformBIMObjects(ifcModel, placements, geometries, solution, footprint, objectType, chunk));
         }
 
+        ArrayList<BIMObject3D> transformedObjects = new ArrayList<>();
+        try {
+            for (Future<List<BIMObject3D>> result : pool.invokeAll(chunks)) {
+                transformedObjects.addAll(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
         return transformedObjects;
     }
 
@@ -124,27 +167,31 @@ public class BIMtoOSMUtility {
      * Transform BIM object for further operations. Extracts OSM relevant information and puts it into {@link BIMObject3D}
      *
      * @param ifcModel     ifcModel
+     * @param placements   resolved placements of ifcModel
+     * @param geometries   geometry extracted during import
      * @param solution     geometry solution type
+     * @param footprint    geometry extracted from boundary representations
      * @param objectType   relating BIMtoOSMCatalog.BIMObject
      * @param objectEntity BIM object of objectType
      * @return Transformed BIM object
      */
-    public static BIMObject3D transformBIMObject(ModelPopulation ifcModel, GeometrySolution solution,
-                                                 BIMtoOSMCatalog.BIMObject objectType, EntityInstance objectEntity) {
+    public static BIMObject3D transformBIMObject(IfcModel ifcModel, PlacementCache placements, GeometryCache geometries, GeometrySolution solution,
+                                                 BrepFootprint.Configuration footprint, BIMtoOSMCatalog.BIMObject objectType,
+                                                 IfcEntity objectEntity) {
 
-        EntityInstance objectIFCLP = objectEntity.getAttributeValueBNasEntityInstance("ObjectPlacement");
-        BIMObject3D object = resolveObjectPlacement(objectIFCLP, new BIMObject3D(objectEntity.getId()));
+        IfcEntity objectIFCLP = objectEntity.getAttributeValueBNasEntityInstance("ObjectPlacement");
+        BIMObject3D object = new BIMObject3D(objectEntity.getId());
+        object.setTransform(placements.getTransform(objectIFCLP));
         object.setType(objectType);
-        Vector3D cartesianOrigin = object.getTranslation();
-        Matrix3D rotMatrix = getObjectRotationMatrix(objectEntity);
 
         // get object geometry
-        ArrayList<Vector3D> shapeDataOfObject = (ArrayList<Vector3D>) getShapeData(ifcModel, objectEntity, solution);
+        BrepFootprint objectFootprint = getBrepFootprint(ifcModel, placements, objectEntity, object.getTransform(), footprint);
+        PolygonGeometry shapeDataOfObject = getShapeData(ifcModel, geometries, objectEntity, solution, objectFootprint);
 
         // transform and prepare
-        if (cartesianOrigin != null && rotMatrix != null && (shapeDataOfObject != null && !shapeDataOfObject.isEmpty())) {
-            transformPoints(shapeDataOfObject, rotMatrix, cartesianOrigin);
-            object.setCartesianGeometryCoordinates(shapeDataOfObject);
+        if (shapeDataOfObject != null && !shapeDataOfObject.isEmpty()) {
+            transformPoints(shapeDataOfObject.getPoints(), object.getTransform());
+            object.setCartesianGeometry(shapeDataOfObject);
         } else {
             return null;
         }
@@ -153,114 +200,83 @@ public class BIMtoOSMUtility {
     }
 
     /**
-     * Method resolves placement of Ifc object and keeps the result in {@link BIMObject3D}
+     * Gets footprint of faceted breps of object. Cut plane is placed above the elevation of the storey containing
+     * the object, objects outside of storeys are cut above their own origin. Objects are expected to be upright.
      *
-     * @param objectPlacementEntity of {@link BIMObject3D}
-     * @param object                to resolve placement of
-     * @return {@link BIMObject3D} with resolved placement
+     * @param ifcModel        ifcModel
+     * @param placements      resolved placements of ifcModel
+     * @param objectEntity    BIM object
+     * @param objectTransform from object coordinates to world coordinates
+     * @param configuration   of footprint
+     * @return footprint in object coordinates or null to keep all faces
      */
-    private static BIMObject3D resolveObjectPlacement(EntityInstance objectPlacementEntity, BIMObject3D object) {
-        if (object == null) return null;
-        if (objectPlacementEntity == null) return object;
-
-        // get objects IfcRelativePlacement entity
-        EntityInstance relativePlacement = objectPlacementEntity.getAttributeValueBNasEntityInstance("RelativePlacement");
-
-        // get rotation of this entity
-        Matrix3D rotation = getRotationFromRelativePlacement(relativePlacement);
-        if (rotation == null) return object;
-
-        // get translation of this entity
-        Vector3D translation = getTranslationFromRelativePlacement(relativePlacement);
-        if (translation == null) return object;
-
-        // check if this entity has placement parent (PlacementRelTo)
-        if (objectPlacementEntity.getAttributeValueBNasEntityInstance("PlacementRelTo") != null) {
-            EntityInstance placementRelTo = objectPlacementEntity.getAttributeValueBNasEntityInstance("PlacementRelTo");
-            resolveObjectPlacement(placementRelTo, object);
-            // set new rotation
-            object.getRotation().multiply(rotation);
-            // set new translation
-            Matrix3D inverse = new Matrix3D(rotation);
-            inverse.invert();
-            inverse.transform(object.getTranslation());
-            object.getTranslation().add(translation);
+    private static BrepFootprint getBrepFootprint(IfcModel ifcModel, PlacementCache placements, IfcEntity objectEntity,
+                                                  Transform3D objectTransform, BrepFootprint.Configuration configuration) {
+        if (configuration.MODE == BrepFootprint.Mode.FACES) return null;
+        if (configuration.MODE == BrepFootprint.Mode.PROJECTION) return BrepFootprint.projection();
+
+        Vector3D cutPoint = new Vector3D();
+        objectTransform.transform(cutPoint);
+        IfcEntity structure = ifcModel.getRelationshipIndex().getContainingStructure(objectEntity);
+        if (structure != null && ifcModel.getTypeIndex().isInstanceOf(structure, "IfcBuildingStorey")) {
+            Vector3D storeyOrigin = new Vector3D();
+            placements.getTransform(structure.getAttributeValueBNasEntityInstance("ObjectPlacement")).transform(storeyOrigin);
+            cutPoint.setZ(storeyOrigin.getZ());
         }
-        return object;
-    }
+        cutPoint.setZ(cutPoint.getZ() + configuration.CUT_HEIGHT);
 
-    /**
-     * Method extracts translation vector from relative placement
-     *
-     * @param relativePlacement to get translation information of
-     * @return translation vector for required object
-     */
-    private static Vector3D getTranslationFromRelativePlacement(EntityInstance relativePlacement) {
-        EntityInstance cPoint = relativePlacement.getAttributeValueBNasEntityInstance("Location");
-        @SuppressWarnings("unchecked")
-        List<String> objectCoords = (List<String>) cPoint.getAttributeValueBN("Coordinates");
-        return stringVectorToVector3D(objectCoords);
+        Transform3D worldToObject = new Transform3D(objectTransform);
+        worldToObject.invert();
+        worldToObject.transform(cutPoint);
+        return new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, cutPoint.getZ());
     }
 
     /**
-     * Method extracts rotation matrix from relative placement
+     * Method gets local shape representation of ifc object. Shapes shared by several products are identified and
+     * extracted once for each footprint, each call returns a new copy.
      *
-     * @param relativePlacement to get rotation matrix of
-     * @return rotation matrix
+     * @param ifcModel   ifcModel
+     * @param geometries geometry extracted during import
+     * @param object     BIM object
+     * @param solution   geometry solution type
+     * @param footprint  footprint of faceted breps and face sets in object coordinates, null to keep all faces
+     * @return shape representation or null if not supported
      */
-    private static Matrix3D getRotationFromRelativePlacement(EntityInstance relativePlacement) {
-        List<String> refDirection;
-        List<String> zAxis;
-        try {
-            // get RefDirection
-            EntityInstance refDirectionEntity = relativePlacement.getAttributeValueBNasEntityInstance("RefDirection");
-            refDirection = (List<String>) refDirectionEntity.getAttributeValueBN("DirectionRatios");
-            // get z-Axis
-            EntityInstance axisEntity = relativePlacement.getAttributeValueBNasEntityInstance("Axis");
-            zAxis = (List<String>) axisEntity.getAttributeValueBN("DirectionRatios");
-        } catch (NullPointerException e) {
-            return null;
+    public static PolygonGeometry getShapeData(IfcModel ifcModel, GeometryCache geometries, IfcEntity object, GeometrySolution solution,
+                                               BrepFootprint footprint) {
+        IfcEntity objectIFCPDS = object.getAttributeValueBNasEntityInstance("Representation");
+        if (objectIFCPDS == null) return null;
+        // openings make the shape specific to the product
+        if (IfcGeometryExtractor.hasOpenings(ifcModel, object)) return extractShapeData(ifcModel, geometries, object, solution, footprint);
+
+        PolygonGeometry shapeGeometry = geometries.getShapeGeometry(objectIFCPDS.getId(), solution, footprint);
+        if (shapeGeometry == null) {
+            PolygonGeometry shapeData = extractShapeData(ifcModel, geometries, object, solution, footprint);
+            shapeGeometry = shapeData != null ? shapeData.copy() : new PolygonGeometry(0, 1);
+            geometries.putShapeGeometry(objectIFCPDS.getId(), solution, footprint, shapeGeometry);
         }
-
-        Vector3D refDirectionVector = stringVectorToVector3D(refDirection);
-        Vector3D zAxisVector = stringVectorToVector3D(zAxis);
-        if (refDirectionVector == null || zAxisVector == null) return null;
-
-        // get x-Axis
-        Vector3D xAxisVector = retrieveXAxis(zAxisVector, refDirectionVector);
-
-        // build rotation matrix
-        Vector3D xNorm = new Vector3D();
-        xNorm.normalize(xAxisVector);
-        Vector3D yNorm = new Vector3D();
-        yNorm.cross(zAxisVector, xAxisVector);
-        yNorm.normalize();
-        Vector3D zNorm = new Vector3D();
-        zNorm.normalize(zAxisVector);
-
-        return new Matrix3D(
-                xNorm.getX(), xNorm.getY(), xNorm.getZ(),
-                yNorm.getX(), yNorm.getY(), yNorm.getZ(),
-                zNorm.getX(), zNorm.getY(), zNorm.getZ()
-        );
+        return shapeGeometry.isEmpty() ? null : shapeGeometry.copy();
     }
 
     /**
-     * Method gets local shape representation of ifc object
+     * Method extracts local shape representation of ifc object
      *
-     * @param ifcModel ifcModel
-     * @param object   BIM object
-     * @return Array including points of shape representation
+     * @param ifcModel   ifcModel
+     * @param geometries geometry extracted during import
+     * @param object     BIM object
+     * @param solution   geometry solution type
+     * @param footprint  footprint of faceted breps and face sets in object coordinates, null to keep all faces
+     * @return shape representation or null if not supported
      */
-    public static List<Vector3D> getShapeData(ModelPopulation ifcModel, EntityInstance object, GeometrySolution solution) {
-
+    private static PolygonGeometry extractShapeData(IfcModel ifcModel, GeometryCache geometries, IfcEntity object, GeometrySolution solution,
+                                                    BrepFootprint footprint) {
         List<IfcRepresentation> repObjectIdentities = getIfcRepresentations(object);
         if (repObjectIdentities == null) return null;
 
         if (solution.equals(GeometrySolution.BODY)) {
             IfcRepresentation bodyRepresentation = getIfcRepresentation(repObjectIdentities, RepresentationIdentifier.Body);
             if (bodyRepresentation != null) {
-                return IfcGeometryExtractor.getDataFromBodyRepresentation(ifcModel, bodyRepresentation);
+                return IfcGeometryExtractor.getDataFromBodyRepresentation(ifcModel, geometries, bodyRepresentation, footprint);
             }
         } else if (solution.equals(GeometrySolution.BOUNDING_BOX)) {
             IfcRepresentation boxRepresentation = getIfcRepresentation(repObjectIdentities, RepresentationIdentifier.Box);
@@ -286,114 +302,23 @@ public class BIMtoOSMUtility {
         return null;
     }
 
-    /**
-     * Gets rotation matrix for ifc object
-     *
-     * @param object to get rotation matrix for
-     * @return rotation matrix
-     */
-    @SuppressWarnings("unchecked")
-    private static Matrix3D getObjectRotationMatrix(EntityInstance object) {
-        // get objects IfcLocalPlacement entity
-        EntityInstance objectIFCLP = object.getAttributeValueBNasEntityInstance("ObjectPlacement");
-
-        // get all RelativePlacements to root
-        ArrayList<EntityInstance> objectRP = getRelativePlacementsToRoot(objectIFCLP, new ArrayList<>());
-
-        double rotAngleX = 0.0;    // in rad
-        double rotAngleZ = 0.0;    // in rad
-        Vector3D parentXVector = null;
-        Vector3D parentZVector = null;
-
-        // TODO use one rotation matrix instead of each for each axis
-        for (EntityInstance relativeObject : objectRP) {
-            // get RefDirection (x axis vector)
-            List<String> xDirectionRatios;
-            List<String> zDirectionRatios;
-            try {
-                EntityInstance xAxisEntity = relativeObject.getAttributeValueBNasEntityInstance("RefDirection");
-                EntityInstance zAxisEntity = relativeObject.getAttributeValueBNasEntityInstance("Axis");
-                xDirectionRatios = (List<String>) xAxisEntity.getAttributeValueBN("DirectionRatios");
-                zDirectionRatios = (List<String>) zAxisEntity.getAttributeValueBN("DirectionRatios");
-            } catch (NullPointerException e) {
-                return null;
-            }
-
-            Vector3D xAxis = stringVectorToVector3D(xDirectionRatios);
-            if (xAxis == null) return null;
-            Vector3D zAxis = stringVectorToVector3D(zDirectionRatios);
-            if (zAxis == null) return null;
-            xAxis = retrieveXAxis(zAxis, xAxis);
-
-            // get x-axis rotation angle
-            if (parentXVector != null) {
-                rotAngleX += parentXVector.angleBetween(xAxis);
-            } else {
-                parentXVector = new Vector3D();
-            }
-            // update parent vector
-            parentXVector.setX(xAxis.getX());
-            parentXVector.setY(xAxis.getY());
-            parentXVector.setZ(xAxis.getZ());
-
-            // get z-axis rotation angle
-            if (parentZVector != null) {
-                rotAngleZ += parentZVector.angleBetween(zAxis);
-            } else {
-                parentZVector = new Vector3D();
-            }
-            // update parent vector
-            parentZVector.setX(zAxis.getX());
-            parentZVector.setY(zAxis.getY());
-            parentZVector.setZ(zAxis.getZ());
-        }
-
-        Matrix3D xMatrix = ParserMath.getRotationMatrixZ(rotAngleX);
-        Matrix3D zMatrix = ParserMath.getRotationMatrixX(rotAngleZ);
-        xMatrix.multiply(zMatrix);
-
-        return xMatrix;
-    }
-
-    /**
-     * Method runs recursively through ifc file and collects RelativePlacement EntityInstances from
-     * start to root entity
-     *
-     * @param entity                   you want to collect the RelativePlacement for
-     * @param relativePlacementsToRoot empty list at beginning, needed for recursive iteration
-     * @return List with EntityInstances of RelativePlacement
-     */
-    private static ArrayList<EntityInstance> getRelativePlacementsToRoot(EntityInstance entity, ArrayList<EntityInstance> relativePlacementsToRoot) {
-        if (entity == null) return relativePlacementsToRoot;
-
-        // get objects IfcRelativePlacement entity
-        EntityInstance relativePlacement = entity.getAttributeValueBNasEntityInstance("RelativePlacement");
-        relativePlacementsToRoot.add(relativePlacement);
-
-        // get id of placement relative to this (PlacementRelTo)
-        EntityInstance placementRelTo = entity.getAttributeValueBNasEntityInstance("PlacementRelTo");
-        getRelativePlacementsToRoot(placementRelTo, relativePlacementsToRoot);
-
-        return relativePlacementsToRoot;
-    }
-
     /**
      * Identifies the type of an IfcRepresentation object.
      *
      * @param object object to get the IfcProductDefinitionShape.Representations from which will be identified
      * @return List of IFCShapeRepresentationIdentity holding an IFC representation object and it's identifier
      */
-    public static List<IfcRepresentation> getIfcRepresentations(EntityInstance object) {
+    public static List<IfcRepresentation> getIfcRepresentations(IfcEntity object) {
         ArrayList<IfcRepresentation> repObjectIdentities = new ArrayList<>();
 
         // get IfcProductDefinitionShape of object
-        EntityInstance objectIFCPDS = object.getAttributeValueBNasEntityInstance("Representation");
+        IfcEntity objectIFCPDS = object.getAttributeValueBNasEntityInstance("Representation");
         // get all IfcShapeRepresentation of object
-        ArrayList<EntityInstance> objectRepresentations =
+        List<IfcEntity> objectRepresentations =
                 objectIFCPDS.getAttributeValueBNasEntityInstanceList("Representations");
 
         // identify each object
-        for (EntityInstance repObject : objectRepresentations) {
+        for (IfcEntity repObject : objectRepresentations) {
             //identify IfcShapeRepresentation type
             IfcRepresentation repIdentity = IfcObjectIdentifier.identifyShapeRepresentation(repObject);
             repIdentity.setRootEntity(object);
@@ -405,17 +330,68 @@ public class BIMtoOSMUtility {
     }
 
     /**
-     * Transforms the list of points using the given rotation matrix and translation vector
+     * Transforms the points using the given transformation
      *
-     * @param points      to transform
-     * @param rotation    matrix
-     * @param translation vector
+     * @param points    to transform
+     * @param transform from object coordinates to world coordinates
      */
-    private static void transformPoints(ArrayList<Vector3D> points, Matrix3D rotation, Vector3D translation) {
-        points.forEach(p -> {
-            rotation.transform(p);
-            p.add(translation);
-        });
+    static void transformPoints(CoordinateBuffer points, Transform3D transform) {
+        points.transform(transform);
+    }
+
+    /**
+     * Method builds transformation from coordinates of placement to coordinates of its parent system.
+     * Missing axes default to the axes of the parent system.
+     *
+     * @param relativePlacement IfcAxis2Placement3D or IfcAxis2Placement2D
+     * @return transformation, identity if relative placement is missing
+     */
+    public static Transform3D getAxis2PlacementTransform(IfcEntity relativePlacement) {
+        if (relativePlacement == null) return new Transform3D();
+
+        Vector3D location = getVector(relativePlacement, "Location", "Coordinates", new Vector3D());
+        Vector3D zAxis = getVector(relativePlacement, "Axis", "DirectionRatios", DEFAULT_AXIS);
+        Vector3D refDirection = getVector(relativePlacement, "RefDirection", "DirectionRatios", DEFAULT_REF_DIRECTION);
+        Vector3D xAxis = retrieveXAxis(zAxis, refDirection);
+        if (xAxis.lengthSquared() == 0.0) {
+            Logging.warn(BIMtoOSMUtility.class.getName() + ": invalid axes of #" + relativePlacement.getId());
+            return new Transform3D(
+                    1.0, 0.0, 0.0, location.getX(),
+                    0.0, 1.0, 0.0, location.getY(),
+                    0.0, 0.0, 1.0, location.getZ());
+        }
+
+        // axes of placement are the columns of the rotation matrix
+        Vector3D xNorm = new Vector3D();
+        xNorm.normalize(xAxis);
+        Vector3D zNorm = new Vector3D();
+        zNorm.normalize(zAxis);
+        Vector3D yNorm = new Vector3D();
+        yNorm.cross(zNorm, xNorm);
+
+        return new Transform3D(
+                xNorm.getX(), yNorm.getX(), zNorm.getX(), location.getX(),
+                xNorm.getY(), yNorm.getY(), zNorm.getY(), location.getY(),
+                xNorm.getZ(), yNorm.getZ(), zNorm.getZ(), location.getZ()
+        );
+    }
+
+    /**
+     * Method gets vector of referenced IfcCartesianPoint or IfcDirection
+     *
+     * @param relativePlacement IfcAxis2Placement3D or IfcAxis2Placement2D
+     * @param attribute         name of attribute referencing point or direction
+     * @param valueAttribute    name of coordinate attribute of point or direction
+     * @param defaultValue      returned if not set or not valid
+     * @return vector
+     */
+    static Vector3D getVector(IfcEntity relativePlacement, String attribute, String valueAttribute, Vector3D defaultValue) {
+        IfcEntity entity = relativePlacement.getAttributeValueBNasEntityInstance(attribute);
+        Vector3D vector = entity != null ? toVector3D(entity.getAttributeValueBNasDoubleArray(valueAttribute)) : null;
+        if (vector == null || (vector.lengthSquared() == 0.0 && defaultValue.lengthSquared() != 0.0)) {
+            return new Vector3D(defaultValue);
+        }
+        return vector;
     }
 
     /**
@@ -425,7 +401,7 @@ public class BIMtoOSMUtility {
      * @param refDirection of IfcAxis2Placement3D
      * @return actual x-axis vector
      */
-    private static Vector3D retrieveXAxis(Vector3D zAxis, Vector3D refDirection) {
+    static Vector3D retrieveXAxis(Vector3D zAxis, Vector3D refDirection) {
         double d = refDirection.dot(zAxis) / zAxis.lengthSquared();
         Vector3D xAxis = new Vector3D(refDirection);
         Vector3D refZ = new Vector3D(zAxis);
@@ -434,27 +410,4 @@ public class BIMtoOSMUtility {
         return xAxis;
     }
 
-    /**
-     * Method finds and slips loops in data set
-     *
-     * @param data to check for loops
-     * @return list with data for each loop
-     */
-    private static List<List<Vector3D>> splitClosedLoops(List<Vector3D> data) {
-        List<List<Vector3D>> loops = new ArrayList<>();
-        ArrayList<Vector3D> loop = new ArrayList<>();
-        for (Vector3D point : data) {
-            if (point.equalsVector(IfcGeometryExtractor.defaultPoint) && !loop.isEmpty()) {
-                loops.add(loop);
-                loop = new ArrayList<>();
-            } else if (!point.equalsVector(IfcGeometryExtractor.defaultPoint)) {
-                loop.add(point);
-            }
-            if (data.indexOf(point) == data.size() - 1 && !loop.isEmpty()) {
-                loops.add(loop);
-            }
-        }
-        return loops;
-    }
-
 }
@@ -0,0 +1,308 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.PolygonClipper;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces the faces of a boundary representation to the outline of the solid in the xy-plane. The outline is either
+ * the section of the solid with a horizontal plane or the union of all projected faces. Faces are given as lists of
+ * bounds, the first bound being the outer one.
+ */
+public class BrepFootprint {
+
+    /**
+     * Types of geometry extracted from boundary representations
+     */
+    public enum Mode {
+        /** all loops of all faces, no footprint */
+        FACES,
+        /** section with horizontal plane, projection if plane does not cut the solid */
+        CUT_PLANE,
+        /** union of projected faces */
+        PROJECTION
+    }
+
+    /** faces with projected area below this fraction of their squared extent are perpendicular to the xy-plane */
+    private static final double PERPENDICULAR_FACE_AREA = 1e-9;
+
+    private final Mode mode;
+    private final double cutElevation;
+
+    /**
+     * Constructor
+     *
+     * @param mode         of footprint, {@link Mode#CUT_PLANE} or {@link Mode#PROJECTION}
+     * @param cutElevation z-coordinate of cut plane, ignored for {@link Mode#PROJECTION}
+     */
+    public BrepFootprint(Mode mode, double cutElevation) {
+        if (mode == null || mode == Mode.FACES) {
+            throw new IllegalArgumentException("invalid argument value of mode: " + mode);
+        }
+        this.mode = mode;
+        this.cutElevation = cutElevation;
+    }
+
+    /**
+     * @return footprint projecting all faces
+     */
+    public static BrepFootprint projection() {
+        return new BrepFootprint(Mode.PROJECTION, 0.0);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public double getCutElevation() {
+        return cutElevation;
+    }
+
+    /**
+     * Gets footprint of solid
+     *
+     * @param faces of closed shell, each a list of bounds
+     * @return rings of footprint, outer rings counterclockwise and holes clockwise
+     */
+    public List<List<Vector3D>> getFootprint(List<List<List<Vector3D>>> faces) {
+        if (mode == Mode.CUT_PLANE) {
+            List<List<Vector3D>> section = cut(faces, cutElevation);
+            if (!section.isEmpty()) return section;
+        }
+        return project(faces);
+    }
+
+    /**
+     * Unions the projections of all faces. Faces facing up and faces facing down form two surfaces of the shell
+     * whose faces do not overlap each other, each surface is merged on its own before both are merged. Outer
+     * bounds are oriented counterclockwise and inner bounds clockwise to merge faces by their winding numbers.
+     * Faces perpendicular to the xy-plane do not add any area and are skipped.
+     *
+     * @param faces of closed shell, each a list of bounds
+     * @return rings of projected shell
+     */
+    static List<List<Vector3D>> project(List<List<List<Vector3D>>> faces) {
+        List<List<Vector3D>> upward = new ArrayList<>();
+        List<List<Vector3D>> downward = new ArrayList<>();
+        for (List<List<Vector3D>> face : faces) {
+            if (face.isEmpty() || isPerpendicular(face.get(0))) continue;
+            List<List<Vector3D>> surface = getSignedArea(face.get(0)) >= 0.0 ? upward : downward;
+            for (int i = 0; i < face.size(); i++) {
+                List<Vector3D> bound = face.get(i);
+                if ((getSignedArea(bound) >= 0.0) == (i == 0)) {
+                    surface.add(bound);
+                } else {
+                    List<Vector3D> reversed = new ArrayList<>(bound);
+                    Collections.reverse(reversed);
+                    surface.add(reversed);
+                }
+            }
+        }
+        return PolygonClipper.clip(merge(upward), merge(downward), PolygonClipper.Operation.UNION);
+    }
+
+    private static List<List<Vector3D>> merge(List<List<Vector3D>> rings) {
+        return PolygonClipper.clip(rings, PolygonClipper.FillRule.NONZERO,
+                Collections.emptyList(), PolygonClipper.FillRule.NONZERO, PolygonClipper.Operation.UNION);
+    }
+
+    private static boolean isPerpendicular(List<Vector3D> bound) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Vector3D point : bound) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+        double extent = Math.max(maxX - minX, maxY - minY);
+        return Math.abs(getSignedArea(bound)) <= PERPENDICULAR_FACE_AREA * extent * extent;
+    }
+
+    private static double getSignedArea(List<Vector3D> ring) {
+        double area = 0.0;
+        int n = ring.size();
+        for (int i = 0; i < n; i++) {
+            Vector3D a = ring.get(i);
+            Vector3D b = ring.get((i + 1) % n);
+            area += a.getX() * b.getY() - b.getX() * a.getY();
+        }
+        return area / 2.0;
+    }
+
+    /**
+     * Intersects closed shell with horizontal plane. Vertices lying on the plane count as above it, so faces
+     * touching the plane are not cut.
+     *
+     * @param faces     of closed shell, each a list of bounds
+     * @param elevation z-coordinate of plane
+     * @return rings of section, empty if plane does not cut the shell
+     */
+    static List<List<Vector3D>> cut(List<List<List<Vector3D>>> faces, double elevation) {
+        List<Vector3D[]> segments = new ArrayList<>();
+        for (List<List<Vector3D>> face : faces) {
+            cutFace(face, elevation, segments);
+        }
+        if (segments.isEmpty()) return Collections.emptyList();
+
+        List<List<Vector3D>> loops = linkSegments(segments);
+        return PolygonClipper.clip(loops, Collections.emptyList(), PolygonClipper.Operation.UNION);
+    }
+
+    /**
+     * Adds the segments a planar face and the horizontal plane have in common
+     */
+    private static void cutFace(List<List<Vector3D>> face, double elevation, List<Vector3D[]> segments) {
+        List<Vector3D> crossings = new ArrayList<>();
+        for (List<Vector3D> bound : face) {
+            int n = bound.size();
+            for (int i = 0; i < n; i++) {
+                Vector3D a = bound.get(i);
+                Vector3D b = bound.get((i + 1) % n);
+                if ((a.getZ() >= elevation) != (b.getZ() >= elevation)) crossings.add(crossing(a, b, elevation));
+            }
+        }
+        // odd number of crossings only possible for non-planar faces
+        if (crossings.isEmpty() || crossings.size() % 2 != 0) return;
+
+        // crossings alternate between entering and leaving the face along the section line
+        Vector3D normal = getNormal(face.get(0));
+        double dx = -normal.getY();
+        double dy = normal.getX();
+        crossings.sort((p, q) -> Double.compare(p.getX() * dx + p.getY() * dy, q.getX() * dx + q.getY() * dy));
+        for (int i = 0; i < crossings.size(); i += 2) {
+            segments.add(new Vector3D[]{crossings.get(i), crossings.get(i + 1)});
+        }
+    }
+
+    /**
+     * Gets point of edge on plane. Edge ends are ordered first, so both faces sharing an edge get the same point.
+     */
+    private static Vector3D crossing(Vector3D a, Vector3D b, double elevation) {
+        if (compare(a, b) > 0) {
+            Vector3D swap = a;
+            a = b;
+            b = swap;
+        }
+        double t = (elevation - a.getZ()) / (b.getZ() - a.getZ());
+        return new Vector3D(a.getX() + t * (b.getX() - a.getX()), a.getY() + t * (b.getY() - a.getY()), elevation);
+    }
+
+    private static int compare(Vector3D a, Vector3D b) {
+        int result = Double.compare(a.getX(), b.getX());
+        if (result == 0) result = Double.compare(a.getY(), b.getY());
+        if (result == 0) result = Double.compare(a.getZ(), b.getZ());
+        return result;
+    }
+
+    /**
+     * Calculates normal of polygon by Newell's method
+     */
+    private static Vector3D getNormal(List<Vector3D> polygon) {
+        double x = 0.0;
+        double y = 0.0;
+        double z = 0.0;
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            Vector3D a = polygon.get(i);
+            Vector3D b = polygon.get((i + 1) % n);
+            x += (a.getY() - b.getY()) * (a.getZ() + b.getZ());
+            y += (a.getZ() - b.getZ()) * (a.getX() + b.getX());
+            z += (a.getX() - b.getX()) * (a.getY() + b.getY());
+        }
+        return new Vector3D(x, y, z);
+    }
+
+    /**
+     * Links segments sharing end points into closed loops. Open chains are dropped.
+     */
+    private static List<List<Vector3D>> linkSegments(List<Vector3D[]> segments) {
+        Map<PointKey, List<Integer>> segmentsAtPoint = new HashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            for (Vector3D end : segments.get(i)) {
+                segmentsAtPoint.computeIfAbsent(new PointKey(end), k -> new ArrayList<>(2)).add(i);
+            }
+        }
+
+        boolean[] used = new boolean[segments.size()];
+        List<List<Vector3D>> loops = new ArrayList<>();
+        for (int first = 0; first < segments.size(); first++) {
+            if (used[first]) continue;
+            used[first] = true;
+            List<Vector3D> loop = new ArrayList<>();
+            PointKey start = new PointKey(segments.get(first)[0]);
+            loop.add(segments.get(first)[0]);
+            Vector3D current = segments.get(first)[1];
+            boolean closed = false;
+            while (true) {
+                PointKey key = new PointKey(current);
+                if (key.equals(start)) {
+                    closed = true;
+                    break;
+                }
+                loop.add(current);
+                int next = -1;
+                for (int candidate : segmentsAtPoint.get(key)) {
+                    if (!used[candidate]) {
+                        next = candidate;
+                        break;
+                    }
+                }
+                if (next < 0) break;
+                used[next] = true;
+                Vector3D[] segment = segments.get(next);
+                current = key.equals(new PointKey(segment[0])) ? segment[1] : segment[0];
+            }
+            if (closed && loop.size() >= 3) loops.add(loop);
+        }
+        return loops;
+    }
+
+    /**
+     * Exact xy-coordinates of a point, used to find segments sharing an end point
+     */
+    private static final class PointKey {
+        private final double x;
+        private final double y;
+
+        PointKey(Vector3D point) {
+            x = point.getX();
+            y = point.getY();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PointKey)) return false;
+            PointKey other = (PointKey) o;
+            return Double.compare(x, other.x) == 0 && Double.compare(y, other.y) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(x) + Double.hashCode(y);
+        }
+    }
+
+    /**
+     * Configuration class for footprints of boundary representations
+     */
+    public static class Configuration {
+        public final Mode MODE;
+        /** height of cut plane above elevation of storey, in m */
+        public final double CUT_HEIGHT;
+
+        public Configuration(Mode mode, double cutHeight) {
+            MODE = mode;
+            CUT_HEIGHT = cutHeight;
+        }
+    }
+}
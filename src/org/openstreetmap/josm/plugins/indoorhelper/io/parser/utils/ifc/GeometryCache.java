@@ -0,0 +1,207 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of geometry extracted during one import. Geometry of an IfcRepresentationMap is extracted once and
+ * shared by all IfcMappedItem instances pointing to it. Local geometry of product shapes and representation items
+ * shared by several products is kept in bounded caches, keyed by entity id and the footprint extracted from
+ * boundary representations. Cached geometries must not be modified, instances are created from copies.
+ * Cache is safe to use from multiple threads, lookups do not lock.
+ */
+public class GeometryCache {
+
+    /**
+     * Default maximum number of cached product shapes and of cached representation items
+     */
+    public static final int DEFAULT_MAX_ITEMS = 10000;
+
+    private final Map<Integer, PolygonGeometry> mappedGeometries = new ConcurrentHashMap<>();
+    private final Map<Key, PolygonGeometry> shapeGeometries = new ConcurrentHashMap<>();
+    private final Map<Key, PolygonGeometry> itemGeometries = new ConcurrentHashMap<>();
+    private final int maxItems;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates cache holding up to {@link #DEFAULT_MAX_ITEMS} product shapes and representation items
+     */
+    public GeometryCache() {
+        this(DEFAULT_MAX_ITEMS);
+    }
+
+    /**
+     * Creates cache holding up to param number of product shapes and of representation items
+     *
+     * @param maxItems maximum number of cached product shapes and of cached representation items
+     */
+    public GeometryCache(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Gets extracted geometry of representation map
+     *
+     * @param mapId entity id of IfcRepresentationMap
+     * @return geometry in coordinates of mapping origin or null if not extracted yet, empty if not supported
+     */
+    public PolygonGeometry getMappedGeometry(int mapId) {
+        return mappedGeometries.get(mapId);
+    }
+
+    /**
+     * Stores extracted geometry of representation map. If geometry was already stored by another thread,
+     * the stored geometry is kept.
+     *
+     * @param mapId    entity id of IfcRepresentationMap
+     * @param geometry geometry in coordinates of mapping origin, empty if not supported
+     * @return cached geometry
+     */
+    public PolygonGeometry putMappedGeometry(int mapId, PolygonGeometry geometry) {
+        PolygonGeometry existing = mappedGeometries.putIfAbsent(mapId, geometry);
+        return existing != null ? existing : geometry;
+    }
+
+    /**
+     * Gets extracted local geometry of product shape and counts the lookup as hit or miss
+     *
+     * @param shapeId   entity id of IfcProductDefinitionShape
+     * @param solution  geometry solution type
+     * @param footprint footprint of faceted breps and face sets, null if all faces are kept
+     * @return geometry in object coordinates or null if not cached, empty if not supported
+     */
+    public PolygonGeometry getShapeGeometry(int shapeId, BIMtoOSMUtility.GeometrySolution solution, BrepFootprint footprint) {
+        return get(shapeGeometries, new Key(shapeId, solution, footprint));
+    }
+
+    /**
+     * Stores extracted local geometry of product shape. Arbitrary shapes are dropped if cache is full.
+     *
+     * @param shapeId   entity id of IfcProductDefinitionShape
+     * @param solution  geometry solution type
+     * @param footprint footprint of faceted breps and face sets, null if all faces are kept
+     * @param geometry  geometry in object coordinates, empty if not supported
+     */
+    public void putShapeGeometry(int shapeId, BIMtoOSMUtility.GeometrySolution solution, BrepFootprint footprint,
+                                 PolygonGeometry geometry) {
+        put(shapeGeometries, new Key(shapeId, solution, footprint), geometry);
+    }
+
+    /**
+     * Gets extracted local geometry of representation item and counts the lookup as hit or miss
+     *
+     * @param itemId    entity id of IfcRepresentationItem
+     * @param footprint footprint of faceted brep or face set, null if all faces are kept
+     * @return geometry in coordinates of representation or null if not cached, empty if not supported
+     */
+    public PolygonGeometry getItemGeometry(int itemId, BrepFootprint footprint) {
+        return get(itemGeometries, new Key(itemId, null, footprint));
+    }
+
+    /**
+     * Stores extracted local geometry of representation item. Arbitrary items are dropped if cache is full.
+     *
+     * @param itemId    entity id of IfcRepresentationItem
+     * @param footprint footprint of faceted brep or face set, null if all faces are kept
+     * @param geometry  geometry in coordinates of representation, empty if not supported
+     */
+    public void putItemGeometry(int itemId, BrepFootprint footprint, PolygonGeometry geometry) {
+        put(itemGeometries, new Key(itemId, null, footprint), geometry);
+    }
+
+    private PolygonGeometry get(Map<Key, PolygonGeometry> geometries, Key key) {
+        PolygonGeometry geometry = geometries.get(key);
+        if (geometry != null) hits.increment();
+        else misses.increment();
+        return geometry;
+    }
+
+    private void put(Map<Key, PolygonGeometry> geometries, Key key, PolygonGeometry geometry) {
+        if (maxItems <= 0) return;
+        geometries.put(key, geometry);
+        if (geometries.size() <= maxItems) return;
+
+        // no recency is tracked, so lookups stay free of locks. A quarter of the cache is dropped at once to
+        // keep eviction rare.
+        int retained = maxItems - maxItems / 4;
+        Iterator<Key> keys = geometries.keySet().iterator();
+        while (geometries.size() > retained && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * @return number of shape and item lookups answered from cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of shape and item lookups which required extraction
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of cached representation maps
+     */
+    public int size() {
+        return mappedGeometries.size();
+    }
+
+    /**
+     * @return number of cached product shapes
+     */
+    public int shapeCount() {
+        return shapeGeometries.size();
+    }
+
+    /**
+     * @return number of cached representation items
+     */
+    public int itemCount() {
+        return itemGeometries.size();
+    }
+
+    /**
+     * Key of cached geometry, the footprint is part of the key as the cut plane differs between products
+     */
+    private static final class Key {
+
+        private final int id;
+        private final BIMtoOSMUtility.GeometrySolution solution;
+        private final BrepFootprint.Mode mode;
+        private final double cutElevation;
+
+        private Key(int id, BIMtoOSMUtility.GeometrySolution solution, BrepFootprint footprint) {
+            this.id = id;
+            this.solution = solution;
+            mode = footprint != null ? footprint.getMode() : BrepFootprint.Mode.FACES;
+            cutElevation = mode == BrepFootprint.Mode.CUT_PLANE ? footprint.getCutElevation() : 0.0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return id == key.id && solution == key.solution && mode == key.mode
+                    && Double.compare(cutElevation, key.cutElevation) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, solution, mode, cutElevation);
+        }
+    }
+}
@@ -1,25 +1,28 @@
 // License: AGPL. For details, see LICENSE file.
 package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
 
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentation;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcModel;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentationCatalog.*;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.CoordinateBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.PolygonClipper;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
 import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
-import nl.tue.buildingsmart.express.population.EntityInstance;
-import nl.tue.buildingsmart.express.population.ModelPopulation;
 import org.openstreetmap.josm.tools.Logging;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.prepareDoubleString;
+import static org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ParserUtility.toVector3D;
 
 /**
  * Class providing methods to extract OSM data from BIM data
  */
 public class IfcGeometryExtractor {
 
-    public static final Vector3D defaultPoint = new Vector3D(-99.0, -99.0, -99.0);
-
     /**
      * Three boolean operators used in definition of CSG solids.
      */
@@ -33,20 +36,36 @@ public class IfcGeometryExtractor {
      * Extract representation data from IfcRepresentationItem body
      *
      * @param ifcModel           ifc Model
+     * @param geometries         geometry extracted during import
      * @param bodyRepresentation representation of body
-     * @return List of points representing object shape or null if object type not supported
+     * @return shape of object or null if object type not supported
      */
-    public static List<Vector3D> getDataFromBodyRepresentation(ModelPopulation ifcModel, IfcRepresentation bodyRepresentation) {
-        ArrayList<Vector3D> shapeRep = new ArrayList<>();
+    public static PolygonGeometry getDataFromBodyRepresentation(IfcModel ifcModel, GeometryCache geometries, IfcRepresentation bodyRepresentation) {
+        return getDataFromBodyRepresentation(ifcModel, geometries, bodyRepresentation, null);
+    }
+
+    /**
+     * Extract representation data from IfcRepresentationItem body. Faceted breps and tessellated face sets are
+     * reduced to their footprint if param footprint is set.
+     *
+     * @param ifcModel           ifc Model
+     * @param geometries         geometry extracted during import
+     * @param bodyRepresentation representation of body
+     * @param footprint          footprint of faceted breps and face sets in coordinates of representation, null to keep all faces
+     * @return shape of object or null if object type not supported
+     */
+    public static PolygonGeometry getDataFromBodyRepresentation(IfcModel ifcModel, GeometryCache geometries, IfcRepresentation bodyRepresentation,
+                                                                BrepFootprint footprint) {
+        PolygonGeometry shapeRep = new PolygonGeometry();
 
         // get IfcObject and RepresentationIdentifier
-        EntityInstance repObject = bodyRepresentation.getEntity();
+        IfcEntity repObject = bodyRepresentation.getEntity();
 
         // get IfcRepresentationItems
-        ArrayList<EntityInstance> bodyItems = repObject.getAttributeValueBNasEntityInstanceList("Items");
+        List<IfcEntity> bodyItems = repObject.getAttributeValueBNasEntityInstanceList("Items");
 
         // extract information from IfcRepresentationItems
-        for (EntityInstance item : bodyItems) {
+        for (IfcEntity item : bodyItems) {
             // get type of item
             String repItemType = IfcObjectIdentifier.getRepresentationItemType(ifcModel, bodyRepresentation, item);
             if (repItemType == null) return null;
@@ -62,29 +81,12 @@ public class IfcGeometryExtractor {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
             } else if (repItemType.equals(BrepRepresentationTypeItems.IfcFacetedBrep.name())) {
-                ArrayList<Vector3D> shapeData = getIfcFacetedBrepGeometry(ifcModel, item);
-                // check if entity includes(floor-)openings and handle them
-                // shapeDataWithOpeningHandling will be null, if no openings exists or type of opening not supported
-                ArrayList<Vector3D> shapeDataWithOpeningHandling = handleOpenings(ifcModel, shapeData, bodyRepresentation.getRootEntity());
-                if (shapeDataWithOpeningHandling != null) shapeRep.addAll(shapeDataWithOpeningHandling);
-                else if (shapeData != null) shapeRep.addAll(shapeData);
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, footprint);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, footprint == null, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(CSGRepresentationTypeItems.IfcBooleanResult.name())) {
-                Object operatorObject = item.getAttributeValueBN("Operator");
-                if (operatorObject == null) return null;
-                String operator = operatorObject.toString();
-                ArrayList<Vector3D> shapeData = null;
-                if (operator.equals("." + IfcBooleanOperator.DIFFERENCE + ".")) {
-                    shapeData = getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.DIFFERENCE);
-                } else if (operator.equals("." + IfcBooleanOperator.INTERSECTION + ".")) {
-                    shapeData = getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.INTERSECTION);
-                } else if (operator.equals("." + IfcBooleanOperator.UNION + ".")) {
-                    shapeData = getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.UNION);
-                }
-                // check if entity includes(floor-)openings and handle them
-                // shapeDataWithOpeningHandling will be null, if no openings exists or type of opening not supported
-                ArrayList<Vector3D> shapeDataWithOpeningHandling = handleOpenings(ifcModel, shapeData, bodyRepresentation.getRootEntity());
-                if (shapeDataWithOpeningHandling != null) shapeRep.addAll(shapeDataWithOpeningHandling);
-                else if (shapeData != null) shapeRep.addAll(shapeData);
+                if (item.getAttributeValueBN("Operator") == null) return null;
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, null);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, false, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(CSGRepresentationTypeItems.IfcCsgSolid.name())) {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
@@ -92,18 +94,15 @@ public class IfcGeometryExtractor {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
             } else if (repItemType.equals(TessellationRepresentationTypeItems.IfcTessellatedFaceSet.name())) {
-                // TODO extract data
-                logUnsupportedRepresentationInfo(repItemType);
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, footprint);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, footprint == null, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(ClippingRepresentationTypeItems.IfcBooleanClippingResult.name())) {
-                ArrayList<Vector3D> shapeData = getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.DIFFERENCE);
-                // check if entity includes(floor-)openings and handle them
-                // shapeDataWithOpeningHandling will be null, if no openings exists or type of opening not supported
-                ArrayList<Vector3D> shapeDataWithOpeningHandling = handleOpenings(ifcModel, shapeData, bodyRepresentation.getRootEntity());
-                if (shapeDataWithOpeningHandling != null) shapeRep.addAll(shapeDataWithOpeningHandling);
-                else if (shapeData != null) shapeRep.addAll(shapeData);
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, null);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, false, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(SurfaceModelRepresentationTypeItems.IfcTessellatedItem.name())) {
-                // TODO extract data
-                logUnsupportedRepresentationInfo(repItemType);
+                // face sets are the only tessellated items placed in representations
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, footprint);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, footprint == null, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(SurfaceModelRepresentationTypeItems.IfcShellBasedSurfaceModel.name())) {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
@@ -111,18 +110,14 @@ public class IfcGeometryExtractor {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
             } else if (repItemType.equals(SweptSolidRepresentationTypeItems.IfcExtrudedAreaSolid.name())) {
-                ArrayList<Vector3D> shapeData = getIfcExtrudedAreaSolidGeometry(ifcModel, item);
-                // check if entity includes(floor-)openings and handle them
-                // shapeDataWithOpeningHandling will be null, if no openings exists or type of opening not supported
-                ArrayList<Vector3D> shapeDataWithOpeningHandling = handleOpenings(ifcModel, shapeData, bodyRepresentation.getRootEntity());
-                if (shapeDataWithOpeningHandling != null) shapeRep.addAll(shapeDataWithOpeningHandling);
-                else if (shapeData != null) shapeRep.addAll(shapeData);
+                PolygonGeometry shapeData = getItemGeometry(ifcModel, geometries, item, repItemType, null);
+                addShapeWithOpenings(ifcModel, geometries, shapeRep, shapeData, false, bodyRepresentation.getRootEntity());
             } else if (repItemType.equals(SweptSolidRepresentationTypeItems.IfcRevolvedAreaSolid.name())) {
                 // TODO extract data
                 logUnsupportedRepresentationInfo(repItemType);
             } else if (repItemType.equals(MappedRepresentationTypeItems.IfcMappedItem.name())) {
-                // TODO extract data
-                logUnsupportedRepresentationInfo(repItemType);
+                PolygonGeometry shapeData = getIfcMappedItemGeometry(ifcModel, geometries, item, footprint);
+                if (shapeData != null) shapeRep.addAll(shapeData);
             } else {
                 logUnsupportedRepresentationInfo(repItemType);
             }
@@ -136,38 +131,38 @@ public class IfcGeometryExtractor {
      *
      * @param ifcModel          ifc Model
      * @param boxRepresentation representation of box
-     * @return List of points representing object shape or null if object type not supported
+     * @return shape of object or null if object type not supported
      */
-    public static List<Vector3D> getDataFromBoxRepresentation(ModelPopulation ifcModel, IfcRepresentation boxRepresentation) {
-        ArrayList<Vector3D> shapeRep = new ArrayList<>();
+    public static PolygonGeometry getDataFromBoxRepresentation(IfcModel ifcModel, IfcRepresentation boxRepresentation) {
+        PolygonGeometry shapeRep = new PolygonGeometry();
 
         // get IfcObject and RepresentationIdentifier
-        EntityInstance repObject = boxRepresentation.getEntity();
+        IfcEntity repObject = boxRepresentation.getEntity();
 
         // get IfcRepresentationItems
-        ArrayList<EntityInstance> boxItems = repObject.getAttributeValueBNasEntityInstanceList("Items");
+        List<IfcEntity> boxItems = repObject.getAttributeValueBNasEntityInstanceList("Items");
 
         // extract information from IfcRepresentationItems
-        for (EntityInstance item : boxItems) {
+        for (IfcEntity item : boxItems) {
             // get type of IfcRepresentationItem
             String repItemType = IfcObjectIdentifier.getRepresentationItemType(ifcModel, boxRepresentation, item);
             if (repItemType == null) return null;
 
             if (repItemType.equals(BoundingBoxRepresentationTypeItems.IfcBoundingBox.name())) {
                 // get cartesian point of bounding box
-                EntityInstance cartesianCorner = item.getAttributeValueBNasEntityInstance("Corner");
+                IfcEntity cartesianCorner = item.getAttributeValueBNasEntityInstance("Corner");
                 Vector3D cPointAsVector3D = ifcCoordinatesToVector3D(cartesianCorner);
                 if (cPointAsVector3D == null) return null;
-                double xDim = prepareDoubleString((String) item.getAttributeValueBN("XDim"));
-                double yDim = prepareDoubleString((String) item.getAttributeValueBN("YDim"));
+                double xDim = item.getAttributeValueBNasDouble("XDim");
+                double yDim = item.getAttributeValueBNasDouble("YDim");
                 // get points of shape
-                ArrayList<Vector3D> cartesianPointsOfBB = new ArrayList<>();
-                cartesianPointsOfBB.add(new Vector3D(cPointAsVector3D.getX(), cPointAsVector3D.getY(), cPointAsVector3D.getZ()));
-                cartesianPointsOfBB.add(new Vector3D(cPointAsVector3D.getX() + xDim, cPointAsVector3D.getY(), cPointAsVector3D.getZ()));
-                cartesianPointsOfBB.add(new Vector3D(cPointAsVector3D.getX() + xDim, cPointAsVector3D.getY() + yDim, cPointAsVector3D.getZ()));
-                cartesianPointsOfBB.add(new Vector3D(cPointAsVector3D.getX(), cPointAsVector3D.getY() + yDim, cPointAsVector3D.getZ()));
-                cartesianPointsOfBB.add(new Vector3D(cPointAsVector3D.getX(), cPointAsVector3D.getY(), cPointAsVector3D.getZ()));
-                shapeRep.addAll(cartesianPointsOfBB);
+                CoordinateBuffer cartesianPointsOfBB = new CoordinateBuffer(5);
+                cartesianPointsOfBB.add(cPointAsVector3D.getX(), cPointAsVector3D.getY(), cPointAsVector3D.getZ());
+                cartesianPointsOfBB.add(cPointAsVector3D.getX() + xDim, cPointAsVector3D.getY(), cPointAsVector3D.getZ());
+                cartesianPointsOfBB.add(cPointAsVector3D.getX() + xDim, cPointAsVector3D.getY() + yDim, cPointAsVector3D.getZ());
+                cartesianPointsOfBB.add(cPointAsVector3D.getX(), cPointAsVector3D.getY() + yDim, cPointAsVector3D.getZ());
+                cartesianPointsOfBB.add(cPointAsVector3D.getX(), cPointAsVector3D.getY(), cPointAsVector3D.getZ());
+                shapeRep.addPart(PolygonGeometry.PartType.OUTER_RING, cartesianPointsOfBB);
             } else {
                 logUnsupportedRepresentationInfo(repItemType);
             }
@@ -181,45 +176,190 @@ public class IfcGeometryExtractor {
      *
      * @param ifcModel     ifc model
      * @param faceBrepItem to get shape representation coordinates for
-     * @return points representing shape of IfcFacetedBrep
+     * @return loops of faces of IfcFacetedBrep
      */
-    private static ArrayList<Vector3D> getIfcFacetedBrepGeometry(ModelPopulation ifcModel, EntityInstance faceBrepItem) {
+    private static PolygonGeometry getIfcFacetedBrepGeometry(IfcModel ifcModel, IfcEntity faceBrepItem) {
         // get IfcClosedShell stored in IfcFacetedBrep.Outer
-        EntityInstance closedShell = faceBrepItem.getAttributeValueBNasEntityInstance("Outer");
+        IfcEntity closedShell = faceBrepItem.getAttributeValueBNasEntityInstance("Outer");
         return getIfcClosedShellGeometry(ifcModel, closedShell);
     }
 
+    /**
+     * Method extracts footprint of IfcFacetedBrep object
+     *
+     * @param ifcModel     ifc model
+     * @param faceBrepItem to get footprint for
+     * @param footprint    type of footprint
+     * @return footprint of IfcFacetedBrep or null if not supported
+     */
+    private static PolygonGeometry getIfcFacetedBrepFootprint(IfcModel ifcModel, IfcEntity faceBrepItem, BrepFootprint footprint) {
+        List<List<CoordinateBuffer>> faces = getIfcClosedShellFaces(ifcModel, faceBrepItem.getAttributeValueBNasEntityInstance("Outer"));
+        return faces != null ? PolygonGeometry.ofRings(footprint.getFootprint(toFaceLists(faces))) : null;
+    }
+
     /**
      * Method extracts shape representation coordinates from IfcClosedShell object
      *
      * @param ifcModel  ifc model
      * @param shellItem to get shape representation coordinates for
-     * @return points representing shape of IfcClosedShell
+     * @return loops of faces of IfcClosedShell, first bound of each face as outer ring and other bounds as inner rings
+     */
+    private static PolygonGeometry getIfcClosedShellGeometry(IfcModel ifcModel, IfcEntity shellItem) {
+        List<List<CoordinateBuffer>> faces = getIfcClosedShellFaces(ifcModel, shellItem);
+        if (faces == null) return null;
+
+        // collect points of IfcLoops
+        PolygonGeometry shapePoints = new PolygonGeometry(16 * faces.size(), 4 * faces.size());
+        for (List<CoordinateBuffer> face : faces) {
+            for (int i = 0; i < face.size(); i++) {
+                shapePoints.addPart(i == 0 ? PolygonGeometry.PartType.OUTER_RING : PolygonGeometry.PartType.INNER_RING, face.get(i));
+            }
+        }
+
+        return shapePoints;
+    }
+
+    /**
+     * Method extracts faces of IfcClosedShell object
+     *
+     * @param ifcModel  ifc model
+     * @param shellItem to get faces for
+     * @return faces of IfcClosedShell, each holding points of its bounds, or null if a loop is not supported
      */
-    private static ArrayList<Vector3D> getIfcClosedShellGeometry(ModelPopulation ifcModel, EntityInstance shellItem) {
+    private static List<List<CoordinateBuffer>> getIfcClosedShellFaces(IfcModel ifcModel, IfcEntity shellItem) {
         // get IfcFaces of IfcClosedShell
-        ArrayList<EntityInstance> facesOfClosedShell = shellItem.getAttributeValueBNasEntityInstanceList("CfsFaces");
+        List<IfcEntity> facesOfClosedShell = shellItem.getAttributeValueBNasEntityInstanceList("CfsFaces");
+
+        List<List<CoordinateBuffer>> faces = new ArrayList<>(facesOfClosedShell.size());
+        for (IfcEntity face : facesOfClosedShell) {
+            // get IfcLoop of every IfcFaceBound
+            List<CoordinateBuffer> bounds = new ArrayList<>();
+            for (IfcEntity bound : face.getAttributeValueBNasEntityInstanceList("Bounds")) {
+                // IfcFaceBound.Bound is a single loop
+                IfcEntity loop = bound.getAttributeValueBNasEntityInstance("Bound");
+                CoordinateBuffer pointsOfLoop = loop != null ? getIfcLoopGeometry(ifcModel, loop) : null;
+                if (pointsOfLoop == null) return null;
+                bounds.add(pointsOfLoop);
+            }
+            faces.add(bounds);
+        }
+        return faces;
+    }
+
+    /**
+     * Converts faces into lists of points as taken by {@link BrepFootprint}
+     *
+     * @param faces each holding points of its bounds
+     * @return faces each holding new vectors of its bounds
+     */
+    private static List<List<List<Vector3D>>> toFaceLists(List<List<CoordinateBuffer>> faces) {
+        List<List<List<Vector3D>>> faceLists = new ArrayList<>(faces.size());
+        for (List<CoordinateBuffer> face : faces) {
+            List<List<Vector3D>> bounds = new ArrayList<>(face.size());
+            face.forEach(bound -> bounds.add(bound.toList()));
+            faceLists.add(bounds);
+        }
+        return faceLists;
+    }
 
-        // get IfcFaceBounds of every IfcFace
-        ArrayList<EntityInstance> faceBoundsOfClosedShell = new ArrayList<>();
-        facesOfClosedShell.forEach(face -> faceBoundsOfClosedShell.addAll(face.getAttributeValueBNasEntityInstanceList("Bounds")));
+    /**
+     * Method extracts faces of IfcTriangulatedFaceSet or IfcPolygonalFaceSet object. Coordinates of
+     * IfcCartesianPointList3D and the index lists of faces are read as arrays, points are resolved through
+     * the optional PnIndex.
+     *
+     * @param faceSetItem to get faces for
+     * @return faces of face set, each an outer ring followed by its inner rings, or null if face set is invalid
+     */
+    private static PolygonGeometry getIfcTessellatedFaceSetGeometry(IfcEntity faceSetItem) {
+        IfcEntity pointList = faceSetItem.getAttributeValueBNasEntityInstance("Coordinates");
+        List<double[]> coordList = pointList != null ? pointList.getAttributeValueBNasDoubleArrayList("CoordList") : null;
+        if (coordList == null) return null;
+
+        CoordinateBuffer points = new CoordinateBuffer(coordList.size());
+        for (double[] coordinates : coordList) {
+            if (coordinates.length < 3) return null;
+            points.add(coordinates[0], coordinates[1], coordinates[2]);
+        }
+        // face indices refer to points directly if PnIndex is not set
+        int[] pnIndex = faceSetItem.getAttributeValueBNasIntArray("PnIndex");
+
+        // IfcTriangulatedFaceSet.CoordIndex lists three indices per triangle
+        List<int[]> triangles = faceSetItem.getAttributeValueBNasIntArrayList("CoordIndex");
+        if (triangles != null) {
+            PolygonGeometry geometry = new PolygonGeometry(3 * triangles.size(), triangles.size());
+            for (int[] triangle : triangles) {
+                int[] indices = toPointIndices(triangle, pnIndex, points.size());
+                if (indices == null) return logInvalidFaceSet(faceSetItem);
+                geometry.addPart(PolygonGeometry.PartType.OUTER_RING, points, indices);
+            }
+            return geometry;
+        }
 
-        // get IfcLoop of every IfcFaceBounds
-        ArrayList<EntityInstance> loopsOfClosedShell = new ArrayList<>();
-        faceBoundsOfClosedShell.forEach(bound -> loopsOfClosedShell.addAll(bound.getAttributeValueBNasEntityInstanceList("Bound")));
+        // IfcPolygonalFaceSet.Faces are IfcIndexedPolygonalFace with optional InnerCoordIndices
+        List<IfcEntity> polygonalFaces = faceSetItem.getAttributeValueBNasEntityInstanceList("Faces");
+        if (polygonalFaces.isEmpty()) return null;
+        PolygonGeometry geometry = new PolygonGeometry(4 * polygonalFaces.size(), polygonalFaces.size());
+        for (IfcEntity face : polygonalFaces) {
+            int[] outer = toPointIndices(face.getAttributeValueBNasIntArray("CoordIndex"), pnIndex, points.size());
+            if (outer == null) return logInvalidFaceSet(faceSetItem);
+            geometry.addPart(PolygonGeometry.PartType.OUTER_RING, points, outer);
+            List<int[]> innerBounds = face.getAttributeValueBNasIntArrayList("InnerCoordIndices");
+            if (innerBounds == null) continue;
+            for (int[] innerBound : innerBounds) {
+                int[] inner = toPointIndices(innerBound, pnIndex, points.size());
+                if (inner == null) return logInvalidFaceSet(faceSetItem);
+                geometry.addPart(PolygonGeometry.PartType.INNER_RING, points, inner);
+            }
+        }
+        return geometry;
+    }
 
-        // collect points of IfcLoops
-        ArrayList<Vector3D> shapePoints = new ArrayList<>();
-        for (EntityInstance loop : loopsOfClosedShell) {
-            ArrayList<Vector3D> pointsOfLoop = getIfcLoopGeometry(ifcModel, loop);
-            if (pointsOfLoop == null) return null;
-            // workaround: Add points of each loop to shapePoints. Also add a default point after each loop as separator
-            // (needed later on for rendering)
-            shapePoints.addAll(pointsOfLoop);
-            shapePoints.add(defaultPoint);
+    /**
+     * Converts one-based indices of a face into indices of points
+     *
+     * @param coordIndex one-based indices into pnIndex or into points if pnIndex is null
+     * @param pnIndex    one-based indices into points, may be null
+     * @param pointCount number of points
+     * @return zero-based indices into points or null if an index is out of range
+     */
+    private static int[] toPointIndices(int[] coordIndex, int[] pnIndex, int pointCount) {
+        if (coordIndex == null) return null;
+        int[] indices = new int[coordIndex.length];
+        for (int i = 0; i < indices.length; i++) {
+            int index = coordIndex[i];
+            if (pnIndex != null) {
+                if (index < 1 || index > pnIndex.length) return null;
+                index = pnIndex[index - 1];
+            }
+            if (index < 1 || index > pointCount) return null;
+            indices[i] = index - 1;
         }
+        return indices;
+    }
 
-        return shapePoints;
+    private static PolygonGeometry logInvalidFaceSet(IfcEntity faceSetItem) {
+        Logging.warn(IfcGeometryExtractor.class.getName() + ": invalid point index in #" + faceSetItem.getId());
+        return null;
+    }
+
+    /**
+     * Groups rings of face geometry into faces as taken by {@link BrepFootprint}
+     *
+     * @param faces geometry holding outer ring of each face followed by its inner rings
+     * @return faces each holding new vectors of its bounds
+     */
+    private static List<List<List<Vector3D>>> toFaceLists(PolygonGeometry faces) {
+        List<List<List<Vector3D>>> faceLists = new ArrayList<>();
+        for (int i = 0; i < faces.getPartCount(); i++) {
+            PolygonGeometry.PartType type = faces.getPartType(i);
+            if (type == PolygonGeometry.PartType.OUTER_RING) {
+                faceLists.add(new ArrayList<>(1));
+            } else if (type != PolygonGeometry.PartType.INNER_RING || faceLists.isEmpty()) {
+                continue;
+            }
+            faceLists.get(faceLists.size() - 1).add(faces.getPart(i));
+        }
+        return faceLists;
     }
 
     /**
@@ -229,15 +369,16 @@ public class IfcGeometryExtractor {
      * @param loop     to get shape representation coordinates for
      * @return points representing shape of IfcLoop
      */
-    private static ArrayList<Vector3D> getIfcLoopGeometry(ModelPopulation ifcModel, EntityInstance loop) {
+    private static CoordinateBuffer getIfcLoopGeometry(IfcModel ifcModel, IfcEntity loop) {
         // get loop type
         String loopType = IfcObjectIdentifier.getIFCLoopType(ifcModel, loop);
         if (loopType == null) return null;
 
         if (loopType.equals(LoopSubRepresentationTypeItems.IfcPolyLoop.name())) {
             // get all IfcCartesianPoints
-            ArrayList<Vector3D> cartesianPointsOfClosedShell = new ArrayList<>();
-            for (EntityInstance cPoint : loop.getAttributeValueBNasEntityInstanceList("Polygon")) {
+            List<IfcEntity> polygon = loop.getAttributeValueBNasEntityInstanceList("Polygon");
+            CoordinateBuffer cartesianPointsOfClosedShell = new CoordinateBuffer(polygon.size());
+            for (IfcEntity cPoint : polygon) {
                 Vector3D cPointAsVector3D = ifcCoordinatesToVector3D(cPoint);
                 if (cPointAsVector3D == null) return null;
                 cartesianPointsOfClosedShell.add(cPointAsVector3D);
@@ -257,20 +398,20 @@ public class IfcGeometryExtractor {
      * @param curve    to get shape representation coordinates for
      * @return points representing shape of IfcCurve
      */
-    private static ArrayList<Vector3D> getIfcCurveGeometry(ModelPopulation ifcModel, EntityInstance curve) {
+    private static CoordinateBuffer getIfcCurveGeometry(IfcModel ifcModel, IfcEntity curve) {
         if (IfcObjectIdentifier.isIfcPolyline(ifcModel, curve)) {
             return getIfcPolylineGeometry(curve);
         } else if (IfcObjectIdentifier.isIfcCompositeCurve(ifcModel, curve)) {
             return getIfcCompositeCurveGeometry(ifcModel, curve);
         } else if (IfcObjectIdentifier.isIfcTrimmedCurve(ifcModel, curve)) {
             // TODO implement proper; handle trim of basis curve
-            EntityInstance basisCurve = curve.getAttributeValueBNasEntityInstance("BasisCurve");
+            IfcEntity basisCurve = curve.getAttributeValueBNasEntityInstance("BasisCurve");
             if (basisCurve == null) return null;
             return getIfcCurveGeometry(ifcModel, basisCurve);
         } else if (IfcObjectIdentifier.isIfcCircle(ifcModel, curve)) {
             // TODO implement
             logUnsupportedRepresentationInfo(IfcObjectIdentifier.getIfcCurveType(ifcModel, curve));
-            return new ArrayList<>();
+            return new CoordinateBuffer(1);
         } else {
             logUnsupportedRepresentationInfo(IfcObjectIdentifier.getIfcCurveType(ifcModel, curve));
         }
@@ -283,13 +424,13 @@ public class IfcGeometryExtractor {
      * @param polyline o get coordinates from
      * @return coordinates of polyline (local)
      */
-    private static ArrayList<Vector3D> getIfcPolylineGeometry(EntityInstance polyline) {
-        ArrayList<EntityInstance> points = polyline.getAttributeValueBNasEntityInstanceList("Points");
-        ArrayList<Vector3D> cartesianPointsOfSArea = new ArrayList<>();
+    private static CoordinateBuffer getIfcPolylineGeometry(IfcEntity polyline) {
+        List<IfcEntity> points = polyline.getAttributeValueBNasEntityInstanceList("Points");
+        CoordinateBuffer cartesianPointsOfSArea = new CoordinateBuffer(points.size());
         points.forEach(point -> {
             Vector3D pointAsVector3D = ifcCoordinatesToVector3D(point);
             assert pointAsVector3D != null;
-            cartesianPointsOfSArea.add(new Vector3D(pointAsVector3D.getX(), pointAsVector3D.getY(), 0.0));
+            cartesianPointsOfSArea.add(pointAsVector3D.getX(), pointAsVector3D.getY(), 0.0);
         });
         return cartesianPointsOfSArea;
     }
@@ -301,12 +442,12 @@ public class IfcGeometryExtractor {
      * @param curveSegment to get coordinates from
      * @return Extracts coordinate data from IfcCompositeCurve
      */
-    private static ArrayList<Vector3D> getIfcCompositeCurveGeometry(ModelPopulation ifcModel, EntityInstance curveSegment) {
-        ArrayList<Vector3D> shapeData = new ArrayList<>();
-        ArrayList<EntityInstance> curveSegments = curveSegment.getAttributeValueBNasEntityInstanceList("Segments");
-        for (EntityInstance segment : curveSegments) {
-            EntityInstance parentCurve = segment.getAttributeValueBNasEntityInstance("ParentCurve");
-            ArrayList<Vector3D> parentCurveShape = getIfcCurveGeometry(ifcModel, parentCurve);
+    private static CoordinateBuffer getIfcCompositeCurveGeometry(IfcModel ifcModel, IfcEntity curveSegment) {
+        CoordinateBuffer shapeData = new CoordinateBuffer();
+        List<IfcEntity> curveSegments = curveSegment.getAttributeValueBNasEntityInstanceList("Segments");
+        for (IfcEntity segment : curveSegments) {
+            IfcEntity parentCurve = segment.getAttributeValueBNasEntityInstance("ParentCurve");
+            CoordinateBuffer parentCurveShape = getIfcCurveGeometry(ifcModel, parentCurve);
             if (parentCurveShape == null)
                 return null;   // if one element null, return null to void wrong mapped elements
             shapeData.addAll(parentCurveShape);
@@ -317,47 +458,33 @@ public class IfcGeometryExtractor {
 
     /**
      * Extracts coordinate data from IfcBooleanResult. If IfcBooleanResult holds operands of type IfcBooleanResult it will
-     * recursive run thru every operation.
+     * recursive run thru every operation. Operands are projected to the xy-plane and combined by {@link PolygonClipper}.
      *
      * @param ifcModel     ifc model
      * @param resultEntity to get coordinates from
      * @param operator     IfcBooleanOperator
-     * @return Extracts coordinate data from IfcBooleanResult
+     * @return rings of resulting polygon
      */
-    private static ArrayList<Vector3D> getIfcBooleanResultGeometry(ModelPopulation ifcModel, EntityInstance resultEntity, IfcBooleanOperator operator) {
+    private static List<List<Vector3D>> getIfcBooleanResultGeometry(IfcModel ifcModel, IfcEntity resultEntity, IfcBooleanOperator operator) {
         // get and identify both operands
-        EntityInstance operand1 = resultEntity.getAttributeValueBNasEntityInstance("FirstOperand");
-        EntityInstance operand2 = resultEntity.getAttributeValueBNasEntityInstance("SecondOperand");
+        IfcEntity operand1 = resultEntity.getAttributeValueBNasEntityInstance("FirstOperand");
+        IfcEntity operand2 = resultEntity.getAttributeValueBNasEntityInstance("SecondOperand");
 
         // extract shape data from operands
-        ArrayList<Vector3D> pointsOfOperand1 = getBooleanOperandGeometry(ifcModel, operand1);
-        ArrayList<Vector3D> pointsOfOperand2 = getBooleanOperandGeometry(ifcModel, operand2);
+        List<List<Vector3D>> ringsOfOperand1 = getBooleanOperandGeometry(ifcModel, operand1);
+        List<List<Vector3D>> ringsOfOperand2 = getBooleanOperandGeometry(ifcModel, operand2);
 
-        if (pointsOfOperand1 == null || pointsOfOperand2 == null) return pointsOfOperand1;
+        if (ringsOfOperand1 == null || ringsOfOperand2 == null) return ringsOfOperand1;
 
         // do operation
-        if (operator.equals(IfcBooleanOperator.DIFFERENCE)) {
-            ArrayList<Vector3D> pointsOfOperand1Copy = new ArrayList<>(pointsOfOperand1);
-            for (Vector3D point1 : pointsOfOperand1) {
-                for (Vector3D point2 : pointsOfOperand2) {
-                    if (point1.equalsVector(point2)) {
-                        pointsOfOperand1Copy.remove(point1);
-                    }
-                }
-            }
-            return pointsOfOperand1Copy;
-        }
-        if (operator.equals(IfcBooleanOperator.INTERSECTION)) {
-            // TODO implement
-            logUnsupportedRepresentationInfo(operator.name());
+        switch (operator) {
+            case DIFFERENCE:
+                return PolygonClipper.clip(ringsOfOperand1, ringsOfOperand2, PolygonClipper.Operation.DIFFERENCE);
+            case INTERSECTION:
+                return PolygonClipper.clip(ringsOfOperand1, ringsOfOperand2, PolygonClipper.Operation.INTERSECTION);
+            default:
+                return PolygonClipper.clip(ringsOfOperand1, ringsOfOperand2, PolygonClipper.Operation.UNION);
         }
-        if (operator.equals(IfcBooleanOperator.UNION)) {
-            // TODO implement
-            logUnsupportedRepresentationInfo(operator.name());
-        }
-
-        logUnsupportedRepresentationInfo(operator.name());
-        return null;
     }
 
     /**
@@ -366,9 +493,9 @@ public class IfcGeometryExtractor {
      *
      * @param ifcModel ifc model
      * @param operand  to get shape data from
-     * @return points representing shape of operand
+     * @return rings of polygon representing shape of operand
      */
-    private static ArrayList<Vector3D> getBooleanOperandGeometry(ModelPopulation ifcModel, EntityInstance operand) {
+    private static List<List<Vector3D>> getBooleanOperandGeometry(IfcModel ifcModel, IfcEntity operand) {
         String operandType = IfcObjectIdentifier.getIfcBooleanOperandType(ifcModel, operand);
 
         if (operandType == null) return null;
@@ -382,7 +509,7 @@ public class IfcGeometryExtractor {
             logUnsupportedRepresentationInfo(operandType);
         }
         if (operandType.equals(IfcBooleanOperandType.IfcPolygonalBoundedHalfSpace.name())) {
-            return getIfcPolygonalBoundedHalfSpaceGeometry(ifcModel, operand);
+            return toRings(getIfcPolygonalBoundedHalfSpaceGeometry(ifcModel, operand));
         }
         if (operandType.equals(IfcBooleanOperandType.IfcBooleanResult.name()) || operandType.equals(IfcBooleanOperandType.IfcBooleanClippingResult.name())) {
             String operand1Operator = (String) operand.getAttributeValueBN("Operator");
@@ -401,10 +528,12 @@ public class IfcGeometryExtractor {
             logUnsupportedRepresentationInfo(operandType);
         }
         if (operandType.equals(SweptSolidRepresentationTypeItems.IfcExtrudedAreaSolid.name())) {
-            return getIfcExtrudedAreaSolidGeometry(ifcModel, operand);
+            return toRings(getIfcExtrudedAreaSolidGeometry(ifcModel, operand));
         }
         if (operandType.equals(IfcBooleanOperandType.IfcFacetedBrep.name())) {
-            return getIfcFacetedBrepGeometry(ifcModel, operand);
+            // projected faces of the shell overlap, merge them into the covered area
+            List<List<CoordinateBuffer>> faces = getIfcClosedShellFaces(ifcModel, operand.getAttributeValueBNasEntityInstance("Outer"));
+            return faces != null ? BrepFootprint.projection().getFootprint(toFaceLists(faces)) : null;
         }
 
         // other types are not supported right now
@@ -415,30 +544,14 @@ public class IfcGeometryExtractor {
     /**
      * Method gets result shape data from IfcFeatureElementSubtraction operation
      *
-     * @param masterElement    of operation (RelatingBuildingElement)
-     * @param dependentElement of operation (RelatedOpeningElement)
+     * @param masterElement     rings of operation master (RelatingBuildingElement)
+     * @param dependentElements rings of operation dependents (RelatedOpeningElement), may overlap
      * @return result of IfcFeatureElementSubtraction
      */
-    private static ArrayList<Vector3D> getIfcFeatureElementSubtractionGeometry(ArrayList<Vector3D> masterElement, ArrayList<Vector3D> dependentElement) {
-        ArrayList<Vector3D> masterElementsCopy = new ArrayList<>(masterElement);
-        // remove all points from master which are in both lists
-        for (Vector3D masterPoint : masterElementsCopy) {
-            dependentElement.forEach(dependentPoint -> {
-                if (masterPoint.equalsVector(dependentPoint)) {
-                    masterElement.remove(masterPoint);
-                }
-            });
-        }
-        // add all points from dependent to master which are not already in master
-        // for workaround add default point
-        masterElement.add(defaultPoint);
-        dependentElement.forEach(dependentPoint -> {
-            if (!masterElement.contains(dependentPoint)) {
-                masterElement.add(dependentPoint);
-            }
-        });
-
-        return masterElement;
+    private static List<List<Vector3D>> getIfcFeatureElementSubtractionGeometry(List<List<Vector3D>> masterElement,
+                                                                                List<List<Vector3D>> dependentElements) {
+        return PolygonClipper.clip(masterElement, PolygonClipper.FillRule.EVEN_ODD,
+                dependentElements, PolygonClipper.FillRule.ANY_RING, PolygonClipper.Operation.DIFFERENCE);
     }
 
     /**
@@ -448,25 +561,22 @@ public class IfcGeometryExtractor {
      * @param polygon  object to get shape coordinates from
      * @return points representing shape of IfcPolygonalBoundedHalfSpace
      */
-    private static ArrayList<Vector3D> getIfcPolygonalBoundedHalfSpaceGeometry(ModelPopulation ifcModel, EntityInstance polygon) {
+    private static CoordinateBuffer getIfcPolygonalBoundedHalfSpaceGeometry(IfcModel ifcModel, IfcEntity polygon) {
         // TODO rotation to parent system necessary?
 
         // get local origin position
-        EntityInstance localSystemPosition = polygon.getAttributeValueBNasEntityInstance("Position");
-        EntityInstance locationPoint = localSystemPosition.getAttributeValueBNasEntityInstance("Location");
+        IfcEntity localSystemPosition = polygon.getAttributeValueBNasEntityInstance("Position");
+        IfcEntity locationPoint = localSystemPosition.getAttributeValueBNasEntityInstance("Location");
         Vector3D locationVector3D = ifcCoordinatesToVector3D(locationPoint);
         if (locationVector3D == null) return null;
 
         // get boundary
-        EntityInstance localPolygonBoundary = polygon.getAttributeValueBNasEntityInstance("PolygonalBoundary");
+        IfcEntity localPolygonBoundary = polygon.getAttributeValueBNasEntityInstance("PolygonalBoundary");
 
         // get coordinates of boundary
         if (localPolygonBoundary == null) return null;
-        ArrayList<Vector3D> pointsOfPolygonBoundary = getIfcCurveGeometry(ifcModel, localPolygonBoundary);
-        if (pointsOfPolygonBoundary != null) {
-            pointsOfPolygonBoundary.forEach(point -> point = new Vector3D(locationVector3D.getX() + point.getX(), locationVector3D.getY() + point.getY(), 0.0));
-            return pointsOfPolygonBoundary;
-        }
+        CoordinateBuffer pointsOfPolygonBoundary = getIfcCurveGeometry(ifcModel, localPolygonBoundary);
+        if (pointsOfPolygonBoundary != null) return pointsOfPolygonBoundary;
 
         // other types are not supported right now
         logUnsupportedRepresentationInfo(IfcObjectIdentifier.getIfcCurveType(ifcModel, localPolygonBoundary));
@@ -480,45 +590,42 @@ public class IfcGeometryExtractor {
      * @param extrudedArea to get shape representation for
      * @return points representing shape of IfcExtrudedAreaSolid
      */
-    private static ArrayList<Vector3D> getIfcExtrudedAreaSolidGeometry(ModelPopulation ifcModel, EntityInstance extrudedArea) {
+    private static CoordinateBuffer getIfcExtrudedAreaSolidGeometry(IfcModel ifcModel, IfcEntity extrudedArea) {
         // get POSITION attribute and extract local object origin coordinates
-        EntityInstance axisPlacement = extrudedArea.getAttributeValueBNasEntityInstance("Position");
-        EntityInstance locationPoint = axisPlacement.getAttributeValueBNasEntityInstance("Location");
+        IfcEntity axisPlacement = extrudedArea.getAttributeValueBNasEntityInstance("Position");
+        IfcEntity locationPoint = axisPlacement.getAttributeValueBNasEntityInstance("Location");
         // object axis origin
         Vector3D locationVector3D = ifcCoordinatesToVector3D(locationPoint);
         if (locationVector3D == null) return null;
 
         // get IfcProfileDef attribute
-        EntityInstance profileDef = extrudedArea.getAttributeValueBNasEntityInstance("SweptArea");
+        IfcEntity profileDef = extrudedArea.getAttributeValueBNasEntityInstance("SweptArea");
         // handle different SweptArea types
         String sweptAreaType = IfcObjectIdentifier.getIFCProfileDefType(ifcModel, profileDef);
         if (sweptAreaType == null) return null;
 
         if (sweptAreaType.equals(ProfileDefRepresentationTypeItems.IfcRectangleProfileDef.name())) {
             // extract xDim, yDim
-            double xDim = prepareDoubleString((String) profileDef.getAttributeValueBN("XDim"));
-            double yDim = prepareDoubleString((String) profileDef.getAttributeValueBN("YDim"));
+            double xDim = profileDef.getAttributeValueBNasDouble("XDim");
+            double yDim = profileDef.getAttributeValueBNasDouble("YDim");
             double halfxDim = xDim / 2.0;
             double halfyDim = yDim / 2.0;
 
             // get points of shape
-            ArrayList<Vector3D> cartesianPointsOfSArea = new ArrayList<>();
-            cartesianPointsOfSArea.add(new Vector3D(locationVector3D.getX() - halfxDim, locationVector3D.getY() - halfyDim, 0.0));
-            cartesianPointsOfSArea.add(new Vector3D(locationVector3D.getX() + halfxDim, locationVector3D.getY() - halfyDim, 0.0));
-            cartesianPointsOfSArea.add(new Vector3D(locationVector3D.getX() + halfxDim, locationVector3D.getY() + halfyDim, 0.0));
-            cartesianPointsOfSArea.add(new Vector3D(locationVector3D.getX() - halfxDim, locationVector3D.getY() + halfyDim, 0.0));
-            cartesianPointsOfSArea.add(new Vector3D(locationVector3D.getX() - halfxDim, locationVector3D.getY() - halfyDim, 0.0));
+            CoordinateBuffer cartesianPointsOfSArea = new CoordinateBuffer(5);
+            cartesianPointsOfSArea.add(locationVector3D.getX() - halfxDim, locationVector3D.getY() - halfyDim, 0.0);
+            cartesianPointsOfSArea.add(locationVector3D.getX() + halfxDim, locationVector3D.getY() - halfyDim, 0.0);
+            cartesianPointsOfSArea.add(locationVector3D.getX() + halfxDim, locationVector3D.getY() + halfyDim, 0.0);
+            cartesianPointsOfSArea.add(locationVector3D.getX() - halfxDim, locationVector3D.getY() + halfyDim, 0.0);
+            cartesianPointsOfSArea.add(locationVector3D.getX() - halfxDim, locationVector3D.getY() - halfyDim, 0.0);
             return cartesianPointsOfSArea;
         }
         if (sweptAreaType.equals(ProfileDefRepresentationTypeItems.IfcArbitraryClosedProfileDef.name())) {
             String profileType = (String) profileDef.getAttributeValueBN("ProfileType");
 
             if (profileType.equals(".AREA.")) {
-                EntityInstance outerCurve = profileDef.getAttributeValueBNasEntityInstance("OuterCurve");
-                ArrayList<Vector3D> curvePoints = getIfcCurveGeometry(ifcModel, outerCurve);
-                if (curvePoints == null) return null;
-                curvePoints.forEach(point -> point = new Vector3D(locationVector3D.getX() + point.getX(), locationVector3D.getY() + point.getY(), 0.0));
-                return curvePoints;
+                IfcEntity outerCurve = profileDef.getAttributeValueBNasEntityInstance("OuterCurve");
+                return getIfcCurveGeometry(ifcModel, outerCurve);
             }
             if (profileType.equals(".CURVE.")) {
                 // TODO implement
@@ -531,60 +638,278 @@ public class IfcGeometryExtractor {
         return null;
     }
 
+    /**
+     * Adds shape of representation item to shape of product. Openings of the product are subtracted from
+     * the shape if supported.
+     *
+     * @param ifcModel   ifc model
+     * @param geometries geometry extracted during import
+     * @param shapeRep   shape of product to add to
+     * @param shapeData  shape of representation item, may be null
+     * @param shellFaces true if shape data holds face loops of a shell, which are merged first
+     * @param rootEntity product of representation
+     */
+    private static void addShapeWithOpenings(IfcModel ifcModel, GeometryCache geometries, PolygonGeometry shapeRep,
+                                             PolygonGeometry shapeData, boolean shellFaces, IfcEntity rootEntity) {
+        // shapeDataWithOpeningHandling will be null, if no openings exists or type of opening not supported
+        PolygonGeometry shapeDataWithOpeningHandling = handleOpenings(ifcModel, geometries, shapeData, shellFaces, rootEntity);
+        if (shapeDataWithOpeningHandling != null) shapeRep.addAll(shapeDataWithOpeningHandling);
+        else if (shapeData != null) shapeRep.addAll(shapeData);
+    }
+
+    /**
+     * Checks if openings are subtracted from the shape of product. Shapes of such products are not shared.
+     *
+     * @param ifcModel ifc model
+     * @param product  to check
+     * @return true if product has openings handled on extraction
+     */
+    static boolean hasOpenings(IfcModel ifcModel, IfcEntity product) {
+        // for now opening handling supported for IFCSLAB only
+        return IfcObjectIdentifier.isIfcSlab(ifcModel, product) && !ifcModel.getRelationshipIndex().getOpenings(product).isEmpty();
+    }
+
     /**
      * Helper method to handle (floor-)openings in entities.
-     * Adds opening coordinates to entity shape data. If no opening, returns null
+     * Subtracts bounding boxes of all openings from entity shape data. If no opening, returns null
      *
      * @param ifcModel                    ifc model
+     * @param geometries                  geometry extracted during import
      * @param shapeDataOfEntity           shape data of entity without opening handling
+     * @param shellFaces                  true if shape data holds face loops of a shell, which are merged first
      * @param rootEntityOfShapeDataEntity root entity of shape representation entity
      * @return shape data of entity with opening handling or null if no handling or no opening
      */
-    private static ArrayList<Vector3D> handleOpenings(ModelPopulation ifcModel, ArrayList<Vector3D> shapeDataOfEntity, EntityInstance rootEntityOfShapeDataEntity) {
-        if (shapeDataOfEntity == null) return null;
-        // for now opening handling supported for IFCSLAB only
-        if (!IfcObjectIdentifier.isIfcSlab(ifcModel, rootEntityOfShapeDataEntity)) return null;
-
-        // get relVoidsElement which describes the opening
-        EntityInstance relVoidsElement = IfcObjectIdentifier.getRelVoidsElementOfEntity(ifcModel, rootEntityOfShapeDataEntity);
-        if (relVoidsElement == null) return null;
+    private static PolygonGeometry handleOpenings(IfcModel ifcModel, GeometryCache geometries, PolygonGeometry shapeDataOfEntity,
+                                                  boolean shellFaces, IfcEntity rootEntityOfShapeDataEntity) {
+        if (shapeDataOfEntity == null || !hasOpenings(ifcModel, rootEntityOfShapeDataEntity)) return null;
+
+        // get elements which describe the openings
+        List<IfcEntity> openingElements = ifcModel.getRelationshipIndex().getOpenings(rootEntityOfShapeDataEntity);
+
+        IfcEntity placementOfEntity = rootEntityOfShapeDataEntity.getAttributeValueBNasEntityInstance("ObjectPlacement");
+        List<List<Vector3D>> openings = new ArrayList<>();
+        for (IfcEntity openingElement : openingElements) {
+            if (!IfcObjectIdentifier.isIfcOpeningElement(ifcModel, openingElement)) {
+                // IfcVoidingFeature as opening element is not supported right now
+                Logging.info(IfcGeometryExtractor.class.getName() + ": IfcVoidingFeature is not supported right now");
+                continue;
+            }
+            // get shape data of RelatedOpeningElement
+            BIMtoOSMUtility.GeometrySolution activeSolution = BIMtoOSMUtility.GeometrySolution.BOUNDING_BOX; // set for now
+            PolygonGeometry shapeDataOfRelatedOpeningElement = BIMtoOSMUtility.getShapeData(ifcModel, geometries, openingElement, activeSolution, null);
+            if (shapeDataOfRelatedOpeningElement == null || shapeDataOfRelatedOpeningElement.isEmpty()) continue;
+
+            // openings are usually placed relative to their building element
+            IfcEntity placementOfOpening = openingElement.getAttributeValueBNasEntityInstance("ObjectPlacement");
+            IfcEntity relativeTo = placementOfOpening != null ? placementOfOpening.getAttributeValueBNasEntityInstance("PlacementRelTo") : null;
+            if (relativeTo != null && placementOfEntity != null && relativeTo.getId() == placementOfEntity.getId()) {
+                BIMtoOSMUtility.transformPoints(shapeDataOfRelatedOpeningElement.getPoints(),
+                        BIMtoOSMUtility.getAxis2PlacementTransform(placementOfOpening.getAttributeValueBNasEntityInstance("RelativePlacement")));
+            }
+            openings.addAll(shapeDataOfRelatedOpeningElement.getRings());
+        }
+        if (openings.isEmpty()) return null;
 
-        // get element which describes the opening
-        EntityInstance openingElement = relVoidsElement.getAttributeValueBNasEntityInstance("RelatedOpeningElement");
+        // subtract all openings at once
+        List<List<Vector3D>> masterElement = shapeDataOfEntity.getRings();
+        if (shellFaces) masterElement = PolygonClipper.union(masterElement);
+        return PolygonGeometry.ofRings(getIfcFeatureElementSubtractionGeometry(masterElement, openings));
+    }
 
-        if (IfcObjectIdentifier.isIfcOpeningElement(ifcModel, openingElement)) {
-            // get shape data of RelatedOpeningElement and RelatingBuildingObject
-            BIMtoOSMUtility.GeometrySolution activeSolution = BIMtoOSMUtility.GeometrySolution.BOUNDING_BOX; // set for now
-            List<Vector3D> shapeDataOfRelatedOpeningElement = BIMtoOSMUtility.getShapeData(ifcModel, openingElement, activeSolution);
-            // subtract points of shapeDataOfRelatinBuildingElement from shapeDataOfRelatinBuildingElement
-            return getIfcFeatureElementSubtractionGeometry(shapeDataOfEntity, (ArrayList<Vector3D>) shapeDataOfRelatedOpeningElement);
+    /**
+     * Method gets local shape representation coordinates of representation item. Items shared by several
+     * products are extracted once for each footprint, each call returns a new copy.
+     *
+     * @param ifcModel    ifc model
+     * @param geometries  geometry extracted during import
+     * @param item        IfcFacetedBrep, IfcBooleanResult, IfcBooleanClippingResult, IfcExtrudedAreaSolid or IfcTessellatedFaceSet
+     * @param repItemType type of item
+     * @param footprint   footprint of faceted brep or face set, null to keep all faces
+     * @return shape of item or null if not supported
+     */
+    private static PolygonGeometry getItemGeometry(IfcModel ifcModel, GeometryCache geometries, IfcEntity item, String repItemType,
+                                                   BrepFootprint footprint) {
+        PolygonGeometry itemGeometry = geometries.getItemGeometry(item.getId(), footprint);
+        if (itemGeometry == null) {
+            PolygonGeometry shapeData = extractItemGeometry(ifcModel, item, repItemType, footprint);
+            itemGeometry = shapeData != null ? shapeData.copy() : new PolygonGeometry(0, 1);
+            geometries.putItemGeometry(item.getId(), footprint, itemGeometry);
         }
+        return itemGeometry.isEmpty() ? null : itemGeometry.copy();
+    }
 
-        // IfcVoidingFeature as opening element is not supported right now
-        Logging.info(IfcGeometryExtractor.class.getName() + ": IfcVoidingFeature is not supported right now");
+    /**
+     * Method extracts shape representation coordinates of representation item
+     *
+     * @param ifcModel    ifc model
+     * @param item        IfcFacetedBrep, IfcBooleanResult, IfcBooleanClippingResult, IfcExtrudedAreaSolid or IfcTessellatedFaceSet
+     * @param repItemType type of item
+     * @param footprint   footprint of faceted brep or face set, null to keep all faces
+     * @return shape of item or null if not supported
+     */
+    private static PolygonGeometry extractItemGeometry(IfcModel ifcModel, IfcEntity item, String repItemType, BrepFootprint footprint) {
+        if (repItemType.equals(BrepRepresentationTypeItems.IfcFacetedBrep.name())) {
+            return footprint != null ? getIfcFacetedBrepFootprint(ifcModel, item, footprint) : getIfcFacetedBrepGeometry(ifcModel, item);
+        }
+        if (repItemType.equals(SweptSolidRepresentationTypeItems.IfcExtrudedAreaSolid.name())) {
+            return toGeometry(getIfcExtrudedAreaSolidGeometry(ifcModel, item));
+        }
+        if (repItemType.equals(TessellationRepresentationTypeItems.IfcTessellatedFaceSet.name())
+                || repItemType.equals(SurfaceModelRepresentationTypeItems.IfcTessellatedItem.name())) {
+            PolygonGeometry faces = getIfcTessellatedFaceSetGeometry(item);
+            if (faces == null || footprint == null) return faces;
+            return PolygonGeometry.ofRings(footprint.getFootprint(toFaceLists(faces)));
+        }
+        if (repItemType.equals(ClippingRepresentationTypeItems.IfcBooleanClippingResult.name())) {
+            return PolygonGeometry.ofRings(getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.DIFFERENCE));
+        }
+        if (repItemType.equals(CSGRepresentationTypeItems.IfcBooleanResult.name())) {
+            String operator = item.getAttributeValueBN("Operator").toString();
+            if (operator.equals("." + IfcBooleanOperator.DIFFERENCE + ".")) {
+                return PolygonGeometry.ofRings(getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.DIFFERENCE));
+            }
+            if (operator.equals("." + IfcBooleanOperator.INTERSECTION + ".")) {
+                return PolygonGeometry.ofRings(getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.INTERSECTION));
+            }
+            if (operator.equals("." + IfcBooleanOperator.UNION + ".")) {
+                return PolygonGeometry.ofRings(getIfcBooleanResultGeometry(ifcModel, item, IfcBooleanOperator.UNION));
+            }
+        }
         return null;
     }
 
+    /**
+     * Wraps outline of profile or half space into rings of polygon
+     *
+     * @param ring outline
+     * @return rings or null if outline is null
+     */
+    private static List<List<Vector3D>> toRings(CoordinateBuffer ring) {
+        if (ring == null) return null;
+        return ring.isEmpty() ? Collections.emptyList() : Collections.singletonList(ring.toList());
+    }
+
+    /**
+     * Wraps outline of profile into geometry
+     *
+     * @param ring outline
+     * @return geometry holding outline as outer ring or null if outline is null
+     */
+    private static PolygonGeometry toGeometry(CoordinateBuffer ring) {
+        if (ring == null) return null;
+        PolygonGeometry geometry = new PolygonGeometry(ring.size(), 1);
+        geometry.addPart(PolygonGeometry.PartType.OUTER_RING, ring);
+        return geometry;
+    }
+
+    /**
+     * Method extracts shape representation coordinates from IfcMappedItem object. Geometry of the mapped
+     * IfcRepresentationMap is extracted once per import and instantiated through the MappingTarget transformation.
+     *
+     * @param ifcModel   ifc model
+     * @param geometries geometry extracted during import
+     * @param mappedItem to get shape representation coordinates for
+     * @param footprint  footprint of faceted breps, null to keep all faces
+     * @return shape of IfcMappedItem or null if mapped representation not supported
+     */
+    private static PolygonGeometry getIfcMappedItemGeometry(IfcModel ifcModel, GeometryCache geometries, IfcEntity mappedItem,
+                                                            BrepFootprint footprint) {
+        IfcEntity representationMap = mappedItem.getAttributeValueBNasEntityInstance("MappingSource");
+        if (representationMap == null) return null;
+
+        PolygonGeometry mappedGeometry = geometries.getMappedGeometry(representationMap.getId());
+        if (mappedGeometry == null) {
+            // geometry is shared by instances on different heights, a cut plane does not apply
+            BrepFootprint mappedFootprint = footprint != null ? BrepFootprint.projection() : null;
+            mappedGeometry = geometries.putMappedGeometry(representationMap.getId(),
+                    getIfcRepresentationMapGeometry(ifcModel, geometries, representationMap, mappedFootprint));
+        }
+        if (mappedGeometry.isEmpty()) return null;
+
+        Transform3D mappingTarget = getIfcCartesianTransformationOperatorTransform(mappedItem.getAttributeValueBNasEntityInstance("MappingTarget"));
+        PolygonGeometry instance = mappedGeometry.copy();
+        BIMtoOSMUtility.transformPoints(instance.getPoints(), mappingTarget);
+        return instance;
+    }
+
+    /**
+     * Method extracts shape representation coordinates from IfcRepresentationMap object. Openings of products
+     * are not applied to shared geometry.
+     *
+     * @param ifcModel          ifc model
+     * @param geometries        geometry extracted during import
+     * @param representationMap to get shape representation coordinates for
+     * @param footprint         footprint of faceted breps, null to keep all faces
+     * @return shape in coordinates of parent system of MappingOrigin, empty if mapped representation not supported
+     */
+    private static PolygonGeometry getIfcRepresentationMapGeometry(IfcModel ifcModel, GeometryCache geometries, IfcEntity representationMap,
+                                                                   BrepFootprint footprint) {
+        IfcEntity mappedRepresentation = representationMap.getAttributeValueBNasEntityInstance("MappedRepresentation");
+        if (mappedRepresentation == null) return new PolygonGeometry(0, 1);
+
+        IfcRepresentation representation = IfcObjectIdentifier.identifyShapeRepresentation(mappedRepresentation);
+        if (representation.getType() == null) {
+            logUnsupportedRepresentationInfo(mappedRepresentation.getAttributeValueBN("RepresentationType").toString());
+            return new PolygonGeometry(0, 1);
+        }
+        PolygonGeometry shapeData = getDataFromBodyRepresentation(ifcModel, geometries, representation, footprint);
+        if (shapeData == null || shapeData.isEmpty()) return new PolygonGeometry(0, 1);
+
+        Transform3D mappingOrigin = BIMtoOSMUtility.getAxis2PlacementTransform(representationMap.getAttributeValueBNasEntityInstance("MappingOrigin"));
+        BIMtoOSMUtility.transformPoints(shapeData.getPoints(), mappingOrigin);
+        return shapeData;
+    }
+
+    /**
+     * Method builds transformation of IfcCartesianTransformationOperator3D or its nonuniform subtype.
+     * Missing axes and scales are derived as defined by IFC.
+     *
+     * @param operator IfcCartesianTransformationOperator entity
+     * @return transformation, identity if operator is missing
+     */
+    private static Transform3D getIfcCartesianTransformationOperatorTransform(IfcEntity operator) {
+        if (operator == null) return new Transform3D();
+
+        Vector3D axis3 = new Vector3D();
+        axis3.normalize(BIMtoOSMUtility.getVector(operator, "Axis3", "DirectionRatios", new Vector3D(0.0, 0.0, 1.0)));
+        Vector3D axis1 = BIMtoOSMUtility.retrieveXAxis(axis3,
+                BIMtoOSMUtility.getVector(operator, "Axis1", "DirectionRatios", new Vector3D(1.0, 0.0, 0.0)));
+        if (axis1.lengthSquared() == 0.0) {
+            Logging.warn(IfcGeometryExtractor.class.getName() + ": invalid axes of #" + operator.getId());
+            axis1 = new Vector3D(1.0, 0.0, 0.0);
+            axis3 = new Vector3D(0.0, 0.0, 1.0);
+        }
+        axis1.normalize();
+        Vector3D defaultAxis2 = new Vector3D();
+        defaultAxis2.cross(axis3, axis1);
+        Vector3D axis2 = BIMtoOSMUtility.getVector(operator, "Axis2", "DirectionRatios", defaultAxis2);
+        axis2 = BIMtoOSMUtility.retrieveXAxis(axis1, BIMtoOSMUtility.retrieveXAxis(axis3, axis2));
+        if (axis2.lengthSquared() == 0.0) axis2 = defaultAxis2;
+        axis2.normalize();
+
+        Vector3D origin = BIMtoOSMUtility.getVector(operator, "LocalOrigin", "Coordinates", new Vector3D(0.0, 0.0, 0.0));
+        double scale = operator.getAttributeValueBNasDouble("Scale");
+        if (Double.isNaN(scale)) scale = 1.0;
+        double scale2 = operator.getAttributeValueBNasDouble("Scale2");
+        if (Double.isNaN(scale2)) scale2 = scale;
+        double scale3 = operator.getAttributeValueBNasDouble("Scale3");
+        if (Double.isNaN(scale3)) scale3 = scale;
+
+        return new Transform3D(
+                axis1.getX() * scale, axis2.getX() * scale2, axis3.getX() * scale3, origin.getX(),
+                axis1.getY() * scale, axis2.getY() * scale2, axis3.getY() * scale3, origin.getY(),
+                axis1.getZ() * scale, axis2.getZ() * scale2, axis3.getZ() * scale3, origin.getZ());
+    }
+
     /**
      * Transforms IfcCartesianCoordinate entity into {@link Vector3D}
      *
      * @param cartesianCoordinate to transform
      * @return coordinate as {@link Vector3D}
      */
-    public static Vector3D ifcCoordinatesToVector3D(EntityInstance cartesianCoordinate) {
-        @SuppressWarnings("unchecked")
-        List<String> objectCoords = (List<String>) cartesianCoordinate.getAttributeValueBN("Coordinates");
-        if (objectCoords.isEmpty()) return null;
-        double x = prepareDoubleString(objectCoords.get(0));
-        double y = prepareDoubleString(objectCoords.get(1));
-        double z = 0.0;
-        if (objectCoords.size() == 3) {
-            z = prepareDoubleString(objectCoords.get(2));
-        }
-        if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z)) {
-            return null;
-        }
-        return new Vector3D(x, y, z);
+    public static Vector3D ifcCoordinatesToVector3D(IfcEntity cartesianCoordinate) {
+        return toVector3D(cartesianCoordinate.getAttributeValueBNasDoubleArray("Coordinates"));
     }
 
     /**
@@ -0,0 +1,91 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of resolved IfcLocalPlacement entities. Placements form a tree via PlacementRelTo, most products are
+ * placed relative to a handful of storey placements. Each placement is resolved once from the already resolved
+ * placement it is relative to, so the chain to the root is never walked again for siblings.
+ * Cache is safe to use from multiple threads.
+ */
+public class PlacementCache {
+
+    private final Transform3D worldTransform;
+    private final Map<Integer, Transform3D> placements = new ConcurrentHashMap<>();
+
+    /**
+     * Creates cache resolving placements relative to root placement
+     */
+    public PlacementCache() {
+        this(new Transform3D());
+    }
+
+    /**
+     * Creates cache resolving placements relative to root placement followed by param transformation
+     *
+     * @param worldTransform applied to root placement, e.g. true north rotation and unit scaling
+     */
+    public PlacementCache(Transform3D worldTransform) {
+        this.worldTransform = new Transform3D(worldTransform);
+    }
+
+    /**
+     * Gets transformation from coordinates of placement to world coordinates. Root placement itself is
+     * not applied, it is the origin of the site.
+     *
+     * @param localPlacement IfcLocalPlacement entity, may be null
+     * @return new transformation
+     */
+    public Transform3D getTransform(IfcEntity localPlacement) {
+        if (localPlacement == null) return new Transform3D(worldTransform);
+        return new Transform3D(get(localPlacement));
+    }
+
+    /**
+     * @return number of resolved placements
+     */
+    public int size() {
+        return placements.size();
+    }
+
+    private Transform3D get(IfcEntity localPlacement) {
+        Transform3D transform = placements.get(localPlacement.getId());
+        if (transform != null) return transform;
+
+        // collect unresolved placements up to root or first resolved parent, stop at cycles of invalid files
+        Deque<IfcEntity> pending = new ArrayDeque<>();
+        Set<Integer> visited = new HashSet<>();
+        Transform3D parent = null;
+        for (IfcEntity entity = localPlacement; entity != null && visited.add(entity.getId());
+             entity = entity.getAttributeValueBNasEntityInstance("PlacementRelTo")) {
+            parent = placements.get(entity.getId());
+            if (parent != null) break;
+            pending.push(entity);
+        }
+
+        transform = parent;
+        while (!pending.isEmpty()) {
+            IfcEntity entity = pending.pop();
+            if (transform == null) {
+                // root placement
+                transform = new Transform3D(worldTransform);
+            } else {
+                transform = new Transform3D(transform);
+                transform.compose(BIMtoOSMUtility.getAxis2PlacementTransform(entity.getAttributeValueBNasEntityInstance("RelativePlacement")));
+            }
+            Transform3D existing = placements.putIfAbsent(entity.getId(), transform);
+            if (existing != null) transform = existing;
+        }
+        return transform;
+    }
+}
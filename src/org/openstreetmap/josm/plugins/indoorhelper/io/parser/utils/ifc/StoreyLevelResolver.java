@@ -0,0 +1,142 @@
+// License: AGPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.EntityTypeIndex;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.RelationshipIndex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns level numbers to the building storeys of an {@link IfcModel}. Storeys are collected once from the
+ * spatial structure tree (IfcProject, IfcSite, IfcBuilding, IfcBuildingStorey) described by IfcRelAggregates.
+ * Storeys whose elevations differ by no more than a tolerance share one level. Level 0 is the level with the
+ * elevation closest to 0, levels below get negative numbers.
+ */
+public class StoreyLevelResolver {
+
+    private final List<IfcEntity> storeys;
+    private final Map<Integer, Integer> levels = new HashMap<>();
+    private final List<Double> levelElevations = new ArrayList<>();
+    private final int lowestLevel;
+
+    /**
+     * Constructor
+     *
+     * @param model              loaded IFC model
+     * @param elevationTolerance maximum elevation difference of storeys sharing a level, in model length unit
+     */
+    public StoreyLevelResolver(IfcModel model, double elevationTolerance) {
+        storeys = collectStoreys(model);
+
+        List<IfcEntity> sortedStoreys = new ArrayList<>();
+        Map<IfcEntity, Double> elevations = new HashMap<>();
+        for (IfcEntity storey : storeys) {
+            double elevation = storey.getAttributeValueBNasDouble("Elevation");
+            if (Double.isNaN(elevation)) continue;
+            elevations.put(storey, elevation);
+            sortedStoreys.add(storey);
+        }
+        sortedStoreys.sort(Comparator.comparingDouble(elevations::get));
+
+        // group storeys of similar elevation, group elevation is the elevation of its lowest storey. Storeys are
+        // compared with the lowest storey of the group, so closely spaced storeys do not chain into one level.
+        List<List<IfcEntity>> groups = new ArrayList<>();
+        for (IfcEntity storey : sortedStoreys) {
+            double elevation = elevations.get(storey);
+            if (groups.isEmpty() || elevation - levelElevations.get(levelElevations.size() - 1) > elevationTolerance) {
+                groups.add(new ArrayList<>());
+                levelElevations.add(elevation);
+            }
+            groups.get(groups.size() - 1).add(storey);
+        }
+
+        int groundIndex = 0;
+        for (int i = 1; i < levelElevations.size(); i++) {
+            if (Math.abs(levelElevations.get(i)) < Math.abs(levelElevations.get(groundIndex))) groundIndex = i;
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            for (IfcEntity storey : groups.get(i)) {
+                levels.put(storey.getId(), i - groundIndex);
+            }
+        }
+        lowestLevel = -groundIndex;
+    }
+
+    /**
+     * Collects distinct storeys of the spatial structure tree. Storeys not part of the tree are appended.
+     *
+     * @param model loaded IFC model
+     * @return storeys in tree order
+     */
+    private static List<IfcEntity> collectStoreys(IfcModel model) {
+        EntityTypeIndex typeIndex = model.getTypeIndex();
+        RelationshipIndex relationships = model.getRelationshipIndex();
+        Map<Integer, IfcEntity> storeys = new LinkedHashMap<>();
+        Set<Integer> visited = new HashSet<>();
+
+        Deque<IfcEntity> pending = new ArrayDeque<>(model.getInstancesOfType("IfcProject"));
+        while (!pending.isEmpty()) {
+            IfcEntity entity = pending.pop();
+            if (!visited.add(entity.getId())) continue;
+            if (typeIndex.isInstanceOf(entity, "IfcBuildingStorey")) storeys.putIfAbsent(entity.getId(), entity);
+
+            List<IfcEntity> children = relationships.getAggregatedObjects(entity);
+            // keep declaration order of children when visiting depth first
+            for (int i = children.size() - 1; i >= 0; i--) {
+                IfcEntity child = children.get(i);
+                if (typeIndex.isInstanceOf(child, "IfcSpatialStructureElement")) pending.push(child);
+            }
+        }
+        for (IfcEntity storey : model.getInstancesOfType("IfcBuildingStorey")) {
+            storeys.putIfAbsent(storey.getId(), storey);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(storeys.values()));
+    }
+
+    /**
+     * @return distinct storeys of model
+     */
+    public List<IfcEntity> getStoreys() {
+        return storeys;
+    }
+
+    /**
+     * Gets level of storey
+     *
+     * @param storey IfcBuildingStorey of model
+     * @return level number or null if entity is no storey of model or has no elevation
+     */
+    public Integer getLevel(IfcEntity storey) {
+        return storey != null ? levels.get(storey.getId()) : null;
+    }
+
+    /**
+     * Gets elevation of level
+     *
+     * @param level number
+     * @return elevation of lowest storey on level, in model length unit, or NaN if level does not exist
+     */
+    public double getElevation(int level) {
+        int index = level - lowestLevel;
+        return index >= 0 && index < levelElevations.size() ? levelElevations.get(index) : Double.NaN;
+    }
+
+    /**
+     * @return number of distinct levels
+     */
+    public int getLevelCount() {
+        return levelElevations.size();
+    }
+}
@@ -10,9 +10,29 @@ import org.openstreetmap.josm.gui.layer.OsmDataLayer;
  */
 public class ImportDataRenderer {
 
-    public static void renderDataOnNewLayer(DataSet ds, String layerName) {
+    /**
+     * Shows data on new layer. Must be called on EDT.
+     *
+     * @param ds        to show
+     * @param layerName of new layer
+     * @return new layer
+     */
+    public static OsmDataLayer renderDataOnNewLayer(DataSet ds, String layerName) {
         OsmDataLayer importLayer = new OsmDataLayer(ds, layerName, null);
         MainApplication.getLayerManager().addLayer(importLayer);
         MainApplication.getLayerManager().setActiveLayer(importLayer);
+        return importLayer;
+    }
+
+    /**
+     * Moves data into existing layer. Data is merged in a single update of the layer data set, so listeners
+     * are notified once per merged data set. Must be called on EDT, as the layer may be painted and edited.
+     *
+     * @param ds    to move into layer, empty afterwards
+     * @param layer to render data on
+     */
+    public static void renderDataOnLayer(DataSet ds, OsmDataLayer layer) {
+        DataSet layerData = layer.getDataSet();
+        layerData.update(() -> layerData.mergeFrom(ds));
     }
 }
@@ -0,0 +1,116 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.controller.ImportEventListener;
+import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.InputOptimizer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.OutputOptimizer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.BIMtoOSMParser;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.IfcModelLoader;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BIMtoOSMUtility;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BrepFootprint;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of import cache use of {@link BIMtoOSMParser} class.
+ */
+public class BIMtoOSMParserCacheTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link BIMtoOSMParser#parse} method extracting data from file if its import cache entry is truncated.
+     */
+    @Test
+    public void testParseTruncatedCacheEntry() throws IOException {
+        Path pluginDir = Files.createTempDirectory("parserCacheTest");
+        Path resources = Files.createDirectories(pluginDir.resolve("resources"));
+        Files.copy(Paths.get("resources/IFC2X3_TC1.exp"), resources.resolve("IFC2X3_TC1.exp"));
+        String ifcFile = resourcePathDir + "test2_IFC2X3_TC1.ifc";
+
+        RecordingListener extracted = new RecordingListener();
+        assertTrue(createParser(extracted, pluginDir).parse(ifcFile));
+        assertTrue(extracted.parsed);
+        assertFalse(extracted.levels.isEmpty());
+
+        Path cacheFile = getCacheFile(pluginDir.resolve("cache"));
+        long cacheFileSize = Files.size(cacheFile);
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            channel.truncate(cacheFileSize / 2);
+        }
+
+        RecordingListener restored = new RecordingListener();
+        assertTrue(createParser(restored, pluginDir).parse(ifcFile));
+        assertTrue(restored.parsed);
+        assertEquals(extracted.levels, restored.levels);
+        assertEquals(extracted.wayCounts, restored.wayCounts);
+        // entry is written again by extraction
+        assertEquals(cacheFileSize, Files.size(getCacheFile(pluginDir.resolve("cache"))));
+    }
+
+    private static BIMtoOSMParser createParser(ImportEventListener listener, Path pluginDir) {
+        BIMtoOSMParser parser = new BIMtoOSMParser(listener, pluginDir.toString());
+        // test file provides body geometry only, output is compared unoptimized
+        assertTrue(parser.configure(BIMtoOSMUtility.GeometrySolution.BODY,
+                new BrepFootprint.Configuration(BrepFootprint.Mode.CUT_PLANE, 1.0),
+                new IfcModelLoader.Configuration(IfcModelLoader.Backend.STEP, 1, true),
+                new InputOptimizer.Configuration(true),
+                new OutputOptimizer.Configuration(false, 0.01)));
+        return parser;
+    }
+
+    private static Path getCacheFile(Path cacheDir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.bin")) {
+            stream.forEach(files::add);
+        }
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+
+    /**
+     * Listener recording delivered data
+     */
+    private static class RecordingListener implements ImportEventListener {
+
+        private final List<Integer> levels = new ArrayList<>();
+        private final List<Integer> wayCounts = new ArrayList<>();
+        private boolean parsed;
+
+        @Override
+        public void onBIMImport(String filepath) {
+            // not imported through user interface
+        }
+
+        @Override
+        public void onDataChunk(int level, DataSet ds) {
+            levels.add(level);
+            wayCounts.add(ds.getWays().size());
+        }
+
+        @Override
+        public void onDataParsed() {
+            parsed = true;
+        }
+
+        @Override
+        public void onProcessStatusChanged(String statusMsg) {
+            // status is not checked
+        }
+    }
+}
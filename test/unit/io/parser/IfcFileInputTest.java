@@ -0,0 +1,164 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.IfcFileInput;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.IfcFileInput.Compression;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link IfcFileInput} class.
+ */
+public class IfcFileInputTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link Compression#of} method.
+     */
+    @Test
+    public void testCompressionOf() {
+        assertEquals(Compression.NONE, Compression.of("model.ifc"));
+        assertEquals(Compression.GZIP, Compression.of("model.IFC.GZ"));
+        assertEquals(Compression.ZIP, Compression.of("/tmp/model.ifczip"));
+    }
+
+    /**
+     * Test case for {@link IfcFileInput} methods using gzip compressed test file.
+     */
+    @Test
+    public void testGzip() throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"));
+        Path file = createTempFile(".ifc.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content);
+        }
+
+        assertEquals(IfcSchema.IFC2X3, IfcFileInput.readHeader(file.toString()).getSchema());
+        assertArrayEquals(content, readAll(IfcFileInput.open(file.toString())));
+        ByteBuffer buffer = IfcFileInput.readFully(file.toString());
+        assertEquals(content.length, buffer.limit());
+        assertEquals(7896, StepModel.load(buffer, ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")), 1, null).size());
+    }
+
+    /**
+     * Test case for {@link IfcFileInput} methods using zip archive holding test file.
+     */
+    @Test
+    public void testZip() throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(resourcePathDir + "test1_IFC4.ifc"));
+        Path file = createTempFile(".ifczip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write(new byte[]{'a'});
+            out.putNextEntry(new ZipEntry("model/test1_IFC4.ifc"));
+            out.write(content);
+        }
+
+        assertEquals(IfcSchema.IFC4, IfcFileInput.readHeader(file.toString()).getSchema());
+        assertArrayEquals(content, readAll(IfcFileInput.open(file.toString())));
+        assertEquals(content.length, IfcFileInput.readFully(file.toString()).limit());
+    }
+
+    /**
+     * Test case for {@link IfcFileInput#readFully} method using files whose size implies a content size
+     * far above the actual one. Files are extended by trailing data not read as content.
+     */
+    @Test
+    public void testReadFullyLargeFile() throws IOException {
+        byte[] content = Files.readAllBytes(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"));
+        long fileSize = 512L * 1024 * 1024;
+
+        // size of deflated entry is stored behind its data
+        Path deflated = createTempFile(".ifczip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(deflated))) {
+            out.putNextEntry(new ZipEntry("model.ifc"));
+            out.write(content);
+        }
+        // size of stored entry is part of its header
+        Path stored = createTempFile(".ifczip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(stored))) {
+            ZipEntry entry = new ZipEntry("model.ifc");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(content);
+        }
+        Path gzip = createTempFile(".ifc.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(content);
+        }
+
+        for (Path file : new Path[]{deflated, stored, gzip}) {
+            try {
+                try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                    raf.setLength(fileSize);
+                }
+                ByteBuffer buffer = IfcFileInput.readFully(file.toString());
+                assertEquals(content.length, buffer.limit(), file.toString());
+                assertTrue(buffer.capacity() <= content.length + content.length / 8, file.toString());
+                byte[] read = new byte[buffer.limit()];
+                buffer.get(read);
+                assertArrayEquals(content, read, file.toString());
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Test case for {@link IfcFileInput#open} method using zip archive without IFC file.
+     */
+    @Test
+    public void testZipWithoutIfcFile() throws IOException {
+        Path file = createTempFile(".ifczip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write(new byte[]{'a'});
+        }
+        assertThrows(IOException.class, () -> IfcFileInput.open(file.toString()));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static Path createTempFile(String suffix) throws IOException {
+        Path file = Files.createTempFile("ifcFileInputTest", suffix);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+}
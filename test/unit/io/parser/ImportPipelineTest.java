@@ -0,0 +1,60 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.ImportPipeline;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link ImportPipeline} class.
+ */
+public class ImportPipelineTest {
+
+    /**
+     * Test case for {@link ImportPipeline#run} method passing items through stages in order.
+     */
+    @Test
+    public void testRun() {
+        List<Integer> result = new ArrayList<>();
+        new ImportPipeline<Integer>(2)
+                .addStage("double", i -> i * 2)
+                .addStage("filter", i -> i % 4 == 0 ? null : i)
+                .run(output -> {
+                    for (int i = 0; i < 1000; i++) output.accept(i);
+                }, result::add);
+
+        assertEquals(500, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(4 * i + 2, result.get(i));
+        }
+    }
+
+    /**
+     * Test case for {@link ImportPipeline#run} method rethrowing failure of a stage and stopping the source.
+     */
+    @Test
+    public void testRunFailure() {
+        AtomicInteger produced = new AtomicInteger();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new ImportPipeline<Integer>(2)
+                .addStage("fail", i -> {
+                    if (i == 10) throw new IllegalArgumentException("stage failed");
+                    return i;
+                })
+                .run(output -> {
+                    for (int i = 0; i < 1000000; i++) {
+                        output.accept(i);
+                        produced.incrementAndGet();
+                    }
+                }, i -> { }));
+
+        assertEquals("stage failed", e.getMessage());
+        assertTrue(produced.get() < 1000000);
+    }
+}
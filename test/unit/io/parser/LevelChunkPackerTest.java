@@ -0,0 +1,104 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.LevelChunkPacker;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.junit.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link LevelChunkPacker} class.
+ */
+public class LevelChunkPackerTest {
+
+    private static final int[] LEVELS = {-1, -1, 0, 0, 0, 1, 2, 2, 999};
+
+    /**
+     * Test case for {@link LevelChunkPacker#accept} method delivering one data set per level in order of
+     * arrival.
+     */
+    @Test
+    public void testChunkSequence() {
+        List<Integer> levels = new ArrayList<>();
+        List<Integer> wayCounts = new ArrayList<>();
+        LevelChunkPacker packer = new LevelChunkPacker(LevelChunkPackerTest::pack, (level, chunk) -> {
+            levels.add(level);
+            wayCounts.add(chunk.getWays().size());
+        });
+
+        for (BIMObject3D object : createObjects()) packer.accept(object);
+        // last level is only delivered on finish
+        assertEquals(Arrays.asList(-1, 0, 1, 2), levels);
+        packer.finish();
+
+        assertEquals(Arrays.asList(-1, 0, 1, 2, 999), levels);
+        assertEquals(Arrays.asList(2, 3, 1, 2, 1), wayCounts);
+        assertEquals(LEVELS.length, packer.getPackedObjectCount());
+    }
+
+    /**
+     * Test case for {@link LevelChunkPacker#accept} method, merging all chunks results in the data set packed
+     * from all objects at once.
+     */
+    @Test
+    public void testMergedChunksEqualSingleDataSet() {
+        DataSet single = new DataSet();
+        for (BIMObject3D object : createObjects()) pack(object, single);
+
+        DataSet merged = new DataSet();
+        LevelChunkPacker packer = new LevelChunkPacker(LevelChunkPackerTest::pack, (level, chunk) -> merged.mergeFrom(chunk));
+        for (BIMObject3D object : createObjects()) packer.accept(object);
+        packer.finish();
+
+        assertEquals(single.getNodes().size(), merged.getNodes().size());
+        assertEquals(describe(single), describe(merged));
+        assertTrue(merged.getWays().stream().allMatch(w -> w.getNodes().stream().allMatch(n -> n.getDataSet() == merged)));
+    }
+
+    private static List<BIMObject3D> createObjects() {
+        List<BIMObject3D> objects = new ArrayList<>();
+        for (int i = 0; i < LEVELS.length; i++) {
+            BIMObject3D object = new BIMObject3D(i + 1);
+            object.setLevel(LEVELS[i]);
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    /**
+     * Packs object into way of two nodes tagged with id and level of object
+     */
+    private static void pack(BIMObject3D object, DataSet ds) {
+        Node start = new Node(new LatLon(object.getLevel() * 0.01, object.getId()));
+        Node end = new Node(new LatLon(object.getLevel() * 0.01, object.getId() + 0.5));
+        ds.addPrimitive(start);
+        ds.addPrimitive(end);
+        Way way = new Way();
+        way.setNodes(Arrays.asList(start, end));
+        way.put("ref", Integer.toString(object.getId()));
+        way.put("level", Integer.toString(object.getLevel()));
+        ds.addPrimitive(way);
+    }
+
+    /**
+     * @return sorted descriptions of ways including tags and coordinates of nodes
+     */
+    private static List<String> describe(DataSet ds) {
+        return ds.getWays().stream()
+                .map(w -> w.get("ref") + "|" + w.get("level") + "|" + w.getNodes().stream()
+                        .map(n -> n.lat() + "," + n.lon()).collect(Collectors.joining(";")))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,71 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.SchemaRegistry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link SchemaRegistry} class.
+ */
+public class SchemaRegistryTest {
+
+    private final Path schemaFile = Paths.get("resources/IFC4.exp");
+
+    /**
+     * Resets registry.
+     */
+    @After
+    public void tearDown() {
+        SchemaRegistry.setCacheDirectory(null);
+        SchemaRegistry.clear();
+    }
+
+    /**
+     * Test case for {@link SchemaRegistry#getExpressSchema} method without cache directory.
+     */
+    @Test
+    public void testGetExpressSchema() throws IOException {
+        ExpressSchema schema = SchemaRegistry.getExpressSchema(schemaFile);
+        assertSame(schema, SchemaRegistry.getExpressSchema(schemaFile.toAbsolutePath()));
+        assertEquals("IFC4", schema.getName());
+    }
+
+    /**
+     * Test case for {@link SchemaRegistry#getExpressSchema} method reading schema from cache directory.
+     */
+    @Test
+    public void testGetExpressSchemaFromCacheDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("schemaRegistryTest");
+        directory.toFile().deleteOnExit();
+        SchemaRegistry.setCacheDirectory(directory);
+
+        ExpressSchema parsed = SchemaRegistry.getExpressSchema(schemaFile);
+        assertTrue(Files.isRegularFile(directory.resolve("IFC4.exp.schema")));
+
+        SchemaRegistry.clear();
+        ExpressSchema cached = SchemaRegistry.getExpressSchema(schemaFile);
+        assertNotSame(parsed, cached);
+        assertEquals(parsed.getName(), cached.getName());
+        assertEquals(parsed.getEntities().size(), cached.getEntities().size());
+        for (ExpressSchema.ExpressEntity entity : parsed.getEntities()) {
+            ExpressSchema.ExpressEntity other = cached.getEntity(entity.getName());
+            assertEquals(entity.getName(), other.getName());
+            assertEquals(entity.isAbstract(), other.isAbstract());
+            assertEquals(String.valueOf(entity.getSupertype()), String.valueOf(other.getSupertype()));
+            assertEquals(entity.getAttributeNames(), other.getAttributeNames());
+            assertEquals(entity.getAttributeTypes(), other.getAttributeTypes());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.cache;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.cache.ImportCache;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.junit.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link ImportCache} class.
+ */
+public class ImportCacheTest {
+
+    /**
+     * Test case for {@link ImportCache#open} and {@link ImportCache#read} methods.
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        Path directory = createTempDirectory();
+        Path ifcFile = createIfcFile(directory, "#1=IFCWALL();");
+        ImportCache cache = new ImportCache(directory.resolve("cache"));
+        ImportCache.Key key = ImportCache.Key.of(ifcFile, "BODY");
+        assertNull(cache.read(key));
+
+        PolygonGeometry geometry = new PolygonGeometry();
+        geometry.addPart(PolygonGeometry.PartType.POLYLINE, Arrays.asList(new Vector3D(1.0, 2.0, 3.0), new Vector3D(-4.5, 0.0, 1e-9)));
+        geometry.addPart(PolygonGeometry.PartType.INNER_RING, Arrays.asList(new Vector3D(0.0, 0.0, 0.0),
+                new Vector3D(0.0, 1.0, 0.0), new Vector3D(1.0, 0.0, 0.0)));
+        BIMObject3D wall = new BIMObject3D(12, BIMtoOSMCatalog.BIMObject.IfcWall, new Transform3D(), geometry);
+        wall.setLevel(-1);
+        try (ImportCache.Writer writer = cache.open(key, 2, new LatLon(52.5, 13.4))) {
+            writer.add(wall);
+            writer.commit();
+        }
+
+        ImportCache.Reader reader = cache.read(key);
+        assertNotNull(reader);
+        assertEquals(2, reader.getExtractedObjectCount());
+        assertEquals(52.5, reader.getBuildingOrigin().lat());
+        assertEquals(13.4, reader.getBuildingOrigin().lon());
+        List<BIMObject3D> objects = new ArrayList<>();
+        reader.produce(objects::add);
+        assertEquals(1, objects.size());
+        assertThrows(IllegalStateException.class, () -> reader.produce(objects::add));
+
+        BIMObject3D object = objects.get(0);
+        assertEquals(12, object.getId());
+        assertEquals(BIMtoOSMCatalog.BIMObject.IfcWall, object.getType());
+        assertEquals(-1, object.getLevel());
+        PolygonGeometry restored = object.getCartesianGeometry();
+        assertEquals(2, restored.getPartCount());
+        assertEquals(PolygonGeometry.PartType.POLYLINE, restored.getPartType(0));
+        assertEquals(PolygonGeometry.PartType.INNER_RING, restored.getPartType(1));
+        assertEquals(2, restored.getPartStart(1));
+        assertEquals(5, restored.getPointCount());
+        assertEquals(-4.5, restored.getPoints().get(1).getX());
+        assertEquals(1e-9, restored.getPoints().get(1).getZ());
+    }
+
+    /**
+     * Test case for {@link ImportCache.Key#of} method.
+     */
+    @Test
+    public void testKey() throws IOException {
+        Path directory = createTempDirectory();
+        Path ifcFile = createIfcFile(directory, "#1=IFCWALL();");
+        String key = ImportCache.Key.of(ifcFile, "BODY").toString();
+
+        assertEquals(key, ImportCache.Key.of(ifcFile, "BODY").toString());
+        assertNotEquals(key, ImportCache.Key.of(ifcFile, "BOUNDING_BOX").toString());
+
+        FileTime modified = Files.getLastModifiedTime(ifcFile);
+        Files.write(ifcFile, "#1=IFCSLAB();".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(ifcFile, modified);
+        assertNotEquals(key, ImportCache.Key.of(ifcFile, "BODY").toString());
+    }
+
+    /**
+     * Test case for {@link ImportCache#read} method with corrupt cache file.
+     */
+    @Test
+    public void testReadCorruptFile() throws IOException {
+        Path directory = createTempDirectory();
+        Path ifcFile = createIfcFile(directory, "#1=IFCWALL();");
+        ImportCache cache = new ImportCache(directory);
+        ImportCache.Key key = ImportCache.Key.of(ifcFile, "BODY");
+        try (ImportCache.Writer writer = cache.open(key, 0, null)) {
+            writer.commit();
+        }
+
+        Path cacheFile = directory.resolve(key + ".bin");
+        byte[] content = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 2));
+        assertNull(cache.read(key));
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    /**
+     * Test case for {@link ImportCache#read} method with cache files truncated inside of objects or modified.
+     */
+    @Test
+    public void testReadTruncatedOrModifiedFile() throws IOException {
+        Path directory = createTempDirectory();
+        Path ifcFile = createIfcFile(directory, "#1=IFCWALL();");
+        ImportCache cache = new ImportCache(directory);
+        ImportCache.Key key = ImportCache.Key.of(ifcFile, "BODY");
+        writeWalls(cache, key, 2);
+        Path cacheFile = directory.resolve(key + ".bin");
+        byte[] content = Files.readAllBytes(cacheFile);
+
+        // truncated file is discarded before any object is read
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 10));
+        assertNull(cache.read(key));
+        assertFalse(Files.exists(cacheFile));
+
+        // content not matching checksum
+        content[content.length - 20] ^= 1;
+        Files.write(cacheFile, content);
+        assertNull(cache.read(key));
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    /**
+     * Test case for {@link ImportCache.Reader#produce} method with cache file truncated while objects are read.
+     */
+    @Test
+    public void testProduceTruncatedFile() throws IOException {
+        Path directory = createTempDirectory();
+        Path ifcFile = createIfcFile(directory, "#1=IFCWALL();");
+        ImportCache cache = new ImportCache(directory);
+        ImportCache.Key key = ImportCache.Key.of(ifcFile, "BODY");
+        int count = 1000;
+        writeWalls(cache, key, count);
+
+        Path cacheFile = directory.resolve(key + ".bin");
+        ImportCache.Reader reader = cache.read(key);
+        assertNotNull(reader);
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() / 2);
+        }
+        List<BIMObject3D> objects = new ArrayList<>();
+        assertThrows(UncheckedIOException.class, () -> reader.produce(objects::add));
+        assertTrue(objects.size() < count);
+        assertFalse(Files.exists(cacheFile));
+    }
+
+    private static void writeWalls(ImportCache cache, ImportCache.Key key, int count) {
+        try (ImportCache.Writer writer = cache.open(key, count, null)) {
+            for (int id = 1; id <= count; id++) {
+                PolygonGeometry geometry = new PolygonGeometry();
+                geometry.addPart(PolygonGeometry.PartType.OUTER_RING, Arrays.asList(new Vector3D(0.0, 0.0, 0.0),
+                        new Vector3D(1.0, 0.0, 0.0), new Vector3D(0.0, 1.0, 0.0)));
+                writer.add(new BIMObject3D(id, BIMtoOSMCatalog.BIMObject.IfcWall, new Transform3D(), geometry));
+            }
+            writer.commit();
+        }
+    }
+
+    private static Path createTempDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("importCacheTest");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
+    private static Path createIfcFile(Path directory, String content) throws IOException {
+        Path file = directory.resolve("model.ifc");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
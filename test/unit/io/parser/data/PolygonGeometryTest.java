@@ -0,0 +1,78 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.data;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link PolygonGeometry} class.
+ */
+public class PolygonGeometryTest {
+
+    @Test
+    public void testParts() {
+        PolygonGeometry geometry = new PolygonGeometry(0, 1);
+        assertTrue(geometry.isEmpty());
+        geometry.addPart(PolygonGeometry.PartType.OUTER_RING, square(0, 0, 10));
+        geometry.addPart(PolygonGeometry.PartType.POLYLINE, Collections.emptyList());
+        // coordinates of former loop separator are ordinary points
+        geometry.addPart(PolygonGeometry.PartType.POLYLINE, Arrays.asList(new Vector3D(-99.0, -99.0, -99.0),
+                new Vector3D(1.0, 1.0, 0.0)));
+        geometry.addPart(PolygonGeometry.PartType.INNER_RING, square(2, 2, 2));
+
+        assertFalse(geometry.isEmpty());
+        assertEquals(3, geometry.getPartCount());
+        assertEquals(10, geometry.getPointCount());
+        assertEquals(PolygonGeometry.PartType.POLYLINE, geometry.getPartType(1));
+        assertFalse(geometry.isRing(1));
+        assertEquals(4, geometry.getPartStart(1));
+        assertEquals(6, geometry.getPartEnd(1));
+        assertEquals(-99.0, geometry.getPart(1).get(0).getX());
+        assertEquals(10, geometry.getPartEnd(2));
+        assertEquals(2, geometry.getRings().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> geometry.getPart(3));
+    }
+
+    @Test
+    public void testOfRings() {
+        List<Vector3D> hole = new ArrayList<>(square(2, 2, 2));
+        Collections.reverse(hole);
+        PolygonGeometry geometry = PolygonGeometry.ofRings(Arrays.asList(square(0, 0, 10), hole, square(20, 0, 1)));
+        assertEquals(3, geometry.getPartCount());
+        assertEquals(PolygonGeometry.PartType.OUTER_RING, geometry.getPartType(0));
+        assertEquals(PolygonGeometry.PartType.INNER_RING, geometry.getPartType(1));
+        assertEquals(PolygonGeometry.PartType.OUTER_RING, geometry.getPartType(2));
+    }
+
+    @Test
+    public void testCopy() {
+        PolygonGeometry geometry = new PolygonGeometry();
+        geometry.addPart(PolygonGeometry.PartType.OUTER_RING, square(0, 0, 10));
+        geometry.addPart(PolygonGeometry.PartType.INNER_RING, square(2, 2, 2));
+
+        PolygonGeometry copy = geometry.copy();
+        copy.getPoints().set(0, 5.0, 0.0, 0.0);
+        copy.addAll(geometry);
+        assertEquals(0.0, geometry.getPoints().getX(0));
+        assertEquals(2, geometry.getPartCount());
+        assertEquals(4, copy.getPartCount());
+        assertEquals(PolygonGeometry.PartType.INNER_RING, copy.getPartType(3));
+        assertEquals(12, copy.getPartStart(3));
+    }
+
+    private static List<Vector3D> square(double x, double y, double size) {
+        return Arrays.asList(new Vector3D(x, y, 0), new Vector3D(x + size, y, 0), new Vector3D(x + size, y + size, 0),
+                new Vector3D(x, y + size, 0));
+    }
+}
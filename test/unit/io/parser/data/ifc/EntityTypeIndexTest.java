@@ -0,0 +1,54 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.EntityTypeIndex;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link EntityTypeIndex} class.
+ */
+public class EntityTypeIndexTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link EntityTypeIndex#isType} and {@link EntityTypeIndex#isInstanceOf} methods.
+     */
+    @Test
+    public void testTypeChecks() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        EntityTypeIndex index = model.getTypeIndex();
+        assertSame(index, model.getTypeIndex());
+
+        IfcEntity wall = model.getInstance(67);
+        assertEquals("IfcWallStandardCase", index.getTypeName(wall));
+        assertTrue(index.isType(wall, "IfcWallStandardCase"));
+        assertTrue(index.isType(wall, "IFCWALLSTANDARDCASE"));
+        assertFalse(index.isType(wall, "IfcWall"));
+        assertTrue(index.isInstanceOf(wall, "IfcWall"));
+        assertTrue(index.isInstanceOf(wall, "IfcBuildingElement"));
+        assertTrue(index.isInstanceOf(wall, "IfcRoot"));
+        assertFalse(index.isInstanceOf(wall, "IfcSlab"));
+        assertFalse(index.isInstanceOf(wall, "IfcUnknownType"));
+
+        for (IfcEntity storey : model.getInstancesOfType("IfcBuildingStorey")) {
+            assertTrue(index.isInstanceOf(storey, "IfcSpatialStructureElement"));
+        }
+        assertNull(index.getTypeName(null));
+        assertFalse(index.isInstanceOf(null, "IfcRoot"));
+    }
+}
@@ -0,0 +1,61 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.data.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.RelationshipIndex;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link RelationshipIndex} class.
+ */
+public class RelationshipIndexTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link RelationshipIndex} lookups using IFC2X3 test file.
+     */
+    @Test
+    public void testLookups() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        RelationshipIndex index = model.getRelationshipIndex();
+        assertSame(index, model.getRelationshipIndex());
+
+        for (IfcEntity wall : model.getInstancesOfType("IfcWallStandardCase")) {
+            assertEquals("IfcBuildingStorey", index.getContainingStructure(wall).getTypeName());
+        }
+        for (IfcEntity storey : model.getInstancesOfType("IfcBuildingStorey")) {
+            IfcEntity building = index.getAggregatingParent(storey);
+            assertEquals("IfcBuilding", building.getTypeName());
+            assertTrue(index.getAggregatedObjects(building).contains(storey));
+        }
+
+        assertFalse(model.getInstancesOfType("IfcRelVoidsElement").isEmpty());
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelVoidsElement")) {
+            IfcEntity element = relation.getAttributeValueBNasEntityInstance("RelatingBuildingElement");
+            assertTrue(index.getVoidingRelations(element).contains(relation));
+            assertTrue(index.getOpenings(element).contains(relation.getAttributeValueBNasEntityInstance("RelatedOpeningElement")));
+        }
+        for (IfcEntity relation : model.getInstancesOfType("IfcRelFillsElement")) {
+            IfcEntity opening = relation.getAttributeValueBNasEntityInstance("RelatingOpeningElement");
+            assertTrue(index.getFillingElements(opening).contains(relation.getAttributeValueBNasEntityInstance("RelatedBuildingElement")));
+        }
+
+        assertNull(index.getContainingStructure(null));
+        assertTrue(index.getVoidingRelations(null).isEmpty());
+        assertTrue(index.getOpenings(model.getInstancesOfType("IfcProject").get(0)).isEmpty());
+    }
+}
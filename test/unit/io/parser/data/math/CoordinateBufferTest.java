@@ -0,0 +1,57 @@
+package io.parser.data.math;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.CoordinateBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link CoordinateBuffer} class.
+ */
+public class CoordinateBufferTest {
+
+    @Test
+    public void testAdd() {
+        CoordinateBuffer buffer = new CoordinateBuffer(1);
+        assertTrue(buffer.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, -i, 0.5 * i);
+        }
+        assertEquals(100, buffer.size());
+        assertEquals(42.0, buffer.getX(42));
+        assertEquals(-42.0, buffer.getY(42));
+        assertEquals(21.0, buffer.getZ(42));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.getX(100));
+
+        CoordinateBuffer part = new CoordinateBuffer();
+        part.add(new Vector3D(1.0, 2.0, 3.0));
+        part.addAll(buffer, 10, 12);
+        assertEquals(3, part.size());
+        assertTrue(part.get(2).equalsVector(new Vector3D(11.0, -11.0, 5.5)));
+        assertThrows(IndexOutOfBoundsException.class, () -> part.addAll(buffer, 99, 101));
+    }
+
+    @Test
+    public void testTransform() {
+        CoordinateBuffer buffer = CoordinateBuffer.of(Arrays.asList(new Vector3D(1.0, 0.0, 0.0), new Vector3D(0.0, 2.0, 1.0)));
+        CoordinateBuffer copy = buffer.copy();
+        buffer.transform(new Transform3D(
+                0.0, -1.0, 0.0, 10.0,
+                1.0, 0.0, 0.0, 0.0,
+                0.0, 0.0, 1.0, 0.0));
+
+        List<Vector3D> points = buffer.toList();
+        assertTrue(points.get(0).equalsVector(new Vector3D(10.0, 1.0, 0.0)));
+        assertTrue(points.get(1).equalsVector(new Vector3D(8.0, 0.0, 1.0)));
+        // copy keeps its own coordinates
+        assertEquals(1.0, copy.getX(0));
+        assertEquals(2.0, copy.getY(1));
+    }
+}
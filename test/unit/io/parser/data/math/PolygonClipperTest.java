@@ -0,0 +1,107 @@
+package io.parser.data.math;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.PolygonClipper;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link PolygonClipper} class.
+ */
+public class PolygonClipperTest {
+
+    @Test
+    public void testDifferenceHole() {
+        List<List<Vector3D>> result = PolygonClipper.clip(rings(square(0, 0, 10)), rings(square(4, 4, 2)),
+                PolygonClipper.Operation.DIFFERENCE);
+        assertEquals(2, result.size());
+        assertEquals(96.0, area(result), 1e-9);
+        for (List<Vector3D> ring : result) {
+            assertTrue(ring.get(0).equalsVector(ring.get(ring.size() - 1)));
+        }
+    }
+
+    @Test
+    public void testOverlappingSquares() {
+        List<List<Vector3D>> a = rings(square(0, 0, 10));
+        List<List<Vector3D>> b = rings(square(5, 5, 10));
+        assertEquals(75.0, area(PolygonClipper.clip(a, b, PolygonClipper.Operation.DIFFERENCE)), 1e-9);
+        assertEquals(25.0, area(PolygonClipper.clip(a, b, PolygonClipper.Operation.INTERSECTION)), 1e-9);
+        assertEquals(175.0, area(PolygonClipper.clip(a, b, PolygonClipper.Operation.UNION)), 1e-9);
+    }
+
+    @Test
+    public void testUnionSharedEdge() {
+        List<List<Vector3D>> result = PolygonClipper.clip(rings(square(0, 0, 10)), rings(square(10, 0, 10)),
+                PolygonClipper.Operation.UNION);
+        assertEquals(1, result.size());
+        // collinear points at shared edge are removed
+        assertEquals(5, result.get(0).size());
+        assertEquals(200.0, area(result), 1e-9);
+    }
+
+    @Test
+    public void testUnionOverlappingRings() {
+        // projected faces of a box, side faces are degenerated to lines
+        List<List<Vector3D>> faces = new ArrayList<>();
+        faces.add(square(0, 0, 5));
+        faces.add(square(0, 0, 5));
+        faces.add(Arrays.asList(new Vector3D(0, 0, 0), new Vector3D(5, 0, 0), new Vector3D(5, 0, 1),
+                new Vector3D(0, 0, 1)));
+        faces.add(square(3, 3, 4));
+        List<List<Vector3D>> result = PolygonClipper.union(faces);
+        assertEquals(1, result.size());
+        assertEquals(25.0 + 16.0 - 4.0, area(result), 1e-9);
+    }
+
+    @Test
+    public void testNonZeroWinding() {
+        // square with clockwise hole overlapped by second square covering part of the hole
+        List<Vector3D> hole = new ArrayList<>(square(2, 2, 4));
+        Collections.reverse(hole);
+        List<List<Vector3D>> rings = Arrays.asList(square(0, 0, 8), hole, square(5, 0, 8));
+        List<List<Vector3D>> result = PolygonClipper.clip(rings, PolygonClipper.FillRule.NONZERO,
+                Collections.emptyList(), PolygonClipper.FillRule.NONZERO, PolygonClipper.Operation.UNION);
+        assertEquals(2, result.size());
+        assertEquals(104.0 - 12.0, area(result), 1e-9);
+    }
+
+    @Test
+    public void testDifferenceNoOverlap() {
+        List<List<Vector3D>> result = PolygonClipper.clip(rings(square(0, 0, 5)), rings(square(10, 10, 5)),
+                PolygonClipper.Operation.DIFFERENCE);
+        assertEquals(1, result.size());
+        assertEquals(25.0, area(result), 1e-9);
+        assertTrue(PolygonClipper.clip(rings(square(0, 0, 5)), Collections.emptyList(),
+                PolygonClipper.Operation.INTERSECTION).isEmpty());
+    }
+
+    private static List<List<Vector3D>> rings(List<Vector3D> ring) {
+        return Collections.singletonList(ring);
+    }
+
+    private static List<Vector3D> square(double x, double y, double size) {
+        return Arrays.asList(new Vector3D(x, y, 0), new Vector3D(x + size, y, 0), new Vector3D(x + size, y + size, 0),
+                new Vector3D(x, y + size, 0));
+    }
+
+    /**
+     * Signed area of all rings, holes are clockwise and reduce the area
+     */
+    private static double area(List<List<Vector3D>> rings) {
+        double area = 0.0;
+        for (List<Vector3D> ring : rings) {
+            for (int i = 0; i + 1 < ring.size(); i++) {
+                area += ring.get(i).getX() * ring.get(i + 1).getY() - ring.get(i + 1).getX() * ring.get(i).getY();
+            }
+        }
+        return area / 2.0;
+    }
+}
@@ -0,0 +1,96 @@
+package io.parser.data.math;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.ParserMath;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests of {@link Transform3D} class.
+ */
+public class Transform3DTest {
+    /**
+     * Setup test
+     */
+    Transform3D rotationZ = new Transform3D(ParserMath.getRotationMatrixZ(Math.PI / 2.0), new Vector3D(1.0, 2.0, 3.0));
+
+    Transform3D transform1 = new Transform3D(
+            1.2, 5.4, 7.1, 4.0,
+            3.0, 4.2, 9.2, -2.5,
+            10.1, 6.23, 9.0, 0.5);
+
+    @Test
+    public void testTransform() {
+        Vector3D v = new Vector3D(1.0, 0.0, 0.0);
+        rotationZ.transform(v);
+        assertEquals(1.0, v.getX(), 0.005);
+        assertEquals(3.0, v.getY(), 0.005);
+        assertEquals(3.0, v.getZ(), 0.005);
+
+        Vector3D v1 = new Vector3D(2.1, 3.1, 9.4);
+        transform1.transform(v1);
+        assertEquals(90.0, v1.getX(), 0.005);
+        assertEquals(103.3, v1.getY(), 0.005);
+        assertEquals(125.623, v1.getZ(), 0.005);
+    }
+
+    @Test
+    public void testTransformBatch() {
+        List<Vector3D> points = Arrays.asList(new Vector3D(1.0, 0.0, 0.0), new Vector3D(2.1, 3.1, 9.4));
+        transform1.transform(points);
+
+        double[] coordinates = {-1.0, 1.0, 0.0, 2.1, 3.1, 9.4};
+        transform1.transform(coordinates, 3, 1);
+        assertArrayEquals(new double[]{-1.0, 1.0, 0.0}, Arrays.copyOf(coordinates, 3));
+        assertEquals(points.get(1).getX(), coordinates[3], 1e-12);
+        assertEquals(points.get(1).getY(), coordinates[4], 1e-12);
+        assertEquals(points.get(1).getZ(), coordinates[5], 1e-12);
+        assertEquals(5.2, points.get(0).getX(), 0.005);
+    }
+
+    @Test
+    public void testCompose() {
+        Transform3D t = Transform3D.scale(0.001);
+        t.compose(rotationZ);
+
+        Vector3D v = new Vector3D(1000.0, 0.0, 0.0);
+        t.transform(v);
+        assertEquals(0.001, v.getX(), 1e-9);
+        assertEquals(1.002, v.getY(), 1e-9);
+        assertEquals(0.003, v.getZ(), 1e-9);
+
+        Vector3D expected = new Vector3D(2.1, 3.1, 9.4);
+        rotationZ.transform(expected);
+        transform1.transform(expected);
+        Transform3D t1 = new Transform3D(transform1);
+        t1.compose(rotationZ);
+        Vector3D v1 = new Vector3D(2.1, 3.1, 9.4);
+        t1.transform(v1);
+        assertEquals(expected.getX(), v1.getX(), 1e-9);
+        assertEquals(expected.getY(), v1.getY(), 1e-9);
+        assertEquals(expected.getZ(), v1.getZ(), 1e-9);
+    }
+
+    @Test
+    public void testInvert() {
+        Transform3D t = new Transform3D(transform1);
+        t.invert();
+        Vector3D v = new Vector3D(2.1, 3.1, 9.4);
+        transform1.transform(v);
+        t.transform(v);
+        assertEquals(2.1, v.getX(), 1e-9);
+        assertEquals(3.1, v.getY(), 1e-9);
+        assertEquals(9.4, v.getZ(), 1e-9);
+
+        t.compose(transform1);
+        assertEquals(1.0, t.getLinear().getM00(), 1e-9);
+        assertEquals(0.0, t.getLinear().getM01(), 1e-9);
+        assertEquals(0.0, t.getTranslation().getZ(), 1e-9);
+    }
+}
@@ -0,0 +1,89 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.optimizer;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.optimizer.CommentStrippingInputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests of {@link CommentStrippingInputStream} class.
+ */
+public class CommentStrippingInputStreamTest {
+
+    @Test
+    public void testSingleLineComments() {
+        assertEquals("#1=IFCOWNERHISTORY(#5263,#3287,$);\n",
+                strip("#1=IFCOWNERHISTORY(/*test*/#5263,#3287,$);\n"));
+        assertEquals("#1=IFCX(#2,#3);", strip("#1=IFCX(/**/#2,/* a */#3);"));
+    }
+
+    @Test
+    public void testMultiLineComments() {
+        assertEquals("HEADER;\n\nFILE_SCHEMA(('IFC4'));\n",
+                strip("HEADER;\n/* first line\n second line **/\nFILE_SCHEMA(('IFC4'));\n"));
+    }
+
+    @Test
+    public void testQuotedStrings() {
+        assertEquals("#1=IFCLABEL('/* no comment */');", strip("#1=IFCLABEL('/* no comment */');"));
+        assertEquals("#1=IFCLABEL('it''s /* kept */');", strip("#1=IFCLABEL('it''s /* kept */');"));
+        assertEquals("#1=IFCX('a',#2);", strip("#1=IFCX('a'/*'*/,#2);"));
+    }
+
+    @Test
+    public void testSlashes() {
+        assertEquals("a/b//c/", strip("a/b//c/"));
+        assertEquals("*/test*/", strip("*/test*/"));
+        assertEquals("/", strip("//* comment */"));
+    }
+
+    @Test
+    public void testBufferBoundaries() {
+        String input = "#1=IFCX(/* comment spanning buffers */#2,'/*s*/');\n/*\n*/#3=IFCY();";
+        String expected = "#1=IFCX(#2,'/*s*/');\n#3=IFCY();";
+        for (int bufferSize = 1; bufferSize < 8; bufferSize++) {
+            assertEquals(expected, strip(input, bufferSize), "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testSingleByteReads() throws IOException {
+        String input = "#1=IFCX(/* c */#2,'/*s*/');/";
+        InputStream source = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new CommentStrippingInputStream(Channels.newChannel(source), 4)) {
+            StringBuilder out = new StringBuilder();
+            int c;
+            while ((c = in.read()) != -1) {
+                out.append((char) c);
+            }
+            assertEquals("#1=IFCX(#2,'/*s*/');/", out.toString());
+        }
+    }
+
+    private String strip(String input) {
+        return strip(input, 1024);
+    }
+
+    private String strip(String input, int bufferSize) {
+        InputStream source = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new CommentStrippingInputStream(Channels.newChannel(source), bufferSize)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[3];
+            int n;
+            while ((n = in.read(chunk, 0, chunk.length)) != -1) {
+                out.write(chunk, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
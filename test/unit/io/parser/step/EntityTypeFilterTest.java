@@ -0,0 +1,71 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.IfcModelLoader;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.EntityTypeFilter;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link EntityTypeFilter} class.
+ */
+public class EntityTypeFilterTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link EntityTypeFilter#reachableFrom} method using import types of IFC2X3 and IFC4 schema.
+     */
+    @Test
+    public void testReachableFrom() throws IOException {
+        for (String schemaFile : Arrays.asList("resources/IFC2X3_TC1.exp", "resources/IFC4.exp")) {
+            ExpressSchema schema = ExpressSchema.parse(Paths.get(schemaFile));
+            EntityTypeFilter filter = IfcModelLoader.getImportTypeFilter(schema);
+
+            for (String type : Arrays.asList("IfcWallStandardCase", "IfcBuildingStorey", "IfcLocalPlacement",
+                    "IfcAxis2Placement3D", "IfcCartesianPoint", "IfcPolyline", "IfcExtrudedAreaSolid", "IfcSIUnit",
+                    "IfcRelContainedInSpatialStructure", "IfcRelVoidsElement")) {
+                assertTrue(filter.accepts(schema.getEntity(type)), type + " in " + schemaFile);
+            }
+            for (String type : Arrays.asList("IfcOwnerHistory", "IfcPropertySet",
+                    "IfcPropertySingleValue", "IfcStyledItem")) {
+                assertFalse(filter.accepts(schema.getEntity(type)), type + " in " + schemaFile);
+            }
+        }
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method using a filter.
+     */
+    @Test
+    public void testLoadFiltered() throws IOException {
+        Path file = Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc");
+        ExpressSchema schema = ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp"));
+        StepModel model = StepModel.load(file, schema, 1, IfcModelLoader.getImportTypeFilter(schema));
+
+        assertTrue(model.size() < 7896);
+        assertEquals(114, model.getInstancesOfType("IfcWallStandardCase").size());
+        assertEquals(5, model.getInstancesOfType("IfcBuildingStorey").size());
+        assertTrue(model.getInstancesOfType("IfcOwnerHistory").isEmpty());
+
+        IfcEntity wall = model.getInstance(67);
+        assertNull(wall.getAttributeValueBNasEntityInstance("OwnerHistory"));
+        IfcEntity location = wall.getAttributeValueBNasEntityInstance("ObjectPlacement")
+                .getAttributeValueBNasEntityInstance("RelativePlacement")
+                .getAttributeValueBNasEntityInstance("Location");
+        assertEquals(Arrays.asList("5190.0", "22410.000059", "0.0"), location.getAttributeValueBN("Coordinates"));
+    }
+}
@@ -0,0 +1,103 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepHeader;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepHeaderReader;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link StepHeaderReader} class.
+ */
+public class StepHeaderReaderTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link StepHeaderReader#read} method using test files.
+     */
+    @Test
+    public void testReadTestFiles() throws IOException {
+        assertEquals(IfcSchema.IFC2X3, readSchema("test2_IFC2X3_TC1.ifc"));
+        assertEquals(IfcSchema.IFC2X3, readSchema("test2_IFC2X3_TC1_BC.ifc"));
+        assertEquals(IfcSchema.IFC4, readSchema("test1_IFC4.ifc"));
+        assertEquals(IfcSchema.IFC4, readSchema("test4_IFC4.ifc"));
+        assertEquals(IfcSchema.IFC4X2, readSchema("test1_IFC4X2.ifc"));
+        assertEquals(IfcSchema.IFC4X3, readSchema("test1_IFC4X3.ifc"));
+        assertFalse(IfcSchema.IFC4X3.isSupported());
+    }
+
+    /**
+     * Test case for {@link StepHeaderReader#read} method with header entries spread over several lines.
+     */
+    @Test
+    public void testReadMultiLineHeader() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_NAME('DATA;','FILE_SCHEMA',());\nFILE_SCHEMA\n(\n (\n"
+                + "  'IFC4X1' /* comment */\n )\n);\nENDSEC;\nDATA;\n#1=IFCPERSON($,$,'',$,$,$,$,$);\n";
+        StepHeader header = StepHeaderReader.read(createTempFile(content));
+        assertEquals(Arrays.asList("IFC4X1"), header.getSchemaIdentifiers());
+        assertEquals(IfcSchema.IFC4X1, header.getSchema());
+        assertEquals(content.indexOf("\n#1="), header.getDataOffset());
+    }
+
+    /**
+     * Test case for {@link StepHeaderReader#read} method with header not fitting into initial window.
+     */
+    @Test
+    public void testReadLargeHeader() throws IOException {
+        StringBuilder content = new StringBuilder("ISO-10303-21;\nHEADER;\nFILE_DESCRIPTION(('");
+        for (int i = 0; i < 10000; i++) content.append('x');
+        content.append("'),'2;1');\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\nENDSEC;\nEND-ISO-10303-21;\n");
+        StepHeader header = StepHeaderReader.read(createTempFile(content.toString()));
+        assertEquals(IfcSchema.IFC2X3, header.getSchema());
+        assertTrue(header.getDataOffset() > 10000);
+    }
+
+    /**
+     * Test case for {@link StepHeaderReader#read} method with missing or unknown schema.
+     */
+    @Test
+    public void testReadMalformedHeader() throws IOException {
+        StepHeader header = StepHeaderReader.read(createTempFile("ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('CIS2'));\n"));
+        assertNull(header.getSchema());
+        assertEquals(-1, header.getDataOffset());
+        assertNull(StepHeaderReader.read(createTempFile("")).getSchema());
+    }
+
+    /**
+     * Test case for {@link IfcSchema#fromIdentifier} method.
+     */
+    @Test
+    public void testSchemaIdentifiers() {
+        assertEquals(IfcSchema.IFC2X3, IfcSchema.fromIdentifier("IFC2X3_TC1"));
+        assertEquals(IfcSchema.IFC4, IfcSchema.fromIdentifier("ifc4"));
+        assertEquals(IfcSchema.IFC4, IfcSchema.fromIdentifier("IFC4_ADD2_TC1"));
+        assertEquals(IfcSchema.IFC4X3, IfcSchema.fromIdentifier("IFC4X3_ADD2"));
+        assertEquals(IfcSchema.IFC4, IfcSchema.fromIdentifier("IFC4 {1 0 10303 11 1 0 4}"));
+        assertNull(IfcSchema.fromIdentifier("IFC4X9"));
+    }
+
+    private IfcSchema readSchema(String filename) throws IOException {
+        return StepHeaderReader.read(Paths.get(resourcePathDir, filename)).getSchema();
+    }
+
+    private Path createTempFile(String content) throws IOException {
+        Path file = Files.createTempFile("header", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
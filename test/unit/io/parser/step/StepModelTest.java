@@ -0,0 +1,297 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.step;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link StepModel} class.
+ */
+public class StepModelTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link StepModel#load} method using IFC2X3 test file.
+     */
+    @Test
+    public void testLoadIfc2x3() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+
+        assertEquals(7896, model.size());
+        assertEquals(114, model.getInstancesOfType("IfcWallStandardCase").size());
+        assertEquals(5, model.getInstancesOfType("IFCBUILDINGSTOREY").size());
+        // exact type match only
+        assertTrue(model.getInstancesOfType("IfcWall").isEmpty());
+
+        IfcEntity wall = model.getInstance(67);
+        assertEquals("IfcWallStandardCase", wall.getTypeName());
+        assertEquals("'Foundation'", wall.getAttributeValueBN("Name"));
+        assertNull(wall.getAttributeValueBN("Description"));
+        assertSame(model.getInstance(1), wall.getAttributeValueBNasEntityInstance("OwnerHistory"));
+
+        IfcEntity location = wall.getAttributeValueBNasEntityInstance("ObjectPlacement")
+                .getAttributeValueBNasEntityInstance("RelativePlacement")
+                .getAttributeValueBNasEntityInstance("Location");
+        assertEquals(Arrays.asList("5190.0", "22410.000059", "0.0"), location.getAttributeValueBN("Coordinates"));
+
+        IfcEntity storey = model.getInstance(1069);
+        assertEquals(".ELEMENT.", storey.getAttributeValueBN("CompositionType"));
+        assertEquals("-800.0", storey.getAttributeValueBN("Elevation"));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method using IFC4 test file.
+     */
+    @Test
+    public void testLoadIfc4() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test1_IFC4.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC4.exp")));
+
+        assertEquals(44249, model.size());
+        IfcEntity slab = model.getInstance(34509);
+        assertEquals("IfcSlab", slab.getTypeName());
+        assertEquals("'Bodenplatte'", slab.getAttributeValueBN("Name"));
+        assertEquals(".BASESLAB.", slab.getAttributeValueBN("PredefinedType"));
+        assertTrue(model.getInstancesOfType("IfcSlab").contains(slab));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method indexing chunks of the file in parallel.
+     */
+    @Test
+    public void testLoadParallel() throws IOException {
+        Path file = Paths.get(resourcePathDir + "test1_IFC4.ifc");
+        ExpressSchema schema = ExpressSchema.parse(Paths.get("resources/IFC4.exp"));
+        StepModel sequential = StepModel.load(file, schema);
+        StepModel parallel = StepModel.load(file, schema, 4, null);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (StepEntity entity : sequential.getInstances()) {
+            IfcEntity other = parallel.getInstance(entity.getId());
+            assertEquals(entity.getTypeName(), other.getTypeName());
+            assertEquals(sequential.getInstancesOfType(entity.getTypeName()).size(),
+                    parallel.getInstancesOfType(entity.getTypeName()).size());
+        }
+        IfcEntity slab = parallel.getInstance(34509);
+        assertSame(parallel.getInstance(34464), slab.getAttributeValueBNasEntityInstance("ObjectPlacement"));
+        assertEquals(sequential.getInstance(34509).getAttributeValueBN("Tag"), slab.getAttributeValueBN("Tag"));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method splitting data with record-like text in strings and comments.
+     */
+    @Test
+    public void testLoadParallelQuotedRecords() throws IOException {
+        StringBuilder content = new StringBuilder("ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n");
+        int count = 100000;
+        for (int i = 1; i <= count; i++) {
+            content.append('#').append(i).append("=IFCORGANIZATION($,'name;#").append(i + 1)
+                    .append("=IFCWALL(x',$,$,$);").append(i % 10 == 0 ? "/* ;#1=IFCWALL('; */\n" : "\n");
+        }
+        content.append("ENDSEC;\nEND-ISO-10303-21;\n");
+        ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        ExpressSchema schema = ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp"));
+
+        StepModel parallel = StepModel.load(buffer, schema, 4, null);
+        assertEquals(count, parallel.size());
+        assertEquals(count, parallel.getInstancesOfType("IfcOrganization").size());
+        assertEquals("'name;#" + (count / 2 + 1) + "=IFCWALL(x'", parallel.getInstance(count / 2).getAttributeValueBN("Name"));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method splitting data with strings and comments spanning lines and
+     * records of duplicate ids.
+     */
+    @Test
+    public void testLoadParallelMultiLineRecords() throws IOException {
+        StringBuilder content = new StringBuilder("ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n");
+        int count = 100000;
+        for (int i = 1; i <= count; i++) {
+            content.append('#').append(i).append("=IFCORGANIZATION($,");
+            if (i % 7 == 0) {
+                content.append("'name\n;\n#").append(i + 1).append("=IFCWALL(x'");
+            } else {
+                content.append("'name'");
+            }
+            content.append(",$,$,$);\n").append(i % 10 == 0 ? "/*\n;\n#1=IFCWALL('\n*/\n" : "");
+        }
+        // later records of same id are skipped
+        content.append("#7=IFCWALL($,$,$,$,$,$,$,$);\n#").append(count / 2).append("=IFCWALL($,$,$,$,$,$,$,$);\n");
+        content.append("ENDSEC;\nEND-ISO-10303-21;\n");
+        ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        ExpressSchema schema = ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp"));
+
+        StepModel parallel = StepModel.load(buffer, schema, 4, null);
+        assertEquals(count, parallel.size());
+        assertEquals(count, parallel.getInstancesOfType("IfcOrganization").size());
+        assertTrue(parallel.getInstancesOfType("IfcWall").isEmpty());
+        assertEquals("'name\n;\n#8=IFCWALL(x'", parallel.getInstance(7).getAttributeValueBN("Name"));
+        List<IfcEntity> organizations = parallel.getInstancesOfType("IfcOrganization");
+        for (int i = 0; i < count; i++) {
+            assertEquals(i + 1, organizations.get(i).getId());
+        }
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method with comments, typed values and unsupported records.
+     */
+    @Test
+    public void testLoadSpecialRecords() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "/* comment #9=IFCCARTESIANPOINT((0.,0.,0.)); */\n"
+                + "#1=IFCCARTESIANPOINT((1.,2.,3.));\n"
+                + "#2=IFCUNKNOWNTYPE(#1);\n"
+                + "#3=IFCPROPERTYSINGLEVALUE('Name',$,IFCLABEL('It''s'),$);\n"
+                + "#4=(IFCNAMEDUNIT(*,.LENGTHUNIT.)IFCSIUNIT($,.MILLI.,.METRE.));\n"
+                + "#5=IFCCARTESIANPOINT((4.,5.,6.);\n"
+                + "#6=IFCPOLYLINE((#1,#7));\n"
+                + "#7=IFCCARTESIANPOINT((7.,8.));\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = StepModel.load(createTempFile(content),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+
+        assertEquals(4, model.size());
+        assertNull(model.getInstance(2));
+        assertNull(model.getInstance(4));
+        assertNull(model.getInstance(9));
+        assertEquals("'It''s'", model.getInstance(3).getAttributeValueBN("NominalValue"));
+
+        List<IfcEntity> points = model.getInstance(6).getAttributeValueBNasEntityInstanceList("Points");
+        assertEquals(Arrays.asList(model.getInstance(1), model.getInstance(7)), points);
+        assertEquals(Arrays.asList("7.0", "8.0"), points.get(1).getAttributeValueBN("Coordinates"));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method checking that parameters are decoded on first access only.
+     */
+    @Test
+    public void testLazyDecoding() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINT((1.,2.,3.));\n"
+                + "#2=IFCPROPERTYSINGLEVALUE('a);(b',/* ; */$,IFCLABEL(''),$);\n"
+                + "#3=IFCPOLYLINE((#1,#1));\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = StepModel.load(createTempFile(content),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+
+        assertEquals(3, model.size());
+        for (StepEntity entity : model.getInstances()) {
+            assertFalse(entity.isDecoded());
+        }
+
+        StepEntity polyline = (StepEntity) model.getInstance(3);
+        assertEquals(2, polyline.getAttributeValueBNasEntityInstanceList("Points").size());
+        assertTrue(polyline.isDecoded());
+        assertFalse(((StepEntity) model.getInstance(1)).isDecoded());
+
+        assertEquals("'a);(b'", model.getInstance(2).getAttributeValueBN("Name"));
+        assertEquals("''", model.getInstance(2).getAttributeValueBN("NominalValue"));
+    }
+
+    /**
+     * Test case for {@link StepEntity#getAttributeValueBNasDouble} and
+     * {@link StepEntity#getAttributeValueBNasDoubleArray} methods.
+     */
+    @Test
+    public void testNumericAttributes() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINT((0.,-2.5E-3,22410.000059));\n"
+                + "#2=IFCDIRECTION((1.,0.1234567890123456789));\n"
+                + "#3=IFCBUILDINGSTOREY('id',$,$,$,$,$,$,$,.ELEMENT.,-800.);\n"
+                + "#4=IFCRECTANGLEPROFILEDEF(.AREA.,$,$,5,1.E2);\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = StepModel.load(createTempFile(content),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+
+        double[] coordinates = model.getInstance(1).getAttributeValueBNasDoubleArray("Coordinates");
+        assertArrayEquals(new double[]{0.0, -0.0025, 22410.000059}, coordinates);
+        assertSame(coordinates, model.getInstance(1).getAttributeValueBNasDoubleArray("Coordinates"));
+        assertEquals(Arrays.asList("0.0", "-0.0025", "22410.000059"), model.getInstance(1).getAttributeValueBN("Coordinates"));
+        assertArrayEquals(new double[]{1.0, 0.1234567890123456789},
+                model.getInstance(2).getAttributeValueBNasDoubleArray("DirectionRatios"));
+
+        assertEquals(-800.0, model.getInstance(3).getAttributeValueBNasDouble("Elevation"));
+        assertTrue(Double.isNaN(model.getInstance(3).getAttributeValueBNasDouble("LongName")));
+        assertTrue(Double.isNaN(model.getInstance(3).getAttributeValueBNasDouble("CompositionType")));
+        assertNull(model.getInstance(3).getAttributeValueBNasDoubleArray("Elevation"));
+
+        assertEquals(5.0, model.getInstance(4).getAttributeValueBNasDouble("XDim"));
+        assertEquals(100.0, model.getInstance(4).getAttributeValueBNasDouble("YDim"));
+    }
+
+    /**
+     * Test case for {@link StepEntity#getAttributeValueBNasIntArray}, {@link StepEntity#getAttributeValueBNasIntArrayList}
+     * and {@link StepEntity#getAttributeValueBNasDoubleArrayList} methods.
+     */
+    @Test
+    public void testIndexedAttributes() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC4'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINTLIST3D(((0.,0.,0.),(1.,0.,0.),(0.,1.,0.)));\n"
+                + "#2=IFCTRIANGULATEDFACESET(#1,$,.T.,((1,2,3),(3,2,1)),(1,2,3));\n"
+                + "#3=IFCDIRECTION((0,1,0));\n"
+                + "#4=IFCDIRECTION((1,2.5,0.));\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = StepModel.load(createTempFile(content),
+                ExpressSchema.parse(Paths.get("resources/IFC4.exp")));
+
+        List<double[]> coordList = model.getInstance(1).getAttributeValueBNasDoubleArrayList("CoordList");
+        assertEquals(3, coordList.size());
+        assertArrayEquals(new double[]{1.0, 0.0, 0.0}, coordList.get(1));
+        assertNull(model.getInstance(1).getAttributeValueBNasIntArrayList("CoordList"));
+
+        IfcEntity faceSet = model.getInstance(2);
+        List<int[]> coordIndex = faceSet.getAttributeValueBNasIntArrayList("CoordIndex");
+        assertEquals(2, coordIndex.size());
+        assertArrayEquals(new int[]{3, 2, 1}, coordIndex.get(1));
+        assertArrayEquals(new int[]{1, 2, 3}, faceSet.getAttributeValueBNasIntArray("NormalIndex"));
+        assertNull(faceSet.getAttributeValueBNasIntArray("CoordIndex"));
+        assertEquals(Arrays.asList(Arrays.asList("1", "2", "3"), Arrays.asList("3", "2", "1")),
+                faceSet.getAttributeValueBN("CoordIndex"));
+
+        // integer and mixed aggregates of numeric attributes
+        assertArrayEquals(new double[]{0.0, 1.0, 0.0}, model.getInstance(3).getAttributeValueBNasDoubleArray("DirectionRatios"));
+        assertEquals(Arrays.asList("1", "2.5", "0.0"), model.getInstance(4).getAttributeValueBN("DirectionRatios"));
+        assertArrayEquals(new double[]{1.0, 2.5, 0.0}, model.getInstance(4).getAttributeValueBNasDoubleArray("DirectionRatios"));
+        assertNull(model.getInstance(4).getAttributeValueBNasIntArray("DirectionRatios"));
+    }
+
+    /**
+     * Test case for {@link StepModel#load} method with file missing DATA section.
+     */
+    @Test
+    public void testLoadMissingDataSection() throws IOException {
+        Path file = createTempFile("ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC4'));\nENDSEC;\n");
+        ExpressSchema schema = ExpressSchema.parse(Paths.get("resources/IFC4.exp"));
+        assertThrows(IOException.class, () -> StepModel.load(file, schema));
+    }
+
+    private static Path createTempFile(String content) throws IOException {
+        Path file = Files.createTempFile("stepModelTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+        return file;
+    }
+}
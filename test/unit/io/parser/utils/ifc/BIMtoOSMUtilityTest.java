@@ -0,0 +1,121 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.model.BIMtoOSMCatalog;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.BIMObject3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.CoordinateBuffer;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BIMtoOSMUtility;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BrepFootprint;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.GeometryCache;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.PlacementCache;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link BIMtoOSMUtility} class.
+ */
+public class BIMtoOSMUtilityTest {
+
+    private static final int TIMING_REPETITIONS = 20;
+    private static final int TIMING_ROUNDS = 5;
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link BIMtoOSMUtility#transformBIMObjects} method transforming products in parallel
+     * using IFC2X3 test file.
+     */
+    @Test
+    public void testTransformBIMObjectsParallel() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        assertTrue(model.isThreadSafe());
+        List<IfcEntity> walls = model.getInstancesOfType("IfcWallStandardCase");
+
+        BrepFootprint.Configuration faces = new BrepFootprint.Configuration(BrepFootprint.Mode.FACES, 0.0);
+        List<BIMObject3D> expected = BIMtoOSMUtility.transformBIMObjects(model, new PlacementCache(), new GeometryCache(),
+                BIMtoOSMUtility.GeometrySolution.BODY, faces, BIMtoOSMCatalog.BIMObject.IfcWall, walls);
+        assertTrue(expected.size() > 1);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<BIMObject3D> actual = BIMtoOSMUtility.transformBIMObjects(model, new PlacementCache(), new GeometryCache(),
+                    BIMtoOSMUtility.GeometrySolution.BODY, faces, BIMtoOSMCatalog.BIMObject.IfcWall, walls, pool);
+
+            // same objects in same order
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getId(), actual.get(i).getId());
+                PolygonGeometry expectedGeometry = expected.get(i).getCartesianGeometry();
+                PolygonGeometry actualGeometry = actual.get(i).getCartesianGeometry();
+                assertEquals(expectedGeometry.getPartCount(), actualGeometry.getPartCount());
+                for (int j = 0; j < expectedGeometry.getPartCount(); j++) {
+                    assertEquals(expectedGeometry.getPartType(j), actualGeometry.getPartType(j));
+                    assertEquals(expectedGeometry.getPartStart(j), actualGeometry.getPartStart(j));
+                }
+                CoordinateBuffer expectedPoints = expectedGeometry.getPoints();
+                CoordinateBuffer actualPoints = actualGeometry.getPoints();
+                assertEquals(expectedPoints.size(), actualPoints.size());
+                for (int j = 0; j < expectedPoints.size(); j++) {
+                    assertTrue(expectedPoints.get(j).equalsVector(actualPoints.get(j)));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test case for {@link BIMtoOSMUtility#transformBIMObjects} method, transforming products in parallel takes
+     * less time than transforming them sequentially if several processors are available. Geometry is not cached,
+     * so threads do not share any mutable state. Best of several rounds is compared to reduce noise.
+     */
+    @Test
+    public void testTransformBIMObjectsParallelTiming() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        List<IfcEntity> walls = new ArrayList<>();
+        for (int i = 0; i < TIMING_REPETITIONS; i++) walls.addAll(model.getInstancesOfType("IfcWallStandardCase"));
+        PlacementCache placements = new PlacementCache();
+        BrepFootprint.Configuration faces = new BrepFootprint.Configuration(BrepFootprint.Mode.FACES, 0.0);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, processors));
+        try {
+            long sequential = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            for (int round = 0; round < TIMING_ROUNDS; round++) {
+                long start = System.nanoTime();
+                List<BIMObject3D> expected = BIMtoOSMUtility.transformBIMObjects(model, placements, new GeometryCache(0),
+                        BIMtoOSMUtility.GeometrySolution.BODY, faces, BIMtoOSMCatalog.BIMObject.IfcWall, walls, null);
+                sequential = Math.min(sequential, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                List<BIMObject3D> actual = BIMtoOSMUtility.transformBIMObjects(model, placements, new GeometryCache(0),
+                        BIMtoOSMUtility.GeometrySolution.BODY, faces, BIMtoOSMCatalog.BIMObject.IfcWall, walls, pool);
+                parallel = Math.min(parallel, System.nanoTime() - start);
+                assertEquals(expected.size(), actual.size());
+            }
+            System.out.printf("transformBIMObjects of %d products: sequential %.1f ms, parallel %.1f ms on %d processor(s)%n",
+                    walls.size(), sequential / 1e6, parallel / 1e6, processors);
+
+            // threads share a single processor otherwise
+            if (processors > 1) assertTrue(parallel < sequential, "parallel transformation is not faster");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
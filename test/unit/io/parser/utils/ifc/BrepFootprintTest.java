@@ -0,0 +1,119 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BrepFootprint;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests of {@link BrepFootprint} class.
+ */
+public class BrepFootprintTest {
+
+    /** square 10 x 10 with hole 4 x 4 */
+    private final List<List<Vector3D>> tube = Arrays.asList(
+            ring(0, 0, 10, 0, 10, 10, 0, 10),
+            ring(3, 3, 3, 7, 7, 7, 7, 3));
+
+    /** L-shaped outline */
+    private final List<List<Vector3D>> corner = Collections.singletonList(
+            ring(0, 0, 6, 0, 6, 2, 2, 2, 2, 6, 0, 6));
+
+    @Test
+    public void testCutPlane() {
+        List<List<Vector3D>> footprint = new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 1.0).getFootprint(prism(tube, 0.0, 3.0));
+        assertEquals(2, footprint.size());
+        assertEquals(84.0, area(footprint), 1e-9);
+        footprint.forEach(r -> r.forEach(p -> assertEquals(1.0, p.getZ(), 1e-9)));
+
+        footprint = new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 2.5).getFootprint(prism(corner, 0.0, 3.0));
+        assertEquals(1, footprint.size());
+        assertEquals(7, footprint.get(0).size());
+        assertEquals(20.0, area(footprint), 1e-9);
+    }
+
+    @Test
+    public void testCutPlaneMissingSolid() {
+        // plane above solid falls back to projection
+        List<List<Vector3D>> footprint = new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 5.0).getFootprint(prism(tube, 0.0, 0.3));
+        assertEquals(2, footprint.size());
+        assertEquals(84.0, area(footprint), 1e-9);
+
+        // plane touching top face does not cut
+        footprint = new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 0.3).getFootprint(prism(corner, 0.0, 0.3));
+        assertEquals(20.0, area(footprint), 1e-9);
+    }
+
+    @Test
+    public void testProjection() {
+        List<List<Vector3D>> footprint = BrepFootprint.projection().getFootprint(prism(tube, -1.0, 2.0));
+        assertEquals(2, footprint.size());
+        assertEquals(84.0, area(footprint), 1e-9);
+
+        footprint = BrepFootprint.projection().getFootprint(prism(corner, 0.0, 3.0));
+        assertEquals(1, footprint.size());
+        assertEquals(20.0, area(footprint), 1e-9);
+    }
+
+    @Test
+    public void testInvalidMode() {
+        assertThrows(IllegalArgumentException.class, () -> new BrepFootprint(BrepFootprint.Mode.FACES, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new BrepFootprint(null, 0.0));
+    }
+
+    private static List<Vector3D> ring(double... xy) {
+        List<Vector3D> ring = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) {
+            ring.add(new Vector3D(xy[i], xy[i + 1], 0.0));
+        }
+        return ring;
+    }
+
+    /**
+     * Builds faces of prism with param outline between bottom and top
+     */
+    private static List<List<List<Vector3D>>> prism(List<List<Vector3D>> outline, double bottom, double top) {
+        List<List<List<Vector3D>>> faces = new ArrayList<>();
+        List<List<Vector3D>> bottomFace = new ArrayList<>();
+        List<List<Vector3D>> topFace = new ArrayList<>();
+        for (List<Vector3D> ring : outline) {
+            List<Vector3D> bottomRing = new ArrayList<>();
+            List<Vector3D> topRing = new ArrayList<>();
+            for (int i = 0; i < ring.size(); i++) {
+                Vector3D a = ring.get(i);
+                Vector3D b = ring.get((i + 1) % ring.size());
+                bottomRing.add(new Vector3D(a.getX(), a.getY(), bottom));
+                topRing.add(new Vector3D(a.getX(), a.getY(), top));
+                faces.add(Collections.singletonList(Arrays.asList(
+                        new Vector3D(a.getX(), a.getY(), bottom), new Vector3D(b.getX(), b.getY(), bottom),
+                        new Vector3D(b.getX(), b.getY(), top), new Vector3D(a.getX(), a.getY(), top))));
+            }
+            bottomFace.add(bottomRing);
+            topFace.add(topRing);
+        }
+        faces.add(bottomFace);
+        faces.add(topFace);
+        return faces;
+    }
+
+    /**
+     * Area of rings closed by repeating their first point, holes reduce the area
+     */
+    private static double area(List<List<Vector3D>> rings) {
+        double area = 0.0;
+        for (List<Vector3D> ring : rings) {
+            for (int i = 0; i + 1 < ring.size(); i++) {
+                area += ring.get(i).getX() * ring.get(i + 1).getY() - ring.get(i + 1).getX() * ring.get(i).getY();
+            }
+        }
+        return area / 2.0;
+    }
+}
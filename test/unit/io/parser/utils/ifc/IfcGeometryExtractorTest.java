@@ -0,0 +1,328 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.PolygonGeometry;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcRepresentation;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BIMtoOSMUtility;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.BrepFootprint;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.GeometryCache;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.IfcGeometryExtractor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link IfcGeometryExtractor} class.
+ */
+public class IfcGeometryExtractorTest {
+
+    /**
+     * Test case for {@link IfcGeometryExtractor#getDataFromBodyRepresentation} method instantiating
+     * one IfcRepresentationMap through two IfcMappedItem entities.
+     */
+    @Test
+    public void testMappedItems() throws IOException {
+        StepModel model = loadMappedItems();
+        GeometryCache geometries = new GeometryCache();
+
+        // identity mapping target, geometry moved by mapping origin
+        PolygonGeometry first = BIMtoOSMUtility.getShapeData(model, geometries, model.getInstance(15), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertNotNull(first);
+        assertEquals(5, first.getPointCount());
+        assertVector(0.0, -2.0, 0.0, first.getPoints().get(0));
+        assertVector(2.0, -2.0, 0.0, first.getPoints().get(1));
+        assertEquals(1, geometries.size());
+
+        // mapping target rotated by 90 degrees around z-axis, scaled by 2 and moved by 10 in x
+        PolygonGeometry second = BIMtoOSMUtility.getShapeData(model, geometries, model.getInstance(22), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertNotNull(second);
+        assertEquals(5, second.getPointCount());
+        assertVector(14.0, 0.0, 0.0, second.getPoints().get(0));
+        assertVector(14.0, 4.0, 0.0, second.getPoints().get(1));
+        assertEquals(1, geometries.size());
+
+        // instances do not modify shared geometry
+        assertVector(0.0, -2.0, 0.0, geometries.getMappedGeometry(10).getPoints().get(0));
+    }
+
+    /**
+     * Test case for {@link BIMtoOSMUtility#getShapeData} method extracting the shape shared by two
+     * products once.
+     */
+    @Test
+    public void testSharedRepresentation() throws IOException {
+        StepModel model = loadMappedItems();
+        GeometryCache geometries = new GeometryCache();
+
+        // product shape and its representation item are extracted
+        PolygonGeometry first = BIMtoOSMUtility.getShapeData(model, geometries, model.getInstance(24), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(0, geometries.getHits());
+        assertEquals(2, geometries.getMisses());
+        // product shape is taken from cache, its representations are not identified again
+        PolygonGeometry second = BIMtoOSMUtility.getShapeData(model, geometries, model.getInstance(25), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(1, geometries.getHits());
+        assertEquals(2, geometries.getMisses());
+        assertEquals(1, geometries.shapeCount());
+        assertEquals(1, geometries.itemCount());
+
+        // each product gets its own copy
+        assertEquals(5, second.getPointCount());
+        assertNotSame(first.getPoints(), second.getPoints());
+        first.getPoints().set(0, 100.0, 0.0, 0.0);
+        assertVector(-1.0, -2.0, 0.0, second.getPoints().get(0));
+
+        // cache without capacity extracts on every lookup
+        GeometryCache unbuffered = new GeometryCache(0);
+        BIMtoOSMUtility.getShapeData(model, unbuffered, model.getInstance(24), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        BIMtoOSMUtility.getShapeData(model, unbuffered, model.getInstance(25), BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(0, unbuffered.getHits());
+        assertEquals(4, unbuffered.getMisses());
+        assertEquals(0, unbuffered.shapeCount());
+        assertEquals(0, unbuffered.itemCount());
+    }
+
+    /**
+     * Test case for {@link IfcGeometryExtractor#getDataFromBodyRepresentation} method caching footprints
+     * of IfcFacetedBrep for each cut plane.
+     */
+    @Test
+    public void testBrepFootprintCache() throws IOException {
+        StepModel model = loadBrep();
+        GeometryCache geometries = new GeometryCache();
+        IfcRepresentation body = BIMtoOSMUtility.getIfcRepresentations(model.getInstance(31)).get(0);
+
+        PolygonGeometry first = IfcGeometryExtractor.getDataFromBodyRepresentation(model, geometries, body,
+                new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 1.0));
+        PolygonGeometry second = IfcGeometryExtractor.getDataFromBodyRepresentation(model, geometries, body,
+                new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 1.0));
+        assertEquals(1, geometries.getHits());
+        assertEquals(1, geometries.getMisses());
+        assertEquals(first.getPointCount(), second.getPointCount());
+        assertNotSame(first.getPoints(), second.getPoints());
+
+        // other cut plane and all faces are extracted on their own
+        IfcGeometryExtractor.getDataFromBodyRepresentation(model, geometries, body, new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 2.0));
+        IfcGeometryExtractor.getDataFromBodyRepresentation(model, geometries, body, null);
+        assertEquals(1, geometries.getHits());
+        assertEquals(3, geometries.getMisses());
+        assertEquals(3, geometries.itemCount());
+    }
+
+    /**
+     * Test case for {@link IfcGeometryExtractor#getDataFromBodyRepresentation} method reducing
+     * IfcFacetedBrep to its footprint.
+     */
+    @Test
+    public void testBrepFootprint() throws IOException {
+        StepModel model = loadBrep();
+
+        // one ring for each of 6 faces
+        PolygonGeometry faces = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(31),
+                BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(6, faces.getPartCount());
+        assertEquals(24, faces.getPointCount());
+        for (int i = 0; i < faces.getPartCount(); i++) {
+            assertEquals(PolygonGeometry.PartType.OUTER_RING, faces.getPartType(i));
+            assertEquals(4 * i, faces.getPartStart(i));
+        }
+
+        PolygonGeometry section = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(31),
+                BIMtoOSMUtility.GeometrySolution.BODY, new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 1.0));
+        assertEquals(1, section.getPartCount());
+        assertEquals(PolygonGeometry.PartType.OUTER_RING, section.getPartType(0));
+        List<Vector3D> ring = section.getPart(0);
+        assertEquals(5, ring.size());
+        assertVector(ring.get(0).getX(), ring.get(0).getY(), ring.get(0).getZ(), ring.get(4));
+        for (Vector3D point : ring) {
+            assertEquals(1.0, point.getZ(), 1e-9);
+            assertTrue(point.getX() == 0.0 || point.getX() == 2.0);
+            assertTrue(point.getY() == 0.0 || point.getY() == 4.0);
+        }
+
+        PolygonGeometry projection = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(31),
+                BIMtoOSMUtility.GeometrySolution.BODY, BrepFootprint.projection());
+        assertEquals(1, projection.getPartCount());
+        assertEquals(5, projection.getPointCount());
+    }
+
+    /**
+     * Test case for {@link IfcGeometryExtractor#getDataFromBodyRepresentation} method reading
+     * IfcTriangulatedFaceSet and reducing it to its footprint.
+     */
+    @Test
+    public void testTriangulatedFaceSet() throws IOException {
+        StepModel model = loadTriangulatedFaceSet();
+
+        // one ring for each of 12 triangles
+        PolygonGeometry faces = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(5),
+                BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(12, faces.getPartCount());
+        assertEquals(36, faces.getPointCount());
+        assertEquals(PolygonGeometry.PartType.OUTER_RING, faces.getPartType(11));
+        List<Vector3D> top = faces.getPart(2);
+        assertVector(0.0, 0.0, 3.0, top.get(0));
+        assertVector(2.0, 0.0, 3.0, top.get(1));
+        assertVector(2.0, 4.0, 3.0, top.get(2));
+
+        PolygonGeometry section = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(5),
+                BIMtoOSMUtility.GeometrySolution.BODY, new BrepFootprint(BrepFootprint.Mode.CUT_PLANE, 1.0));
+        assertEquals(1, section.getPartCount());
+        assertEquals(5, section.getPointCount());
+        for (Vector3D point : section.getPart(0)) {
+            assertEquals(1.0, point.getZ(), 1e-9);
+        }
+
+        // projected triangles are merged into the outline of the box
+        PolygonGeometry projection = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(5),
+                BIMtoOSMUtility.GeometrySolution.BODY, BrepFootprint.projection());
+        assertEquals(1, projection.getPartCount());
+        assertEquals(PolygonGeometry.PartType.OUTER_RING, projection.getPartType(0));
+        assertEquals(5, projection.getPointCount());
+        for (Vector3D point : projection.getPart(0)) {
+            assertTrue(point.getX() == 0.0 || point.getX() == 2.0);
+            assertTrue(point.getY() == 0.0 || point.getY() == 4.0);
+        }
+    }
+
+    /**
+     * Test case for {@link IfcGeometryExtractor#getDataFromBodyRepresentation} method indexing points of
+     * IfcTriangulatedFaceSet without PnIndex directly, NormalIndex does not refer to points.
+     */
+    @Test
+    public void testTriangulatedFaceSetNormalIndex() throws IOException {
+        StepModel model = loadTriangulatedFaceSet("(8,7,6,5,4,3,2,1)");
+
+        PolygonGeometry faces = BIMtoOSMUtility.getShapeData(model, new GeometryCache(), model.getInstance(5),
+                BIMtoOSMUtility.GeometrySolution.BODY, null);
+        assertEquals(12, faces.getPartCount());
+        // first triangle (1,4,3) lies on bottom face
+        List<Vector3D> triangle = faces.getPart(0);
+        assertVector(0.0, 0.0, 0.0, triangle.get(0));
+        assertVector(0.0, 4.0, 0.0, triangle.get(1));
+        assertVector(2.0, 4.0, 0.0, triangle.get(2));
+    }
+
+    /**
+     * Box 2 x 4 x 3 described by IfcTriangulatedFaceSet
+     */
+    private static StepModel loadTriangulatedFaceSet() throws IOException {
+        return loadTriangulatedFaceSet("$");
+    }
+
+    /**
+     * Box 2 x 4 x 3 described by IfcTriangulatedFaceSet
+     *
+     * @param normalIndex value of NormalIndex attribute
+     */
+    private static StepModel loadTriangulatedFaceSet(String normalIndex) throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC4'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINTLIST3D(((0.,0.,0.),(2.,0.,0.),(2.,4.,0.),(0.,4.,0.),"
+                + "(0.,0.,3.),(2.,0.,3.),(2.,4.,3.),(0.,4.,3.)));\n"
+                + "#2=IFCTRIANGULATEDFACESET(#1,$,.T.,((1,4,3),(1,3,2),(5,6,7),(5,7,8),(1,2,6),(1,6,5),"
+                + "(2,3,7),(2,7,6),(3,4,8),(3,8,7),(4,1,5),(4,5,8))," + normalIndex + ");\n"
+                + "#3=IFCSHAPEREPRESENTATION($,'Body','Tessellation',(#2));\n"
+                + "#4=IFCPRODUCTDEFINITIONSHAPE($,$,(#3));\n"
+                + "#5=IFCCOLUMN('c1',$,$,$,$,$,#4,$,$);\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        Path file = Files.createTempFile("ifcGeometryExtractorTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return StepModel.load(file, ExpressSchema.parse(Paths.get("resources/IFC4.exp")));
+    }
+
+    /**
+     * Box 2 x 4 x 3 described by IfcFacetedBrep
+     */
+    private static StepModel loadBrep() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINT((0.,0.,0.));\n"
+                + "#2=IFCCARTESIANPOINT((2.,0.,0.));\n"
+                + "#3=IFCCARTESIANPOINT((2.,4.,0.));\n"
+                + "#4=IFCCARTESIANPOINT((0.,4.,0.));\n"
+                + "#5=IFCCARTESIANPOINT((0.,0.,3.));\n"
+                + "#6=IFCCARTESIANPOINT((2.,0.,3.));\n"
+                + "#7=IFCCARTESIANPOINT((2.,4.,3.));\n"
+                + "#8=IFCCARTESIANPOINT((0.,4.,3.));\n"
+                + "#9=IFCPOLYLOOP((#1,#4,#3,#2));\n"
+                + "#10=IFCPOLYLOOP((#5,#6,#7,#8));\n"
+                + "#11=IFCPOLYLOOP((#1,#2,#6,#5));\n"
+                + "#12=IFCPOLYLOOP((#2,#3,#7,#6));\n"
+                + "#13=IFCPOLYLOOP((#3,#4,#8,#7));\n"
+                + "#14=IFCPOLYLOOP((#4,#1,#5,#8));\n"
+                + "#15=IFCFACEOUTERBOUND(#9,.T.);\n"
+                + "#16=IFCFACEOUTERBOUND(#10,.T.);\n"
+                + "#17=IFCFACEOUTERBOUND(#11,.T.);\n"
+                + "#18=IFCFACEOUTERBOUND(#12,.T.);\n"
+                + "#19=IFCFACEOUTERBOUND(#13,.T.);\n"
+                + "#20=IFCFACEOUTERBOUND(#14,.T.);\n"
+                + "#21=IFCFACE((#15));\n"
+                + "#22=IFCFACE((#16));\n"
+                + "#23=IFCFACE((#17));\n"
+                + "#24=IFCFACE((#18));\n"
+                + "#25=IFCFACE((#19));\n"
+                + "#26=IFCFACE((#20));\n"
+                + "#27=IFCCLOSEDSHELL((#21,#22,#23,#24,#25,#26));\n"
+                + "#28=IFCFACETEDBREP(#27);\n"
+                + "#29=IFCSHAPEREPRESENTATION($,'Body','Brep',(#28));\n"
+                + "#30=IFCPRODUCTDEFINITIONSHAPE($,$,(#29));\n"
+                + "#31=IFCCOLUMN('c1',$,$,$,$,$,#30,$);\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        Path file = Files.createTempFile("ifcGeometryExtractorTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return StepModel.load(file, ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+    }
+
+    private static StepModel loadMappedItems() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINT((0.,0.,0.));\n"
+                + "#2=IFCAXIS2PLACEMENT2D(#1,$);\n"
+                + "#3=IFCRECTANGLEPROFILEDEF(.AREA.,$,#2,2.,4.);\n"
+                + "#4=IFCDIRECTION((0.,0.,1.));\n"
+                + "#5=IFCAXIS2PLACEMENT3D(#1,$,$);\n"
+                + "#6=IFCEXTRUDEDAREASOLID(#3,#5,#4,3.);\n"
+                + "#7=IFCSHAPEREPRESENTATION($,'Body','SweptSolid',(#6));\n"
+                + "#8=IFCCARTESIANPOINT((1.,0.,0.));\n"
+                + "#9=IFCAXIS2PLACEMENT3D(#8,$,$);\n"
+                + "#10=IFCREPRESENTATIONMAP(#9,#7);\n"
+                + "#11=IFCCARTESIANTRANSFORMATIONOPERATOR3D($,$,#1,$,$);\n"
+                + "#12=IFCMAPPEDITEM(#10,#11);\n"
+                + "#13=IFCSHAPEREPRESENTATION($,'Body','MappedRepresentation',(#12));\n"
+                + "#14=IFCPRODUCTDEFINITIONSHAPE($,$,(#13));\n"
+                + "#15=IFCCOLUMN('c1',$,$,$,$,$,#14,$);\n"
+                + "#16=IFCCARTESIANPOINT((10.,0.,0.));\n"
+                + "#17=IFCDIRECTION((0.,1.,0.));\n"
+                + "#18=IFCCARTESIANTRANSFORMATIONOPERATOR3D(#17,$,#16,2.,$);\n"
+                + "#19=IFCMAPPEDITEM(#10,#18);\n"
+                + "#20=IFCSHAPEREPRESENTATION($,'Body','MappedRepresentation',(#19));\n"
+                + "#21=IFCPRODUCTDEFINITIONSHAPE($,$,(#20));\n"
+                + "#22=IFCCOLUMN('c2',$,$,$,$,$,#21,$);\n"
+                + "#23=IFCPRODUCTDEFINITIONSHAPE($,$,(#7));\n"
+                + "#24=IFCCOLUMN('c3',$,$,$,$,$,#23,$);\n"
+                + "#25=IFCCOLUMN('c4',$,$,$,$,$,#23,$);\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        Path file = Files.createTempFile("ifcGeometryExtractorTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return StepModel.load(file, ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+    }
+
+    private static void assertVector(double x, double y, double z, Vector3D vector) {
+        assertEquals(x, vector.getX(), 1e-9);
+        assertEquals(y, vector.getY(), 1e-9);
+        assertEquals(z, vector.getZ(), 1e-9);
+    }
+}
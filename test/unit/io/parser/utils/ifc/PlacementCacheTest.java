@@ -0,0 +1,126 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Transform3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.math.Vector3D;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.PlacementCache;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link PlacementCache} class.
+ */
+public class PlacementCacheTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link PlacementCache#getTransform} method resolving a placement chain.
+     */
+    @Test
+    public void testPlacementChain() throws IOException {
+        StepModel model = loadPlacementChain();
+        PlacementCache cache = new PlacementCache();
+
+        assertVector(10.0, 0.0, 0.0, cache.getTransform(model.getInstance(8)).getTranslation());
+        assertEquals(2, cache.size());
+
+        // #12 is rotated by 90 degrees around z-axis
+        Transform3D transform = cache.getTransform(model.getInstance(12));
+        assertEquals(3, cache.size());
+        assertVector(10.0, 5.0, 3.0, transform.getTranslation());
+        Vector3D point = new Vector3D(1.0, 0.0, 0.0);
+        transform.transform(point);
+        assertVector(10.0, 6.0, 3.0, point);
+
+        // root placement itself is not applied
+        assertVector(0.0, 0.0, 0.0, cache.getTransform(model.getInstance(5)).getTranslation());
+
+        // missing axes default to axes of parent
+        assertVector(10.0, 5.0, 3.0, cache.getTransform(model.getInstance(14)).getTranslation());
+        assertEquals(1.0, cache.getTransform(model.getInstance(14)).getLinear().getM00());
+        assertEquals(4, cache.size());
+
+        assertVector(0.0, 0.0, 0.0, cache.getTransform(null).getTranslation());
+    }
+
+    /**
+     * Test case for {@link PlacementCache#getTransform} method applying world transformation.
+     */
+    @Test
+    public void testWorldTransform() throws IOException {
+        StepModel model = loadPlacementChain();
+        PlacementCache cache = new PlacementCache(Transform3D.scale(0.001));
+
+        Vector3D point = new Vector3D(1000.0, 0.0, 0.0);
+        cache.getTransform(model.getInstance(12)).transform(point);
+        assertVector(0.01, 1.005, 0.003, point);
+        assertEquals(0.001, cache.getTransform(null).getLinear().getM11());
+    }
+
+    /**
+     * Test case for {@link PlacementCache} sharing resolved parent placements using IFC2X3 test file.
+     */
+    @Test
+    public void testSharedPlacements() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        PlacementCache cache = new PlacementCache();
+
+        int walls = 0;
+        for (IfcEntity wall : model.getInstancesOfType("IfcWallStandardCase")) {
+            assertNotNull(cache.getTransform(wall.getAttributeValueBNasEntityInstance("ObjectPlacement")));
+            walls++;
+        }
+        // every wall has its own placement, parents are resolved once
+        assertTrue(cache.size() < 2 * walls);
+
+        IfcEntity placement = model.getInstance(67).getAttributeValueBNasEntityInstance("ObjectPlacement");
+        Transform3D transform = cache.getTransform(placement);
+        assertNotSame(transform, cache.getTransform(placement));
+        assertTrue(transform.getTranslation().equalsVector(cache.getTransform(placement).getTranslation()));
+    }
+
+    private static StepModel loadPlacementChain() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCCARTESIANPOINT((0.,0.,0.));\n"
+                + "#2=IFCDIRECTION((0.,0.,1.));\n"
+                + "#3=IFCDIRECTION((1.,0.,0.));\n"
+                + "#4=IFCAXIS2PLACEMENT3D(#1,#2,#3);\n"
+                + "#5=IFCLOCALPLACEMENT($,#4);\n"
+                + "#6=IFCCARTESIANPOINT((10.,0.,0.));\n"
+                + "#7=IFCAXIS2PLACEMENT3D(#6,#2,#3);\n"
+                + "#8=IFCLOCALPLACEMENT(#5,#7);\n"
+                + "#9=IFCDIRECTION((0.,1.,0.));\n"
+                + "#10=IFCCARTESIANPOINT((0.,5.,3.));\n"
+                + "#11=IFCAXIS2PLACEMENT3D(#10,#2,#9);\n"
+                + "#12=IFCLOCALPLACEMENT(#8,#11);\n"
+                + "#13=IFCAXIS2PLACEMENT3D(#10,$,$);\n"
+                + "#14=IFCLOCALPLACEMENT(#8,#13);\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        Path file = Files.createTempFile("placementCacheTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return StepModel.load(file, ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+    }
+
+    private static void assertVector(double x, double y, double z, Vector3D vector) {
+        assertEquals(x, vector.getX(), 1e-9);
+        assertEquals(y, vector.getY(), 1e-9);
+        assertEquals(z, vector.getZ(), 1e-9);
+    }
+}
@@ -0,0 +1,112 @@
+// License: AGPL. For details, see LICENSE file.
+package io.parser.utils.ifc;
+
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.data.ifc.IfcEntity;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.ExpressSchema;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.step.StepModel;
+import org.openstreetmap.josm.plugins.indoorhelper.io.parser.utils.ifc.StoreyLevelResolver;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests of {@link StoreyLevelResolver} class.
+ */
+public class StoreyLevelResolverTest {
+
+    String resourcePathDir = TestUtils.getTestDataRoot();
+
+    /**
+     * Test case for {@link StoreyLevelResolver#getLevel} method using IFC2X3 test file.
+     */
+    @Test
+    public void testGetLevel() throws IOException {
+        StepModel model = StepModel.load(Paths.get(resourcePathDir + "test2_IFC2X3_TC1.ifc"),
+                ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+        StoreyLevelResolver resolver = new StoreyLevelResolver(model, 100.0);
+
+        assertEquals(5, resolver.getStoreys().size());
+        assertEquals(5, resolver.getLevelCount());
+        // storey at -800 mm is below storey closest to elevation 0
+        assertEquals(-1, resolver.getLevel(model.getInstance(1069)));
+        assertEquals(-800.0, resolver.getElevation(-1));
+        for (IfcEntity storey : resolver.getStoreys()) {
+            assertEquals(storey.getAttributeValueBNasDouble("Elevation"), resolver.getElevation(resolver.getLevel(storey)));
+        }
+        assertNull(resolver.getLevel(model.getInstance(67)));
+        assertTrue(Double.isNaN(resolver.getElevation(10)));
+    }
+
+    /**
+     * Test case for {@link StoreyLevelResolver} grouping storeys of similar elevation.
+     */
+    @Test
+    public void testElevationTolerance() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCPROJECT('p',$,$,$,$,$,$,$,$);\n"
+                + "#2=IFCBUILDING('b',$,$,$,$,$,$,$,.ELEMENT.,$,$,$);\n"
+                + "#3=IFCBUILDINGSTOREY('s1',$,$,$,$,$,$,$,.ELEMENT.,-3.);\n"
+                + "#4=IFCBUILDINGSTOREY('s2',$,$,$,$,$,$,$,.ELEMENT.,0.02);\n"
+                + "#5=IFCBUILDINGSTOREY('s3',$,$,$,$,$,$,$,.ELEMENT.,0.);\n"
+                + "#6=IFCBUILDINGSTOREY('s4',$,$,$,$,$,$,$,.ELEMENT.,3.5);\n"
+                + "#7=IFCBUILDINGSTOREY('s5',$,$,$,$,$,$,$,.ELEMENT.,$);\n"
+                + "#8=IFCRELAGGREGATES('r1',$,$,$,#1,(#2));\n"
+                + "#9=IFCRELAGGREGATES('r2',$,$,$,#2,(#6,#5,#4,#3));\n"
+                + "#10=IFCRELAGGREGATES('r3',$,$,$,#2,(#3));\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = loadModel(content);
+        StoreyLevelResolver resolver = new StoreyLevelResolver(model, 0.05);
+
+        assertEquals(5, resolver.getStoreys().size());
+        assertEquals(model.getInstance(6), resolver.getStoreys().get(0));
+        assertEquals(3, resolver.getLevelCount());
+        assertEquals(-1, resolver.getLevel(model.getInstance(3)));
+        assertEquals(0, resolver.getLevel(model.getInstance(4)));
+        assertEquals(0, resolver.getLevel(model.getInstance(5)));
+        assertEquals(1, resolver.getLevel(model.getInstance(6)));
+        assertNull(resolver.getLevel(model.getInstance(7)));
+        assertEquals(0.0, resolver.getElevation(0));
+    }
+
+    /**
+     * Test case for {@link StoreyLevelResolver} grouping storeys spaced by 0.8 times the tolerance. Storeys are
+     * compared with the lowest storey of a level, so the third storey starts a new level.
+     */
+    @Test
+    public void testElevationToleranceChain() throws IOException {
+        String content = "ISO-10303-21;\nHEADER;\nFILE_SCHEMA(('IFC2X3'));\nENDSEC;\nDATA;\n"
+                + "#1=IFCPROJECT('p',$,$,$,$,$,$,$,$);\n"
+                + "#2=IFCBUILDING('b',$,$,$,$,$,$,$,.ELEMENT.,$,$,$);\n"
+                + "#3=IFCBUILDINGSTOREY('s1',$,$,$,$,$,$,$,.ELEMENT.,0.);\n"
+                + "#4=IFCBUILDINGSTOREY('s2',$,$,$,$,$,$,$,.ELEMENT.,0.8);\n"
+                + "#5=IFCBUILDINGSTOREY('s3',$,$,$,$,$,$,$,.ELEMENT.,1.6);\n"
+                + "#6=IFCRELAGGREGATES('r1',$,$,$,#1,(#2));\n"
+                + "#7=IFCRELAGGREGATES('r2',$,$,$,#2,(#3,#4,#5));\n"
+                + "ENDSEC;\nEND-ISO-10303-21;\n";
+        StepModel model = loadModel(content);
+        StoreyLevelResolver resolver = new StoreyLevelResolver(model, 1.0);
+
+        assertEquals(2, resolver.getLevelCount());
+        assertEquals(0, resolver.getLevel(model.getInstance(3)));
+        assertEquals(0, resolver.getLevel(model.getInstance(4)));
+        assertEquals(1, resolver.getLevel(model.getInstance(5)));
+        assertEquals(0.0, resolver.getElevation(0));
+        assertEquals(1.6, resolver.getElevation(1));
+    }
+
+    private static StepModel loadModel(String content) throws IOException {
+        Path file = Files.createTempFile("storeyLevelResolverTest", ".ifc");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return StepModel.load(file, ExpressSchema.parse(Paths.get("resources/IFC2X3_TC1.exp")));
+    }
+}